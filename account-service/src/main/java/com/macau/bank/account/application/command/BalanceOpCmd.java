@@ -0,0 +1,51 @@
+package com.macau.bank.account.application.command;
+
+import com.macau.bank.common.core.enums.BalanceOpType;
+import com.macau.bank.common.core.enums.BizType;
+import com.macau.bank.common.core.enums.FreezeType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * 批量记账单条分录命令
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BalanceOpCmd {
+
+    /** 操作类型 */
+    private BalanceOpType opType;
+
+    /** 账户号 */
+    private String accountNo;
+
+    /** 币种代码 */
+    private String currencyCode;
+
+    /** 金额 (必须为正数) */
+    private BigDecimal amount;
+
+    /** 业务描述/原因 */
+    private String description;
+
+    /** 业务流水号 */
+    private String bizNo;
+
+    /** 幂等请求ID */
+    private String requestId;
+
+    /** 业务类型 */
+    private BizType bizType;
+
+    /** 冻结流水号 */
+    private String flowNo;
+
+    /** 冻结类型 */
+    private FreezeType freezeType;
+}
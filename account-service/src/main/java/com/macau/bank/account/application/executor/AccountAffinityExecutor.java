@@ -0,0 +1,309 @@
+package com.macau.bank.account.application.executor;
+
+import com.macau.bank.account.common.result.AccountErrorCode;
+import com.macau.bank.account.domain.model.AdjustmentOutcome;
+import com.macau.bank.account.domain.model.BalanceAdjustment;
+import com.macau.bank.account.domain.service.AccountBalanceDomainService;
+import com.macau.bank.account.infra.config.BalanceCombinerProperties;
+import com.macau.bank.common.core.exception.BusinessException;
+import com.macau.bank.common.core.exception.SystemException;
+import com.macau.bank.common.framework.lock.config.MacauLockProperties;
+import com.macau.bank.common.framework.lock.support.TwoTierLockManager;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 账户亲和的记账合并执行器 (单写线程 + 组提交)
+ * <p>
+ * - 账号按哈希固定路由到一个单写线程，同一账户的入账/出账在本节点只由该线程执行
+ * - 单写线程每次取出队列中已到达的全部请求 (不额外等待)，按账户+币种分组，
+ *   每组在账户锁内以一个事务执行：一次余额 UPDATE、一次多行分户账 INSERT、一次 HMAC 重算
+ * - 每个请求各自返回结果：余额不足等业务拒绝只影响该请求
+ * - 合并事务整体失败 (如其他节点已写入相同请求ID) 时在锁内逐笔重试，异常返回给对应调用方
+ * - 账户锁与 {@code @RedissonLock(key = "'lock:account:' + #cmd.accountNo")} 为同一把锁，与逐笔路径互斥
+ * - 单写线程执行前认领请求，调用方等待超时时撤销请求，二者只有一方成功：
+ *   撤销成功的请求不会再执行，按业务失败返回；已被认领的请求结果未知，按系统异常返回，由上游以相同请求ID重试
+ * </p>
+ * 指标：合并批次数、请求数、最大批大小、逐笔重试批次数、撤销请求数、队列深度，见 {@link #metrics()}。
+ */
+@Slf4j
+@Component
+public class AccountAffinityExecutor {
+
+    private static final String LOCK_KEY_PREFIX = "lock:account:";
+
+    @Resource
+    private AccountBalanceDomainService accountBalanceDomainService;
+
+    @Resource
+    private TwoTierLockManager twoTierLockManager;
+
+    @Resource
+    private MacauLockProperties macauLockProperties;
+
+    @Resource
+    private BalanceCombinerProperties balanceCombinerProperties;
+
+    @Resource
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    private List<BlockingQueue<PendingOp>> queues;
+
+    private List<Thread> workers;
+
+    private volatile boolean running;
+
+    private final LongAdder batchCount = new LongAdder();
+    private final LongAdder opCount = new LongAdder();
+    private final LongAdder fallbackBatchCount = new LongAdder();
+    private final LongAdder withdrawnCount = new LongAdder();
+    private final AtomicLong maxBatchSize = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        if (!balanceCombinerProperties.isEnabled()) {
+            return;
+        }
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        int stripes = Math.max(1, balanceCombinerProperties.getStripes());
+        queues = new ArrayList<>(stripes);
+        workers = new ArrayList<>(stripes);
+        running = true;
+        for (int i = 0; i < stripes; i++) {
+            BlockingQueue<PendingOp> queue = new ArrayBlockingQueue<>(balanceCombinerProperties.getQueueCapacity());
+            Thread worker = new Thread(() -> runLoop(queue), "account-combiner-" + i);
+            worker.setDaemon(true);
+            queues.add(queue);
+            workers.add(worker);
+            worker.start();
+        }
+        log.info("记账合并执行器已启动: stripes={}, maxBatchSize={}", stripes,
+                balanceCombinerProperties.getMaxBatchSize());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (workers == null) {
+            return;
+        }
+        running = false;
+        for (Thread worker : workers) {
+            worker.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        // 未执行的请求直接失败，调用方按失败处理 (上游以相同请求ID重试)
+        for (BlockingQueue<PendingOp> queue : queues) {
+            List<PendingOp> remaining = new ArrayList<>();
+            queue.drainTo(remaining);
+            remaining.forEach(op -> op.result().completeExceptionally(
+                    new IllegalStateException("记账合并执行器已关闭")));
+        }
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * 提交一笔入账/出账
+     *
+     * @return 执行结果；执行器未运行或队列已满时返回 null，调用方应逐笔执行
+     */
+    public CompletableFuture<Void> submit(BalanceAdjustment adjustment) {
+        if (!running) {
+            return null;
+        }
+        PendingOp op = new PendingOp(adjustment, new PendingResult());
+        return queueOf(adjustment.getAccountNo()).offer(op) ? op.result() : null;
+    }
+
+    /**
+     * 等待执行结果，业务拒绝原样抛出
+     * <p>
+     * 等待超时 (须小于 RPC 提供方超时) 时撤销尚未执行的请求并返回排队超时；
+     * 请求已被单写线程认领时无法撤销，结果未知，抛出系统异常，不能当作业务失败
+     */
+    public void await(CompletableFuture<Void> result) {
+        try {
+            result.get(balanceCombinerProperties.getAwaitTimeoutMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw abandon(result);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw abandon(result);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private RuntimeException abandon(CompletableFuture<Void> result) {
+        if (result instanceof PendingResult pending && pending.withdraw()) {
+            withdrawnCount.increment();
+            return new BusinessException(AccountErrorCode.BALANCE_COMBINE_TIMEOUT);
+        }
+        return new SystemException("记账处理中，结果未知，请以相同请求ID重试");
+    }
+
+    /**
+     * 执行指标快照
+     */
+    public CombinerMetrics metrics() {
+        long batches = batchCount.sum();
+        long ops = opCount.sum();
+        int depth = queues == null ? 0 : queues.stream().mapToInt(BlockingQueue::size).sum();
+        return new CombinerMetrics(batches, ops, fallbackBatchCount.sum(), withdrawnCount.sum(), maxBatchSize.get(),
+                batches == 0 ? 0D : (double) ops / batches, depth);
+    }
+
+    private BlockingQueue<PendingOp> queueOf(String accountNo) {
+        return queues.get(Math.floorMod(accountNo.hashCode(), queues.size()));
+    }
+
+    private void runLoop(BlockingQueue<PendingOp> queue) {
+        int maxBatch = Math.max(1, balanceCombinerProperties.getMaxBatchSize());
+        List<PendingOp> batch = new ArrayList<>(maxBatch);
+
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingOp first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // 只合并已到达的请求：上一批执行期间排队的请求自然成批，低负载时不增加延迟
+                queue.drainTo(batch, maxBatch - 1);
+            } catch (InterruptedException e) {
+                Thread.interrupted();
+            }
+
+            // 调用方已撤销的请求不再执行
+            batch.removeIf(op -> !op.result().claim());
+            if (!batch.isEmpty()) {
+                for (List<PendingOp> group : groupByAccount(batch)) {
+                    execute(group);
+                }
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 按账户+币种分组，组内保持到达顺序
+     */
+    private static Iterable<List<PendingOp>> groupByAccount(List<PendingOp> batch) {
+        Map<String, List<PendingOp>> groups = new LinkedHashMap<>();
+        for (PendingOp op : batch) {
+            BalanceAdjustment adjustment = op.adjustment();
+            groups.computeIfAbsent(adjustment.getAccountNo() + ":" + adjustment.getAmount().getCurrencyCode(),
+                    k -> new ArrayList<>()).add(op);
+        }
+        return groups.values();
+    }
+
+    private void execute(List<PendingOp> group) {
+        String accountNo = group.get(0).adjustment().getAccountNo();
+        List<BalanceAdjustment> adjustments = group.stream().map(PendingOp::adjustment).toList();
+        try {
+            List<AdjustmentOutcome> outcomes = twoTierLockManager.execute(LOCK_KEY_PREFIX + accountNo,
+                    macauLockProperties.getWaitTime(), macauLockProperties.getLeaseTime(), TimeUnit.SECONDS,
+                    "系统繁忙，请勿重复提交", () -> executeLocked(adjustments));
+            for (int i = 0; i < group.size(); i++) {
+                AdjustmentOutcome outcome = outcomes.get(i);
+                if (outcome.isSuccess()) {
+                    group.get(i).result().complete(null);
+                } else {
+                    group.get(i).result().completeExceptionally(outcome.getError());
+                }
+            }
+        } catch (Throwable e) {
+            group.forEach(op -> op.result().completeExceptionally(e));
+        }
+        batchCount.increment();
+        opCount.add(group.size());
+        maxBatchSize.accumulateAndGet(group.size(), Math::max);
+    }
+
+    /**
+     * 持有账户锁时执行：先合并执行，整体失败后逐笔重试
+     */
+    private List<AdjustmentOutcome> executeLocked(List<BalanceAdjustment> adjustments) {
+        if (adjustments.size() > 1) {
+            try {
+                return transactionTemplate.execute(
+                        status -> accountBalanceDomainService.adjustBalanceCombined(adjustments));
+            } catch (RuntimeException e) {
+                log.warn("合并记账失败，逐笔重试: accountNo={}, size={}, error={}",
+                        adjustments.get(0).getAccountNo(), adjustments.size(), e.getMessage());
+                fallbackBatchCount.increment();
+            }
+        }
+        List<AdjustmentOutcome> outcomes = new ArrayList<>(adjustments.size());
+        for (BalanceAdjustment adjustment : adjustments) {
+            try {
+                transactionTemplate.executeWithoutResult(
+                        status -> accountBalanceDomainService.adjustBalance(adjustment));
+                outcomes.add(AdjustmentOutcome.success());
+            } catch (RuntimeException e) {
+                outcomes.add(AdjustmentOutcome.rejected(e));
+            }
+        }
+        return outcomes;
+    }
+
+    private record PendingOp(BalanceAdjustment adjustment, PendingResult result) {
+    }
+
+    /**
+     * 单笔请求的结果：单写线程认领与调用方撤销竞争同一标记，只有先到的一方成功
+     */
+    private static final class PendingResult extends CompletableFuture<Void> {
+
+        private final AtomicBoolean taken = new AtomicBoolean();
+
+        boolean claim() {
+            return taken.compareAndSet(false, true);
+        }
+
+        boolean withdraw() {
+            return taken.compareAndSet(false, true);
+        }
+    }
+
+    /**
+     * 合并执行指标
+     *
+     * @param batches         累计合并批次数 (每组账户一次)
+     * @param ops             累计请求数
+     * @param fallbackBatches 合并失败后逐笔重试的批次数
+     * @param withdrawn       等待超时后撤销、未执行的请求数
+     * @param maxBatchSize    最大批大小
+     * @param avgBatchSize    平均批大小
+     * @param queueDepth      当前排队请求数
+     */
+    public record CombinerMetrics(long batches, long ops, long fallbackBatches, long withdrawn, long maxBatchSize,
+            double avgBatchSize, int queueDepth) {
+    }
+}
@@ -20,4 +20,8 @@ public class TransactionFlowQuery implements Serializable {
     private BizType bizType;
     private Integer page;
     private Integer pageSize;
+    /** 键集分页游标，为空表示第一页 */
+    private String cursor;
+    /** 键集分页是否同时统计总数 */
+    private boolean withTotal;
 }
@@ -0,0 +1,26 @@
+package com.macau.bank.account.application.result;
+
+import com.macau.bank.common.core.enums.BalanceOpType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 批量记账单条分录结果
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BalanceOpResult implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private BalanceOpType opType;
+    private String accountNo;
+    private String requestId;
+    private String flowNo;
+    private Boolean success;
+}
@@ -0,0 +1,22 @@
+package com.macau.bank.account.application.result;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 交易流水键集分页结果
+ */
+@Data
+@Builder
+public class TransactionFlowSeekResult implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private List<TransactionFlowResult> records;
+    /** 下一页游标，没有更多数据时为 null */
+    private String nextCursor;
+    private boolean hasMore;
+    /** 总条数，仅在请求统计总数时返回 */
+    private Long total;
+}
@@ -8,10 +8,13 @@ import com.macau.bank.account.application.query.AssetSummaryQuery;
 import com.macau.bank.account.application.query.TransactionFlowQuery;
 import com.macau.bank.account.application.result.AccountInfoResult;
 import com.macau.bank.account.application.result.AssetSummaryResult;
+import com.macau.bank.account.application.result.BalanceOpResult;
 import com.macau.bank.account.application.result.TransactionFlowResult;
+import com.macau.bank.account.application.result.TransactionFlowSeekResult;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * 账户应用服务接口
@@ -71,6 +74,20 @@ public interface AccountAppService {
      */
     boolean credit(CreditCmd cmd);
 
+    /**
+     * 扣款 (同账户合并执行)
+     * <p>
+     * 开启合并执行器且不在外部事务中时，与同一账户的其他并发请求合并为一次余额更新；否则等同 {@link #debit(DebitCmd)}
+     */
+    boolean debitCombined(DebitCmd cmd);
+
+    /**
+     * 入账 (同账户合并执行)
+     * <p>
+     * 开启合并执行器且不在外部事务中时，与同一账户的其他并发请求合并为一次余额更新；否则等同 {@link #credit(CreditCmd)}
+     */
+    boolean creditCombined(CreditCmd cmd);
+
     /**
      * 冻结余额
      */
@@ -88,11 +105,28 @@ public interface AccountAppService {
      */
     boolean unfreezeAndDebit(UnfreezeAndDebitCmd cmd);
 
+    /**
+     * 批量记账（原子操作）
+     * <p>
+     * 按顺序执行多条分录，全部分录在同一个本地事务中提交或回滚
+     */
+    List<BalanceOpResult> executeBatch(List<BalanceOpCmd> ops);
+
     /**
      * 分页获取交易流水
      */
     Page<TransactionFlowResult> getTransactionFlows(TransactionFlowQuery query);
 
+    /**
+     * 键集分页获取交易流水 (按交易时间倒序，游标翻页，可选统计总数)
+     */
+    TransactionFlowSeekResult seekTransactionFlows(TransactionFlowQuery query);
+
+    /**
+     * 流式导出交易流水 (按交易时间倒序)，逐条交给 consumer
+     */
+    void exportTransactionFlows(TransactionFlowQuery query, Consumer<TransactionFlowResult> consumer);
+
     /**
      * 管理员充值 (仅限后台)
      */
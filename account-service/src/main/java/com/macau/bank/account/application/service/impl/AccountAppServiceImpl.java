@@ -3,6 +3,7 @@ package com.macau.bank.account.application.service.impl;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.macau.bank.account.application.assembler.AccountDomainAssembler;
+import com.macau.bank.account.application.executor.AccountAffinityExecutor;
 import com.macau.bank.account.application.assembler.TransactionFlowDomainAssembler;
 import com.macau.bank.account.application.command.*;
 import com.macau.bank.account.application.query.AccountListQuery;
@@ -11,31 +12,47 @@ import com.macau.bank.account.application.query.AssetSummaryQuery;
 import com.macau.bank.account.application.query.TransactionFlowQuery;
 import com.macau.bank.account.application.result.AccountInfoResult;
 import com.macau.bank.account.application.result.AssetSummaryResult;
+import com.macau.bank.account.application.result.BalanceOpResult;
 import com.macau.bank.account.application.result.TransactionFlowResult;
+import com.macau.bank.account.application.result.TransactionFlowSeekResult;
 import com.macau.bank.account.application.service.AccountAppService;
 import com.macau.bank.account.common.result.AccountErrorCode;
 import com.macau.bank.account.domain.entity.AccountBalance;
 import com.macau.bank.account.domain.entity.AccountInfo;
 import com.macau.bank.account.domain.entity.AccountSubLedger;
 import com.macau.bank.account.domain.model.BalanceAdjustment;
+import com.macau.bank.account.domain.model.SubLedgerCursor;
+import com.macau.bank.account.domain.model.SubLedgerQuery;
+import com.macau.bank.account.domain.model.UserAccountView;
 import com.macau.bank.account.domain.model.UserAssetView;
 import com.macau.bank.account.domain.service.AccountDomainService;
 import com.macau.bank.account.domain.service.AccountBalanceDomainService;
+import com.macau.bank.account.domain.service.HotAccountDomainService;
 import com.macau.bank.api.currency.service.CurrencyRpcService;
 import com.macau.bank.api.user.response.UserInfoRpcResponse;
 import com.macau.bank.api.user.service.UserRpcService;
 import com.macau.bank.common.core.domain.Money;
 import com.macau.bank.common.core.enums.BizType;
 import com.macau.bank.common.core.enums.Currency;
+import com.macau.bank.common.core.enums.FreezeType;
 import com.macau.bank.common.core.exception.BusinessException;
 import com.macau.bank.common.core.util.IdGenerator;
 import com.macau.bank.common.framework.lock.annotation.RedissonLock;
+import com.macau.bank.common.framework.lock.config.MacauLockProperties;
+import io.seata.core.context.RootContext;
+import jakarta.annotation.PostConstruct;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.dubbo.config.annotation.DubboReference;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import com.macau.bank.account.infra.tcc.TccProtectionService;
 
 import java.math.BigDecimal;
@@ -43,6 +60,10 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -58,6 +79,27 @@ public class AccountAppServiceImpl implements AccountAppService {
     @Resource
     private TccProtectionService tccProtectionService;
 
+    @Resource
+    private HotAccountDomainService hotAccountDomainService;
+
+    @Resource
+    private AccountAffinityExecutor accountAffinityExecutor;
+
+    @Resource
+    @Lazy
+    private AccountAppService self;
+
+    @Resource
+    private RedissonClient redissonClient;
+
+    @Resource
+    private MacauLockProperties macauLockProperties;
+
+    @Resource
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
     @DubboReference
     private CurrencyRpcService currencyRpcService;
 
@@ -76,6 +118,17 @@ public class AccountAppServiceImpl implements AccountAppService {
     @Value("${admin.secret}")
     private String adminSecret;
 
+    /**
+     * 批量记账单次最大分录数
+     */
+    @Value("${account.batch.max-ops:50}")
+    private int maxBatchOps = 50;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
     @Override
     public Page<TransactionFlowResult> getTransactionFlows(TransactionFlowQuery query) {
         log.info("应用服务 - 分页查询流水: query={}", query);
@@ -98,19 +151,67 @@ public class AccountAppServiceImpl implements AccountAppService {
         return resultPage;
     }
 
+    @Override
+    public TransactionFlowSeekResult seekTransactionFlows(TransactionFlowQuery query) {
+        log.info("应用服务 - 键集分页查询流水: query={}", query);
+
+        SubLedgerQuery subLedgerQuery = toSubLedgerQuery(query, SubLedgerCursor.decode(query.getCursor()));
+        int pageSize = query.getPageSize();
+        // 多取一条判断是否还有下一页
+        List<AccountSubLedger> rows = accountDomainService.seekSubLedgers(subLedgerQuery, pageSize + 1);
+        boolean hasMore = rows.size() > pageSize;
+        if (hasMore) {
+            rows = rows.subList(0, pageSize);
+        }
+
+        String nextCursor = null;
+        if (hasMore) {
+            AccountSubLedger last = rows.get(rows.size() - 1);
+            nextCursor = new SubLedgerCursor(last.getTransTime(), last.getId()).encode();
+        }
+        return TransactionFlowSeekResult.builder()
+                .records(transactionFlowDomainAssembler.toResultList(rows))
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .total(query.isWithTotal() ? accountDomainService.countSubLedgers(subLedgerQuery) : null)
+                .build();
+    }
+
+    @Override
+    public void exportTransactionFlows(TransactionFlowQuery query, Consumer<TransactionFlowResult> consumer) {
+        log.info("应用服务 - 导出流水: query={}", query);
+        accountDomainService.streamSubLedgers(toSubLedgerQuery(query, null),
+                subLedger -> consumer.accept(transactionFlowDomainAssembler.toResult(subLedger)));
+    }
+
+    private SubLedgerQuery toSubLedgerQuery(TransactionFlowQuery query, SubLedgerCursor cursor) {
+        return SubLedgerQuery.builder()
+                .userNo(query.getUserNo())
+                .accountNo(query.getAccountNo())
+                .currencyCode(query.getCurrencyCode())
+                .startDate(query.getStartDate())
+                .endDate(query.getEndDate())
+                .direction(query.getDirection())
+                .bizType(query.getBizType())
+                .cursorTime(cursor == null ? null : cursor.transTime())
+                .cursorId(cursor == null ? null : cursor.id())
+                .build();
+    }
+
     @Override
     public AssetSummaryResult getAssetSummary(AssetSummaryQuery query) {
         String userNo = query.getUserNo();
         log.info("获取资产总览: userNo={}", userNo);
 
-        List<AccountInfo> accounts = accountDomainService.getAccountInfosByUserNo(userNo);
-        if (accounts == null || accounts.isEmpty()) {
+        UserAccountView userAccounts = accountDomainService.getUserAccountView(userNo);
+        if (userAccounts.getAccounts().isEmpty()) {
             return AssetSummaryResult.builder().totalMopValue(BigDecimal.ZERO).accounts(new ArrayList<>()).build();
         }
-        List<AccountBalance> balances = accountDomainService.getBalancesByUserNo(userNo);
+        List<AccountBalance> balances = userAccounts.getBalances();
 
         Map<String, BigDecimal> rateMap = fetchExchangeRates(balances);
-        UserAssetView assetView = accountDomainService.buildUserAssetView(accounts, balances, rateMap);
+        UserAssetView assetView = accountDomainService.buildUserAssetView(userAccounts.getAccounts(), balances,
+                rateMap);
 
         return AssetSummaryResult.builder()
                 .totalMopValue(assetView.getTotalMopValue())
@@ -123,12 +224,12 @@ public class AccountAppServiceImpl implements AccountAppService {
         String userNo = query.getUserNo();
         log.info("获取账户列表: userNo={}", userNo);
 
-        List<AccountInfo> accounts = accountDomainService.getAccountInfosByUserNo(userNo);
-        if (accounts == null || accounts.isEmpty()) {
+        UserAccountView userAccounts = accountDomainService.getUserAccountView(userNo);
+        if (userAccounts.getAccounts().isEmpty()) {
             return new ArrayList<>();
         }
-        List<AccountBalance> balances = accountDomainService.getBalancesByUserNo(userNo);
-        UserAssetView assetView = accountDomainService.buildUserAssetView(accounts, balances, new HashMap<>());
+        UserAssetView assetView = accountDomainService.buildUserAssetView(userAccounts.getAccounts(),
+                userAccounts.getBalances(), new HashMap<>());
 
         return buildAccountInfoResults(assetView);
     }
@@ -219,7 +320,8 @@ public class AccountAppServiceImpl implements AccountAppService {
     @Override
     @Deprecated
     @Transactional(rollbackFor = Exception.class)
-    @RedissonLock(key = "'lock:account:' + #cmd.accountNo")
+    @RedissonLock(key = "'lock:account:' + #cmd.accountNo",
+            condition = "!@hotAccountDomainService.isSharded(#cmd.accountNo)")
     public boolean adjustBalance(AdjustBalanceCmd cmd) {
         BalanceAdjustment adjustment = accountDomainAssembler.toBalanceAdjustment(cmd);
         return accountBalanceDomainService.adjustBalance(adjustment);
@@ -227,85 +329,241 @@ public class AccountAppServiceImpl implements AccountAppService {
 
     @Override
     @Transactional(rollbackFor = Exception.class)
-    @RedissonLock(key = "'lock:account:' + #cmd.accountNo")
+    @RedissonLock(key = "'lock:account:' + #cmd.accountNo",
+            condition = "!@hotAccountDomainService.isSharded(#cmd.accountNo)")
     public boolean debit(DebitCmd cmd) {
+        return applyDebit(cmd.getAccountNo(), cmd.getCurrencyCode(), cmd.getAmount(), cmd.getDescription(),
+                cmd.getBizNo(), cmd.getRequestId(), cmd.getBizType());
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    @RedissonLock(key = "'lock:account:' + #cmd.accountNo",
+            condition = "!@hotAccountDomainService.isSharded(#cmd.accountNo)")
+    public boolean credit(CreditCmd cmd) {
+        return applyCredit(cmd.getAccountNo(), cmd.getCurrencyCode(), cmd.getAmount(), cmd.getDescription(),
+                cmd.getBizNo(), cmd.getRequestId(), cmd.getBizType());
+    }
+
+    @Override
+    public boolean debitCombined(DebitCmd cmd) {
+        if (!canCombine(cmd.getAccountNo())) {
+            return self.debit(cmd);
+        }
+        BalanceAdjustment adjustment = toDebitAdjustment(cmd.getAccountNo(), cmd.getCurrencyCode(), cmd.getAmount(),
+                cmd.getDescription(), cmd.getBizNo(), cmd.getRequestId(), cmd.getBizType());
+        CompletableFuture<Void> result = accountAffinityExecutor.submit(adjustment);
+        if (result == null) {
+            return self.debit(cmd);
+        }
+        accountAffinityExecutor.await(result);
+        return true;
+    }
+
+    @Override
+    public boolean creditCombined(CreditCmd cmd) {
+        if (!canCombine(cmd.getAccountNo())) {
+            return self.credit(cmd);
+        }
+        BalanceAdjustment adjustment = toCreditAdjustment(cmd.getAccountNo(), cmd.getCurrencyCode(),
+                cmd.getAmount(), cmd.getDescription(), cmd.getBizNo(), cmd.getRequestId(), cmd.getBizType());
+        CompletableFuture<Void> result = accountAffinityExecutor.submit(adjustment);
+        if (result == null) {
+            return self.credit(cmd);
+        }
+        accountAffinityExecutor.await(result);
+        return true;
+    }
+
+    /**
+     * 是否交给合并执行器
+     * <p>
+     * 外部事务 / Seata 全局事务中不合并：合并事务独立提交，不受调用方事务回滚约束；
+     * 分片账户已按分片行分散写入，无需合并
+     */
+    private boolean canCombine(String accountNo) {
+        return accountAffinityExecutor.isRunning()
+                && !TransactionSynchronizationManager.isActualTransactionActive()
+                && !RootContext.inGlobalTransaction()
+                && !hotAccountDomainService.isSharded(accountNo);
+    }
+
+    private boolean applyDebit(String accountNo, String currencyCode, BigDecimal amount, String description,
+            String bizNo, String requestId, BizType bizType) {
+        BalanceAdjustment adjustment = toDebitAdjustment(accountNo, currencyCode, amount, description, bizNo,
+                requestId, bizType);
+        return accountBalanceDomainService.adjustBalance(adjustment);
+    }
+
+    private boolean applyCredit(String accountNo, String currencyCode, BigDecimal amount, String description,
+            String bizNo, String requestId, BizType bizType) {
+        BalanceAdjustment adjustment = toCreditAdjustment(accountNo, currencyCode, amount, description, bizNo,
+                requestId, bizType);
+        return accountBalanceDomainService.adjustBalance(adjustment);
+    }
+
+    private BalanceAdjustment toDebitAdjustment(String accountNo, String currencyCode, BigDecimal amount,
+            String description, String bizNo, String requestId, BizType bizType) {
         // 1. 校验金额必须为正数
-        if (cmd.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
+        if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
             throw new BusinessException(AccountErrorCode.INVALID_AMOUNT);
         }
 
         // 2. 组装 BalanceAdjustment (扣款为负数)
-        BalanceAdjustment adjustment = BalanceAdjustment.builder()
-                .accountNo(cmd.getAccountNo())
-                .amount(Money.of(cmd.getAmount().negate(), cmd.getCurrencyCode()))
-                .description(cmd.getDescription())
-                .bizNo(cmd.getBizNo())
-                .requestId(cmd.getRequestId())
-                .bizType(cmd.getBizType() != null ? cmd.getBizType() : BizType.TRANSFER_OUT) // 默认为转出
+        return BalanceAdjustment.builder()
+                .accountNo(accountNo)
+                .amount(Money.of(amount.negate(), currencyCode))
+                .description(description)
+                .bizNo(bizNo)
+                .requestId(requestId)
+                .bizType(bizType != null ? bizType : BizType.TRANSFER_OUT) // 默认为转出
                 .build();
-
-        // 3. 调用 Domain 层
-        return accountBalanceDomainService.adjustBalance(adjustment);
     }
 
-    @Override
-    @Transactional(rollbackFor = Exception.class)
-    @RedissonLock(key = "'lock:account:' + #cmd.accountNo")
-    public boolean credit(CreditCmd cmd) {
+    private BalanceAdjustment toCreditAdjustment(String accountNo, String currencyCode, BigDecimal amount,
+            String description, String bizNo, String requestId, BizType bizType) {
         // 1. 校验金额必须为正数
-        if (cmd.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
+        if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
             throw new BusinessException(AccountErrorCode.INVALID_AMOUNT);
         }
 
         // 2. 组装 BalanceAdjustment (入账为正数)
-        BalanceAdjustment adjustment = BalanceAdjustment.builder()
-                .accountNo(cmd.getAccountNo())
-                .amount(Money.of(cmd.getAmount(), cmd.getCurrencyCode()))
-                .description(cmd.getDescription())
-                .bizNo(cmd.getBizNo())
-                .requestId(cmd.getRequestId())
-                .bizType(cmd.getBizType() != null ? cmd.getBizType() : BizType.TRANSFER_IN) // 默认为转入
+        return BalanceAdjustment.builder()
+                .accountNo(accountNo)
+                .amount(Money.of(amount, currencyCode))
+                .description(description)
+                .bizNo(bizNo)
+                .requestId(requestId)
+                .bizType(bizType != null ? bizType : BizType.TRANSFER_IN) // 默认为转入
                 .build();
-
-        // 3. 调用 Domain 层
-        return accountBalanceDomainService.adjustBalance(adjustment);
     }
 
     @Override
     @Transactional(rollbackFor = Exception.class)
     public boolean freezeBalance(FreezeBalanceCmd cmd) {
+        return applyFreeze(cmd.getAccountNo(), cmd.getCurrencyCode(), cmd.getAmount(), cmd.getFlowNo(),
+                cmd.getFreezeType(), cmd.getReason());
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean unfreezeBalance(UnfreezeBalanceCmd cmd) {
+        return applyUnfreeze(cmd.getAccountNo(), cmd.getCurrencyCode(), cmd.getAmount(), cmd.getFlowNo(),
+                cmd.getReason());
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean unfreezeAndDebit(UnfreezeAndDebitCmd cmd) {
+        Money amount = Money.of(cmd.getAmount(), cmd.getCurrencyCode());
+        return accountBalanceDomainService.unfreezeAndDebit(cmd.getAccountNo(), amount,
+                cmd.getFlowNo(), cmd.getReason(), cmd.getBizType(), cmd.getRequestId());
+    }
+
+    private boolean applyFreeze(String accountNo, String currencyCode, BigDecimal amount, String flowNo,
+            FreezeType freezeType, String reason) {
         // 1. TCC 协议检查：悬挂检测
-        if (!tccProtectionService.checkTryAllowed(cmd.getFlowNo())) {
+        if (!tccProtectionService.checkTryAllowed(flowNo)) {
             return false;
         }
 
         // 2. 调用领域服务（纯业务逻辑）
-        Money amount = Money.of(cmd.getAmount(), cmd.getCurrencyCode());
-        return accountBalanceDomainService.freezeBalance(cmd.getAccountNo(), amount,
-                cmd.getFlowNo(), cmd.getFreezeType(), cmd.getReason());
+        return accountBalanceDomainService.freezeBalance(accountNo, Money.of(amount, currencyCode),
+                flowNo, freezeType, reason);
     }
 
-    @Override
-    @Transactional(rollbackFor = Exception.class)
-    public boolean unfreezeBalance(UnfreezeBalanceCmd cmd) {
-        Money amount = Money.of(cmd.getAmount(), cmd.getCurrencyCode());
+    private boolean applyUnfreeze(String accountNo, String currencyCode, BigDecimal amount, String flowNo,
+            String reason) {
+        Money money = Money.of(amount, currencyCode);
 
         // 1. TCC 空回滚检测
-        if (!tccProtectionService.handleEmptyRollback(cmd.getFlowNo(), cmd.getAccountNo(), amount)) {
+        if (!tccProtectionService.handleEmptyRollback(flowNo, accountNo, money)) {
             return true; // 空回滚已处理，直接返回成功
         }
 
         // 2. 调用领域服务（纯业务逻辑）
-        return accountBalanceDomainService.unfreezeBalance(cmd.getAccountNo(), amount,
-                cmd.getFlowNo(), cmd.getReason());
+        return accountBalanceDomainService.unfreezeBalance(accountNo, money, flowNo, reason);
     }
 
+    /**
+     * 批量记账
+     * <p>
+     * 1. 按账户号排序后一次性获取所有非分片账户的分布式锁 (与单笔操作同一把锁，排序避免互相等待)
+     * 2. 在同一个本地事务中按顺序执行各分录，复用单笔操作的校验、TCC 防护与 requestId 幂等
+     * 3. 任一分录失败整体回滚
+     */
     @Override
-    @Transactional(rollbackFor = Exception.class)
-    public boolean unfreezeAndDebit(UnfreezeAndDebitCmd cmd) {
-        Money amount = Money.of(cmd.getAmount(), cmd.getCurrencyCode());
-        return accountBalanceDomainService.unfreezeAndDebit(cmd.getAccountNo(), amount,
-                cmd.getFlowNo(), cmd.getReason(), cmd.getBizType(), cmd.getRequestId());
+    public List<BalanceOpResult> executeBatch(List<BalanceOpCmd> ops) {
+        if (ops == null || ops.isEmpty()) {
+            throw new BusinessException(AccountErrorCode.INVALID_OPERATION);
+        }
+        if (ops.size() > maxBatchOps) {
+            throw new BusinessException(AccountErrorCode.BATCH_SIZE_EXCEEDED);
+        }
+
+        RLock lock = lockAccounts(ops);
+        try {
+            return transactionTemplate.execute(status -> ops.stream().map(this::applyOp).toList());
+        } finally {
+            if (lock != null) {
+                lock.unlock();
+            }
+        }
+    }
+
+    private BalanceOpResult applyOp(BalanceOpCmd op) {
+        if (op == null || op.getOpType() == null) {
+            throw new BusinessException(AccountErrorCode.INVALID_OPERATION);
+        }
+        boolean success = switch (op.getOpType()) {
+            case DEBIT -> applyDebit(op.getAccountNo(), op.getCurrencyCode(), op.getAmount(), op.getDescription(),
+                    op.getBizNo(), op.getRequestId(), op.getBizType());
+            case CREDIT -> applyCredit(op.getAccountNo(), op.getCurrencyCode(), op.getAmount(), op.getDescription(),
+                    op.getBizNo(), op.getRequestId(), op.getBizType());
+            case FREEZE -> applyFreeze(op.getAccountNo(), op.getCurrencyCode(), op.getAmount(), op.getFlowNo(),
+                    op.getFreezeType(), op.getDescription());
+            case UNFREEZE -> applyUnfreeze(op.getAccountNo(), op.getCurrencyCode(), op.getAmount(), op.getFlowNo(),
+                    op.getDescription());
+            case UNFREEZE_AND_DEBIT -> accountBalanceDomainService.unfreezeAndDebit(op.getAccountNo(),
+                    Money.of(op.getAmount(), op.getCurrencyCode()), op.getFlowNo(), op.getDescription(),
+                    op.getBizType(), op.getRequestId());
+        };
+        return BalanceOpResult.builder()
+                .opType(op.getOpType())
+                .accountNo(op.getAccountNo())
+                .requestId(op.getRequestId())
+                .flowNo(op.getFlowNo())
+                .success(success)
+                .build();
+    }
+
+    /**
+     * 获取批量分录涉及账户的分布式锁，全部为分片热点账户时返回 null
+     */
+    private RLock lockAccounts(List<BalanceOpCmd> ops) {
+        RLock[] locks = ops.stream()
+                .filter(Objects::nonNull)
+                .map(BalanceOpCmd::getAccountNo)
+                .filter(Objects::nonNull)
+                .distinct()
+                .sorted()
+                .filter(accountNo -> !hotAccountDomainService.isSharded(accountNo))
+                .map(accountNo -> redissonClient.getLock("lock:account:" + accountNo))
+                .toArray(RLock[]::new);
+        if (locks.length == 0) {
+            return null;
+        }
+        RLock lock = locks.length == 1 ? locks[0] : redissonClient.getMultiLock(locks);
+        try {
+            if (!lock.tryLock(macauLockProperties.getWaitTime(), macauLockProperties.getLeaseTime(),
+                    TimeUnit.SECONDS)) {
+                throw new BusinessException(AccountErrorCode.CONCURRENCY_CONFLICT);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException(AccountErrorCode.CONCURRENCY_CONFLICT);
+        }
+        return lock;
     }
 
     @Override
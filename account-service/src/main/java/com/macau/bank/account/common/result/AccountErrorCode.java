@@ -21,7 +21,10 @@ public enum AccountErrorCode implements IResultCode {
     ACCOUNT_NOT_BELONG_TO_USER(203009, "账户不属于当前用户", "account.not.belong.to.user"),
     DUPLICATE_REQUEST(203010, "重复请求，请勿重复提交", "account.duplicate.request"),
     INVALID_AMOUNT(203011, "金额必须为正数", "account.invalid.amount"),
-    FROZEN_BALANCE_NOT_ENOUGH(203012, "冻结金额不足", "account.frozen.balance.not.enough");
+    FROZEN_BALANCE_NOT_ENOUGH(203012, "冻结金额不足", "account.frozen.balance.not.enough"),
+    BATCH_SIZE_EXCEEDED(203014, "批量记账分录数超出上限", "account.batch.size.exceeded"),
+    BALANCE_COMBINE_TIMEOUT(203015, "记账排队超时", "account.balance.combine.timeout"),
+    INVALID_PAGE_CURSOR(203016, "翻页游标无效", "account.page.cursor.invalid");
 
     private final Integer code;
     private final String message;
@@ -24,6 +24,10 @@ public class AccountBalance implements Serializable {
     private Long id;
     private String accountNo;
     private String currencyCode;
+    /**
+     * 余额分片号 (0 为主分片，仅热点内部户存在其他分片)
+     */
+    private Integer shardNo;
     private BigDecimal balance;
     private BigDecimal availableBalance;
     private BigDecimal frozenAmount;
@@ -0,0 +1,36 @@
+package com.macau.bank.account.domain.model;
+
+import lombok.Getter;
+
+/**
+ * 合并记账中单笔调整的结果 (Value Object)
+ * <p>
+ * 成功 (含幂等重复请求) 或被拒绝；被拒绝时携带与单笔记账相同的异常，原样返回给该笔的调用方
+ * </p>
+ */
+@Getter
+public class AdjustmentOutcome {
+
+    private static final AdjustmentOutcome SUCCESS = new AdjustmentOutcome(null);
+
+    /**
+     * 拒绝原因，成功时为 null
+     */
+    private final RuntimeException error;
+
+    private AdjustmentOutcome(RuntimeException error) {
+        this.error = error;
+    }
+
+    public static AdjustmentOutcome success() {
+        return SUCCESS;
+    }
+
+    public static AdjustmentOutcome rejected(RuntimeException error) {
+        return new AdjustmentOutcome(error);
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+}
@@ -0,0 +1,17 @@
+package com.macau.bank.account.domain.model;
+
+/**
+ * 余额变动执行模式
+ */
+public enum BalanceApplyMode {
+
+    /**
+     * 乐观锁模式：先查询余额，内存中计算后按 version 全量更新，冲突时抛出 CONCURRENCY_CONFLICT
+     */
+    OPTIMISTIC,
+
+    /**
+     * 增量模式：单条条件 UPDATE 原子应用增量并回读后像，并发写在行锁上排队而非失败
+     */
+    DELTA
+}
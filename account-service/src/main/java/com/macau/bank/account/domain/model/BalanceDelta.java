@@ -0,0 +1,132 @@
+package com.macau.bank.account.domain.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/**
+ * 余额增量值对象 (Value Object)
+ * <p>
+ * 描述一次余额变动对各字段的增量，由仓储以单条条件 UPDATE 原子应用：
+ * 只要应用后可用余额、冻结金额均不为负即更新成功，无需先读后写。
+ * </p>
+ */
+@Getter
+@Setter
+@Builder
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+public class BalanceDelta implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 总余额增量
+     */
+    @Builder.Default
+    private BigDecimal balance = BigDecimal.ZERO;
+
+    /**
+     * 可用余额增量
+     */
+    @Builder.Default
+    private BigDecimal availableBalance = BigDecimal.ZERO;
+
+    /**
+     * 冻结金额增量
+     */
+    @Builder.Default
+    private BigDecimal frozenAmount = BigDecimal.ZERO;
+
+    /**
+     * 累计收入增量
+     */
+    @Builder.Default
+    private BigDecimal totalIncome = BigDecimal.ZERO;
+
+    /**
+     * 累计支出增量
+     */
+    @Builder.Default
+    private BigDecimal totalOutcome = BigDecimal.ZERO;
+
+    /**
+     * 最后流水号 (为空则不更新)
+     */
+    private String lastFlowId;
+
+    /**
+     * 入账：总余额、可用余额、累计收入同时增加
+     */
+    public static BalanceDelta credit(BigDecimal amount, String lastFlowId) {
+        return BalanceDelta.builder()
+                .balance(amount)
+                .availableBalance(amount)
+                .totalIncome(amount)
+                .lastFlowId(lastFlowId)
+                .build();
+    }
+
+    /**
+     * 出账：总余额、可用余额减少，累计支出增加
+     */
+    public static BalanceDelta debit(BigDecimal amount, String lastFlowId) {
+        return BalanceDelta.builder()
+                .balance(amount.negate())
+                .availableBalance(amount.negate())
+                .totalOutcome(amount)
+                .lastFlowId(lastFlowId)
+                .build();
+    }
+
+    /**
+     * 冻结：可用余额减少，冻结金额增加，总余额不变
+     */
+    public static BalanceDelta freeze(BigDecimal amount) {
+        return BalanceDelta.builder()
+                .availableBalance(amount.negate())
+                .frozenAmount(amount)
+                .build();
+    }
+
+    /**
+     * 解冻：冻结金额减少，可用余额增加，总余额不变
+     */
+    public static BalanceDelta unfreeze(BigDecimal amount) {
+        return BalanceDelta.builder()
+                .availableBalance(amount)
+                .frozenAmount(amount.negate())
+                .build();
+    }
+
+    /**
+     * 分片间调拨：总余额、可用余额同向变动，不计入累计收入/支出 (账户总额不变)
+     *
+     * @param amount 调拨金额，正数调入、负数调出
+     */
+    public static BalanceDelta shardTransfer(BigDecimal amount) {
+        return BalanceDelta.builder()
+                .balance(amount)
+                .availableBalance(amount)
+                .build();
+    }
+
+    /**
+     * 解冻并扣款：冻结金额、总余额减少，累计支出增加，可用余额不变
+     */
+    public static BalanceDelta unfreezeAndDebit(BigDecimal amount, String lastFlowId) {
+        return BalanceDelta.builder()
+                .balance(amount.negate())
+                .frozenAmount(amount.negate())
+                .totalOutcome(amount)
+                .lastFlowId(lastFlowId)
+                .build();
+    }
+}
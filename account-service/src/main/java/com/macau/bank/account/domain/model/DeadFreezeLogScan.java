@@ -0,0 +1,34 @@
+package com.macau.bank.account.domain.model;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * 悬挂冻结记录扫描条件 (按 create_time, id 升序的键集扫描)
+ * <p>
+ * 分片：fromId/toId 非空时按主键区间划分；hashTotal > 1 时按 CRC32(flow_no) 取模划分
+ */
+@Getter
+@Builder(toBuilder = true)
+public class DeadFreezeLogScan {
+    /** 冻结时间早于该时间的 FROZEN 记录视为悬挂 */
+    private final LocalDateTime beforeTime;
+
+    private final Long fromId;
+    private final Long toId;
+
+    private final int hashTotal;
+    private final int hashIndex;
+
+    /** 游标：上一批最后一条记录的位置，均为空时从最早一条开始 */
+    private final LocalDateTime cursorTime;
+    private final Long cursorId;
+
+    /**
+     * 悬挂记录主键范围
+     */
+    public record IdRange(long minId, long maxId) {
+    }
+}
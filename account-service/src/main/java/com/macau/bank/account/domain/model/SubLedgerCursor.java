@@ -0,0 +1,47 @@
+package com.macau.bank.account.domain.model;
+
+import com.macau.bank.account.common.result.AccountErrorCode;
+import com.macau.bank.common.core.exception.BusinessException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * 分户账流水翻页游标：(trans_time, id) 编码为对调用方不透明的 URL 安全字符串
+ *
+ * @param transTime 上一页最后一条记录的交易时间
+ * @param id        上一页最后一条记录的主键 (同一时间多条记录时的次序)
+ */
+public record SubLedgerCursor(LocalDateTime transTime, Long id) {
+
+    private static final char SEPARATOR = '|';
+
+    public String encode() {
+        String raw = transTime.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析游标，空串表示第一页返回 null
+     *
+     * @throws BusinessException 游标被篡改或格式错误
+     */
+    public static SubLedgerCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int idx = raw.lastIndexOf(SEPARATOR);
+            if (idx <= 0) {
+                throw new BusinessException(AccountErrorCode.INVALID_PAGE_CURSOR);
+            }
+            return new SubLedgerCursor(LocalDateTime.parse(raw.substring(0, idx)),
+                    Long.parseLong(raw.substring(idx + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new BusinessException(AccountErrorCode.INVALID_PAGE_CURSOR);
+        }
+    }
+}
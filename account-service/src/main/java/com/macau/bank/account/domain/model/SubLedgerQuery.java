@@ -0,0 +1,29 @@
+package com.macau.bank.account.domain.model;
+
+import com.macau.bank.common.core.enums.BizType;
+import com.macau.bank.common.core.enums.FlowDirection;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 分户账流水查询条件 (按 trans_time DESC, id DESC 排序的键集分页)
+ * <p>
+ * cursorTime/cursorId 为上一页最后一条记录的位置，均为空时从最新一条开始
+ */
+@Getter
+@Builder(toBuilder = true)
+public class SubLedgerQuery {
+    private final String userNo;
+    private final String accountNo;
+    private final String currencyCode;
+    private final LocalDate startDate;
+    private final LocalDate endDate;
+    private final FlowDirection direction;
+    private final BizType bizType;
+
+    private final LocalDateTime cursorTime;
+    private final Long cursorId;
+}
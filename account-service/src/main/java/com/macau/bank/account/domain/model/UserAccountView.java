@@ -0,0 +1,29 @@
+package com.macau.bank.account.domain.model;
+
+import com.macau.bank.account.domain.entity.AccountBalance;
+import com.macau.bank.account.domain.entity.AccountInfo;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 用户账户读模型：用户名下全部账户及其余额行，一次往返读出
+ */
+@Getter
+@Builder
+public class UserAccountView {
+    private final List<AccountInfo> accounts;
+    /**
+     * 全部余额行 (热点内部户包含各分片行，由调用方按需聚合)
+     */
+    private final List<AccountBalance> balances;
+
+    public static UserAccountView empty() {
+        return UserAccountView.builder()
+                .accounts(new ArrayList<>())
+                .balances(new ArrayList<>())
+                .build();
+    }
+}
@@ -1,16 +1,56 @@
 package com.macau.bank.account.domain.repository;
 
 import com.macau.bank.account.domain.entity.AccountBalance;
+import com.macau.bank.account.domain.model.BalanceDelta;
+import com.macau.bank.account.domain.model.UserAccountView;
 
 import java.util.List;
 
 public interface AccountBalanceRepository {
 
+    /**
+     * 查询主分片余额 (shard_no = 0)
+     */
     AccountBalance findByAccountAndCurrency(String accountNo, String currencyCode);
 
+    /**
+     * 查询账户下全部余额行 (热点内部户包含各分片行，由调用方按需聚合)
+     */
     List<AccountBalance> findByAccountNo(String accountNo);
 
+    /**
+     * 批量查询全部余额行 (热点内部户包含各分片行，由调用方按需聚合)
+     */
     List<AccountBalance> findByAccountNos(java.util.List<String> accountNos);
 
+    /**
+     * 用户名下全部账户及余额行，一次往返读出 (热点内部户包含各分片行，由调用方按需聚合)
+     */
+    UserAccountView findUserAccountView(String userNo);
+
+    /**
+     * 查询用户名下持有指定币种的第一个账户的主分片余额
+     */
+    AccountBalance findUserBalance(String userNo, String currencyCode);
+
+    /**
+     * 查询指定账户币种的全部分片，按分片号升序
+     */
+    List<AccountBalance> findShards(String accountNo, String currencyCode);
+
     void save(AccountBalance accountBalance);
+
+    /**
+     * 增量原子更新主分片余额并返回更新后的余额
+     *
+     * @return 更新后的余额；余额记录不存在或应用后可用/冻结金额为负时返回 null
+     */
+    AccountBalance applyDelta(String accountNo, String currencyCode, BalanceDelta delta);
+
+    /**
+     * 增量原子更新指定分片余额并返回更新后的余额
+     *
+     * @return 更新后的余额；分片不存在或应用后可用/冻结金额为负时返回 null
+     */
+    AccountBalance applyDelta(String accountNo, String currencyCode, int shardNo, BalanceDelta delta);
 }
@@ -1,6 +1,7 @@
 package com.macau.bank.account.domain.repository;
 
 import com.macau.bank.account.domain.entity.AccountFreezeLog;
+import com.macau.bank.account.domain.model.DeadFreezeLogScan;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -9,5 +10,13 @@ public interface AccountFreezeLogRepository {
     void save(AccountFreezeLog freezeLog);
     AccountFreezeLog findByFlowNo(String flowNo);
 
-    List<AccountFreezeLog> findDeadLogs(LocalDateTime beforeTime, int limit);
+    /**
+     * 按扫描条件取下一批悬挂冻结记录 (仅 FROZEN 状态，终态记录在 SQL 中排除)
+     */
+    List<AccountFreezeLog> findDeadLogs(DeadFreezeLogScan scan, int limit);
+
+    /**
+     * 悬挂冻结记录的主键范围，无悬挂记录时返回 null
+     */
+    DeadFreezeLogScan.IdRange findDeadLogIdRange(LocalDateTime beforeTime);
 }
@@ -2,10 +2,19 @@ package com.macau.bank.account.domain.repository;
 
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.macau.bank.account.domain.entity.AccountSubLedger;
+import com.macau.bank.account.domain.model.SubLedgerQuery;
+
 import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Consumer;
 
 public interface AccountSubLedgerRepository {
     void save(AccountSubLedger subLedger);
+
+    /**
+     * 在当前事务中以一条多行 INSERT 写入多条分户账 (合并记账)
+     */
+    void saveAll(java.util.List<AccountSubLedger> subLedgers);
     AccountSubLedger findByRequestId(String requestId);
     
     // 复杂查询保留 Page 参数，或者重构为 query object
@@ -14,4 +23,19 @@ public interface AccountSubLedgerRepository {
                                  com.macau.bank.common.core.enums.FlowDirection direction, 
                                  com.macau.bank.common.core.enums.BizType bizType,
                                  int page, int pageSize);
+
+    /**
+     * 键集分页查询流水：从 query 的游标位置 (不含) 起按交易时间倒序取 limit 条，不统计总数
+     */
+    List<AccountSubLedger> seek(SubLedgerQuery query, int limit);
+
+    /**
+     * 按筛选条件统计流水总数 (忽略游标)
+     */
+    long count(SubLedgerQuery query);
+
+    /**
+     * 按筛选条件流式读取全部流水 (交易时间倒序)，逐条交给 consumer，不在内存中累积结果集
+     */
+    void stream(SubLedgerQuery query, Consumer<AccountSubLedger> consumer);
 }
@@ -2,7 +2,10 @@ package com.macau.bank.account.domain.service;
 
 import com.macau.bank.account.common.result.AccountErrorCode;
 import com.macau.bank.account.domain.entity.*;
+import com.macau.bank.account.domain.model.AdjustmentOutcome;
 import com.macau.bank.account.domain.model.BalanceAdjustment;
+import com.macau.bank.account.domain.model.BalanceApplyMode;
+import com.macau.bank.account.domain.model.BalanceDelta;
 import com.macau.bank.account.domain.repository.*;
 import com.macau.bank.common.core.domain.Money;
 import com.macau.bank.common.core.enums.*;
@@ -11,6 +14,7 @@ import com.macau.bank.common.core.exception.FatalSystemException;
 import com.macau.bank.common.core.util.IdGenerator;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
@@ -18,6 +22,10 @@ import org.springframework.util.StringUtils;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * 账户余额领域服务
@@ -27,6 +35,12 @@ import java.time.LocalDateTime;
  * - 冻结/解冻
  * - 解冻并扣款
  * - 分户账记录
+ * <p>
+ * 执行模式（account.balance.apply-mode）：
+ * - OPTIMISTIC：先查后改，按 version 乐观锁更新，热点账户并发时失败方抛出 CONCURRENCY_CONFLICT
+ * - DELTA：单条条件 UPDATE 原子应用增量，热点账户并发写在行锁上排队，无乐观锁重试
+ * <p>
+ * 分片账户（见 {@link HotAccountDomainService}）的入账/出账、冻结/解冻始终按增量方式路由到分片行
  */
 @Slf4j
 @Service
@@ -44,6 +58,15 @@ public class AccountBalanceDomainService {
     @Resource
     private AccountFreezeLogRepository accountFreezeLogRepository;
 
+    @Resource
+    private HotAccountDomainService hotAccountDomainService;
+
+    /**
+     * 余额变动执行模式
+     */
+    @Value("${account.balance.apply-mode:OPTIMISTIC}")
+    private BalanceApplyMode applyMode = BalanceApplyMode.OPTIMISTIC;
+
     /**
      * 检查幂等请求ID是否已存在
      */
@@ -100,21 +123,36 @@ public class AccountBalanceDomainService {
             return true;
         }
 
+        String voucherNo = IdGenerator.generateId();
+        BigDecimal changeAmount = amount.getAmount();
+
+        boolean sharded = hotAccountDomainService.isSharded(accountNo);
+        if (sharded || applyMode == BalanceApplyMode.DELTA) {
+            BalanceDelta delta = amount.isPositive()
+                    ? BalanceDelta.credit(changeAmount, voucherNo)
+                    : BalanceDelta.debit(changeAmount.abs(), voucherNo);
+            AccountBalance updated = sharded
+                    ? hotAccountDomainService.applyToShard(accountNo, amount.getCurrencyCode(), delta,
+                            adjustment.getRequestId())
+                    : applyDelta(accountNo, amount.getCurrencyCode(), delta, AccountErrorCode.BALANCE_INSUFFICIENT);
+
+            recordSubLedger(accountInfo, updated, amount, adjustment.getDescription(), adjustment.getBizNo(),
+                    adjustment.getRequestId(), voucherNo, adjustment.getBizType());
+            return true;
+        }
+
         AccountBalance currentBalance = accountBalanceRepository.findByAccountAndCurrency(accountNo,
                 amount.getCurrencyCode());
         if (currentBalance == null) {
             throw new BusinessException(AccountErrorCode.BALANCE_RECORD_NOT_FOUND);
         }
 
-        BigDecimal changeAmount = amount.getAmount();
         if (amount.isNegative()) {
             if (!currentBalance.hasSufficientBalance(changeAmount.abs())) {
                 throw new BusinessException(AccountErrorCode.BALANCE_INSUFFICIENT);
             }
         }
 
-        String voucherNo = IdGenerator.generateId();
-
         currentBalance.setBalance(currentBalance.getBalance().add(changeAmount));
         currentBalance.setAvailableBalance(currentBalance.getAvailableBalance().add(changeAmount));
         if (amount.isPositive()) {
@@ -131,6 +169,138 @@ public class AccountBalanceDomainService {
         return true;
     }
 
+    /**
+     * 合并记账：同一账户同一币种的多笔入账/出账在一个事务中按顺序校验，合并为一次余额更新
+     * <p>
+     * - 每笔独立做幂等与余额充足校验，被拒绝的调整不影响同批其他调整
+     * - 通过校验的调整合并为一条余额 UPDATE (仅重算一次 HMAC)，分户账以一条多行 INSERT 写入，
+     *   各行余额为该笔应用后的余额
+     * - 余额更新或分户账写入失败时整体抛出并回滚，由调用方逐笔重试
+     * </p>
+     * 调用方须已持有该账户的分布式锁，且账户未分片。
+     *
+     * @return 与入参一一对应的结果
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public List<AdjustmentOutcome> adjustBalanceCombined(List<BalanceAdjustment> adjustments) {
+        BalanceAdjustment head = adjustments.get(0);
+        String accountNo = head.getAccountNo();
+        String currencyCode = head.getAmount().getCurrencyCode();
+
+        AccountInfo accountInfo = accountInfoRepository.findByAccountNo(accountNo);
+        AccountBalance current = accountInfo == null ? null
+                : accountBalanceRepository.findByAccountAndCurrency(accountNo, currencyCode);
+        BigDecimal available = current != null ? current.getAvailableBalance() : BigDecimal.ZERO;
+
+        List<AdjustmentOutcome> outcomes = new ArrayList<>(adjustments.size());
+        List<BalanceAdjustment> accepted = new ArrayList<>(adjustments.size());
+        Map<String, Money> batchRequests = new HashMap<>();
+        for (BalanceAdjustment adjustment : adjustments) {
+            try {
+                adjustment.validate();
+                Money amount = adjustment.getAmount();
+                if (!accountNo.equals(adjustment.getAccountNo())
+                        || !currencyCode.equals(amount.getCurrencyCode())) {
+                    throw new IllegalArgumentException("合并记账的调整须属于同一账户同一币种");
+                }
+                if (accountInfo == null) {
+                    throw new BusinessException(AccountErrorCode.ACCOUNT_NOT_FOUND);
+                }
+                if (amount.getAmount().compareTo(BigDecimal.ZERO) == 0) {
+                    throw new BusinessException(AccountErrorCode.INVALID_OPERATION);
+                }
+                // 同批内的重复请求按已落库的重复请求处理
+                if (isDuplicateInBatch(batchRequests, adjustment.getRequestId(), amount.abs())
+                        || checkIdempotent(adjustment.getRequestId(), amount.abs(), "adjustBalanceCombined")) {
+                    outcomes.add(AdjustmentOutcome.success());
+                    continue;
+                }
+                if (current == null) {
+                    throw new BusinessException(AccountErrorCode.BALANCE_RECORD_NOT_FOUND);
+                }
+                if (amount.isNegative() && available.compareTo(amount.getAmount().abs()) < 0) {
+                    throw new BusinessException(AccountErrorCode.BALANCE_INSUFFICIENT);
+                }
+                available = available.add(amount.getAmount());
+                batchRequests.put(adjustment.getRequestId(), amount.abs());
+                accepted.add(adjustment);
+                outcomes.add(AdjustmentOutcome.success());
+            } catch (BusinessException | FatalSystemException | IllegalArgumentException e) {
+                outcomes.add(AdjustmentOutcome.rejected(e));
+            }
+        }
+        if (accepted.isEmpty()) {
+            return outcomes;
+        }
+
+        // 1. 合并增量，一次更新余额
+        List<String> voucherNos = new ArrayList<>(accepted.size());
+        BigDecimal net = BigDecimal.ZERO;
+        BigDecimal income = BigDecimal.ZERO;
+        BigDecimal outcome = BigDecimal.ZERO;
+        for (BalanceAdjustment adjustment : accepted) {
+            BigDecimal change = adjustment.getAmount().getAmount();
+            net = net.add(change);
+            if (change.signum() > 0) {
+                income = income.add(change);
+            } else {
+                outcome = outcome.add(change.abs());
+            }
+            voucherNos.add(IdGenerator.generateId());
+        }
+        String lastVoucherNo = voucherNos.get(voucherNos.size() - 1);
+
+        AccountBalance updated;
+        if (applyMode == BalanceApplyMode.DELTA) {
+            BalanceDelta delta = BalanceDelta.builder()
+                    .balance(net)
+                    .availableBalance(net)
+                    .totalIncome(income)
+                    .totalOutcome(outcome)
+                    .lastFlowId(lastVoucherNo)
+                    .build();
+            updated = applyDelta(accountNo, currencyCode, delta, AccountErrorCode.BALANCE_INSUFFICIENT);
+        } else {
+            current.setBalance(current.getBalance().add(net));
+            current.setAvailableBalance(current.getAvailableBalance().add(net));
+            current.setTotalIncome(current.getTotalIncome().add(income));
+            current.setTotalOutcome(current.getTotalOutcome().add(outcome));
+            current.setLastFlowId(lastVoucherNo);
+            accountBalanceRepository.save(current);
+            updated = current;
+        }
+
+        // 2. 由更新后的余额倒推每笔应用后的余额，分户账一次写入
+        AccountSubLedger[] subLedgers = new AccountSubLedger[accepted.size()];
+        BigDecimal balanceAfter = updated.getBalance();
+        for (int i = accepted.size() - 1; i >= 0; i--) {
+            BalanceAdjustment adjustment = accepted.get(i);
+            subLedgers[i] = buildSubLedger(accountInfo, currencyCode, balanceAfter, adjustment.getAmount(),
+                    adjustment.getDescription(), adjustment.getBizNo(), adjustment.getRequestId(),
+                    voucherNos.get(i), adjustment.getBizType());
+            balanceAfter = balanceAfter.subtract(adjustment.getAmount().getAmount());
+        }
+        accountSubLedgerRepository.saveAll(List.of(subLedgers));
+        return outcomes;
+    }
+
+    /**
+     * 同批内是否已有相同请求ID的调整 (金额不一致按幂等攻击处理)
+     */
+    private boolean isDuplicateInBatch(Map<String, Money> batchRequests, String requestId, Money amount) {
+        Money existing = batchRequests.get(requestId);
+        if (existing == null) {
+            return false;
+        }
+        if (existing.getAmount().compareTo(amount.getAmount()) != 0) {
+            throw new FatalSystemException(
+                    String.format("资损警报：幂等攻击拦截！RequestID=%s, 同批=[%s], 新请求=[%s]",
+                            requestId, existing.display(), amount.display()));
+        }
+        log.warn("同批重复请求被拦截: requestId={}", requestId);
+        return true;
+    }
+
     /**
      * 冻结余额
      * <p>
@@ -149,22 +319,32 @@ public class AccountBalanceDomainService {
             return true;
         }
 
-        AccountBalance current = accountBalanceRepository.findByAccountAndCurrency(accountNo, amount.getCurrencyCode());
-        if (current == null) {
-            throw new BusinessException(AccountErrorCode.BALANCE_RECORD_NOT_FOUND);
-        }
+        String freezeFlowNo = flowNo != null ? flowNo : IdGenerator.generateId();
+        if (hotAccountDomainService.isSharded(accountNo)) {
+            hotAccountDomainService.freezeOnShard(accountNo, amount.getCurrencyCode(), amount.getAmount(),
+                    freezeFlowNo);
+        } else if (applyMode == BalanceApplyMode.DELTA) {
+            applyDelta(accountNo, amount.getCurrencyCode(), BalanceDelta.freeze(amount.getAmount()),
+                    AccountErrorCode.BALANCE_INSUFFICIENT);
+        } else {
+            AccountBalance current = accountBalanceRepository.findByAccountAndCurrency(accountNo,
+                    amount.getCurrencyCode());
+            if (current == null) {
+                throw new BusinessException(AccountErrorCode.BALANCE_RECORD_NOT_FOUND);
+            }
 
-        if (current.getAvailableBalance().compareTo(amount.getAmount()) < 0) {
-            throw new BusinessException(AccountErrorCode.BALANCE_INSUFFICIENT);
-        }
+            if (current.getAvailableBalance().compareTo(amount.getAmount()) < 0) {
+                throw new BusinessException(AccountErrorCode.BALANCE_INSUFFICIENT);
+            }
 
-        current.setAvailableBalance(current.getAvailableBalance().subtract(amount.getAmount()));
-        current.setFrozenAmount(current.getFrozenAmount().add(amount.getAmount()));
+            current.setAvailableBalance(current.getAvailableBalance().subtract(amount.getAmount()));
+            current.setFrozenAmount(current.getFrozenAmount().add(amount.getAmount()));
 
-        accountBalanceRepository.save(current);
+            accountBalanceRepository.save(current);
+        }
 
         AccountFreezeLog freezeLog = new AccountFreezeLog();
-        freezeLog.setFlowNo(flowNo != null ? flowNo : IdGenerator.generateId());
+        freezeLog.setFlowNo(freezeFlowNo);
         freezeLog.setAccountNo(accountNo);
         freezeLog.setCurrencyCode(amount.getCurrencyCode());
         freezeLog.setAmount(amount.getAmount());
@@ -216,19 +396,28 @@ public class AccountBalanceDomainService {
         }
 
         // 正常解冻流程
-        AccountBalance current = accountBalanceRepository.findByAccountAndCurrency(accountNo, amount.getCurrencyCode());
-        if (current == null) {
-            throw new BusinessException(AccountErrorCode.BALANCE_RECORD_NOT_FOUND);
-        }
+        if (hotAccountDomainService.isSharded(accountNo)) {
+            hotAccountDomainService.applyFrozenDelta(accountNo, amount.getCurrencyCode(),
+                    BalanceDelta.unfreeze(amount.getAmount()), flowNo, AccountErrorCode.INVALID_OPERATION);
+        } else if (applyMode == BalanceApplyMode.DELTA) {
+            applyDelta(accountNo, amount.getCurrencyCode(), BalanceDelta.unfreeze(amount.getAmount()),
+                    AccountErrorCode.INVALID_OPERATION);
+        } else {
+            AccountBalance current = accountBalanceRepository.findByAccountAndCurrency(accountNo,
+                    amount.getCurrencyCode());
+            if (current == null) {
+                throw new BusinessException(AccountErrorCode.BALANCE_RECORD_NOT_FOUND);
+            }
 
-        if (current.getFrozenAmount().compareTo(amount.getAmount()) < 0) {
-            throw new BusinessException(AccountErrorCode.INVALID_OPERATION);
-        }
+            if (current.getFrozenAmount().compareTo(amount.getAmount()) < 0) {
+                throw new BusinessException(AccountErrorCode.INVALID_OPERATION);
+            }
 
-        current.setAvailableBalance(current.getAvailableBalance().add(amount.getAmount()));
-        current.setFrozenAmount(current.getFrozenAmount().subtract(amount.getAmount()));
+            current.setAvailableBalance(current.getAvailableBalance().add(amount.getAmount()));
+            current.setFrozenAmount(current.getFrozenAmount().subtract(amount.getAmount()));
 
-        accountBalanceRepository.save(current);
+            accountBalanceRepository.save(current);
+        }
 
         freezeLog.setStatus(FreezeStatus.UNFROZEN);
         freezeLog.setUnfreezeTime(LocalDateTime.now());
@@ -261,26 +450,39 @@ public class AccountBalanceDomainService {
             throw new BusinessException(AccountErrorCode.ACCOUNT_NOT_FOUND);
         }
 
-        // 查询余额记录
-        AccountBalance current = accountBalanceRepository.findByAccountAndCurrency(accountNo, amount.getCurrencyCode());
-        if (current == null) {
-            throw new BusinessException(AccountErrorCode.BALANCE_RECORD_NOT_FOUND);
-        }
-
-        // 校验冻结金额是否足够
-        if (current.getFrozenAmount().compareTo(amount.getAmount()) < 0) {
-            throw new BusinessException(AccountErrorCode.FROZEN_BALANCE_NOT_ENOUGH);
-        }
-
         // 生成凭证号
         String voucherNo = IdGenerator.generateId();
 
-        // 执行解冻并扣款
-        current.setFrozenAmount(current.getFrozenAmount().subtract(amount.getAmount()));
-        current.setBalance(current.getBalance().subtract(amount.getAmount()));
-        current.setTotalOutcome(current.getTotalOutcome().add(amount.getAmount()));
-        current.setLastFlowId(voucherNo);
-        accountBalanceRepository.save(current);
+        AccountBalance current;
+        if (hotAccountDomainService.isSharded(accountNo)) {
+            // 分片账户：回到冻结所在的归属分片扣款，分户账余额为各分片合计
+            current = hotAccountDomainService.applyFrozenDelta(accountNo, amount.getCurrencyCode(),
+                    BalanceDelta.unfreezeAndDebit(amount.getAmount(), voucherNo), flowNo,
+                    AccountErrorCode.FROZEN_BALANCE_NOT_ENOUGH);
+        } else if (applyMode == BalanceApplyMode.DELTA) {
+            // 增量模式：冻结金额校验与扣款在同一条 UPDATE 中完成
+            current = applyDelta(accountNo, amount.getCurrencyCode(),
+                    BalanceDelta.unfreezeAndDebit(amount.getAmount(), voucherNo),
+                    AccountErrorCode.FROZEN_BALANCE_NOT_ENOUGH);
+        } else {
+            // 查询余额记录
+            current = accountBalanceRepository.findByAccountAndCurrency(accountNo, amount.getCurrencyCode());
+            if (current == null) {
+                throw new BusinessException(AccountErrorCode.BALANCE_RECORD_NOT_FOUND);
+            }
+
+            // 校验冻结金额是否足够
+            if (current.getFrozenAmount().compareTo(amount.getAmount()) < 0) {
+                throw new BusinessException(AccountErrorCode.FROZEN_BALANCE_NOT_ENOUGH);
+            }
+
+            // 执行解冻并扣款
+            current.setFrozenAmount(current.getFrozenAmount().subtract(amount.getAmount()));
+            current.setBalance(current.getBalance().subtract(amount.getAmount()));
+            current.setTotalOutcome(current.getTotalOutcome().add(amount.getAmount()));
+            current.setLastFlowId(voucherNo);
+            accountBalanceRepository.save(current);
+        }
 
         // 更新冻结日志
         AccountFreezeLog freezeLog = accountFreezeLogRepository.findByFlowNo(flowNo);
@@ -297,23 +499,55 @@ public class AccountBalanceDomainService {
         return true;
     }
 
+    /**
+     * 增量模式下原子应用余额变动
+     * <p>
+     * UPDATE 未命中时再区分"余额记录不存在"与"金额不足"，仅失败路径多一次查询
+     * </p>
+     *
+     * @param guardError 应用后可用/冻结金额为负时抛出的错误码
+     * @return 更新后的余额
+     */
+    private AccountBalance applyDelta(String accountNo, String currencyCode, BalanceDelta delta,
+            AccountErrorCode guardError) {
+        AccountBalance updated = accountBalanceRepository.applyDelta(accountNo, currencyCode, delta);
+        if (updated != null) {
+            return updated;
+        }
+        if (accountBalanceRepository.findByAccountAndCurrency(accountNo, currencyCode) == null) {
+            throw new BusinessException(AccountErrorCode.BALANCE_RECORD_NOT_FOUND);
+        }
+        throw new BusinessException(guardError);
+    }
+
     /**
      * 记录分户账
      */
     private void recordSubLedger(AccountInfo accountInfo, AccountBalance balance, Money amount, String desc,
             String bizNo, String requestId, String voucherNo, BizType bizType) {
+        accountSubLedgerRepository.save(buildSubLedger(accountInfo, balance.getCurrencyCode(), balance.getBalance(),
+                amount, desc, bizNo, requestId, voucherNo, bizType));
+    }
+
+    /**
+     * 构建分户账
+     *
+     * @param balanceAfter 本笔应用后的余额
+     */
+    private AccountSubLedger buildSubLedger(AccountInfo accountInfo, String currencyCode, BigDecimal balanceAfter,
+            Money amount, String desc, String bizNo, String requestId, String voucherNo, BizType bizType) {
         AccountSubLedger subLedger = new AccountSubLedger();
         subLedger.setVoucherNo(voucherNo);
         subLedger.setBiz_no(bizNo);
         subLedger.setRequestId(requestId);
         subLedger.setUserNo(accountInfo.getUserNo());
         subLedger.setAccountNo(accountInfo.getAccountNo());
-        subLedger.setCurrencyCode(balance.getCurrencyCode());
+        subLedger.setCurrencyCode(currencyCode);
 
         FlowDirection direction = FlowDirection.resolve(amount.getAmount());
         subLedger.setCdFlag(direction);
         subLedger.setAmount(amount.abs().getAmount());
-        subLedger.setBalance(balance.getBalance());
+        subLedger.setBalance(balanceAfter);
 
         subLedger.setStatus(AccountingStatus.NORMAL);
         subLedger.setCheckStatus(CheckStatus.UNCHECKED);
@@ -323,7 +557,6 @@ public class AccountBalanceDomainService {
 
         subLedger.setAcctDate(LocalDate.now());
         subLedger.setTransTime(LocalDateTime.now());
-
-        accountSubLedgerRepository.save(subLedger);
+        return subLedger;
     }
 }
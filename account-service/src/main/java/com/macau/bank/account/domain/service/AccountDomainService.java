@@ -3,6 +3,8 @@ package com.macau.bank.account.domain.service;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.macau.bank.account.common.result.AccountErrorCode;
 import com.macau.bank.account.domain.entity.*;
+import com.macau.bank.account.domain.model.SubLedgerQuery;
+import com.macau.bank.account.domain.model.UserAccountView;
 import com.macau.bank.account.domain.model.UserAssetView;
 import com.macau.bank.account.domain.repository.*;
 import com.macau.bank.common.core.domain.Money;
@@ -22,6 +24,7 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -57,6 +60,9 @@ public class AccountDomainService {
     @Resource
     private CardNumberGenerator cardNumberGenerator;
 
+    @Resource
+    private HotAccountDomainService hotAccountDomainService;
+
     // ==================== 账户信息查询 ====================
 
     public List<AccountInfo> getAccountInfosByUserNo(String userNo) {
@@ -74,32 +80,27 @@ public class AccountDomainService {
     // ==================== 余额查询 ====================
 
     public List<AccountBalance> getAccountBalancesByAccountNo(String accountNo) {
-        return accountBalanceRepository.findByAccountNo(accountNo);
+        return hotAccountDomainService.mergeShards(accountBalanceRepository.findByAccountNo(accountNo));
     }
 
-    public List<AccountBalance> getBalancesByUserNo(String userNo) {
-        List<AccountInfo> accounts = getAccountInfosByUserNo(userNo);
-        if (accounts == null || accounts.isEmpty()) {
-            return new ArrayList<>();
-        }
-        List<String> accountNos = accounts.stream().map(AccountInfo::getAccountNo).collect(Collectors.toList());
-        return accountBalanceRepository.findByAccountNos(accountNos);
+    /**
+     * 用户名下全部账户及余额 (一次往返，分片行已聚合)
+     */
+    public UserAccountView getUserAccountView(String userNo) {
+        UserAccountView view = accountBalanceRepository.findUserAccountView(userNo);
+        return UserAccountView.builder()
+                .accounts(view.getAccounts())
+                .balances(hotAccountDomainService.mergeShards(view.getBalances()))
+                .build();
     }
 
     public AccountBalance getAccountBalance(String accountNo, String currencyCode) {
-        return accountBalanceRepository.findByAccountAndCurrency(accountNo, currencyCode);
+        return hotAccountDomainService.getBalance(accountNo, currencyCode);
     }
 
     public String findAccountNoByUserAndCurrency(String userNo, String currencyCode) {
-        List<AccountInfo> userAccounts = accountInfoRepository.findByUserNo(userNo);
-        for (AccountInfo info : userAccounts) {
-            AccountBalance balance = accountBalanceRepository.findByAccountAndCurrency(info.getAccountNo(),
-                    currencyCode);
-            if (balance != null) {
-                return info.getAccountNo();
-            }
-        }
-        return null;
+        AccountBalance balance = accountBalanceRepository.findUserBalance(userNo, currencyCode);
+        return balance != null ? balance.getAccountNo() : null;
     }
 
     // ==================== 分户账查询 ====================
@@ -112,6 +113,18 @@ public class AccountDomainService {
                 page, pageSize);
     }
 
+    public List<AccountSubLedger> seekSubLedgers(SubLedgerQuery query, int limit) {
+        return accountSubLedgerRepository.seek(query, limit);
+    }
+
+    public long countSubLedgers(SubLedgerQuery query) {
+        return accountSubLedgerRepository.count(query);
+    }
+
+    public void streamSubLedgers(SubLedgerQuery query, Consumer<AccountSubLedger> consumer) {
+        accountSubLedgerRepository.stream(query, consumer);
+    }
+
     // ==================== 资产视图构建 ====================
 
     public UserAssetView buildUserAssetView(List<AccountInfo> accounts, List<AccountBalance> balances,
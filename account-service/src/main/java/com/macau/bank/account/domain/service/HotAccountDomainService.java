@@ -0,0 +1,437 @@
+package com.macau.bank.account.domain.service;
+
+import com.macau.bank.account.common.result.AccountErrorCode;
+import com.macau.bank.account.domain.entity.AccountBalance;
+import com.macau.bank.account.domain.entity.AccountInfo;
+import com.macau.bank.account.domain.entity.AccountSubLedger;
+import com.macau.bank.account.domain.model.BalanceDelta;
+import com.macau.bank.account.domain.repository.AccountBalanceRepository;
+import com.macau.bank.account.domain.repository.AccountInfoRepository;
+import com.macau.bank.account.domain.repository.AccountSubLedgerRepository;
+import com.macau.bank.account.infra.config.HotAccountProperties;
+import com.macau.bank.common.core.enums.AccountingStatus;
+import com.macau.bank.common.core.enums.BizType;
+import com.macau.bank.common.core.enums.CheckStatus;
+import com.macau.bank.common.core.enums.FlowDirection;
+import com.macau.bank.common.core.enums.SettleStatus;
+import com.macau.bank.common.core.exception.BusinessException;
+import com.macau.bank.common.core.util.IdGenerator;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 热点账户分片领域服务
+ * <p>
+ * 银行外汇内部户、手续费内部户等承接全部交易的一条腿，单行余额会成为全局串行点。
+ * 分片账户的每个币种余额拆分为 N 个分片行 (shard_no 0..N-1，0 为主分片)：
+ * - 入账/出账：按请求ID哈希路由到分片，单条条件 UPDATE 原子应用，不再需要账户级分布式锁
+ * - 冻结：落在按冻结流水号哈希的归属分片，归属分片可用余额不足而账户合计足够时先从其他分片调拨补足；
+ *   解冻/解冻扣款按同一流水号回到归属分片，未命中再探测其他分片 (主分片上的历史冻结、分片数调整)
+ * - 查询：资产汇总、账户汇总等读路径按 (账号, 币种) 聚合各分片
+ * - 再平衡：后台任务将富余分片的资金调拨至低水位分片，账户总额不变
+ * <p>
+ * 分户账中的余额快照为各分片合计余额 (其他分片上尚未提交的并发变动不计入)；
+ * 分片间调拨记录一出一进两条 {@link BizType#SHARD_TRANSFER} 分户账，合计余额不变。
+ */
+@Slf4j
+@Service
+public class HotAccountDomainService {
+
+    /**
+     * 主分片号
+     */
+    private static final int MAIN_SHARD = 0;
+
+    @Resource
+    private AccountBalanceRepository accountBalanceRepository;
+
+    @Resource
+    private AccountInfoRepository accountInfoRepository;
+
+    @Resource
+    private AccountSubLedgerRepository accountSubLedgerRepository;
+
+    @Resource
+    private HotAccountProperties hotAccountProperties;
+
+    /**
+     * 是否为分片账户
+     */
+    public boolean isSharded(String accountNo) {
+        return shardCount(accountNo) > 1;
+    }
+
+    /**
+     * 账户分片数 (未配置为 1)
+     */
+    public int shardCount(String accountNo) {
+        if (accountNo == null) {
+            return 1;
+        }
+        Integer count = hotAccountProperties.getShards().get(accountNo);
+        return count == null || count < 1 ? 1 : count;
+    }
+
+    /**
+     * 已配置的分片账户
+     */
+    public Set<String> shardedAccounts() {
+        return hotAccountProperties.getShards().keySet().stream()
+                .filter(this::isSharded)
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * 路由到分片并原子应用增量
+     * <p>
+     * - 入账：落到路由键哈希对应的分片，分片尚未初始化时落主分片
+     * - 出账：从哈希分片开始依次探测，落到首个可用余额足够的分片
+     * </p>
+     *
+     * @param routingKey 路由键 (请求幂等ID)
+     * @return 更新后的账户余额 (各分片合计)，用于分户账余额快照
+     */
+    public AccountBalance applyToShard(String accountNo, String currencyCode, BalanceDelta delta,
+            String routingKey) {
+        int shardCount = shardCount(accountNo);
+        int start = homeShard(accountNo, routingKey);
+
+        if (delta.getAvailableBalance().signum() >= 0) {
+            AccountBalance updated = accountBalanceRepository.applyDelta(accountNo, currencyCode, start, delta);
+            if (updated == null && start != MAIN_SHARD) {
+                updated = accountBalanceRepository.applyDelta(accountNo, currencyCode, MAIN_SHARD, delta);
+            }
+            if (updated == null) {
+                throw new BusinessException(AccountErrorCode.BALANCE_RECORD_NOT_FOUND);
+            }
+            return mergedBalance(accountNo, currencyCode);
+        }
+
+        for (int i = 0; i < shardCount; i++) {
+            int shardNo = (start + i) % shardCount;
+            if (accountBalanceRepository.applyDelta(accountNo, currencyCode, shardNo, delta) != null) {
+                return mergedBalance(accountNo, currencyCode);
+            }
+        }
+
+        if (accountBalanceRepository.findByAccountAndCurrency(accountNo, currencyCode) == null) {
+            throw new BusinessException(AccountErrorCode.BALANCE_RECORD_NOT_FOUND);
+        }
+        log.warn("分片账户各分片可用余额均不足: accountNo={}, currency={}, delta={}", accountNo, currencyCode, delta);
+        throw new BusinessException(AccountErrorCode.BALANCE_INSUFFICIENT);
+    }
+
+    /**
+     * 冻结：落在冻结流水号哈希对应的归属分片
+     * <p>
+     * 归属分片可用余额不足时，按可用余额从高到低从其他分片调拨补足后再冻结；账户合计可用余额不足时拒绝。
+     * 归属分片尚未初始化时落主分片
+     * </p>
+     *
+     * @param flowNo 冻结流水号，解冻/解冻扣款按同一流水号路由回归属分片
+     */
+    public void freezeOnShard(String accountNo, String currencyCode, BigDecimal amount, String flowNo) {
+        BalanceDelta delta = BalanceDelta.freeze(amount);
+        int home = homeShard(accountNo, flowNo);
+        if (accountBalanceRepository.applyDelta(accountNo, currencyCode, home, delta) != null) {
+            return;
+        }
+
+        List<AccountBalance> shards = accountBalanceRepository.findShards(accountNo, currencyCode);
+        if (shards.isEmpty()) {
+            throw new BusinessException(AccountErrorCode.BALANCE_RECORD_NOT_FOUND);
+        }
+        AccountBalance target = shards.stream().filter(b -> shardNo(b) == home).findFirst()
+                .orElseGet(() -> shards.stream().filter(b -> shardNo(b) == MAIN_SHARD).findFirst()
+                        .orElse(shards.get(0)));
+        BigDecimal total = sum(shards, AccountBalance::getAvailableBalance);
+        if (total.compareTo(amount) < 0) {
+            log.warn("分片账户合计可用余额不足，拒绝冻结: accountNo={}, currency={}, amount={}, available={}",
+                    accountNo, currencyCode, amount, total);
+            throw new BusinessException(AccountErrorCode.BALANCE_INSUFFICIENT);
+        }
+
+        BigDecimal shortfall = amount.subtract(target.getAvailableBalance());
+        String bizNo = IdGenerator.generateId();
+        List<AccountBalance> sources = shards.stream()
+                .filter(b -> b != target)
+                .sorted(Comparator.comparing(AccountBalance::getAvailableBalance).reversed())
+                .toList();
+        for (AccountBalance source : sources) {
+            BigDecimal move = shortfall.min(source.getAvailableBalance());
+            if (move.signum() <= 0) {
+                break;
+            }
+            if (transfer(accountNo, currencyCode, shardNo(source), shardNo(target), move, bizNo)) {
+                shortfall = shortfall.subtract(move);
+            }
+        }
+
+        if (accountBalanceRepository.applyDelta(accountNo, currencyCode, shardNo(target), delta) == null) {
+            // 调拨期间其他分片被并发扣减，补足失败
+            throw new BusinessException(AccountErrorCode.BALANCE_INSUFFICIENT);
+        }
+        log.info("归属分片余额不足，调拨后冻结: accountNo={}, currency={}, shard={}, amount={}",
+                accountNo, currencyCode, shardNo(target), amount);
+    }
+
+    /**
+     * 解冻/解冻扣款：先作用于冻结流水号的归属分片，未命中再依次探测其他分片
+     *
+     * @param flowNo     冻结流水号
+     * @param guardError 各分片冻结金额均不足时抛出的错误码
+     * @return 更新后的账户余额 (各分片合计)
+     */
+    public AccountBalance applyFrozenDelta(String accountNo, String currencyCode, BalanceDelta delta, String flowNo,
+            AccountErrorCode guardError) {
+        int shardCount = shardCount(accountNo);
+        int home = homeShard(accountNo, flowNo);
+        for (int i = 0; i < shardCount; i++) {
+            int shardNo = (home + i) % shardCount;
+            if (accountBalanceRepository.applyDelta(accountNo, currencyCode, shardNo, delta) != null) {
+                return mergedBalance(accountNo, currencyCode);
+            }
+        }
+        if (accountBalanceRepository.findByAccountAndCurrency(accountNo, currencyCode) == null) {
+            throw new BusinessException(AccountErrorCode.BALANCE_RECORD_NOT_FOUND);
+        }
+        throw new BusinessException(guardError);
+    }
+
+    /**
+     * 查询账户币种余额 (分片账户聚合各分片)
+     */
+    public AccountBalance getBalance(String accountNo, String currencyCode) {
+        if (!isSharded(accountNo)) {
+            return accountBalanceRepository.findByAccountAndCurrency(accountNo, currencyCode);
+        }
+        List<AccountBalance> merged = mergeShards(accountBalanceRepository.findShards(accountNo, currencyCode));
+        return merged.isEmpty() ? null : merged.get(0);
+    }
+
+    /**
+     * 将同一 (账号, 币种) 的分片行聚合为一条只读视图，非分片行原样返回
+     * <p>
+     * 聚合视图不携带 id/version/macCode，不可回写
+     * </p>
+     */
+    public List<AccountBalance> mergeShards(List<AccountBalance> balances) {
+        if (balances == null || balances.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Map<String, List<AccountBalance>> groups = balances.stream()
+                .collect(Collectors.groupingBy(b -> b.getAccountNo() + ":" + b.getCurrencyCode(),
+                        LinkedHashMap::new, Collectors.toList()));
+
+        List<AccountBalance> result = new ArrayList<>(groups.size());
+        for (List<AccountBalance> group : groups.values()) {
+            result.add(group.size() == 1 ? group.get(0) : merge(group));
+        }
+        return result;
+    }
+
+    /**
+     * 补齐缺失的分片行 (零余额)
+     *
+     * @return 新建的分片数
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public int ensureShards(String accountNo, String currencyCode) {
+        List<AccountBalance> shards = accountBalanceRepository.findShards(accountNo, currencyCode);
+        if (shards.isEmpty()) {
+            // 主分片不存在说明币种账户未开通，不自动开户
+            return 0;
+        }
+
+        Set<Integer> existing = shards.stream().map(AccountBalance::getShardNo).collect(Collectors.toSet());
+        int created = 0;
+        for (int shardNo = 0; shardNo < shardCount(accountNo); shardNo++) {
+            if (existing.contains(shardNo)) {
+                continue;
+            }
+            AccountBalance shard = new AccountBalance();
+            shard.setAccountNo(accountNo);
+            shard.setCurrencyCode(currencyCode);
+            shard.setShardNo(shardNo);
+            shard.setBalance(BigDecimal.ZERO);
+            shard.setAvailableBalance(BigDecimal.ZERO);
+            shard.setFrozenAmount(BigDecimal.ZERO);
+            shard.setTotalIncome(BigDecimal.ZERO);
+            shard.setTotalOutcome(BigDecimal.ZERO);
+            accountBalanceRepository.save(shard);
+            created++;
+        }
+        if (created > 0) {
+            log.info("补齐余额分片: accountNo={}, currency={}, created={}", accountNo, currencyCode, created);
+        }
+        return created;
+    }
+
+    /**
+     * 分片再平衡
+     * <p>
+     * 可用余额低于 (平均值 × 低水位比例) 的分片，从可用余额最高的分片调拨补足到平均值。
+     * 调拨先扣调出分片 (条件 UPDATE 失败即跳过)，再入调入分片并记录调拨分户账，同一事务内完成。
+     * 调用方须持有该账户的分布式锁，避免多个节点同时按过期的分片快照调拨。
+     * </p>
+     *
+     * @return 调拨次数
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public int rebalance(String accountNo, String currencyCode) {
+        List<AccountBalance> shards = accountBalanceRepository.findShards(accountNo, currencyCode);
+        if (shards.size() < 2) {
+            return 0;
+        }
+
+        BigDecimal total = shards.stream().map(AccountBalance::getAvailableBalance)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        BigDecimal average = total.divide(BigDecimal.valueOf(shards.size()), 2, RoundingMode.DOWN);
+        BigDecimal lowWatermark = average.multiply(hotAccountProperties.getLowWatermarkRatio());
+
+        String bizNo = IdGenerator.generateId();
+        int moves = 0;
+        for (AccountBalance target : shards) {
+            if (target.getAvailableBalance().compareTo(lowWatermark) >= 0) {
+                continue;
+            }
+            AccountBalance source = shards.stream()
+                    .max(Comparator.comparing(AccountBalance::getAvailableBalance))
+                    .orElseThrow();
+            BigDecimal amount = average.subtract(target.getAvailableBalance())
+                    .min(source.getAvailableBalance().subtract(average));
+            if (amount.signum() <= 0) {
+                continue;
+            }
+
+            if (!transfer(accountNo, currencyCode, shardNo(source), shardNo(target), amount, bizNo)) {
+                // 调出分片已被并发扣减，本轮跳过
+                continue;
+            }
+
+            source.setAvailableBalance(source.getAvailableBalance().subtract(amount));
+            target.setAvailableBalance(target.getAvailableBalance().add(amount));
+            moves++;
+            log.info("分片调拨: accountNo={}, currency={}, {} -> {}, amount={}",
+                    accountNo, currencyCode, source.getShardNo(), target.getShardNo(), amount);
+        }
+        return moves;
+    }
+
+    /**
+     * 分片间调拨：先扣调出分片，再入调入分片，记录一出一进两条调拨分户账 (余额快照为合计余额，调拨前后不变)
+     *
+     * @param bizNo 调拨批次号，同一次补足/再平衡的调拨共用
+     * @return 调出分片可用余额不足 (已被并发扣减) 时返回 false，不做任何变动
+     */
+    private boolean transfer(String accountNo, String currencyCode, int from, int to, BigDecimal amount,
+            String bizNo) {
+        if (accountBalanceRepository.applyDelta(accountNo, currencyCode, from,
+                BalanceDelta.shardTransfer(amount.negate())) == null) {
+            return false;
+        }
+        if (accountBalanceRepository.applyDelta(accountNo, currencyCode, to,
+                BalanceDelta.shardTransfer(amount)) == null) {
+            throw new BusinessException(AccountErrorCode.BALANCE_RECORD_NOT_FOUND);
+        }
+
+        BigDecimal balance = mergedBalance(accountNo, currencyCode).getBalance();
+        AccountInfo accountInfo = accountInfoRepository.findByAccountNo(accountNo);
+        String desc = "分片调拨: " + from + " -> " + to;
+        accountSubLedgerRepository.saveAll(List.of(
+                transferLedger(accountInfo, accountNo, currencyCode, FlowDirection.OUT, amount, balance, bizNo, desc),
+                transferLedger(accountInfo, accountNo, currencyCode, FlowDirection.IN, amount, balance, bizNo, desc)));
+        return true;
+    }
+
+    private AccountSubLedger transferLedger(AccountInfo accountInfo, String accountNo, String currencyCode,
+            FlowDirection direction, BigDecimal amount, BigDecimal balance, String bizNo, String desc) {
+        String voucherNo = IdGenerator.generateId();
+        AccountSubLedger subLedger = new AccountSubLedger();
+        subLedger.setVoucherNo(voucherNo);
+        subLedger.setBiz_no(bizNo);
+        subLedger.setRequestId(voucherNo);
+        subLedger.setUserNo(accountInfo != null ? accountInfo.getUserNo() : null);
+        subLedger.setAccountNo(accountNo);
+        subLedger.setCurrencyCode(currencyCode);
+        subLedger.setCdFlag(direction);
+        subLedger.setAmount(amount);
+        subLedger.setBalance(balance);
+        subLedger.setStatus(AccountingStatus.NORMAL);
+        subLedger.setCheckStatus(CheckStatus.UNCHECKED);
+        subLedger.setSettleStatus(SettleStatus.REALTIME);
+        subLedger.setBizType(BizType.SHARD_TRANSFER);
+        subLedger.setBizDesc(desc);
+        subLedger.setAcctDate(LocalDate.now());
+        subLedger.setTransTime(LocalDateTime.now());
+        return subLedger;
+    }
+
+    /**
+     * 各分片合计余额
+     */
+    private AccountBalance mergedBalance(String accountNo, String currencyCode) {
+        List<AccountBalance> merged = mergeShards(accountBalanceRepository.findShards(accountNo, currencyCode));
+        if (merged.isEmpty()) {
+            throw new BusinessException(AccountErrorCode.BALANCE_RECORD_NOT_FOUND);
+        }
+        return merged.get(0);
+    }
+
+    /**
+     * 路由键哈希对应的归属分片
+     */
+    private int homeShard(String accountNo, String routingKey) {
+        return routingKey == null ? MAIN_SHARD : Math.floorMod(routingKey.hashCode(), shardCount(accountNo));
+    }
+
+    private static int shardNo(AccountBalance balance) {
+        return balance.getShardNo() == null ? MAIN_SHARD : balance.getShardNo();
+    }
+
+    private AccountBalance merge(List<AccountBalance> group) {
+        AccountBalance main = group.stream()
+                .filter(b -> b.getShardNo() == null || b.getShardNo() == MAIN_SHARD)
+                .findFirst()
+                .orElse(group.get(0));
+
+        AccountBalance view = new AccountBalance();
+        view.setAccountNo(main.getAccountNo());
+        view.setCurrencyCode(main.getCurrencyCode());
+        view.setBalance(sum(group, AccountBalance::getBalance));
+        view.setAvailableBalance(sum(group, AccountBalance::getAvailableBalance));
+        view.setFrozenAmount(sum(group, AccountBalance::getFrozenAmount));
+        view.setTotalIncome(sum(group, AccountBalance::getTotalIncome));
+        view.setTotalOutcome(sum(group, AccountBalance::getTotalOutcome));
+        view.setLastFlowId(main.getLastFlowId());
+        view.setCreateTime(main.getCreateTime());
+        view.setUpdateTime(group.stream().map(AccountBalance::getUpdateTime)
+                .filter(Objects::nonNull)
+                .max(Comparator.naturalOrder())
+                .orElse(main.getUpdateTime()));
+        return view;
+    }
+
+    private BigDecimal sum(List<AccountBalance> group, Function<AccountBalance, BigDecimal> field) {
+        return group.stream().map(field)
+                .filter(Objects::nonNull)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+}
@@ -0,0 +1,29 @@
+package com.macau.bank.account.infra.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 余额读缓存配置 (本地 LRU + Redis 两级，按 version 判新旧)
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "account.balance.cache")
+public class BalanceCacheProperties {
+
+    /** 是否开启；关闭时余额查询全部访问 MySQL */
+    private boolean enabled = false;
+
+    /** 本地缓存容量 (余额行数)，超出按 LRU 淘汰 */
+    private int localMaxSize = 20000;
+
+    /** 本地缓存存活时间 (毫秒)，即其他节点写入后本节点最长可见延迟 */
+    private long localTtlMillis = 1000;
+
+    /** Redis 缓存存活时间 (秒) */
+    private long redisTtlSeconds = 600;
+
+    /** 命中时抽样回表比对 version 的比例 (0~1)，用于统计陈旧读 */
+    private double verifySampleRate = 0.01;
+}
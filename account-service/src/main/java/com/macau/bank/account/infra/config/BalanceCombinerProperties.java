@@ -0,0 +1,29 @@
+package com.macau.bank.account.infra.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 同账户记账合并执行器配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "account.balance.combiner")
+public class BalanceCombinerProperties {
+
+    /** 是否开启合并执行；关闭时入账/出账逐笔加锁执行 */
+    private boolean enabled = false;
+
+    /** 单写线程数，账号按哈希固定路由到其中一个 */
+    private int stripes = 8;
+
+    /** 每个单写线程的待处理队列容量，队列满时退化为逐笔执行 */
+    private int queueCapacity = 1024;
+
+    /** 单次合并的最大请求数 */
+    private int maxBatchSize = 64;
+
+    /** 调用方等待合并结果的超时 (毫秒)，须小于 Dubbo 提供方超时，超时后未执行的请求被撤销 */
+    private long awaitTimeoutMillis = 2000;
+}
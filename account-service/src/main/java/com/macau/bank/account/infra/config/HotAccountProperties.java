@@ -0,0 +1,24 @@
+package com.macau.bank.account.infra.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 热点内部户分片配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "account.hot-account")
+public class HotAccountProperties {
+
+    /** 分片账户：账号 -> 分片数 (分片数 <= 1 视为不分片) */
+    private Map<String, Integer> shards = new HashMap<>();
+
+    /** 再平衡低水位：分片可用余额低于平均值的该比例时，从富余分片调拨补足到平均值 */
+    private BigDecimal lowWatermarkRatio = new BigDecimal("0.2");
+}
@@ -0,0 +1,29 @@
+package com.macau.bank.account.infra.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 幂等请求ID索引配置 (本节点布隆过滤器 + 近期请求缓存)
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "account.request-id-index")
+public class RequestIdIndexProperties {
+
+    /** 是否开启；关闭时每次幂等校验都查询 account_sub_ledger */
+    private boolean enabled = false;
+
+    /** 单代布隆过滤器预计写入数，写满即轮换 */
+    private long expectedInsertions = 1_000_000;
+
+    /** 布隆过滤器期望误判率 */
+    private double fpp = 0.01;
+
+    /** 布隆过滤器轮换周期 (分钟)，查询同时检查当前代与上一代 */
+    private long rotateMinutes = 60;
+
+    /** 近期已提交请求缓存容量 */
+    private int recentCacheSize = 10000;
+}
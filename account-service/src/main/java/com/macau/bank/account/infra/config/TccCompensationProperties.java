@@ -0,0 +1,36 @@
+package com.macau.bank.account.infra.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * TCC 冻结补偿任务配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "account.tcc.compensation")
+public class TccCompensationProperties {
+
+    /** 冻结超过该时长 (分钟) 仍未确认/取消视为悬挂 */
+    private long timeoutMinutes = 30;
+
+    /** 每批捞取条数；一批处理完再按游标捞下一批，直到捞空 */
+    private int batchSize = 200;
+
+    /** 并行解冻线程数：同一账户固定路由到同一线程，按捞取顺序执行 */
+    private int parallelism = 8;
+
+    /** 单次调度最长执行时间 (秒)，超出后剩余记录留给下一次调度，应小于调度间隔 */
+    private long maxRunSeconds = 50;
+
+    /** XXL-JOB 分片广播时的数据划分方式 */
+    private Partition partition = Partition.HASH;
+
+    public enum Partition {
+        /** 按 CRC32(flow_no) 取模 */
+        HASH,
+        /** 将本次悬挂记录的 [MIN(id), MAX(id)] 均分为分片数段 */
+        RANGE
+    }
+}
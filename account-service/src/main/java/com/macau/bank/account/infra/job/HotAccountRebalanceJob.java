@@ -0,0 +1,69 @@
+package com.macau.bank.account.infra.job;
+
+import com.macau.bank.account.domain.entity.AccountBalance;
+import com.macau.bank.account.domain.repository.AccountBalanceRepository;
+import com.macau.bank.account.domain.service.HotAccountDomainService;
+import com.macau.bank.common.framework.lock.config.MacauLockProperties;
+import com.macau.bank.common.framework.lock.support.TwoTierLockManager;
+import com.xxl.job.core.handler.annotation.XxlJob;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 热点账户分片再平衡任务
+ * 职责：补齐分片账户缺失的分片行，并将富余分片的资金调拨至低水位分片，避免出账探测全部落空。
+ * 每个账户在账户锁内执行，多个节点同时触发时只有一个节点调拨。
+ */
+@Slf4j
+@Component
+public class HotAccountRebalanceJob {
+
+    private static final String LOCK_KEY_PREFIX = "lock:account:";
+
+    @Resource
+    private HotAccountDomainService hotAccountDomainService;
+
+    @Resource
+    private AccountBalanceRepository accountBalanceRepository;
+
+    @Resource
+    private TwoTierLockManager twoTierLockManager;
+
+    @Resource
+    private MacauLockProperties macauLockProperties;
+
+    /**
+     * 任务名：hotAccountRebalanceJob
+     * 调度频率建议：每 10 秒 1 次
+     */
+    @XxlJob("hotAccountRebalanceJob")
+    public void hotAccountRebalanceJob() {
+        for (String accountNo : hotAccountDomainService.shardedAccounts()) {
+            // 以主分片确定已开通的币种
+            List<String> currencies = accountBalanceRepository.findByAccountNo(accountNo).stream()
+                    .filter(b -> b.getShardNo() == null || b.getShardNo() == 0)
+                    .map(AccountBalance::getCurrencyCode)
+                    .toList();
+
+            for (String currencyCode : currencies) {
+                try {
+                    int moves = twoTierLockManager.execute(LOCK_KEY_PREFIX + accountNo,
+                            macauLockProperties.getWaitTime(), macauLockProperties.getLeaseTime(), TimeUnit.SECONDS,
+                            "分片再平衡进行中", () -> {
+                                hotAccountDomainService.ensureShards(accountNo, currencyCode);
+                                return hotAccountDomainService.rebalance(accountNo, currencyCode);
+                            });
+                    if (moves > 0) {
+                        log.info("[分片再平衡] accountNo={}, currency={}, moves={}", accountNo, currencyCode, moves);
+                    }
+                } catch (Throwable e) {
+                    log.error("[分片再平衡] 失败: accountNo={}, currency={}", accountNo, currencyCode, e);
+                }
+            }
+        }
+    }
+}
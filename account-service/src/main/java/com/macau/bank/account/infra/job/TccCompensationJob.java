@@ -3,19 +3,38 @@ package com.macau.bank.account.infra.job;
 import com.macau.bank.account.application.command.UnfreezeBalanceCmd;
 import com.macau.bank.account.application.service.AccountAppService;
 import com.macau.bank.account.domain.entity.AccountFreezeLog;
+import com.macau.bank.account.domain.model.DeadFreezeLogScan;
 import com.macau.bank.account.domain.repository.AccountFreezeLogRepository;
-import com.macau.bank.common.core.enums.FreezeStatus;
+import com.macau.bank.account.infra.config.TccCompensationProperties;
+import com.xxl.job.core.context.XxlJobHelper;
 import com.xxl.job.core.handler.annotation.XxlJob;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * TCC 事务补偿任务 (兜底机制)
  * 职责：定期捞取 "超时未提交/未回滚" 的冻结记录，执行自动解冻，防止资源永久悬挂。
+ * <p>
+ * - 支持 XXL-JOB 分片广播：按 CRC32(flow_no) 取模或按主键区间划分，各节点只处理本分片
+ * - 按 (create_time, id) 键集翻页连续捞取，直到捞空或达到单次执行时长上限
+ * - 每批记录按账号路由到固定的解冻线程并行执行，同一账户按捞取顺序串行
+ * </p>
+ * 指标：调度次数、扫描数、解冻成功/失败数、最久悬挂时长、单次耗时，见 {@link #metrics()}。
  */
 @Slf4j
 @Component
@@ -23,60 +42,196 @@ public class TccCompensationJob {
 
     @Resource
     private AccountAppService accountAppService;
-    
+
     @Resource
     private AccountFreezeLogRepository freezeLogRepository;
 
+    @Resource
+    private TccCompensationProperties tccCompensationProperties;
+
+    private List<ExecutorService> stripes;
+
+    private final LongAdder runCount = new LongAdder();
+    private final LongAdder scannedCount = new LongAdder();
+    private final LongAdder compensatedCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+    private final AtomicLong lastRunMillis = new AtomicLong();
+    private final AtomicLong oldestLagSeconds = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        int parallelism = Math.max(1, tccCompensationProperties.getParallelism());
+        stripes = new ArrayList<>(parallelism);
+        for (int i = 0; i < parallelism; i++) {
+            String name = "tcc-compensation-" + i;
+            // 整批完成后才捞下一批，队列中最多堆积一批 (batchSize 条)，无需额外限界
+            stripes.add(new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                    r -> {
+                        Thread thread = new Thread(r, name);
+                        thread.setDaemon(true);
+                        return thread;
+                    }));
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (stripes != null) {
+            stripes.forEach(ExecutorService::shutdown);
+        }
+    }
+
     /**
      * 任务名：tccFreezeCompensationJob
-     * 调度频率建议：每分钟 1 次
+     * 调度频率建议：每分钟 1 次，路由策略可选 "分片广播"
      */
     @XxlJob("tccFreezeCompensationJob")
     public void tccFreezeCompensationJob() {
-        log.info("🚀 [TCC补偿] 开始扫描超时冻结记录...");
+        // 非分片调度 (或本地直接调用) 时 shardTotal 为 0/1，处理全部记录
+        int shardIndex = Math.max(0, XxlJobHelper.getShardIndex());
+        int shardTotal = Math.max(1, XxlJobHelper.getShardTotal());
+        long startNanos = System.nanoTime();
+        runCount.increment();
 
         // 1. 定义超时时间 (比如 30分钟前)
-        LocalDateTime timeoutThreshold = LocalDateTime.now().minusMinutes(30);
-
-        // 2. 捞取数据 (分页捞取，防止一次太多 OOM)
-        List<AccountFreezeLog> deadFreezeLogList = freezeLogRepository.findDeadLogs(timeoutThreshold, 100);
-
-        if (deadFreezeLogList.isEmpty()) {
-            log.info("✅ [TCC补偿] 无超时记录，任务结束。");
+        LocalDateTime timeoutThreshold = LocalDateTime.now().minusMinutes(tccCompensationProperties.getTimeoutMinutes());
+        DeadFreezeLogScan scan = partition(timeoutThreshold, shardIndex, shardTotal);
+        if (scan == null) {
+            oldestLagSeconds.set(0);
+            log.info("✅ [TCC补偿] 无超时记录，任务结束: shard={}/{}", shardIndex, shardTotal);
             return;
         }
+        log.info("🚀 [TCC补偿] 开始扫描超时冻结记录: shard={}/{}", shardIndex, shardTotal);
+
+        // 2. 键集翻页连续捞取，直到捞空或超出单次执行时长
+        int batchSize = Math.max(1, tccCompensationProperties.getBatchSize());
+        long deadline = startNanos + TimeUnit.SECONDS.toNanos(tccCompensationProperties.getMaxRunSeconds());
+        long scanned = 0;
+        long failed = 0;
+        boolean drained = false;
+        while (true) {
+            List<AccountFreezeLog> batch = freezeLogRepository.findDeadLogs(scan, batchSize);
+            if (batch.isEmpty()) {
+                drained = true;
+                break;
+            }
+            if (scanned == 0) {
+                oldestLagSeconds.set(Duration.between(batch.get(0).getCreateTime(), LocalDateTime.now()).toSeconds());
+            }
+
+            // 3. 并行执行 Cancel (复用之前的 Cancel 逻辑)，整批完成后再推进游标
+            failed += compensate(batch);
+            scanned += batch.size();
+            AccountFreezeLog last = batch.get(batch.size() - 1);
+            scan = scan.toBuilder().cursorTime(last.getCreateTime()).cursorId(last.getId()).build();
+            log.info("⚠️ [TCC补偿] 进度: shard={}/{}, scanned={}, failed={}", shardIndex, shardTotal, scanned, failed);
 
-        log.info("⚠️ [TCC补偿] 发现 {} 条死单，开始执行强制解冻...", deadFreezeLogList.size());
-
-        // 3. 逐条执行 Cancel (复用之前的 Cancel 逻辑)
-        for (AccountFreezeLog logEntry : deadFreezeLogList) {
-            try {
-                // 跳过空回滚标记
-                if (logEntry.getStatus() == FreezeStatus.CANCELLED) {
-                    log.info("   -> 跳过空回滚标记: flowNo={}", logEntry.getFlowNo());
-                    continue;
-                }
-
-                // 跳过已解冻记录
-                if (logEntry.getStatus() == FreezeStatus.UNFROZEN) {
-                    log.info("   -> 跳过已解冻记录: flowNo={}", logEntry.getFlowNo());
-                    continue;
-                }
-
-                // 调用你 Day 4 写的 cancel 方法
-                UnfreezeBalanceCmd cmd = UnfreezeBalanceCmd.builder()
-                        .accountNo(logEntry.getAccountNo())
-                        .amount(logEntry.getAmount())
-                        .currencyCode(logEntry.getCurrencyCode())
-                        .flowNo(logEntry.getFlowNo())
-                        .reason("冻结超时资金解冻")
-                        .build();
-                accountAppService.unfreezeBalance(cmd);
-                log.info("   -> 修复成功: txnId={}", logEntry.getFlowNo());
-            } catch (Exception e) {
-                log.error("   -> 修复失败: txnId={}", logEntry.getFlowNo(), e);
-                // 此时可以发钉钉/企业微信报警，人工介入
+            if (batch.size() < batchSize) {
+                drained = true;
+                break;
+            }
+            if (System.nanoTime() - deadline > 0) {
+                break;
             }
         }
+
+        long costMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        lastRunMillis.set(costMillis);
+        if (scanned == 0) {
+            oldestLagSeconds.set(0);
+        }
+        log.info("✅ [TCC补偿] 本次结束: shard={}/{}, scanned={}, compensated={}, failed={}, drained={}, cost={}ms",
+                shardIndex, shardTotal, scanned, scanned - failed, failed, drained, costMillis);
+        XxlJobHelper.log("TCC补偿: shard={}/{}, scanned={}, failed={}, drained={}", shardIndex, shardTotal, scanned,
+                failed, drained);
+    }
+
+    /**
+     * 补偿指标快照
+     */
+    public CompensationMetrics metrics() {
+        return new CompensationMetrics(runCount.sum(), scannedCount.sum(), compensatedCount.sum(), failedCount.sum(),
+                oldestLagSeconds.get(), lastRunMillis.get());
+    }
+
+    /**
+     * 构造本分片的扫描条件；按主键区间划分且本分片区间为空时返回 null
+     */
+    private DeadFreezeLogScan partition(LocalDateTime beforeTime, int shardIndex, int shardTotal) {
+        DeadFreezeLogScan.DeadFreezeLogScanBuilder scan = DeadFreezeLogScan.builder().beforeTime(beforeTime);
+        if (shardTotal <= 1) {
+            return scan.build();
+        }
+        if (tccCompensationProperties.getPartition() == TccCompensationProperties.Partition.HASH) {
+            return scan.hashTotal(shardTotal).hashIndex(shardIndex).build();
+        }
+
+        DeadFreezeLogScan.IdRange range = freezeLogRepository.findDeadLogIdRange(beforeTime);
+        if (range == null) {
+            return null;
+        }
+        long span = range.maxId() - range.minId() + 1;
+        long width = (span + shardTotal - 1) / shardTotal;
+        long fromId = range.minId() + width * shardIndex;
+        if (fromId > range.maxId()) {
+            return null;
+        }
+        return scan.fromId(fromId).toId(Math.min(range.maxId(), fromId + width - 1)).build();
+    }
+
+    /**
+     * 一批记录按账号分发到解冻线程并等待全部完成
+     *
+     * @return 失败条数 (保持 FROZEN，下次调度重试)
+     */
+    private int compensate(List<AccountFreezeLog> batch) {
+        List<CompletableFuture<Boolean>> results = new ArrayList<>(batch.size());
+        for (AccountFreezeLog logEntry : batch) {
+            results.add(CompletableFuture.supplyAsync(() -> unfreeze(logEntry), stripeOf(logEntry.getAccountNo())));
+        }
+        CompletableFuture.allOf(results.toArray(CompletableFuture[]::new)).join();
+        int failed = (int) results.stream().filter(r -> !r.join()).count();
+        scannedCount.add(batch.size());
+        compensatedCount.add(batch.size() - failed);
+        failedCount.add(failed);
+        return failed;
+    }
+
+    private boolean unfreeze(AccountFreezeLog logEntry) {
+        try {
+            // 调用你 Day 4 写的 cancel 方法
+            UnfreezeBalanceCmd cmd = UnfreezeBalanceCmd.builder()
+                    .accountNo(logEntry.getAccountNo())
+                    .amount(logEntry.getAmount())
+                    .currencyCode(logEntry.getCurrencyCode())
+                    .flowNo(logEntry.getFlowNo())
+                    .reason("冻结超时资金解冻")
+                    .build();
+            accountAppService.unfreezeBalance(cmd);
+            log.info("   -> 修复成功: txnId={}", logEntry.getFlowNo());
+            return true;
+        } catch (Exception e) {
+            log.error("   -> 修复失败: txnId={}", logEntry.getFlowNo(), e);
+            // 此时可以发钉钉/企业微信报警，人工介入
+            return false;
+        }
+    }
+
+    private ExecutorService stripeOf(String accountNo) {
+        return stripes.get(Math.floorMod(accountNo.hashCode(), stripes.size()));
+    }
+
+    /**
+     * 补偿指标
+     *
+     * @param runs             累计调度次数
+     * @param scanned          累计扫描的悬挂记录数
+     * @param compensated      累计解冻成功数
+     * @param failed           累计解冻失败数
+     * @param oldestLagSeconds 最近一次调度时本分片最久悬挂记录的冻结时长 (秒)，无悬挂记录为 0
+     * @param lastRunMillis    最近一次调度耗时 (毫秒)
+     */
+    public record CompensationMetrics(long runs, long scanned, long compensated, long failed, long oldestLagSeconds,
+            long lastRunMillis) {
     }
-}
\ No newline at end of file
+}
@@ -1,43 +1,48 @@
 package com.macau.bank.account.infra.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.macau.bank.account.domain.model.BalanceDelta;
 import com.macau.bank.account.infra.persistent.po.AccountBalancePO;
+import com.macau.bank.account.infra.persistent.po.UserAccountPO;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
-import java.math.BigDecimal;
+import java.util.List;
 
 @Mapper
 public interface AccountBalanceMapper extends BaseMapper<AccountBalancePO> {
 
     /**
-     * 自定义 SQL 更新余额 (带乐观锁) - 现需同时更新 macCode
+     * 增量原子更新 (无需先读后写)
+     * <p>
+     * 单条条件 UPDATE：应用增量后可用余额、冻结金额均不得为负，否则影响行数为 0。
+     * 不更新 mac_code，由调用方回读后像后重新签名。
+     * </p>
      */
-    int updateBalance(@Param("accountNo") String accountNo,
+    int applyDelta(@Param("accountNo") String accountNo,
             @Param("currencyCode") String currencyCode,
-            @Param("amount") BigDecimal amount,
-            @Param("version") Integer version);
+            @Param("shardNo") Integer shardNo,
+            @Param("delta") BalanceDelta delta);
 
     /**
-     * 冻结
+     * 回填 HMAC (调用方已持有行锁，version 条件仅作防御)
      */
-    int freezeBalance(@Param("accountNo") String accountNo,
-            @Param("currencyCode") String currencyCode,
-            @Param("amount") BigDecimal amount,
-            @Param("version") Integer version);
-
-    /**
-     * 解冻
-     */
-    int unfreezeBalance(@Param("accountNo") String accountNo,
-            @Param("currencyCode") String currencyCode,
-            @Param("amount") BigDecimal amount,
-            @Param("version") Integer version);
+    int updateMacCode(@Param("id") Long id,
+            @Param("version") Integer version,
+            @Param("macCode") String macCode);
 
     /**
      * 全字段乐观锁更新 (绕过 MP 插件，手动控制)
      */
     int updateOptimistic(AccountBalancePO po);
 
+    /**
+     * 查询用户名下持有指定币种的第一个账户的主分片余额 (按账户主键顺序)
+     */
     AccountBalancePO findUserBalance(@Param("userNo") String userNo, @Param("currencyCode") String currencyCode);
+
+    /**
+     * 用户名下全部账户及其余额行 (LEFT JOIN，一次往返；无余额行的账户 balances 为空)
+     */
+    List<UserAccountPO> selectUserAccounts(@Param("userNo") String userNo);
 }
\ No newline at end of file
@@ -1,9 +1,25 @@
 package com.macau.bank.account.infra.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.macau.bank.account.domain.model.DeadFreezeLogScan;
 import com.macau.bank.account.infra.persistent.po.AccountFreezeLogPO;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 
 @Mapper
 public interface AccountFreezeLogMapper extends BaseMapper<AccountFreezeLogPO> {
+
+    /**
+     * 键集扫描悬挂冻结记录：从游标位置 (不含) 起按 create_time, id 升序取 limit 条
+     */
+    List<AccountFreezeLogPO> selectDeadLogs(@Param("s") DeadFreezeLogScan scan, @Param("limit") int limit);
+
+    /**
+     * 悬挂冻结记录的 MIN(id) / MAX(id)
+     */
+    Map<String, Long> selectDeadIdRange(@Param("beforeTime") LocalDateTime beforeTime);
 }
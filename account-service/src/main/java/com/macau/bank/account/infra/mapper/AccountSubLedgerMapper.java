@@ -1,9 +1,34 @@
 package com.macau.bank.account.infra.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.macau.bank.account.domain.model.SubLedgerQuery;
 import com.macau.bank.account.infra.persistent.po.AccountSubLedgerPO;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.session.ResultHandler;
+
+import java.util.List;
 
 @Mapper
 public interface AccountSubLedgerMapper extends BaseMapper<AccountSubLedgerPO> {
-}
\ No newline at end of file
+
+    /**
+     * 多行 INSERT 批量写入分户账 (同一余额事务内的多条分户账)
+     */
+    int insertBatch(@Param("list") List<AccountSubLedgerPO> list);
+
+    /**
+     * 键集分页：从游标位置 (不含) 起按 trans_time DESC, id DESC 取 limit 条
+     */
+    List<AccountSubLedgerPO> seekHistory(@Param("q") SubLedgerQuery query, @Param("limit") int limit);
+
+    /**
+     * 按筛选条件统计总数 (忽略游标)
+     */
+    long countHistory(@Param("q") SubLedgerQuery query);
+
+    /**
+     * 按筛选条件流式读取全部流水 (导出对账单)
+     */
+    void streamHistory(@Param("q") SubLedgerQuery query, ResultHandler<AccountSubLedgerPO> handler);
+}
@@ -27,6 +27,7 @@ public class AccountBalancePO implements Serializable {
 
     private String accountNo;
     private String currencyCode;
+    private Integer shardNo;
     private BigDecimal balance;
     private BigDecimal availableBalance;
     private BigDecimal frozenAmount;
@@ -0,0 +1,23 @@
+package com.macau.bank.account.infra.persistent.po;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 用户账户读模型 (account_info LEFT JOIN account_balance 一次查询的结果)
+ */
+@Getter
+@Setter
+@ToString(callSuper = true)
+public class UserAccountPO extends AccountInfoPO {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 账户下全部余额行 (热点内部户包含各分片行)
+     */
+    private List<AccountBalancePO> balances = new ArrayList<>();
+}
@@ -3,17 +3,28 @@ package com.macau.bank.account.infra.repository;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.macau.bank.account.common.result.AccountErrorCode;
 import com.macau.bank.account.domain.entity.AccountBalance;
+import com.macau.bank.account.domain.entity.AccountInfo;
+import com.macau.bank.account.domain.model.BalanceDelta;
+import com.macau.bank.account.domain.model.UserAccountView;
 import com.macau.bank.account.domain.repository.AccountBalanceRepository;
 import com.macau.bank.account.infra.converter.AccountBalanceConverter;
+import com.macau.bank.account.infra.converter.AccountInfoConverter;
 import com.macau.bank.account.infra.mapper.AccountBalanceMapper;
+import com.macau.bank.account.infra.mapper.AccountInfoMapper;
 import com.macau.bank.account.infra.persistent.po.AccountBalancePO;
+import com.macau.bank.account.infra.persistent.po.AccountInfoPO;
+import com.macau.bank.account.infra.persistent.po.UserAccountPO;
 import com.macau.bank.account.infra.util.AccountSecurityUtil;
 import com.macau.bank.common.core.exception.BusinessException;
 import com.macau.bank.common.core.exception.FatalSystemException;
+import io.seata.core.context.RootContext;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -24,11 +35,17 @@ import java.util.stream.Collectors;
  * <p>
  * 核心安全特性：HMAC 余额防篡改校验
  * </p>
+ * 事务外的只读查询经 {@link BalanceReadCache} 读取，余额写入在事务提交后回填缓存。
  */
 @Slf4j
 @Repository
 public class AccountBalanceRepositoryImpl implements AccountBalanceRepository {
 
+    /**
+     * 主分片号
+     */
+    private static final int MAIN_SHARD = 0;
+
     @Resource
     private AccountBalanceMapper accountBalanceMapper;
 
@@ -38,11 +55,28 @@ public class AccountBalanceRepositoryImpl implements AccountBalanceRepository {
     @Resource
     private AccountBalanceConverter accountBalanceConverter;
 
+    @Resource
+    private BalanceReadCache balanceReadCache;
+
+    @Resource
+    private AccountInfoMapper accountInfoMapper;
+
+    @Resource
+    private AccountInfoConverter accountInfoConverter;
+
     @Override
     public AccountBalance findByAccountAndCurrency(String accountNo, String currencyCode) {
+        if (useReadCache()) {
+            return balanceReadCache.get(accountNo, currencyCode, this::selectMainShard);
+        }
+        return selectMainShard(accountNo, currencyCode);
+    }
+
+    private AccountBalance selectMainShard(String accountNo, String currencyCode) {
         LambdaQueryWrapper<AccountBalancePO> wrapper = new LambdaQueryWrapper<>();
         wrapper.eq(AccountBalancePO::getAccountNo, accountNo);
         wrapper.eq(AccountBalancePO::getCurrencyCode, currencyCode);
+        wrapper.eq(AccountBalancePO::getShardNo, MAIN_SHARD);
 
         AccountBalancePO po = accountBalanceMapper.selectOne(wrapper);
         if (po == null) {
@@ -57,6 +91,9 @@ public class AccountBalanceRepositoryImpl implements AccountBalanceRepository {
 
     @Override
     public List<AccountBalance> findByAccountNo(String accountNo) {
+        if (useReadCache()) {
+            return balanceReadCache.getByAccountNos(List.of(accountNo), this::selectByAccountNos);
+        }
         LambdaQueryWrapper<AccountBalancePO> wrapper = new LambdaQueryWrapper<>();
         wrapper.eq(AccountBalancePO::getAccountNo, accountNo);
 
@@ -74,7 +111,13 @@ public class AccountBalanceRepositoryImpl implements AccountBalanceRepository {
         if (accountNos == null || accountNos.isEmpty()) {
             return new ArrayList<>();
         }
+        if (useReadCache()) {
+            return balanceReadCache.getByAccountNos(accountNos, this::selectByAccountNos);
+        }
+        return selectByAccountNos(accountNos);
+    }
 
+    private List<AccountBalance> selectByAccountNos(List<String> accountNos) {
         LambdaQueryWrapper<AccountBalancePO> wrapper = new LambdaQueryWrapper<>();
         wrapper.in(AccountBalancePO::getAccountNo, accountNos);
 
@@ -87,6 +130,65 @@ public class AccountBalanceRepositoryImpl implements AccountBalanceRepository {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public UserAccountView findUserAccountView(String userNo) {
+        if (useReadCache()) {
+            // 账户主档查询一次，余额行走读缓存 (未命中的账户合并为一次回表)
+            LambdaQueryWrapper<AccountInfoPO> wrapper = new LambdaQueryWrapper<>();
+            wrapper.eq(AccountInfoPO::getUserNo, userNo);
+            wrapper.orderByAsc(AccountInfoPO::getId);
+            List<AccountInfo> accounts = accountInfoMapper.selectList(wrapper).stream()
+                    .map(accountInfoConverter::toEntity)
+                    .collect(Collectors.toList());
+            if (accounts.isEmpty()) {
+                return UserAccountView.empty();
+            }
+            List<String> accountNos = accounts.stream().map(AccountInfo::getAccountNo).toList();
+            return UserAccountView.builder()
+                    .accounts(accounts)
+                    .balances(balanceReadCache.getByAccountNos(accountNos, this::selectByAccountNos))
+                    .build();
+        }
+
+        List<UserAccountPO> rows = accountBalanceMapper.selectUserAccounts(userNo);
+        List<AccountInfo> accounts = new ArrayList<>(rows.size());
+        List<AccountBalance> balances = new ArrayList<>();
+        for (UserAccountPO row : rows) {
+            accounts.add(accountInfoConverter.toEntity(row));
+            for (AccountBalancePO po : row.getBalances()) {
+                // 【安全校验】联表查询同样需要逐条验证 HMAC
+                verifyMacCode(po);
+                balances.add(accountBalanceConverter.toEntity(po));
+            }
+        }
+        return UserAccountView.builder().accounts(accounts).balances(balances).build();
+    }
+
+    @Override
+    public AccountBalance findUserBalance(String userNo, String currencyCode) {
+        AccountBalancePO po = accountBalanceMapper.findUserBalance(userNo, currencyCode);
+        if (po == null) {
+            return null;
+        }
+        verifyMacCode(po);
+        return accountBalanceConverter.toEntity(po);
+    }
+
+    @Override
+    public List<AccountBalance> findShards(String accountNo, String currencyCode) {
+        LambdaQueryWrapper<AccountBalancePO> wrapper = new LambdaQueryWrapper<>();
+        wrapper.eq(AccountBalancePO::getAccountNo, accountNo);
+        wrapper.eq(AccountBalancePO::getCurrencyCode, currencyCode);
+        wrapper.orderByAsc(AccountBalancePO::getShardNo);
+
+        return accountBalanceMapper.selectList(wrapper).stream()
+                .map(po -> {
+                    verifyMacCode(po);
+                    return accountBalanceConverter.toEntity(po);
+                })
+                .collect(Collectors.toList());
+    }
+
     @Override
     public void save(AccountBalance entity) {
         if (entity == null) {
@@ -98,14 +200,21 @@ public class AccountBalanceRepositoryImpl implements AccountBalanceRepository {
         if (po.getId() == null) {
             // 【新增】初始化版本号和时间戳
             po.setVersion(0);
+            if (po.getShardNo() == null) {
+                po.setShardNo(MAIN_SHARD);
+            }
             po.setCreateTime(LocalDateTime.now());
             po.setUpdateTime(LocalDateTime.now());
             // 计算初始 MAC (version = 0)
             po.setMacCode(accountSecurityUtil.calculateMac(po.getBalance(), 0));
 
             accountBalanceMapper.insert(po);
+            accountSecurityUtil.markVerified(po.getId(), po.getBalance(), 0, po.getMacCode());
             entity.setId(po.getId());
+            entity.setShardNo(po.getShardNo());
             entity.setVersion(0);
+            entity.setMacCode(po.getMacCode());
+            cacheAfterCommit(entity, true);
         } else {
             // 【更新】
             // PO 中的 version 是旧版本号 (如 version=1)
@@ -130,12 +239,107 @@ public class AccountBalanceRepositoryImpl implements AccountBalanceRepository {
                 throw new BusinessException(AccountErrorCode.CONCURRENCY_CONFLICT);
             }
 
+            accountSecurityUtil.markVerified(po.getId(), po.getBalance(), nextVersion, mac);
+
             // 同步 Entity 状态与数据库保持一致
             entity.setVersion(nextVersion);
             entity.setMacCode(mac);
+            cacheAfterCommit(entity, false);
         }
     }
 
+    @Override
+    public AccountBalance applyDelta(String accountNo, String currencyCode, BalanceDelta delta) {
+        return applyDelta(accountNo, currencyCode, MAIN_SHARD, delta);
+    }
+
+    @Override
+    public AccountBalance applyDelta(String accountNo, String currencyCode, int shardNo, BalanceDelta delta) {
+        // 1. 单条条件 UPDATE 原子应用增量，并发写在行锁上排队，不存在乐观锁冲突
+        int rows = accountBalanceMapper.applyDelta(accountNo, currencyCode, shardNo, delta);
+        if (rows == 0) {
+            return null;
+        }
+
+        // 2. 回读后像 (同一事务内已持有行锁，读到的即本次更新结果)
+        LambdaQueryWrapper<AccountBalancePO> wrapper = new LambdaQueryWrapper<>();
+        wrapper.eq(AccountBalancePO::getAccountNo, accountNo);
+        wrapper.eq(AccountBalancePO::getCurrencyCode, currencyCode);
+        wrapper.eq(AccountBalancePO::getShardNo, shardNo);
+        AccountBalancePO po = accountBalanceMapper.selectOne(wrapper);
+
+        // 3. 【安全校验】mac_code 尚未更新，仍对应前像 (balance - delta, version - 1)
+        // 先校验前像再签名后像，避免把被篡改的余额重新"洗白"
+        verifyMacCode(po, po.getBalance().subtract(delta.getBalance()), po.getVersion() - 1);
+
+        // 4. 基于后像重新计算 MAC
+        String mac = accountSecurityUtil.calculateMac(po.getBalance(), po.getVersion());
+        if (accountBalanceMapper.updateMacCode(po.getId(), po.getVersion(), mac) == 0) {
+            throw new BusinessException(AccountErrorCode.CONCURRENCY_CONFLICT);
+        }
+        po.setMacCode(mac);
+        accountSecurityUtil.markVerified(po.getId(), po.getBalance(), po.getVersion(), mac);
+
+        AccountBalance updated = accountBalanceConverter.toEntity(po);
+        cacheAfterCommit(updated, false);
+        return updated;
+    }
+
+    /**
+     * 事务外的只读查询走读缓存；事务内 (读-改-写) 始终读数据库
+     */
+    private boolean useReadCache() {
+        return balanceReadCache.isEnabled() && !TransactionSynchronizationManager.isActualTransactionActive();
+    }
+
+    /**
+     * 事务提交后回填读缓存 (回滚的写入不进缓存)
+     * <p>
+     * Seata 全局事务内的分支提交后仍可能被全局回滚恢复前像，回填的后像会与下一次真实写入同 version，
+     * 因此全局事务内只在提交后删除缓存项，不回填
+     *
+     * @param inserted 是否新增余额行，新增时同时使账户币种索引失效
+     */
+    private void cacheAfterCommit(AccountBalance entity, boolean inserted) {
+        if (!balanceReadCache.isEnabled()) {
+            return;
+        }
+        if (RootContext.inGlobalTransaction()) {
+            String accountNo = entity.getAccountNo();
+            String currencyCode = entity.getCurrencyCode();
+            runAfterCommit(() -> {
+                if (inserted) {
+                    balanceReadCache.evictIndex(accountNo);
+                }
+                balanceReadCache.evict(accountNo, currencyCode);
+            });
+            return;
+        }
+        // 登记时取快照，同一事务内的后续修改不影响待回填的值
+        AccountBalance snapshot = accountBalanceConverter.toEntity(accountBalanceConverter.toPO(entity));
+        runAfterCommit(() -> refreshReadCache(snapshot, inserted));
+    }
+
+    private void runAfterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private void refreshReadCache(AccountBalance snapshot, boolean inserted) {
+        if (inserted) {
+            balanceReadCache.evictIndex(snapshot.getAccountNo());
+        }
+        balanceReadCache.put(snapshot);
+    }
+
     /**
      * 验证 HMAC 防篡改码
      * <p>
@@ -145,11 +349,27 @@ public class AccountBalanceRepositoryImpl implements AccountBalanceRepository {
      * @param po 待校验的持久化对象
      */
     private void verifyMacCode(AccountBalancePO po) {
+        // 同一记录 (id, version) 已校验且余额、校验码未变时跳过重新计算
+        if (po.getMacCode() != null
+                && accountSecurityUtil.verify(po.getId(), po.getBalance(), po.getVersion(), po.getMacCode())) {
+            return;
+        }
+        verifyMacCode(po, po.getBalance(), po.getVersion());
+    }
+
+    /**
+     * 按指定的 (balance, version) 验证 HMAC 防篡改码
+     *
+     * @param po      待校验的持久化对象 (提供 macCode 及告警信息)
+     * @param balance 参与签名的余额
+     * @param version 参与签名的版本号
+     */
+    private void verifyMacCode(AccountBalancePO po, BigDecimal balance, Integer version) {
         if (po.getMacCode() != null) {
-            boolean valid = accountSecurityUtil.verify(po.getBalance(), po.getVersion(), po.getMacCode());
+            boolean valid = accountSecurityUtil.verify(balance, version, po.getMacCode());
             if (!valid) {
                 log.error("【致命告警】账户余额数据疑似被篡改! AccountNo={}, Currency={}, Balance={}, Version={}, DB_MAC={}",
-                        po.getAccountNo(), po.getCurrencyCode(), po.getBalance(), po.getVersion(), po.getMacCode());
+                        po.getAccountNo(), po.getCurrencyCode(), balance, version, po.getMacCode());
                 throw new FatalSystemException("数据完整性校验失败：账户余额 HMAC 不匹配");
             }
         }
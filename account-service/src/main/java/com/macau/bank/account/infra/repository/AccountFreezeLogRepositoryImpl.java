@@ -2,16 +2,17 @@ package com.macau.bank.account.infra.repository;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.macau.bank.account.domain.entity.AccountFreezeLog;
+import com.macau.bank.account.domain.model.DeadFreezeLogScan;
 import com.macau.bank.account.domain.repository.AccountFreezeLogRepository;
 import com.macau.bank.account.infra.converter.AccountFreezeLogConverter;
 import com.macau.bank.account.infra.mapper.AccountFreezeLogMapper;
 import com.macau.bank.account.infra.persistent.po.AccountFreezeLogPO;
-import com.macau.bank.common.core.enums.FreezeStatus;
 import jakarta.annotation.Resource;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 @Repository
 public class AccountFreezeLogRepositoryImpl implements AccountFreezeLogRepository {
@@ -42,14 +43,16 @@ public class AccountFreezeLogRepositoryImpl implements AccountFreezeLogRepositor
     }
 
     @Override
-    public List<AccountFreezeLog> findDeadLogs(LocalDateTime beforeTime, int limit) {
-        // 可以在这里处理分库分表逻辑，或者 MyBatis 的 Example 封装
-        List<AccountFreezeLogPO> freezeLogPOS = accountFreezeLogMapper.selectList(new LambdaQueryWrapper<AccountFreezeLogPO>()
-                .eq(AccountFreezeLogPO::getStatus, FreezeStatus.FROZEN)
-                .lt(AccountFreezeLogPO::getCreateTime, beforeTime)
-                .orderByAsc(AccountFreezeLogPO::getCreateTime)
-                .last("LIMIT " + limit)
-        );
-        return accountFreezeLogConverter.toEntityList(freezeLogPOS);
+    public List<AccountFreezeLog> findDeadLogs(DeadFreezeLogScan scan, int limit) {
+        return accountFreezeLogConverter.toEntityList(accountFreezeLogMapper.selectDeadLogs(scan, limit));
+    }
+
+    @Override
+    public DeadFreezeLogScan.IdRange findDeadLogIdRange(LocalDateTime beforeTime) {
+        Map<String, Long> range = accountFreezeLogMapper.selectDeadIdRange(beforeTime);
+        if (range == null || range.get("minId") == null) {
+            return null;
+        }
+        return new DeadFreezeLogScan.IdRange(range.get("minId"), range.get("maxId"));
     }
 }
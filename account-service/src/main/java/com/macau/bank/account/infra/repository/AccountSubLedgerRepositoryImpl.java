@@ -4,6 +4,7 @@ import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.macau.bank.account.domain.entity.AccountSubLedger;
+import com.macau.bank.account.domain.model.SubLedgerQuery;
 import com.macau.bank.account.domain.repository.AccountSubLedgerRepository;
 import com.macau.bank.account.infra.converter.AccountSubLedgerConverter;
 import com.macau.bank.account.infra.mapper.AccountSubLedgerMapper;
@@ -11,10 +12,15 @@ import com.macau.bank.account.infra.persistent.po.AccountSubLedgerPO;
 import com.macau.bank.common.core.enums.BizType;
 import com.macau.bank.common.core.enums.FlowDirection;
 import jakarta.annotation.Resource;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.StringUtils;
 
 import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Consumer;
 
 @Repository
 public class AccountSubLedgerRepositoryImpl implements AccountSubLedgerRepository {
@@ -25,21 +31,82 @@ public class AccountSubLedgerRepositoryImpl implements AccountSubLedgerRepositor
     @Resource
     private AccountSubLedgerConverter accountSubLedgerConverter;
 
+    @Resource
+    private RequestIdIndex requestIdIndex;
+
     @Override
     public void save(AccountSubLedger subLedger) {
         if (subLedger == null) return;
         AccountSubLedgerPO po = accountSubLedgerConverter.toPO(subLedger);
         if (po.getId() == null) {
-            accountSubLedgerMapper.insert(po);
+            try {
+                accountSubLedgerMapper.insert(po);
+            } catch (DuplicateKeyException e) {
+                markSeen(subLedger.getRequestId());
+                throw e;
+            }
             subLedger.setId(po.getId());
+            indexAfterCommit(subLedger);
         } else {
             accountSubLedgerMapper.updateById(po);
         }
     }
 
+    @Override
+    public void saveAll(List<AccountSubLedger> subLedgers) {
+        if (subLedgers == null || subLedgers.isEmpty()) return;
+        List<AccountSubLedgerPO> pos = subLedgers.stream().map(accountSubLedgerConverter::toPO).toList();
+        try {
+            accountSubLedgerMapper.insertBatch(pos);
+        } catch (DuplicateKeyException e) {
+            // 无法区分冲突行，整批标记，后续查询回表
+            subLedgers.forEach(subLedger -> markSeen(subLedger.getRequestId()));
+            throw e;
+        }
+        for (int i = 0; i < subLedgers.size(); i++) {
+            subLedgers.get(i).setId(pos.get(i).getId());
+            indexAfterCommit(subLedgers.get(i));
+        }
+    }
+
+    /**
+     * 事务提交后写入幂等索引 (回滚的请求不进索引)
+     */
+    private void indexAfterCommit(AccountSubLedger subLedger) {
+        if (!requestIdIndex.isEnabled() || !StringUtils.hasText(subLedger.getRequestId())) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            requestIdIndex.recordCommitted(subLedger);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                requestIdIndex.recordCommitted(subLedger);
+            }
+        });
+    }
+
+    /**
+     * 唯一键冲突：本节点索引未见过该请求ID (通常由其他节点处理)，标记后重试即回表查询
+     */
+    private void markSeen(String requestId) {
+        if (requestIdIndex.isEnabled() && StringUtils.hasText(requestId)) {
+            requestIdIndex.markSeen(requestId);
+        }
+    }
+
     @Override
     public AccountSubLedger findByRequestId(String requestId) {
         if (!StringUtils.hasText(requestId)) return null;
+        if (requestIdIndex.isEnabled()) {
+            return requestIdIndex.lookup(requestId, this::selectByRequestId);
+        }
+        return selectByRequestId(requestId);
+    }
+
+    private AccountSubLedger selectByRequestId(String requestId) {
         LambdaQueryWrapper<AccountSubLedgerPO> wrapper = new LambdaQueryWrapper<>();
         wrapper.eq(AccountSubLedgerPO::getRequestId, requestId);
         return accountSubLedgerConverter.toEntity(accountSubLedgerMapper.selectOne(wrapper));
@@ -63,4 +130,22 @@ public class AccountSubLedgerRepositoryImpl implements AccountSubLedgerRepositor
         return accountSubLedgerMapper.selectPage(pageParam, wrapper)
                 .convert(accountSubLedgerConverter::toEntity);
     }
+
+    @Override
+    public List<AccountSubLedger> seek(SubLedgerQuery query, int limit) {
+        return accountSubLedgerMapper.seekHistory(query, limit).stream()
+                .map(accountSubLedgerConverter::toEntity)
+                .toList();
+    }
+
+    @Override
+    public long count(SubLedgerQuery query) {
+        return accountSubLedgerMapper.countHistory(query);
+    }
+
+    @Override
+    public void stream(SubLedgerQuery query, Consumer<AccountSubLedger> consumer) {
+        accountSubLedgerMapper.streamHistory(query,
+                context -> consumer.accept(accountSubLedgerConverter.toEntity(context.getResultObject())));
+    }
 }
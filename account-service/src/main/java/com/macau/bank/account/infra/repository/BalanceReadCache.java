@@ -0,0 +1,568 @@
+package com.macau.bank.account.infra.repository;
+
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.LRUCache;
+import cn.hutool.json.JSONConfig;
+import cn.hutool.json.JSONUtil;
+import com.macau.bank.account.domain.entity.AccountBalance;
+import com.macau.bank.account.infra.config.BalanceCacheProperties;
+import com.macau.bank.account.infra.util.AccountSecurityUtil;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 余额读缓存 (本地 LRU + Redis 两级)
+ * <p>
+ * - 缓存项按 (账号, 币种) 存放主分片余额行，携带行 version 与 MAC；两级写入都只接受更高的 version，
+ *   并发回填的旧值不会覆盖已提交的新值；version 相同而 MAC 不同 (同一版本号对应了两个余额，
+ *   如 Seata 全局回滚恢复前像后再次写入) 时删除该项，下次查询回表
+ * - 余额写入在事务提交后回填新值 (见 AccountBalanceRepositoryImpl)，回滚的写入不进缓存；
+ *   Seata 全局事务分支提交后仍可能被全局回滚，此时只删除缓存项不回填
+ * - 账户币种索引 (账号 -> 币种列表) 服务按账号批量查询；新增余额行时递增索引纪元并删除索引，
+ *   纪元已变化的回填被拒绝，不会把缺少新币种的索引写回 Redis
+ * - Redis 中的余额行须通过 HMAC 校验才采用，校验失败删除该项并回表
+ * - 本地缓存按 localTtlMillis 过期，即其他节点写入后本节点的最长可见延迟
+ * - 含分片行的热点内部户不缓存币种索引，按账号查询始终回表
+ * </p>
+ * 只服务事务外的只读查询，事务内的读-改-写始终直接访问 MySQL。
+ * 指标：命中率 (本地/Redis)、抽样比对的陈旧读占比与最大版本差、HMAC 拒绝数，见 {@link #metrics()}。
+ */
+@Slf4j
+@Component
+public class BalanceReadCache {
+
+    private static final String ROW_KEY_PREFIX = "account:balance:row:";
+
+    private static final String INDEX_KEY_PREFIX = "account:balance:idx:";
+
+    private static final String EPOCH_KEY_PREFIX = "account:balance:epoch:";
+
+    /**
+     * 保留金额小数位，缓存读出的余额与数据库读出的展示一致
+     */
+    private static final JSONConfig JSON_CONFIG = JSONConfig.create().setStripTrailingZeros(false);
+
+    /**
+     * KEYS: 余额行
+     * ARGV: version, 缓存值 ("version|mac|json"), TTL(秒), mac
+     * 返回: 1-已写入 0-已有更新的 version 或相同的 (version, mac) 2-version 相同而 MAC 不同，已删除
+     */
+    private static final RedisScript<Long> PUT_ROW_SCRIPT = new DefaultRedisScript<>(
+            "local cur = redis.call('get', KEYS[1]) "
+                    + "if cur then "
+                    + "local sv, m = string.match(cur, '^(%d+)|(%x*)|') "
+                    + "local v = tonumber(sv) "
+                    + "if v and v > tonumber(ARGV[1]) then return 0 end "
+                    + "if v and v == tonumber(ARGV[1]) then "
+                    + "if m == ARGV[4] then return 0 end "
+                    + "redis.call('del', KEYS[1]) "
+                    + "return 2 "
+                    + "end "
+                    + "end "
+                    + "redis.call('set', KEYS[1], ARGV[2], 'EX', ARGV[3]) "
+                    + "return 1", Long.class);
+
+    /**
+     * KEYS: 币种索引, 索引纪元
+     * ARGV: 回表前读到的纪元, 币种列表, TTL(秒)
+     * 返回: 1-已写入 0-回表期间有新增余额行
+     */
+    private static final RedisScript<Long> PUT_INDEX_SCRIPT = new DefaultRedisScript<>(
+            "if (redis.call('get', KEYS[2]) or '0') ~= ARGV[1] then return 0 end "
+                    + "redis.call('set', KEYS[1], ARGV[2], 'EX', ARGV[3]) "
+                    + "return 1", Long.class);
+
+    /**
+     * KEYS: 币种索引, 索引纪元
+     * ARGV: 纪元 TTL(秒)
+     */
+    private static final RedisScript<Long> EVICT_INDEX_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('incr', KEYS[2]) "
+                    + "redis.call('expire', KEYS[2], ARGV[1]) "
+                    + "redis.call('del', KEYS[1]) "
+                    + "return 1", Long.class);
+
+    @Resource
+    private BalanceCacheProperties balanceCacheProperties;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private AccountSecurityUtil accountSecurityUtil;
+
+    private LRUCache<String, AccountBalance> localRows;
+
+    private LRUCache<String, List<String>> localIndexes;
+
+    /**
+     * 本地缓存的 "比较 version 后写入" 需要原子执行
+     */
+    private final Object localWriteLock = new Object();
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder localHits = new LongAdder();
+    private final LongAdder redisHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder sampledChecks = new LongAdder();
+    private final LongAdder staleReads = new LongAdder();
+    private final AtomicLong maxVersionLag = new AtomicLong();
+    private final LongAdder macRejects = new LongAdder();
+    private final LongAdder redisErrors = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        if (!balanceCacheProperties.isEnabled()) {
+            return;
+        }
+        localRows = CacheUtil.newLRUCache(balanceCacheProperties.getLocalMaxSize(),
+                balanceCacheProperties.getLocalTtlMillis());
+        localIndexes = CacheUtil.newLRUCache(balanceCacheProperties.getLocalMaxSize(),
+                balanceCacheProperties.getLocalTtlMillis());
+    }
+
+    public boolean isEnabled() {
+        return localRows != null;
+    }
+
+    /**
+     * 查询主分片余额，未命中时回表并回填
+     *
+     * @param loader 回表查询 (账号, 币种)
+     */
+    public AccountBalance get(String accountNo, String currencyCode,
+            BiFunction<String, String, AccountBalance> loader) {
+        requests.increment();
+        String key = rowKey(accountNo, currencyCode);
+
+        AccountBalance cached = localRows.get(key, false);
+        if (cached != null) {
+            localHits.increment();
+        } else {
+            cached = redisGetRows(List.of(key)).get(key);
+            if (cached != null) {
+                redisHits.increment();
+                putLocal(key, cached);
+            }
+        }
+
+        if (cached == null) {
+            misses.increment();
+            AccountBalance loaded = loader.apply(accountNo, currencyCode);
+            put(loaded);
+            return loaded;
+        }
+        if (sampled()) {
+            AccountBalance loaded = loader.apply(accountNo, currencyCode);
+            if (loaded != null && isStale(cached, loaded)) {
+                replace(loaded);
+                return loaded;
+            }
+        }
+        return copy(cached);
+    }
+
+    /**
+     * 按账号批量查询全部余额行，任一账号未完整命中时该账号回表 (多个账号合并为一次查询)
+     *
+     * @param loader 回表查询 (账号列表 -> 余额行)
+     */
+    public List<AccountBalance> getByAccountNos(List<String> accountNos,
+            Function<List<String>, List<AccountBalance>> loader) {
+        List<String> distinct = accountNos.stream().distinct().toList();
+        requests.add(distinct.size());
+
+        // 1. 币种索引：本地 -> Redis
+        Map<String, List<String>> indexes = new HashMap<>();
+        List<String> indexMisses = new ArrayList<>();
+        for (String accountNo : distinct) {
+            List<String> index = localIndexes.get(accountNo, false);
+            if (index != null) {
+                indexes.put(accountNo, index);
+            } else {
+                indexMisses.add(accountNo);
+            }
+        }
+        indexes.putAll(redisGetIndexes(indexMisses));
+
+        // 2. 余额行：本地 -> Redis，任一币种缺失即整户回表
+        Map<String, List<AccountBalance>> hits = new LinkedHashMap<>();
+        List<String> redisKeys = new ArrayList<>();
+        for (String accountNo : distinct) {
+            List<String> index = indexes.get(accountNo);
+            if (index == null) {
+                continue;
+            }
+            for (String currencyCode : index) {
+                if (localRows.get(rowKey(accountNo, currencyCode), false) == null) {
+                    redisKeys.add(rowKey(accountNo, currencyCode));
+                }
+            }
+        }
+        Map<String, AccountBalance> fromRedis = redisGetRows(redisKeys);
+        fromRedis.forEach(this::putLocal);
+
+        List<String> loadAccounts = new ArrayList<>();
+        for (String accountNo : distinct) {
+            List<String> index = indexes.get(accountNo);
+            List<AccountBalance> rows = index == null ? null : collectRows(accountNo, index, fromRedis);
+            if (rows == null) {
+                loadAccounts.add(accountNo);
+                misses.increment();
+                continue;
+            }
+            if (index.stream().anyMatch(c -> fromRedis.containsKey(rowKey(accountNo, c)))) {
+                redisHits.increment();
+            } else {
+                localHits.increment();
+            }
+            hits.put(accountNo, rows);
+        }
+
+        // 3. 抽样回表比对 version
+        if (!hits.isEmpty() && sampled()) {
+            Map<String, List<AccountBalance>> loaded = groupByAccount(loader.apply(new ArrayList<>(hits.keySet())));
+            for (Map.Entry<String, List<AccountBalance>> entry : loaded.entrySet()) {
+                if (anyStale(hits.get(entry.getKey()), entry.getValue())) {
+                    entry.getValue().forEach(this::replace);
+                    hits.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+
+        List<AccountBalance> result = new ArrayList<>();
+        hits.values().forEach(result::addAll);
+        if (!loadAccounts.isEmpty()) {
+            result.addAll(loadAndFill(loadAccounts, loader));
+        }
+        return result;
+    }
+
+    /**
+     * 回填已提交的余额行 (读未命中回表或写事务提交后调用)，仅接受更高的 version；
+     * version 相同而 MAC 不同时删除缓存项
+     */
+    public void put(AccountBalance balance) {
+        if (balance == null || balance.getVersion() == null || !isMainShard(balance)) {
+            return;
+        }
+        String key = rowKey(balance.getAccountNo(), balance.getCurrencyCode());
+        AccountBalance snapshot = copy(balance);
+        putLocal(key, snapshot);
+        try {
+            stringRedisTemplate.execute(PUT_ROW_SCRIPT, List.of(key), String.valueOf(snapshot.getVersion()),
+                    encode(snapshot), String.valueOf(balanceCacheProperties.getRedisTtlSeconds()),
+                    macOf(snapshot));
+        } catch (Exception e) {
+            redisError("写入余额缓存", e);
+        }
+    }
+
+    /**
+     * 删除余额行缓存 (本地 + Redis)
+     * <p>
+     * 用于结果可能被 Seata 全局回滚的写入：回滚恢复的前像与本次写入的后像无法按 version 区分新旧
+     */
+    public void evict(String accountNo, String currencyCode) {
+        String key = rowKey(accountNo, currencyCode);
+        localRows.remove(key);
+        deleteQuietly(key);
+    }
+
+    /**
+     * 账户新增余额行 (开通币种/补齐分片) 提交后调用，使币种索引失效
+     */
+    public void evictIndex(String accountNo) {
+        localIndexes.remove(accountNo);
+        try {
+            stringRedisTemplate.execute(EVICT_INDEX_SCRIPT,
+                    List.of(INDEX_KEY_PREFIX + accountNo, EPOCH_KEY_PREFIX + accountNo),
+                    String.valueOf(balanceCacheProperties.getRedisTtlSeconds() * 2));
+        } catch (Exception e) {
+            redisError("删除币种索引", e);
+        }
+    }
+
+    /**
+     * 缓存指标快照
+     */
+    public BalanceCacheMetrics metrics() {
+        long total = requests.sum();
+        long hitCount = localHits.sum() + redisHits.sum();
+        long checks = sampledChecks.sum();
+        return new BalanceCacheMetrics(total, localHits.sum(), redisHits.sum(), misses.sum(),
+                total == 0 ? 0D : (double) hitCount / total, checks, staleReads.sum(),
+                checks == 0 ? 0D : (double) staleReads.sum() / checks, maxVersionLag.get(), macRejects.sum(),
+                redisErrors.sum(), localRows == null ? 0 : localRows.size());
+    }
+
+    private List<AccountBalance> collectRows(String accountNo, List<String> index,
+            Map<String, AccountBalance> fromRedis) {
+        List<AccountBalance> rows = new ArrayList<>(index.size());
+        for (String currencyCode : index) {
+            String key = rowKey(accountNo, currencyCode);
+            AccountBalance row = fromRedis.get(key);
+            if (row == null) {
+                row = localRows.get(key, false);
+            }
+            if (row == null) {
+                return null;
+            }
+            rows.add(copy(row));
+        }
+        return rows;
+    }
+
+    /**
+     * 回表并回填：先读索引纪元，回表期间有新增余额行时放弃写入索引
+     */
+    private List<AccountBalance> loadAndFill(List<String> accountNos,
+            Function<List<String>, List<AccountBalance>> loader) {
+        List<String> epochs = redisMultiGet(accountNos.stream().map(a -> EPOCH_KEY_PREFIX + a).toList());
+        List<AccountBalance> loaded = loader.apply(accountNos);
+        Map<String, List<AccountBalance>> byAccount = groupByAccount(loaded);
+
+        for (int i = 0; i < accountNos.size(); i++) {
+            String accountNo = accountNos.get(i);
+            List<AccountBalance> rows = byAccount.getOrDefault(accountNo, Collections.emptyList());
+            if (!rows.stream().allMatch(BalanceReadCache::isMainShard)) {
+                continue;
+            }
+            rows.forEach(this::put);
+            List<String> index = rows.stream().map(AccountBalance::getCurrencyCode).toList();
+            putIndex(accountNo, index, epochs == null ? null : epochs.get(i));
+        }
+        return loaded;
+    }
+
+    private void putIndex(String accountNo, List<String> index, String epoch) {
+        localIndexes.put(accountNo, index);
+        try {
+            stringRedisTemplate.execute(PUT_INDEX_SCRIPT,
+                    List.of(INDEX_KEY_PREFIX + accountNo, EPOCH_KEY_PREFIX + accountNo),
+                    epoch == null ? "0" : epoch, String.join(",", index),
+                    String.valueOf(balanceCacheProperties.getRedisTtlSeconds()));
+        } catch (Exception e) {
+            redisError("写入币种索引", e);
+        }
+    }
+
+    private void putLocal(String key, AccountBalance balance) {
+        synchronized (localWriteLock) {
+            AccountBalance existing = localRows.get(key, false);
+            if (existing == null || existing.getVersion() < balance.getVersion()) {
+                localRows.put(key, balance);
+            } else if (existing.getVersion().equals(balance.getVersion())
+                    && !macOf(existing).equals(macOf(balance))) {
+                localRows.remove(key);
+            }
+        }
+    }
+
+    /**
+     * 抽样比对发现缓存与数据库不一致：先删除再回填，数据库 version 回退 (全局回滚) 时也能纠正
+     */
+    private void replace(AccountBalance loaded) {
+        if (!isMainShard(loaded)) {
+            return;
+        }
+        evict(loaded.getAccountNo(), loaded.getCurrencyCode());
+        put(loaded);
+    }
+
+    private Map<String, AccountBalance> redisGetRows(List<String> keys) {
+        Map<String, AccountBalance> rows = new HashMap<>();
+        List<String> values = redisMultiGet(keys);
+        if (values == null) {
+            return rows;
+        }
+        for (int i = 0; i < keys.size(); i++) {
+            AccountBalance row = decode(values.get(i));
+            if (row == null) {
+                continue;
+            }
+            if (!accountSecurityUtil.verify(row.getId(), row.getBalance(), row.getVersion(), row.getMacCode())) {
+                // 缓存被篡改或损坏：删除后回表 (数据库同样会做 HMAC 校验)
+                log.error("【告警】余额缓存 HMAC 校验失败，已删除并回表: key={}, version={}", keys.get(i),
+                        row.getVersion());
+                macRejects.increment();
+                deleteQuietly(keys.get(i));
+                continue;
+            }
+            rows.put(keys.get(i), row);
+        }
+        return rows;
+    }
+
+    private Map<String, List<String>> redisGetIndexes(List<String> accountNos) {
+        Map<String, List<String>> indexes = new HashMap<>();
+        List<String> values = redisMultiGet(accountNos.stream().map(a -> INDEX_KEY_PREFIX + a).toList());
+        if (values == null) {
+            return indexes;
+        }
+        for (int i = 0; i < accountNos.size(); i++) {
+            String value = values.get(i);
+            if (value == null) {
+                continue;
+            }
+            List<String> index = value.isEmpty() ? List.of() : Arrays.asList(value.split(","));
+            localIndexes.put(accountNos.get(i), index);
+            indexes.put(accountNos.get(i), index);
+        }
+        return indexes;
+    }
+
+    /**
+     * @return Redis 不可用时返回 null，调用方按未命中处理
+     */
+    private List<String> redisMultiGet(List<String> keys) {
+        if (keys.isEmpty()) {
+            return null;
+        }
+        try {
+            return stringRedisTemplate.opsForValue().multiGet(keys);
+        } catch (Exception e) {
+            redisError("读取余额缓存", e);
+            return null;
+        }
+    }
+
+    private void deleteQuietly(String key) {
+        try {
+            stringRedisTemplate.delete(key);
+        } catch (Exception e) {
+            redisError("删除余额缓存", e);
+        }
+    }
+
+    private void redisError(String operation, Exception e) {
+        redisErrors.increment();
+        log.warn("{}失败，降级为本地缓存/回表: error={}", operation, e.getMessage());
+    }
+
+    private boolean sampled() {
+        double rate = balanceCacheProperties.getVerifySampleRate();
+        if (rate <= 0 || ThreadLocalRandom.current().nextDouble() >= rate) {
+            return false;
+        }
+        sampledChecks.increment();
+        return true;
+    }
+
+    /**
+     * 比较缓存与数据库的 (version, MAC)，不一致时记录陈旧读
+     * <p>
+     * 缓存 version 高于数据库或 version 相同而 MAC 不同，说明缓存的值已被全局回滚
+     */
+    private boolean isStale(AccountBalance cached, AccountBalance loaded) {
+        long lag = (long) loaded.getVersion() - cached.getVersion();
+        if (lag == 0 && macOf(loaded).equals(macOf(cached))) {
+            return false;
+        }
+        staleReads.increment();
+        maxVersionLag.accumulateAndGet(Math.abs(lag), Math::max);
+        return true;
+    }
+
+    private boolean anyStale(List<AccountBalance> cached, List<AccountBalance> loaded) {
+        if (cached == null || cached.size() != loaded.size()) {
+            staleReads.increment();
+            return true;
+        }
+        Map<String, AccountBalance> byCurrency = cached.stream()
+                .collect(Collectors.toMap(AccountBalance::getCurrencyCode, b -> b, (a, b) -> a));
+        boolean stale = false;
+        for (AccountBalance row : loaded) {
+            AccountBalance hit = byCurrency.get(row.getCurrencyCode());
+            if (hit == null) {
+                staleReads.increment();
+                return true;
+            }
+            stale |= isStale(hit, row);
+        }
+        return stale;
+    }
+
+    private static Map<String, List<AccountBalance>> groupByAccount(List<AccountBalance> balances) {
+        return balances.stream().collect(Collectors.groupingBy(AccountBalance::getAccountNo,
+                LinkedHashMap::new, Collectors.toList()));
+    }
+
+    private static boolean isMainShard(AccountBalance balance) {
+        return balance.getShardNo() == null || balance.getShardNo() == 0;
+    }
+
+    private static String rowKey(String accountNo, String currencyCode) {
+        return ROW_KEY_PREFIX + accountNo + ":" + currencyCode;
+    }
+
+    private static String macOf(AccountBalance balance) {
+        return balance.getMacCode() == null ? "" : balance.getMacCode();
+    }
+
+    private static String encode(AccountBalance balance) {
+        return balance.getVersion() + "|" + macOf(balance) + "|" + JSONUtil.toJsonStr(balance, JSON_CONFIG);
+    }
+
+    private static AccountBalance decode(String value) {
+        if (value == null) {
+            return null;
+        }
+        int first = value.indexOf('|');
+        int separator = first < 0 ? -1 : value.indexOf('|', first + 1);
+        if (separator < 0) {
+            return null;
+        }
+        return JSONUtil.parseObj(value.substring(separator + 1), JSON_CONFIG).toBean(AccountBalance.class);
+    }
+
+    /**
+     * 缓存项与调用方互不共享实例，调用方修改返回值不影响缓存
+     */
+    private static AccountBalance copy(AccountBalance source) {
+        AccountBalance target = new AccountBalance();
+        BeanUtils.copyProperties(source, target);
+        return target;
+    }
+
+    /**
+     * 缓存指标
+     *
+     * @param requests      查询次数 (按账号查询时每个账号计一次)
+     * @param localHits     本地缓存命中
+     * @param redisHits     Redis 命中
+     * @param misses        未命中回表
+     * @param hitRatio      命中率
+     * @param sampledChecks 抽样回表比对次数
+     * @param staleReads    比对发现缓存与数据库 (version, MAC) 不一致的次数
+     * @param staleRatio    陈旧读占抽样比例
+     * @param maxVersionLag 观测到的最大版本差
+     * @param macRejects    Redis 缓存 HMAC 校验失败次数
+     * @param redisErrors   Redis 访问失败次数
+     * @param localSize     本地缓存行数
+     */
+    public record BalanceCacheMetrics(long requests, long localHits, long redisHits, long misses, double hitRatio,
+            long sampledChecks, long staleReads, double staleRatio, long maxVersionLag, long macRejects,
+            long redisErrors, int localSize) {
+    }
+}
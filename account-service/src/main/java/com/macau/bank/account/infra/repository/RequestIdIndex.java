@@ -0,0 +1,160 @@
+package com.macau.bank.account.infra.repository;
+
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.LRUCache;
+import com.macau.bank.account.domain.entity.AccountSubLedger;
+import com.macau.bank.account.infra.config.RequestIdIndexProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 幂等请求ID索引 (uk_request_id 查询前置)
+ * <p>
+ * 绝大多数幂等校验都是未命中，索引在本节点拦截这部分查询，只有"可能存在"的请求才查询 MySQL：
+ * - 近期请求缓存：本节点最近提交的分户账，命中直接返回，无需回表
+ * - 布隆过滤器：本节点已提交/已冲突的请求ID，判定不存在则跳过查询；两代轮换，查询同时检查两代
+ * </p>
+ * 本节点索引看不到其他节点写入的请求ID，uk_request_id 仍是最终防线：
+ * 写入触发唯一键冲突时调用 {@link #markSeen(String)}，调用方重试一次即走 MySQL 得到幂等结果。
+ */
+@Slf4j
+@Component
+public class RequestIdIndex {
+
+    @Resource
+    private RequestIdIndexProperties requestIdIndexProperties;
+
+    private volatile RequestIdBloomFilter current;
+
+    private volatile RequestIdBloomFilter previous;
+
+    private LRUCache<String, AccountSubLedger> recentCache;
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder bloomNegatives = new LongAdder();
+    private final LongAdder dbLookups = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+    private final LongAdder duplicateKeyFallbacks = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        if (!requestIdIndexProperties.isEnabled()) {
+            return;
+        }
+        current = newFilter();
+        recentCache = CacheUtil.newLRUCache(requestIdIndexProperties.getRecentCacheSize());
+    }
+
+    public boolean isEnabled() {
+        return current != null;
+    }
+
+    /**
+     * 按请求ID查询分户账，缓存命中或布隆判定不存在时不访问数据库
+     *
+     * @param loader 数据库查询
+     */
+    public AccountSubLedger lookup(String requestId, Function<String, AccountSubLedger> loader) {
+        lookups.increment();
+
+        AccountSubLedger cached = recentCache.get(requestId, false);
+        if (cached != null) {
+            cacheHits.increment();
+            return cached;
+        }
+
+        // 先读当前代再读上一代，与轮换的发布顺序相反，轮换期间不会漏查
+        RequestIdBloomFilter cur = current;
+        RequestIdBloomFilter prev = previous;
+        if (!cur.mightContain(requestId) && (prev == null || !prev.mightContain(requestId))) {
+            bloomNegatives.increment();
+            return null;
+        }
+
+        dbLookups.increment();
+        AccountSubLedger existing = loader.apply(requestId);
+        if (existing == null) {
+            falsePositives.increment();
+        } else {
+            recentCache.put(requestId, existing);
+        }
+        return existing;
+    }
+
+    /**
+     * 记录已提交的分户账 (须在事务提交后调用，回滚的请求不能进入缓存)
+     */
+    public void recordCommitted(AccountSubLedger subLedger) {
+        put(subLedger.getRequestId());
+        recentCache.put(subLedger.getRequestId(), subLedger);
+    }
+
+    /**
+     * 标记请求ID可能已存在 (唯一键冲突，通常为其他节点已处理)
+     */
+    public void markSeen(String requestId) {
+        duplicateKeyFallbacks.increment();
+        put(requestId);
+    }
+
+    /**
+     * 索引指标快照
+     */
+    public RequestIdIndexMetrics metrics() {
+        long total = lookups.sum();
+        long saved = cacheHits.sum() + bloomNegatives.sum();
+        return new RequestIdIndexMetrics(total, cacheHits.sum(), bloomNegatives.sum(), dbLookups.sum(),
+                falsePositives.sum(), duplicateKeyFallbacks.sum(), total == 0 ? 0D : (double) saved / total);
+    }
+
+    private void put(String requestId) {
+        rotateIfNecessary();
+        current.put(requestId);
+    }
+
+    private void rotateIfNecessary() {
+        RequestIdBloomFilter filter = current;
+        long age = System.currentTimeMillis() - filter.createdAt();
+        if (filter.insertions() < requestIdIndexProperties.getExpectedInsertions()
+                && age < TimeUnit.MINUTES.toMillis(requestIdIndexProperties.getRotateMinutes())) {
+            return;
+        }
+        synchronized (this) {
+            if (current != filter) {
+                return;
+            }
+            // 先发布上一代再替换当前代
+            previous = filter;
+            current = newFilter();
+            log.info("幂等索引布隆过滤器轮换: insertions={}, ageSeconds={}",
+                    filter.insertions(), TimeUnit.MILLISECONDS.toSeconds(age));
+        }
+    }
+
+    private RequestIdBloomFilter newFilter() {
+        return new RequestIdBloomFilter(requestIdIndexProperties.getExpectedInsertions(),
+                requestIdIndexProperties.getFpp());
+    }
+
+    /**
+     * 索引指标
+     *
+     * @param lookups               幂等查询次数
+     * @param cacheHits             近期缓存命中 (未访问数据库)
+     * @param bloomNegatives        布隆判定不存在 (未访问数据库)
+     * @param dbLookups             回表查询次数
+     * @param falsePositives        布隆误判 (回表未查到)
+     * @param duplicateKeyFallbacks 唯一键冲突兜底次数
+     * @param savedRatio            节省的数据库往返占比
+     */
+    public record RequestIdIndexMetrics(long lookups, long cacheHits, long bloomNegatives, long dbLookups,
+            long falsePositives, long duplicateKeyFallbacks, double savedRatio) {
+    }
+}
@@ -1,22 +1,61 @@
 package com.macau.bank.account.infra.util;
 
-import cn.hutool.crypto.SecureUtil;
-import cn.hutool.crypto.digest.HmacAlgorithm;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
+/**
+ * 余额 HMAC 计算与校验
+ * <p>
+ * - 每个线程复用一个已初始化的 {@link Mac} 与编码缓冲区，签名内容 "余额(2位小数)::版本号" 直接写入字节缓冲
+ * - 校验直接比较摘要字节与库中十六进制串 (常量时间)，不生成中间字符串
+ * - 已校验缓存：按记录 id 定长槽位缓存最近一次校验通过的 (id, version, balance, macCode)，
+ * 四者全部一致才视为已校验，余额或校验码被篡改时仍会重新计算
+ * </p>
+ */
 @Slf4j
 @Component
 public class AccountSecurityUtil {
 
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
     // 在生产环境应从配置中心或 Vault 获取
     @Value("${account.security.hmac-salt:MacauBankDefaultSalt2025}")
     private String salt;
 
+    /**
+     * 已校验缓存槽位数 (向上取整为 2 的幂)
+     */
+    @Value("${account.security.verified-cache-size:65536}")
+    private int verifiedCacheSize = 65536;
+
+    private SecretKeySpec key;
+
+    private AtomicReferenceArray<VerifiedMac> verifiedCache;
+
+    private int verifiedCacheMask;
+
+    private final ThreadLocal<MacEngine> engines = ThreadLocal.withInitial(() -> new MacEngine(key));
+
+    @PostConstruct
+    public void init() {
+        key = new SecretKeySpec(salt.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        int slots = Integer.highestOneBit(Math.max(1, verifiedCacheSize - 1)) << 1;
+        verifiedCache = new AtomicReferenceArray<>(slots);
+        verifiedCacheMask = slots - 1;
+    }
+
     /**
      * 计算余额校验码
      * HMAC = SHA256(balance + version + salt)
@@ -25,16 +64,154 @@ public class AccountSecurityUtil {
         if (balance == null || version == null) {
             return null;
         }
-        // 格式化金额，保留2位小数，避免精度问题导致hash不一致
-        String content = balance.setScale(2, RoundingMode.HALF_UP).toString()
-                + "::" + version;
-        
-        return SecureUtil.hmac(HmacAlgorithm.HmacSHA256, salt.getBytes())
-                .digestHex(content);
+        byte[] digest = engines.get().digest(balance, version);
+        char[] hex = new char[digest.length * 2];
+        for (int i = 0; i < digest.length; i++) {
+            hex[i * 2] = HEX[(digest[i] >> 4) & 0x0F];
+            hex[i * 2 + 1] = HEX[digest[i] & 0x0F];
+        }
+        return new String(hex);
     }
-    
+
     public boolean verify(BigDecimal balance, Integer version, String macCode) {
-        String calculated = calculateMac(balance, version);
-        return calculated != null && calculated.equals(macCode);
+        if (balance == null || version == null || macCode == null) {
+            return false;
+        }
+        byte[] digest = engines.get().digest(balance, version);
+        if (macCode.length() != digest.length * 2) {
+            return false;
+        }
+        int diff = 0;
+        for (int i = 0; i < digest.length; i++) {
+            diff |= macCode.charAt(i * 2) ^ HEX[(digest[i] >> 4) & 0x0F];
+            diff |= macCode.charAt(i * 2 + 1) ^ HEX[digest[i] & 0x0F];
+        }
+        return diff == 0;
+    }
+
+    /**
+     * 带已校验缓存的校验：同一记录的 (version, balance, macCode) 未变化时不再重新计算
+     *
+     * @param id 余额记录主键
+     */
+    public boolean verify(Long id, BigDecimal balance, Integer version, String macCode) {
+        if (id == null) {
+            return verify(balance, version, macCode);
+        }
+        int slot = slot(id);
+        VerifiedMac verified = verifiedCache.get(slot);
+        if (verified != null && verified.matches(id, balance, version, macCode)) {
+            return true;
+        }
+        boolean valid = verify(balance, version, macCode);
+        if (valid) {
+            verifiedCache.set(slot, new VerifiedMac(id, version, balance, macCode));
+        }
+        return valid;
+    }
+
+    /**
+     * 登记由本节点签名的记录 (写入后调用)，后续读取无需重新计算
+     */
+    public void markVerified(Long id, BigDecimal balance, Integer version, String macCode) {
+        if (id == null || balance == null || version == null || macCode == null) {
+            return;
+        }
+        verifiedCache.set(slot(id), new VerifiedMac(id, version, balance, macCode));
+    }
+
+    private int slot(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & verifiedCacheMask;
+    }
+
+    private record VerifiedMac(long id, int version, BigDecimal balance, String macCode) {
+
+        boolean matches(long id, BigDecimal balance, Integer version, String macCode) {
+            return this.id == id
+                    && version != null && this.version == version
+                    && balance != null && this.balance.compareTo(balance) == 0
+                    && this.macCode.equals(macCode);
+        }
+    }
+
+    /**
+     * 线程私有的 HMAC 引擎
+     */
+    private static final class MacEngine {
+
+        /**
+         * long 可无损表示的最大精度
+         */
+        private static final int MAX_COMPACT_PRECISION = 18;
+
+        private final Mac mac;
+
+        private final byte[] buffer = new byte[64];
+
+        private final byte[] digest;
+
+        MacEngine(SecretKeySpec key) {
+            try {
+                mac = Mac.getInstance(ALGORITHM);
+                mac.init(key);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("初始化 HMAC 失败", e);
+            }
+            digest = new byte[mac.getMacLength()];
+        }
+
+        byte[] digest(BigDecimal balance, int version) {
+            // 格式化金额，保留2位小数，避免精度问题导致hash不一致
+            BigDecimal scaled = balance.setScale(2, RoundingMode.HALF_UP);
+            if (scaled.precision() > MAX_COMPACT_PRECISION) {
+                mac.update((scaled.toString() + "::" + version).getBytes(StandardCharsets.UTF_8));
+            } else {
+                mac.update(buffer, 0, encode(scaled.unscaledValue().longValue(), version));
+            }
+            try {
+                mac.doFinal(digest, 0);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("计算 HMAC 失败", e);
+            }
+            return digest;
+        }
+
+        /**
+         * 按 BigDecimal#toString 的格式写入 "整数部分.两位小数::版本号"
+         *
+         * @return 写入长度
+         */
+        private int encode(long unscaled, int version) {
+            int pos = 0;
+            if (unscaled < 0) {
+                buffer[pos++] = '-';
+                unscaled = -unscaled;
+            }
+            pos = writeDigits(unscaled / 100, pos);
+            int cents = (int) (unscaled % 100);
+            buffer[pos++] = '.';
+            buffer[pos++] = (byte) ('0' + cents / 10);
+            buffer[pos++] = (byte) ('0' + cents % 10);
+            buffer[pos++] = ':';
+            buffer[pos++] = ':';
+            if (version < 0) {
+                buffer[pos++] = '-';
+                return writeDigits(-(long) version, pos);
+            }
+            return writeDigits(version, pos);
+        }
+
+        private int writeDigits(long value, int pos) {
+            int length = 1;
+            for (long v = value; v >= 10; v /= 10) {
+                length++;
+            }
+            for (int i = pos + length - 1; i >= pos; i--) {
+                buffer[i] = (byte) ('0' + value % 10);
+                value /= 10;
+            }
+            return pos + length;
+        }
     }
 }
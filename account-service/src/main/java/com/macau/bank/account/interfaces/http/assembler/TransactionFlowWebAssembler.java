@@ -2,8 +2,12 @@ package com.macau.bank.account.interfaces.http.assembler;
 
 import com.macau.bank.account.application.query.TransactionFlowQuery;
 import com.macau.bank.account.application.result.TransactionFlowResult;
+import com.macau.bank.account.application.result.TransactionFlowSeekResult;
+import com.macau.bank.account.interfaces.http.request.TransactionFlowExportRequest;
 import com.macau.bank.account.interfaces.http.request.TransactionFlowRequest;
+import com.macau.bank.account.interfaces.http.request.TransactionFlowSeekRequest;
 import com.macau.bank.account.interfaces.http.response.TransactionFlowResponse;
+import com.macau.bank.account.interfaces.http.response.TransactionFlowSeekResponse;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.Named;
@@ -16,14 +20,27 @@ import java.util.List;
 public interface TransactionFlowWebAssembler {
 
     @Mapping(target = "page", source = "pageNum")
+    @Mapping(target = "cursor", ignore = true)
+    @Mapping(target = "withTotal", ignore = true)
     TransactionFlowQuery toQuery(TransactionFlowRequest request);
 
+    @Mapping(target = "page", ignore = true)
+    TransactionFlowQuery toQuery(TransactionFlowSeekRequest request);
+
+    @Mapping(target = "page", ignore = true)
+    @Mapping(target = "pageSize", ignore = true)
+    @Mapping(target = "cursor", ignore = true)
+    @Mapping(target = "withTotal", ignore = true)
+    TransactionFlowQuery toQuery(TransactionFlowExportRequest request);
+
     @Mapping(target = "direction", source = "direction")
     @Mapping(target = "transTime", source = "transTime", qualifiedByName = "formatDateTime")
     TransactionFlowResponse toResponse(TransactionFlowResult result);
 
     List<TransactionFlowResponse> toResponseList(List<TransactionFlowResult> resultList);
 
+    TransactionFlowSeekResponse toSeekResponse(TransactionFlowSeekResult result);
+
     @Named("formatDateTime")
     default String formatDateTime(LocalDateTime dateTime) {
         if (dateTime == null) return null;
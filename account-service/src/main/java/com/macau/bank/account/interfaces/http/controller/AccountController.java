@@ -1,20 +1,27 @@
 package com.macau.bank.account.interfaces.http.controller;
 
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.macau.bank.account.application.query.AccountListQuery;
 import com.macau.bank.account.application.query.AssetSummaryQuery;
 import com.macau.bank.account.application.query.TransactionFlowQuery;
 import com.macau.bank.account.application.result.AccountInfoResult;
 import com.macau.bank.account.application.result.AssetSummaryResult;
 import com.macau.bank.account.application.result.TransactionFlowResult;
+import com.macau.bank.account.application.result.TransactionFlowSeekResult;
 import com.macau.bank.account.application.service.AccountAppService;
 import com.macau.bank.account.common.result.AccountErrorCode;
 import com.macau.bank.account.interfaces.http.assembler.AccountWebAssembler;
 import com.macau.bank.account.interfaces.http.assembler.TransactionFlowWebAssembler;
+import com.macau.bank.account.interfaces.http.export.TransactionFlowExportWriter;
+import com.macau.bank.account.interfaces.http.request.TransactionFlowExportRequest;
+import com.macau.bank.account.interfaces.http.request.TransactionFlowExportRequest.ExportFormat;
 import com.macau.bank.account.interfaces.http.request.TransactionFlowRequest;
+import com.macau.bank.account.interfaces.http.request.TransactionFlowSeekRequest;
 import com.macau.bank.account.interfaces.http.response.AccountResponse;
 import com.macau.bank.account.interfaces.http.response.AssetSummaryResponse;
 import com.macau.bank.account.interfaces.http.response.TransactionFlowResponse;
+import com.macau.bank.account.interfaces.http.response.TransactionFlowSeekResponse;
 import com.macau.bank.common.core.exception.BusinessException;
 import com.macau.bank.common.core.result.Result;
 import com.macau.bank.common.framework.web.annotation.CurrentUser;
@@ -23,11 +30,20 @@ import com.macau.bank.common.framework.web.model.BaseRequest;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.annotation.Resource;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.util.StringUtils;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
 import java.util.List;
 
 /**
@@ -48,6 +64,9 @@ public class AccountController {
     @Resource
     private TransactionFlowWebAssembler transactionFlowWebAssembler;
 
+    @Resource
+    private ObjectMapper objectMapper;
+
     /**
      * 获取首页资产总览
      * 包括等值澳门元总资产和简要账户列表
@@ -91,6 +110,71 @@ public class AccountController {
     public Result<Page<TransactionFlowResponse>> getTransactionFlows(
             @RequestBody @Validated TransactionFlowRequest request) {
         
+        // 1~3. 获取当前用户并校验账户归属
+        String userNo = resolveFlowOwner(request.getAccountNo(), "查询交易流水");
+        
+        // 4. 构建查询并执行
+        TransactionFlowQuery query = transactionFlowWebAssembler.toQuery(request);
+        query.setUserNo(userNo);
+        
+        Page<TransactionFlowResult> resultPage = accountAppService.getTransactionFlows(query);
+        
+        // 5. 转换 Result -> Response
+        Page<TransactionFlowResponse> responsePage = new Page<>(resultPage.getCurrent(), resultPage.getSize(), resultPage.getTotal());
+        responsePage.setRecords(transactionFlowWebAssembler.toResponseList(resultPage.getRecords()));
+        
+        return Result.success(responsePage);
+    }
+
+    /**
+     * 键集分页获取交易流水
+     * 按交易时间倒序，通过 nextCursor 翻页，深翻页不随页码变慢；默认不统计总数
+     */
+    @Operation(summary = "游标翻页获取交易流水")
+    @PostMapping("/bill/seek")
+    public Result<TransactionFlowSeekResponse> seekTransactionFlows(
+            @RequestBody @Validated TransactionFlowSeekRequest request) {
+        String userNo = resolveFlowOwner(request.getAccountNo(), "游标翻页查询交易流水");
+
+        TransactionFlowQuery query = transactionFlowWebAssembler.toQuery(request);
+        query.setUserNo(userNo);
+
+        TransactionFlowSeekResult result = accountAppService.seekTransactionFlows(query);
+        return Result.success(transactionFlowWebAssembler.toSeekResponse(result));
+    }
+
+    /**
+     * 导出交易流水 (对账单下载)
+     * 数据库流式读取后逐条写出，内存占用与导出时间跨度无关
+     */
+    @Operation(summary = "导出交易流水")
+    @PostMapping("/bill/export")
+    public void exportTransactionFlows(@RequestBody @Validated TransactionFlowExportRequest request,
+            HttpServletResponse response) throws IOException {
+        String userNo = resolveFlowOwner(request.getAccountNo(), "导出交易流水");
+
+        TransactionFlowQuery query = transactionFlowWebAssembler.toQuery(request);
+        query.setUserNo(userNo);
+
+        ExportFormat format = request.getFormat() == null ? ExportFormat.CSV : request.getFormat();
+        String fileName = "transactions_" + LocalDate.now().format(DateTimeFormatter.BASIC_ISO_DATE) + "."
+                + TransactionFlowExportWriter.fileExtension(format);
+        response.setContentType(TransactionFlowExportWriter.contentType(format));
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"");
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8));
+        TransactionFlowExportWriter exportWriter = new TransactionFlowExportWriter(format, writer, objectMapper);
+        exportWriter.begin();
+        accountAppService.exportTransactionFlows(query,
+                flow -> exportWriter.write(transactionFlowWebAssembler.toResponse(flow)));
+        exportWriter.end();
+        log.info("App端导出交易流水完成: userNo={}, format={}, rows={}", userNo, format, exportWriter.rows());
+    }
+
+    /**
+     * 从上下文获取当前用户，并在指定账户时校验账户归属
+     */
+    private String resolveFlowOwner(String accountNo, String action) {
         // 1. 从上下文获取用户信息，防止 NPE
         BaseRequest ctx = RequestHeaderContext.get();
         if (ctx == null || ctx.getUserNo() == null) {
@@ -98,31 +182,20 @@ public class AccountController {
             throw new BusinessException(AccountErrorCode.USER_CONTEXT_MISSING);
         }
         String userNo = ctx.getUserNo();
-        
+
         // 2. 日志脱敏：账户号只显示后4位
-        String maskedAccountNo = maskAccountNo(request.getAccountNo());
-        log.info("App端查询交易流水: userNo={}, accountNo={}", userNo, maskedAccountNo);
-        
+        String maskedAccountNo = maskAccountNo(accountNo);
+        log.info("App端{}: userNo={}, accountNo={}", action, userNo, maskedAccountNo);
+
         // 3. 账户归属校验：确保账户属于当前用户
-        if (StringUtils.hasText(request.getAccountNo())) {
-            boolean isOwner = accountAppService.validateAccountOwnership(request.getAccountNo(), userNo);
+        if (StringUtils.hasText(accountNo)) {
+            boolean isOwner = accountAppService.validateAccountOwnership(accountNo, userNo);
             if (!isOwner) {
                 log.warn("账户归属校验失败: accountNo={}, userNo={}", maskedAccountNo, userNo);
                 throw new BusinessException(AccountErrorCode.ACCOUNT_NOT_BELONG_TO_USER);
             }
         }
-        
-        // 4. 构建查询并执行
-        TransactionFlowQuery query = transactionFlowWebAssembler.toQuery(request);
-        query.setUserNo(userNo);
-        
-        Page<TransactionFlowResult> resultPage = accountAppService.getTransactionFlows(query);
-        
-        // 5. 转换 Result -> Response
-        Page<TransactionFlowResponse> responsePage = new Page<>(resultPage.getCurrent(), resultPage.getSize(), resultPage.getTotal());
-        responsePage.setRecords(transactionFlowWebAssembler.toResponseList(resultPage.getRecords()));
-        
-        return Result.success(responsePage);
+        return userNo;
     }
     
     /**
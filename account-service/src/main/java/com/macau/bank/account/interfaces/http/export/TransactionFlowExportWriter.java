@@ -0,0 +1,122 @@
+package com.macau.bank.account.interfaces.http.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.macau.bank.account.interfaces.http.request.TransactionFlowExportRequest.ExportFormat;
+import com.macau.bank.account.interfaces.http.response.TransactionFlowResponse;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+
+/**
+ * 交易流水导出写出器：逐条写入输出流，不缓存结果集
+ * <p>
+ * CSV 带 UTF-8 BOM 以便 Excel 正确识别中文；JSON 输出为数组
+ * </p>
+ */
+public class TransactionFlowExportWriter {
+
+    private static final String CSV_HEADER = "流水ID,交易流水号,交易时间,币种,借贷标志,交易金额,变动后余额,业务类型,交易描述";
+
+    private final ExportFormat format;
+
+    private final Writer writer;
+
+    private final ObjectMapper objectMapper;
+
+    private long rows;
+
+    public TransactionFlowExportWriter(ExportFormat format, Writer writer, ObjectMapper objectMapper) {
+        this.format = format;
+        this.writer = writer;
+        this.objectMapper = objectMapper;
+    }
+
+    public static String contentType(ExportFormat format) {
+        return format == ExportFormat.JSON ? "application/json;charset=UTF-8" : "text/csv;charset=UTF-8";
+    }
+
+    public static String fileExtension(ExportFormat format) {
+        return format == ExportFormat.JSON ? "json" : "csv";
+    }
+
+    public void begin() throws IOException {
+        if (format == ExportFormat.JSON) {
+            writer.write('[');
+        } else {
+            writer.write('\uFEFF');
+            writer.write(CSV_HEADER);
+            writer.write("\r\n");
+        }
+    }
+
+    /**
+     * 写出一条流水 (在流式读取回调中调用，IO 异常转为非受检异常以中断读取)
+     */
+    public void write(TransactionFlowResponse flow) {
+        try {
+            if (format == ExportFormat.JSON) {
+                if (rows > 0) {
+                    writer.write(',');
+                }
+                writer.write(objectMapper.writeValueAsString(flow));
+            } else {
+                writeCsvRow(flow);
+            }
+            rows++;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void end() throws IOException {
+        if (format == ExportFormat.JSON) {
+            writer.write(']');
+        }
+        writer.flush();
+    }
+
+    public long rows() {
+        return rows;
+    }
+
+    private void writeCsvRow(TransactionFlowResponse flow) throws IOException {
+        writer.write(String.valueOf(flow.getId()));
+        writer.write(',');
+        writer.write(csvText(flow.getTxnId()));
+        writer.write(',');
+        writer.write(csvText(flow.getTransTime()));
+        writer.write(',');
+        writer.write(csvText(flow.getCurrencyCode()));
+        writer.write(',');
+        writer.write(flow.getDirection() == null ? "" : flow.getDirection().getCode());
+        writer.write(',');
+        writer.write(plain(flow.getAmount()));
+        writer.write(',');
+        writer.write(plain(flow.getBalance()));
+        writer.write(',');
+        writer.write(flow.getBizType() == null ? "" : flow.getBizType().getCode());
+        writer.write(',');
+        writer.write(csvText(flow.getBizDesc()));
+        writer.write("\r\n");
+    }
+
+    private static String plain(BigDecimal value) {
+        return value == null ? "" : value.toPlainString();
+    }
+
+    /**
+     * 文本列转义：含逗号/引号/换行时加引号；以公式字符开头时前置单引号，防止表格软件执行公式
+     */
+    static String csvText(String value) {
+        if (value == null || value.isEmpty()) {
+            return "";
+        }
+        String text = "=+-@\t\r".indexOf(value.charAt(0)) >= 0 ? "'" + value : value;
+        if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+            return '"' + text.replace("\"", "\"\"") + '"';
+        }
+        return text;
+    }
+}
@@ -0,0 +1,55 @@
+package com.macau.bank.account.interfaces.http.request;
+
+import com.macau.bank.common.core.enums.BizType;
+import com.macau.bank.common.core.enums.FlowDirection;
+import com.macau.bank.common.framework.web.model.BaseRequest;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * 交易流水键集分页请求
+ * <p>
+ * 首页不传 cursor，之后传入上一页返回的 nextCursor；翻页期间应保持筛选条件不变
+ * </p>
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@Schema(description = "交易流水键集分页请求参数")
+public class TransactionFlowSeekRequest extends BaseRequest implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    @Schema(description = "翻页游标 (上一页返回的 nextCursor)，首页为空")
+    private String cursor;
+
+    @Schema(description = "每页条数", example = "20")
+    @Min(value = 1, message = "每页条数不能小于1")
+    @Max(value = 100, message = "每页条数不能超过100")
+    private Integer pageSize = 20;
+
+    @Schema(description = "是否统计总条数 (额外一次 COUNT 查询)", example = "false")
+    private boolean withTotal;
+
+    @Schema(description = "银行账号", example = "888800012345")
+    private String accountNo;
+
+    @Schema(description = "币种代码", example = "MOP")
+    private String currencyCode;
+
+    @Schema(description = "开始日期 (YYYY-MM-DD)", example = "2023-10-01")
+    private LocalDate startDate;
+
+    @Schema(description = "结束日期 (YYYY-MM-DD)", example = "2023-10-31")
+    private LocalDate endDate;
+
+    @Schema(description = "借贷标志 (D:支出, C:收入)", example = "C")
+    private FlowDirection direction;
+
+    @Schema(description = "业务类型", example = "TRANSFER_IN")
+    private BizType bizType;
+}
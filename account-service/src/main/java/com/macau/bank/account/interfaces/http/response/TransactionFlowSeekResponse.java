@@ -0,0 +1,28 @@
+package com.macau.bank.account.interfaces.http.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 交易流水键集分页响应
+ */
+@Data
+@Schema(description = "交易流水键集分页结果")
+public class TransactionFlowSeekResponse implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    @Schema(description = "流水明细")
+    private List<TransactionFlowResponse> records;
+
+    @Schema(description = "下一页游标，没有更多数据时为空")
+    private String nextCursor;
+
+    @Schema(description = "是否还有下一页", example = "true")
+    private boolean hasMore;
+
+    @Schema(description = "总条数，仅 withTotal=true 时返回", example = "128")
+    private Long total;
+}
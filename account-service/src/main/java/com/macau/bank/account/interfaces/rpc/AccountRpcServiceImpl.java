@@ -2,6 +2,7 @@ package com.macau.bank.account.interfaces.rpc;
 
 import com.macau.bank.account.application.assembler.AccountDomainAssembler;
 import com.macau.bank.account.application.command.AdjustBalanceCmd;
+import com.macau.bank.account.application.command.BalanceOpCmd;
 import com.macau.bank.account.application.command.CreateAccountCmd;
 import com.macau.bank.account.application.command.CreditCmd;
 import com.macau.bank.account.application.command.DebitCmd;
@@ -19,6 +20,7 @@ import com.macau.bank.account.domain.entity.AccountInfo;
 import com.macau.bank.account.domain.service.AccountDomainService;
 import com.macau.bank.account.interfaces.rpc.assembler.AccountRpcAssembler;
 import com.macau.bank.api.account.request.AdjustBalanceRpcRequest;
+import com.macau.bank.api.account.request.BalanceOpRpcRequest;
 import com.macau.bank.api.account.request.CreateAccountRpcRequest;
 import com.macau.bank.api.account.request.CreditRpcRequest;
 import com.macau.bank.api.account.request.DebitRpcRequest;
@@ -27,12 +29,14 @@ import com.macau.bank.api.account.request.UnfreezeAndDebitRpcRequest;
 import com.macau.bank.api.account.request.UnfreezeBalanceRpcRequest;
 import com.macau.bank.api.account.response.AccountInfoRpcResponse;
 import com.macau.bank.api.account.response.AssetSummaryRpcResponse;
+import com.macau.bank.api.account.response.BalanceOpRpcResponse;
 import com.macau.bank.api.account.service.AccountRpcService;
 import com.macau.bank.common.core.exception.BusinessException;
 import com.macau.bank.common.core.result.Result;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.dubbo.config.annotation.DubboService;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.util.StringUtils;
 
 import java.math.BigDecimal;
@@ -89,7 +93,7 @@ public class AccountRpcServiceImpl implements AccountRpcService {
     @Override
     @Deprecated
     public Result<Boolean> adjustBalance(AdjustBalanceRpcRequest request) {
-        return executeRpc(() -> {
+        return executeIdempotentRpc(() -> {
             AdjustBalanceCmd cmd = accountRpcAssembler.toCmd(request);
             accountAppService.adjustBalance(cmd);
             return true;
@@ -98,18 +102,18 @@ public class AccountRpcServiceImpl implements AccountRpcService {
 
     @Override
     public Result<Boolean> debit(DebitRpcRequest request) {
-        return executeRpc(() -> {
+        return executeIdempotentRpc(() -> {
             DebitCmd cmd = accountRpcAssembler.toCmd(request);
-            accountAppService.debit(cmd);
+            accountAppService.debitCombined(cmd);
             return true;
         }, "扣款", request);
     }
 
     @Override
     public Result<Boolean> credit(CreditRpcRequest request) {
-        return executeRpc(() -> {
+        return executeIdempotentRpc(() -> {
             CreditCmd cmd = accountRpcAssembler.toCmd(request);
-            accountAppService.credit(cmd);
+            accountAppService.creditCombined(cmd);
             return true;
         }, "入账", request);
     }
@@ -180,12 +184,20 @@ public class AccountRpcServiceImpl implements AccountRpcService {
 
     @Override
     public Result<Boolean> unfreezeAndDebit(UnfreezeAndDebitRpcRequest request) {
-        return executeRpc(() -> {
+        return executeIdempotentRpc(() -> {
             UnfreezeAndDebitCmd cmd = accountRpcAssembler.toCmd(request);
             return accountAppService.unfreezeAndDebit(cmd);
         }, "解冻并扣款", request);
     }
 
+    @Override
+    public Result<List<BalanceOpRpcResponse>> executeBatch(List<BalanceOpRpcRequest> ops) {
+        return executeIdempotentRpc(() -> {
+            List<BalanceOpCmd> cmds = accountRpcAssembler.toBalanceOpCmdList(ops);
+            return accountRpcAssembler.toBalanceOpRpcList(accountAppService.executeBatch(cmds));
+        }, "批量记账", ops);
+    }
+
     @Override
     public Result<Boolean> validateAccountOwnership(String accountNo, String userNo) {
         return executeRpc(() -> {
@@ -225,4 +237,21 @@ public class AccountRpcServiceImpl implements AccountRpcService {
             return Result.fail(500, "系统繁忙，请稍后重试");
         }
     }
+
+    /**
+     * 带请求ID幂等的写操作执行模板
+     * <p>
+     * 本节点幂等索引看不到其他节点处理过的请求ID，重复请求会在写分户账时触发 uk_request_id 冲突并回滚；
+     * 冲突时该请求ID已被标记，重试一次即回表查询，得到与首次请求一致的幂等结果。
+     */
+    private <T> Result<T> executeIdempotentRpc(Supplier<T> action, String operation, Object request) {
+        return executeRpc(() -> {
+            try {
+                return action.get();
+            } catch (DuplicateKeyException e) {
+                log.warn("RPC {}请求ID冲突，按重复请求重试: request={}", operation, request);
+                return action.get();
+            }
+        }, operation, request);
+    }
 }
\ No newline at end of file
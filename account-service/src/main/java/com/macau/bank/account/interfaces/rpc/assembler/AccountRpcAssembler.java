@@ -1,6 +1,7 @@
 package com.macau.bank.account.interfaces.rpc.assembler;
 
 import com.macau.bank.account.application.command.AdjustBalanceCmd;
+import com.macau.bank.account.application.command.BalanceOpCmd;
 import com.macau.bank.account.application.command.CreateAccountCmd;
 import com.macau.bank.account.application.command.CreditCmd;
 import com.macau.bank.account.application.command.DebitCmd;
@@ -10,7 +11,9 @@ import com.macau.bank.account.application.command.UnfreezeBalanceCmd;
 import com.macau.bank.account.application.result.AccountBalanceResult;
 import com.macau.bank.account.application.result.AccountInfoResult;
 import com.macau.bank.account.application.result.AssetSummaryResult;
+import com.macau.bank.account.application.result.BalanceOpResult;
 import com.macau.bank.api.account.request.AdjustBalanceRpcRequest;
+import com.macau.bank.api.account.request.BalanceOpRpcRequest;
 import com.macau.bank.api.account.request.CreateAccountRpcRequest;
 import com.macau.bank.api.account.request.CreditRpcRequest;
 import com.macau.bank.api.account.request.DebitRpcRequest;
@@ -20,6 +23,7 @@ import com.macau.bank.api.account.request.UnfreezeBalanceRpcRequest;
 import com.macau.bank.api.account.response.AccountBalanceRpcResponse;
 import com.macau.bank.api.account.response.AccountInfoRpcResponse;
 import com.macau.bank.api.account.response.AssetSummaryRpcResponse;
+import com.macau.bank.api.account.response.BalanceOpRpcResponse;
 import org.mapstruct.Mapper;
 
 import java.util.List;
@@ -37,6 +41,10 @@ public interface AccountRpcAssembler {
 
     List<AccountInfoRpcResponse> toRpcList(List<AccountInfoResult> resultList);
 
+    BalanceOpRpcResponse toRpc(BalanceOpResult result);
+
+    List<BalanceOpRpcResponse> toBalanceOpRpcList(List<BalanceOpResult> resultList);
+
     // ==================== RPC Request -> Cmd ====================
 
     AdjustBalanceCmd toCmd(AdjustBalanceRpcRequest request);
@@ -52,4 +60,8 @@ public interface AccountRpcAssembler {
     UnfreezeBalanceCmd toCmd(UnfreezeBalanceRpcRequest request);
 
     UnfreezeAndDebitCmd toCmd(UnfreezeAndDebitRpcRequest request);
+
+    BalanceOpCmd toCmd(BalanceOpRpcRequest request);
+
+    List<BalanceOpCmd> toBalanceOpCmdList(List<BalanceOpRpcRequest> requestList);
 }
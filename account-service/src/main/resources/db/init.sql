@@ -67,6 +67,7 @@ CREATE TABLE `account_balance` (
    `id` BIGINT AUTO_INCREMENT PRIMARY KEY,
    `account_no` VARCHAR(32) NOT NULL COMMENT '关联 account_info.account_no',
    `currency_code` VARCHAR(3) NOT NULL COMMENT '币种: MOP, HKD, CNY',
+   `shard_no` INT NOT NULL DEFAULT 0 COMMENT '余额分片号: 0-主分片; 热点内部户拆分为多个分片行以分散行锁',
 
     -- 核心金额字段 (使用 DECIMAL 保证金融精度)
    `balance` DECIMAL(18, 2) NOT NULL DEFAULT 0.00 COMMENT '当前余额 (包含冻结金额)',
@@ -86,8 +87,8 @@ CREATE TABLE `account_balance` (
    `create_time` DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '首次开通该币种的时间',
    `update_time` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
 
-    -- 联合唯一索引: 确保一个账号下，每种货币只有一行记录
-   UNIQUE KEY uk_acc_curr (`account_no`, `currency_code`)
+    -- 联合唯一索引: 确保一个账号下，每种货币的每个分片只有一行记录
+   UNIQUE KEY uk_acc_curr_shard (`account_no`, `currency_code`, `shard_no`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='账户分币种余额表';
 
 
@@ -149,5 +150,5 @@ CREATE TABLE `account_sub_ledger` (
       KEY `idx_biz_no` (`biz_no`),
       UNIQUE KEY `uk_request_id` (`request_id`),
       KEY `idx_acc_date` (`account_no`,`acct_date`),
-      KEY `idx_user_time` (`user_no`,`trans_time`)
+      KEY `idx_user_time` (`user_no`,`trans_time`,`id`,`account_no`,`currency_code`,`acct_date`,`cd_flag`,`biz_type`)
 ) ENGINE=InnoDB AUTO_INCREMENT=15 DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci COMMENT='账户分户账明细表(Sub-ledger)';
\ No newline at end of file
@@ -0,0 +1,127 @@
+package com.macau.bank.account.application.executor;
+
+import com.macau.bank.account.common.result.AccountErrorCode;
+import com.macau.bank.account.domain.model.BalanceAdjustment;
+import com.macau.bank.account.domain.service.AccountBalanceDomainService;
+import com.macau.bank.account.infra.config.BalanceCombinerProperties;
+import com.macau.bank.common.core.domain.Money;
+import com.macau.bank.common.core.exception.BusinessException;
+import com.macau.bank.common.core.exception.SystemException;
+import com.macau.bank.common.framework.lock.config.MacauLockProperties;
+import com.macau.bank.common.framework.lock.support.TwoTierLockManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 记账合并执行器等待超时测试
+ * <p>
+ * 核心场景：
+ * 1. 排队中的请求等待超时后被撤销，不再执行，按排队超时返回
+ * 2. 已被单写线程认领的请求等待超时后结果未知，按系统异常返回
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("记账合并执行器等待超时测试")
+class AccountAffinityExecutorTest {
+
+    @Mock
+    private AccountBalanceDomainService accountBalanceDomainService;
+
+    @Mock
+    private TwoTierLockManager twoTierLockManager;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Spy
+    private MacauLockProperties macauLockProperties = new MacauLockProperties();
+
+    @Spy
+    private BalanceCombinerProperties balanceCombinerProperties = new BalanceCombinerProperties();
+
+    @InjectMocks
+    private AccountAffinityExecutor executor;
+
+    /** 放行单写线程持有账户锁后的执行 */
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() throws Throwable {
+        balanceCombinerProperties.setEnabled(true);
+        balanceCombinerProperties.setStripes(1);
+        balanceCombinerProperties.setAwaitTimeoutMillis(100);
+        when(twoTierLockManager.execute(anyString(), anyLong(), anyLong(), any(), anyString(), any()))
+                .thenAnswer(invocation -> {
+                    assertTrue(release.await(5, TimeUnit.SECONDS));
+                    TwoTierLockManager.LockedAction<?> action = invocation.getArgument(5);
+                    return action.run();
+                });
+        executor.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        release.countDown();
+        executor.stop();
+    }
+
+    @Test
+    @DisplayName("排队中的请求等待超时：撤销后不再执行，按排队超时返回")
+    void queuedOpShouldBeWithdrawnOnTimeout() throws Throwable {
+        // Given: 第一笔占住单写线程，第二笔只能排队
+        CompletableFuture<Void> first = executor.submit(adjustment("A1", "REQ_1"));
+        verify(twoTierLockManager, timeout(1000)).execute(anyString(), anyLong(), anyLong(), any(), anyString(),
+                any());
+        CompletableFuture<Void> queued = executor.submit(adjustment("A1", "REQ_2"));
+
+        // When
+        BusinessException ex = assertThrows(BusinessException.class, () -> executor.await(queued));
+
+        // Then
+        assertEquals(AccountErrorCode.BALANCE_COMBINE_TIMEOUT.getCode(), ex.getCode());
+        release.countDown();
+        first.join();
+        TimeUnit.MILLISECONDS.sleep(300);
+        verify(accountBalanceDomainService, times(1)).adjustBalance(any());
+        verify(accountBalanceDomainService, never()).adjustBalance(argThat(a -> "REQ_2".equals(a.getRequestId())));
+        assertEquals(1, executor.metrics().withdrawn());
+    }
+
+    @Test
+    @DisplayName("执行中的请求等待超时：结果未知，按系统异常返回")
+    void claimedOpShouldReportUnknownOnTimeout() throws Throwable {
+        CompletableFuture<Void> running = executor.submit(adjustment("A1", "REQ_1"));
+        verify(twoTierLockManager, timeout(1000)).execute(anyString(), anyLong(), anyLong(), any(), anyString(),
+                any());
+
+        assertThrows(SystemException.class, () -> executor.await(running));
+
+        release.countDown();
+        running.join();
+        verify(accountBalanceDomainService).adjustBalance(any());
+        assertEquals(0, executor.metrics().withdrawn());
+    }
+
+    private BalanceAdjustment adjustment(String accountNo, String requestId) {
+        return BalanceAdjustment.builder()
+                .accountNo(accountNo)
+                .amount(Money.of("10.00", "MOP"))
+                .requestId(requestId)
+                .build();
+    }
+}
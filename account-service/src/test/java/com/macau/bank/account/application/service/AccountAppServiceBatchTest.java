@@ -0,0 +1,176 @@
+package com.macau.bank.account.application.service;
+
+import com.macau.bank.account.application.command.BalanceOpCmd;
+import com.macau.bank.account.application.result.BalanceOpResult;
+import com.macau.bank.account.application.service.impl.AccountAppServiceImpl;
+import com.macau.bank.account.common.result.AccountErrorCode;
+import com.macau.bank.account.domain.model.BalanceAdjustment;
+import com.macau.bank.account.domain.service.AccountBalanceDomainService;
+import com.macau.bank.account.domain.service.HotAccountDomainService;
+import com.macau.bank.account.infra.tcc.TccProtectionService;
+import com.macau.bank.common.core.enums.BalanceOpType;
+import com.macau.bank.common.core.exception.BusinessException;
+import com.macau.bank.common.framework.lock.config.MacauLockProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 批量记账测试
+ * <p>
+ * 核心场景：
+ * 1. 多条分录按顺序在同一个事务中执行，按账户号排序加锁，分片热点账户不加锁
+ * 2. 任一分录失败整体回滚并释放锁
+ * 3. 分录数上限
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("批量记账测试")
+class AccountAppServiceBatchTest {
+
+    private static final String HOT_ACCOUNT = "INTERNAL_FOREX_001";
+
+    @Mock
+    private AccountBalanceDomainService accountBalanceDomainService;
+
+    @Mock
+    private TccProtectionService tccProtectionService;
+
+    @Mock
+    private HotAccountDomainService hotAccountDomainService;
+
+    @Mock
+    private RedissonClient redissonClient;
+
+    @Spy
+    private MacauLockProperties macauLockProperties = new MacauLockProperties();
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private TransactionStatus transactionStatus;
+
+    @Mock
+    private RLock lockA;
+
+    @Mock
+    private RLock lockB;
+
+    @Mock
+    private RLock multiLock;
+
+    @InjectMocks
+    private AccountAppServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        service.init();
+        when(transactionManager.getTransaction(any())).thenReturn(transactionStatus);
+        when(hotAccountDomainService.isSharded(anyString())).thenAnswer(inv -> HOT_ACCOUNT.equals(inv.getArgument(0)));
+        when(redissonClient.getLock("lock:account:ACC_A")).thenReturn(lockA);
+        when(redissonClient.getLock("lock:account:ACC_B")).thenReturn(lockB);
+        when(redissonClient.getMultiLock(lockA, lockB)).thenReturn(multiLock);
+    }
+
+    @Test
+    @DisplayName("分录应按顺序在同一事务中执行，锁按账户号排序且跳过分片账户")
+    void shouldApplyLegsInOneTransaction() throws InterruptedException {
+        // Given
+        when(multiLock.tryLock(anyLong(), anyLong(), eq(TimeUnit.SECONDS))).thenReturn(true);
+        when(accountBalanceDomainService.adjustBalance(any(BalanceAdjustment.class))).thenReturn(true);
+        List<BalanceOpCmd> ops = List.of(
+                op(BalanceOpType.DEBIT, "ACC_B", "REQ_SELL"),
+                op(BalanceOpType.CREDIT, "ACC_A", "REQ_BUY"),
+                op(BalanceOpType.CREDIT, HOT_ACCOUNT, "REQ_BANK_IN"));
+
+        // When
+        List<BalanceOpResult> results = service.executeBatch(ops);
+
+        // Then
+        assertEquals(3, results.size());
+        assertTrue(results.stream().allMatch(BalanceOpResult::getSuccess));
+        assertEquals("REQ_BANK_IN", results.get(2).getRequestId());
+
+        ArgumentCaptor<BalanceAdjustment> adjustments = ArgumentCaptor.forClass(BalanceAdjustment.class);
+        verify(accountBalanceDomainService, times(3)).adjustBalance(adjustments.capture());
+        assertTrue(adjustments.getAllValues().get(0).getAmount().isNegative());
+        assertTrue(adjustments.getAllValues().get(1).getAmount().isPositive());
+
+        InOrder inOrder = inOrder(multiLock, transactionManager);
+        inOrder.verify(multiLock).tryLock(anyLong(), anyLong(), eq(TimeUnit.SECONDS));
+        inOrder.verify(transactionManager).getTransaction(any());
+        inOrder.verify(transactionManager).commit(transactionStatus);
+        inOrder.verify(multiLock).unlock();
+        verify(redissonClient, never()).getLock("lock:account:" + HOT_ACCOUNT);
+    }
+
+    @Test
+    @DisplayName("任一分录失败应整体回滚并释放锁")
+    void failedLegShouldRollbackBatch() throws InterruptedException {
+        // Given
+        when(multiLock.tryLock(anyLong(), anyLong(), eq(TimeUnit.SECONDS))).thenReturn(true);
+        when(accountBalanceDomainService.adjustBalance(any(BalanceAdjustment.class)))
+                .thenReturn(true)
+                .thenThrow(new BusinessException(AccountErrorCode.BALANCE_INSUFFICIENT));
+        List<BalanceOpCmd> ops = List.of(
+                op(BalanceOpType.CREDIT, "ACC_A", "REQ_1"),
+                op(BalanceOpType.DEBIT, "ACC_B", "REQ_2"));
+
+        // When
+        BusinessException exception = assertThrows(BusinessException.class, () -> service.executeBatch(ops));
+
+        // Then
+        assertEquals(AccountErrorCode.BALANCE_INSUFFICIENT.getCode(), exception.getCode());
+        verify(transactionManager).rollback(transactionStatus);
+        verify(transactionManager, never()).commit(any());
+        verify(multiLock).unlock();
+    }
+
+    @Test
+    @DisplayName("分录数超出上限应拒绝")
+    void shouldRejectOversizedBatch() {
+        List<BalanceOpCmd> ops = new ArrayList<>();
+        for (int i = 0; i < 51; i++) {
+            ops.add(op(BalanceOpType.CREDIT, "ACC_A", "REQ_" + i));
+        }
+
+        BusinessException exception = assertThrows(BusinessException.class, () -> service.executeBatch(ops));
+
+        assertEquals(AccountErrorCode.BATCH_SIZE_EXCEEDED.getCode(), exception.getCode());
+        verifyNoInteractions(accountBalanceDomainService);
+    }
+
+    private BalanceOpCmd op(BalanceOpType opType, String accountNo, String requestId) {
+        return BalanceOpCmd.builder()
+                .opType(opType)
+                .accountNo(accountNo)
+                .currencyCode("MOP")
+                .amount(new BigDecimal("100.00"))
+                .bizNo("TXN_001")
+                .requestId(requestId)
+                .build();
+    }
+}
@@ -0,0 +1,148 @@
+package com.macau.bank.account.application.service;
+
+import com.macau.bank.account.application.assembler.TransactionFlowDomainAssembler;
+import com.macau.bank.account.application.assembler.TransactionFlowDomainAssemblerImpl;
+import com.macau.bank.account.application.query.TransactionFlowQuery;
+import com.macau.bank.account.application.result.TransactionFlowResult;
+import com.macau.bank.account.application.result.TransactionFlowSeekResult;
+import com.macau.bank.account.application.service.impl.AccountAppServiceImpl;
+import com.macau.bank.account.common.result.AccountErrorCode;
+import com.macau.bank.account.domain.entity.AccountSubLedger;
+import com.macau.bank.account.domain.model.SubLedgerCursor;
+import com.macau.bank.account.domain.model.SubLedgerQuery;
+import com.macau.bank.account.domain.service.AccountDomainService;
+import com.macau.bank.common.core.enums.FlowDirection;
+import com.macau.bank.common.core.exception.BusinessException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 交易流水键集分页与导出测试
+ * <p>
+ * 核心场景：
+ * 1. 多取一条判断是否有下一页，游标指向本页最后一条
+ * 2. 携带游标翻页，按需统计总数
+ * 3. 非法游标拒绝
+ * 4. 导出逐条回调
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("交易流水键集分页与导出测试")
+class AccountAppServiceTransactionFlowTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 3, 1, 10, 0, 0);
+
+    @Mock
+    private AccountDomainService accountDomainService;
+
+    @Spy
+    private TransactionFlowDomainAssembler transactionFlowDomainAssembler = new TransactionFlowDomainAssemblerImpl();
+
+    @InjectMocks
+    private AccountAppServiceImpl accountAppService;
+
+    @Test
+    @DisplayName("首页：多取一条判断有下一页，游标指向本页最后一条且不统计总数")
+    void firstPageShouldReturnCursorOfLastRow() {
+        // Given: 同一秒内的两条流水按 id 倒序
+        when(accountDomainService.seekSubLedgers(any(), eq(3))).thenReturn(List.of(
+                ledger(30L, T0.plusSeconds(5)), ledger(29L, T0), ledger(28L, T0)));
+
+        // When
+        TransactionFlowSeekResult result = accountAppService.seekTransactionFlows(query(null, 2, false));
+
+        // Then
+        assertEquals(List.of(30L, 29L), result.getRecords().stream().map(TransactionFlowResult::getId).toList());
+        assertTrue(result.isHasMore());
+        assertEquals(new SubLedgerCursor(T0, 29L), SubLedgerCursor.decode(result.getNextCursor()));
+        assertNull(result.getTotal());
+        verify(accountDomainService, never()).countSubLedgers(any());
+    }
+
+    @Test
+    @DisplayName("携带游标翻页：查询从游标位置开始，最后一页不返回游标，按需统计总数")
+    void nextPageShouldSeekFromCursor() {
+        String cursor = new SubLedgerCursor(T0, 29L).encode();
+        ArgumentCaptor<SubLedgerQuery> captor = ArgumentCaptor.forClass(SubLedgerQuery.class);
+        when(accountDomainService.seekSubLedgers(captor.capture(), eq(3))).thenReturn(List.of(ledger(28L, T0)));
+        when(accountDomainService.countSubLedgers(any())).thenReturn(3L);
+
+        TransactionFlowSeekResult result = accountAppService.seekTransactionFlows(query(cursor, 2, true));
+
+        SubLedgerQuery seekQuery = captor.getValue();
+        assertEquals("USER_001", seekQuery.getUserNo());
+        assertEquals(FlowDirection.OUT, seekQuery.getDirection());
+        assertEquals(T0, seekQuery.getCursorTime());
+        assertEquals(29L, seekQuery.getCursorId());
+        assertFalse(result.isHasMore());
+        assertNull(result.getNextCursor());
+        assertEquals(3L, result.getTotal());
+    }
+
+    @Test
+    @DisplayName("被篡改的游标应拒绝")
+    void invalidCursorShouldBeRejected() {
+        BusinessException ex = assertThrows(BusinessException.class,
+                () -> accountAppService.seekTransactionFlows(query("not-a-cursor", 2, false)));
+
+        assertEquals(AccountErrorCode.INVALID_PAGE_CURSOR.getCode(), ex.getCode());
+        verifyNoInteractions(accountDomainService);
+    }
+
+    @Test
+    @DisplayName("导出：按筛选条件流式读取并逐条回调，忽略游标")
+    @SuppressWarnings("unchecked")
+    void exportShouldStreamRows() {
+        doAnswer(inv -> {
+            Consumer<AccountSubLedger> consumer = inv.getArgument(1);
+            consumer.accept(ledger(2L, T0));
+            consumer.accept(ledger(1L, T0));
+            return null;
+        }).when(accountDomainService).streamSubLedgers(any(), any(Consumer.class));
+
+        List<TransactionFlowResult> exported = new ArrayList<>();
+        accountAppService.exportTransactionFlows(query(new SubLedgerCursor(T0, 9L).encode(), 2, false), exported::add);
+
+        assertEquals(List.of(2L, 1L), exported.stream().map(TransactionFlowResult::getId).toList());
+        ArgumentCaptor<SubLedgerQuery> captor = ArgumentCaptor.forClass(SubLedgerQuery.class);
+        verify(accountDomainService).streamSubLedgers(captor.capture(), any(Consumer.class));
+        assertNull(captor.getValue().getCursorId());
+    }
+
+    private TransactionFlowQuery query(String cursor, int pageSize, boolean withTotal) {
+        return TransactionFlowQuery.builder()
+                .userNo("USER_001")
+                .direction(FlowDirection.OUT)
+                .cursor(cursor)
+                .pageSize(pageSize)
+                .withTotal(withTotal)
+                .build();
+    }
+
+    private AccountSubLedger ledger(Long id, LocalDateTime transTime) {
+        return AccountSubLedger.builder()
+                .id(id)
+                .userNo("USER_001")
+                .accountNo("ACC_001")
+                .currencyCode("MOP")
+                .cdFlag(FlowDirection.OUT)
+                .amount(new BigDecimal("10.00"))
+                .transTime(transTime)
+                .build();
+    }
+}
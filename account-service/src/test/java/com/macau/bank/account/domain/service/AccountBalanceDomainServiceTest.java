@@ -5,7 +5,10 @@ import com.macau.bank.account.domain.entity.AccountBalance;
 import com.macau.bank.account.domain.entity.AccountFreezeLog;
 import com.macau.bank.account.domain.entity.AccountInfo;
 import com.macau.bank.account.domain.entity.AccountSubLedger;
+import com.macau.bank.account.domain.model.AdjustmentOutcome;
 import com.macau.bank.account.domain.model.BalanceAdjustment;
+import com.macau.bank.account.domain.model.BalanceApplyMode;
+import com.macau.bank.account.domain.model.BalanceDelta;
 import com.macau.bank.account.domain.repository.AccountBalanceRepository;
 import com.macau.bank.account.domain.repository.AccountFreezeLogRepository;
 import com.macau.bank.account.domain.repository.AccountInfoRepository;
@@ -21,9 +24,12 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.ArgumentCaptor;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -38,6 +44,8 @@ import static org.mockito.Mockito.*;
  * 1. 余额调整（入账/出账/余额不足）
  * 2. 冻结/解冻
  * 3. 解冻并扣款
+ * 4. 增量模式（单条条件 UPDATE）
+ * 5. 合并记账（一次增量更新 + 一次分户账批量写入）
  */
 @ExtendWith(MockitoExtension.class)
 @DisplayName("账户余额领域服务测试")
@@ -55,6 +63,9 @@ class AccountBalanceDomainServiceTest {
     @Mock
     private AccountFreezeLogRepository accountFreezeLogRepository;
 
+    @Mock
+    private HotAccountDomainService hotAccountDomainService;
+
     @InjectMocks
     private AccountBalanceDomainService service;
 
@@ -207,4 +218,231 @@ class AccountBalanceDomainServiceTest {
             verify(accountSubLedgerRepository).save(any(AccountSubLedger.class));
         }
     }
+
+    @Nested
+    @DisplayName("增量模式")
+    class DeltaModeTests {
+
+        @BeforeEach
+        void enableDeltaMode() {
+            ReflectionTestUtils.setField(service, "applyMode", BalanceApplyMode.DELTA);
+        }
+
+        @Test
+        @DisplayName("出账应以单条增量更新完成，不走先查后改")
+        void debitShouldApplyDeltaWithoutRead() {
+            // Given
+            AccountBalance updated = new AccountBalance();
+            updated.setCurrencyCode("MOP");
+            updated.setBalance(new BigDecimal("9500.00"));
+            when(accountInfoRepository.findByAccountNo("ACC_001")).thenReturn(testAccountInfo);
+            when(accountBalanceRepository.applyDelta(eq("ACC_001"), eq("MOP"), any(BalanceDelta.class)))
+                    .thenReturn(updated);
+
+            BalanceAdjustment adjustment = BalanceAdjustment.builder()
+                    .accountNo("ACC_001")
+                    .amount(Money.of(new BigDecimal("-500.00"), "MOP"))
+                    .bizType(BizType.TRANSFER_OUT)
+                    .bizNo("TXN_101")
+                    .requestId("REQ_101")
+                    .description("转账出账")
+                    .build();
+
+            // When
+            boolean result = service.adjustBalance(adjustment);
+
+            // Then
+            assertTrue(result);
+            ArgumentCaptor<BalanceDelta> captor = ArgumentCaptor.forClass(BalanceDelta.class);
+            verify(accountBalanceRepository).applyDelta(eq("ACC_001"), eq("MOP"), captor.capture());
+            assertEquals(0, new BigDecimal("-500.00").compareTo(captor.getValue().getBalance()));
+            assertEquals(0, new BigDecimal("-500.00").compareTo(captor.getValue().getAvailableBalance()));
+            assertEquals(0, new BigDecimal("500.00").compareTo(captor.getValue().getTotalOutcome()));
+            verify(accountBalanceRepository, never()).findByAccountAndCurrency(anyString(), anyString());
+            verify(accountBalanceRepository, never()).save(any());
+
+            ArgumentCaptor<AccountSubLedger> ledger = ArgumentCaptor.forClass(AccountSubLedger.class);
+            verify(accountSubLedgerRepository).save(ledger.capture());
+            assertEquals(new BigDecimal("9500.00"), ledger.getValue().getBalance());
+        }
+
+        @Test
+        @DisplayName("增量更新未命中且余额记录存在时应判定为余额不足")
+        void debitShouldThrowWhenDeltaRejected() {
+            // Given
+            when(accountInfoRepository.findByAccountNo("ACC_001")).thenReturn(testAccountInfo);
+            when(accountBalanceRepository.applyDelta(eq("ACC_001"), eq("MOP"), any(BalanceDelta.class)))
+                    .thenReturn(null);
+            when(accountBalanceRepository.findByAccountAndCurrency("ACC_001", "MOP")).thenReturn(testBalance);
+
+            BalanceAdjustment adjustment = BalanceAdjustment.builder()
+                    .accountNo("ACC_001")
+                    .amount(Money.of(new BigDecimal("-20000.00"), "MOP"))
+                    .bizType(BizType.TRANSFER_OUT)
+                    .bizNo("TXN_102")
+                    .requestId("REQ_102")
+                    .description("转账出账")
+                    .build();
+
+            // When & Then
+            BusinessException exception = assertThrows(BusinessException.class,
+                    () -> service.adjustBalance(adjustment));
+            assertEquals(AccountErrorCode.BALANCE_INSUFFICIENT.getCode(), exception.getCode());
+            verify(accountSubLedgerRepository, never()).save(any());
+        }
+
+        @Test
+        @DisplayName("增量更新未命中且余额记录不存在时应判定为记录不存在")
+        void freezeShouldThrowWhenBalanceRecordMissing() {
+            // Given
+            when(accountBalanceRepository.applyDelta(eq("ACC_001"), eq("MOP"), any(BalanceDelta.class)))
+                    .thenReturn(null);
+            when(accountBalanceRepository.findByAccountAndCurrency("ACC_001", "MOP")).thenReturn(null);
+
+            Money freezeAmount = Money.of(new BigDecimal("1000.00"), "MOP");
+
+            // When & Then
+            BusinessException exception = assertThrows(BusinessException.class,
+                    () -> service.freezeBalance("ACC_001", freezeAmount, "FLOW_101", FreezeType.TRANSACTION, "转账冻结"));
+            assertEquals(AccountErrorCode.BALANCE_RECORD_NOT_FOUND.getCode(), exception.getCode());
+            verify(accountFreezeLogRepository, never()).save(any());
+        }
+
+        @Test
+        @DisplayName("解冻并扣款应减少冻结金额与总余额，可用余额不变")
+        void unfreezeAndDebitShouldApplyDelta() {
+            // Given
+            AccountBalance updated = new AccountBalance();
+            updated.setCurrencyCode("MOP");
+            updated.setBalance(new BigDecimal("9000.00"));
+            when(accountInfoRepository.findByAccountNo("ACC_001")).thenReturn(testAccountInfo);
+            when(accountSubLedgerRepository.findByRequestId("REQ_103")).thenReturn(null);
+            when(accountBalanceRepository.applyDelta(eq("ACC_001"), eq("MOP"), any(BalanceDelta.class)))
+                    .thenReturn(updated);
+
+            Money amount = Money.of(new BigDecimal("1000.00"), "MOP");
+
+            // When
+            boolean result = service.unfreezeAndDebit("ACC_001", amount, "FLOW_102", "转账确认",
+                    BizType.TRANSFER_OUT, "REQ_103");
+
+            // Then
+            assertTrue(result);
+            ArgumentCaptor<BalanceDelta> captor = ArgumentCaptor.forClass(BalanceDelta.class);
+            verify(accountBalanceRepository).applyDelta(eq("ACC_001"), eq("MOP"), captor.capture());
+            assertEquals(0, new BigDecimal("-1000.00").compareTo(captor.getValue().getBalance()));
+            assertEquals(0, new BigDecimal("-1000.00").compareTo(captor.getValue().getFrozenAmount()));
+            assertEquals(0, BigDecimal.ZERO.compareTo(captor.getValue().getAvailableBalance()));
+            verify(accountSubLedgerRepository).save(any(AccountSubLedger.class));
+        }
+    }
+
+    @Nested
+    @DisplayName("合并记账")
+    class CombinedAdjustmentTests {
+
+        @BeforeEach
+        void enableDeltaMode() {
+            ReflectionTestUtils.setField(service, "applyMode", BalanceApplyMode.DELTA);
+        }
+
+        @Test
+        @DisplayName("同账户多笔调整应合并为一次增量更新和一次分户账批量写入")
+        void shouldApplyNetDeltaOnceAndSaveAllSubLedgers() {
+            // Given: 余额 10000，依次 +500、-300、+200
+            AccountBalance updated = new AccountBalance();
+            updated.setCurrencyCode("MOP");
+            updated.setBalance(new BigDecimal("10400.00"));
+            when(accountInfoRepository.findByAccountNo("ACC_001")).thenReturn(testAccountInfo);
+            when(accountBalanceRepository.findByAccountAndCurrency("ACC_001", "MOP")).thenReturn(testBalance);
+            when(accountBalanceRepository.applyDelta(eq("ACC_001"), eq("MOP"), any(BalanceDelta.class)))
+                    .thenReturn(updated);
+
+            // When
+            List<AdjustmentOutcome> outcomes = service.adjustBalanceCombined(List.of(
+                    adjustment("500.00", "REQ_201"), adjustment("-300.00", "REQ_202"),
+                    adjustment("200.00", "REQ_203")));
+
+            // Then
+            assertTrue(outcomes.stream().allMatch(AdjustmentOutcome::isSuccess));
+            ArgumentCaptor<BalanceDelta> captor = ArgumentCaptor.forClass(BalanceDelta.class);
+            verify(accountBalanceRepository, times(1)).applyDelta(eq("ACC_001"), eq("MOP"), captor.capture());
+            assertEquals(0, new BigDecimal("400.00").compareTo(captor.getValue().getBalance()));
+            assertEquals(0, new BigDecimal("700.00").compareTo(captor.getValue().getTotalIncome()));
+            assertEquals(0, new BigDecimal("300.00").compareTo(captor.getValue().getTotalOutcome()));
+
+            ArgumentCaptor<List<AccountSubLedger>> ledgers = ArgumentCaptor.forClass(List.class);
+            verify(accountSubLedgerRepository).saveAll(ledgers.capture());
+            verify(accountSubLedgerRepository, never()).save(any());
+            List<AccountSubLedger> rows = ledgers.getValue();
+            assertEquals(3, rows.size());
+            assertEquals(0, new BigDecimal("10500.00").compareTo(rows.get(0).getBalance()));
+            assertEquals(0, new BigDecimal("10200.00").compareTo(rows.get(1).getBalance()));
+            assertEquals(0, new BigDecimal("10400.00").compareTo(rows.get(2).getBalance()));
+        }
+
+        @Test
+        @DisplayName("余额不足的出账只拒绝该笔，其余照常入账")
+        void shouldRejectOnlyInsufficientDebit() {
+            // Given: 余额 10000，-8000 后剩 2000，再 -5000 不足
+            AccountBalance updated = new AccountBalance();
+            updated.setCurrencyCode("MOP");
+            updated.setBalance(new BigDecimal("3000.00"));
+            when(accountInfoRepository.findByAccountNo("ACC_001")).thenReturn(testAccountInfo);
+            when(accountBalanceRepository.findByAccountAndCurrency("ACC_001", "MOP")).thenReturn(testBalance);
+            when(accountBalanceRepository.applyDelta(eq("ACC_001"), eq("MOP"), any(BalanceDelta.class)))
+                    .thenReturn(updated);
+
+            // When
+            List<AdjustmentOutcome> outcomes = service.adjustBalanceCombined(List.of(
+                    adjustment("-8000.00", "REQ_301"), adjustment("-5000.00", "REQ_302"),
+                    adjustment("1000.00", "REQ_303")));
+
+            // Then
+            assertTrue(outcomes.get(0).isSuccess());
+            assertFalse(outcomes.get(1).isSuccess());
+            assertEquals(AccountErrorCode.BALANCE_INSUFFICIENT.getCode(),
+                    ((BusinessException) outcomes.get(1).getError()).getCode());
+            assertTrue(outcomes.get(2).isSuccess());
+
+            ArgumentCaptor<List<AccountSubLedger>> ledgers = ArgumentCaptor.forClass(List.class);
+            verify(accountSubLedgerRepository).saveAll(ledgers.capture());
+            assertEquals(2, ledgers.getValue().size());
+        }
+
+        @Test
+        @DisplayName("同批重复请求ID只记账一次")
+        void shouldSkipDuplicateRequestInBatch() {
+            // Given
+            AccountBalance updated = new AccountBalance();
+            updated.setCurrencyCode("MOP");
+            updated.setBalance(new BigDecimal("10500.00"));
+            when(accountInfoRepository.findByAccountNo("ACC_001")).thenReturn(testAccountInfo);
+            when(accountBalanceRepository.findByAccountAndCurrency("ACC_001", "MOP")).thenReturn(testBalance);
+            when(accountBalanceRepository.applyDelta(eq("ACC_001"), eq("MOP"), any(BalanceDelta.class)))
+                    .thenReturn(updated);
+
+            // When
+            List<AdjustmentOutcome> outcomes = service.adjustBalanceCombined(List.of(
+                    adjustment("500.00", "REQ_401"), adjustment("500.00", "REQ_401")));
+
+            // Then
+            assertTrue(outcomes.stream().allMatch(AdjustmentOutcome::isSuccess));
+            ArgumentCaptor<List<AccountSubLedger>> ledgers = ArgumentCaptor.forClass(List.class);
+            verify(accountSubLedgerRepository).saveAll(ledgers.capture());
+            assertEquals(1, ledgers.getValue().size());
+        }
+
+        private BalanceAdjustment adjustment(String amount, String requestId) {
+            BigDecimal value = new BigDecimal(amount);
+            return BalanceAdjustment.builder()
+                    .accountNo("ACC_001")
+                    .amount(Money.of(value, "MOP"))
+                    .bizType(value.signum() > 0 ? BizType.TRANSFER_IN : BizType.TRANSFER_OUT)
+                    .bizNo("TXN_" + requestId)
+                    .requestId(requestId)
+                    .description("合并记账")
+                    .build();
+        }
+    }
 }
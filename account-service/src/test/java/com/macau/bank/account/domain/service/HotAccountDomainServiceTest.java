@@ -0,0 +1,260 @@
+package com.macau.bank.account.domain.service;
+
+import com.macau.bank.account.common.result.AccountErrorCode;
+import com.macau.bank.account.domain.entity.AccountBalance;
+import com.macau.bank.account.domain.entity.AccountSubLedger;
+import com.macau.bank.account.domain.model.BalanceDelta;
+import com.macau.bank.account.domain.repository.AccountBalanceRepository;
+import com.macau.bank.account.domain.repository.AccountInfoRepository;
+import com.macau.bank.account.domain.repository.AccountSubLedgerRepository;
+import com.macau.bank.account.infra.config.HotAccountProperties;
+import com.macau.bank.common.core.enums.BizType;
+import com.macau.bank.common.core.enums.FlowDirection;
+import com.macau.bank.common.core.exception.BusinessException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 热点账户分片领域服务测试
+ * <p>
+ * 核心场景：
+ * 1. 入账/出账的分片路由与探测，分户账余额为各分片合计
+ * 2. 冻结落归属分片，不足时从其他分片调拨补足；解冻回到归属分片
+ * 3. 分片聚合
+ * 4. 分片再平衡，调拨记录一出一进两条分户账
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("热点账户分片领域服务测试")
+class HotAccountDomainServiceTest {
+
+    private static final String HOT_ACCOUNT = "INTERNAL_FOREX_001";
+
+    @Mock
+    private AccountBalanceRepository accountBalanceRepository;
+
+    @Mock
+    private AccountInfoRepository accountInfoRepository;
+
+    @Mock
+    private AccountSubLedgerRepository accountSubLedgerRepository;
+
+    @Spy
+    private HotAccountProperties hotAccountProperties = new HotAccountProperties();
+
+    @InjectMocks
+    private HotAccountDomainService service;
+
+    @BeforeEach
+    void setUp() {
+        hotAccountProperties.getShards().put(HOT_ACCOUNT, 4);
+    }
+
+    @Test
+    @DisplayName("未配置的账户不分片")
+    void unconfiguredAccountShouldNotBeSharded() {
+        assertTrue(service.isSharded(HOT_ACCOUNT));
+        assertFalse(service.isSharded("ACC_001"));
+        assertEquals(1, service.shardCount("ACC_001"));
+    }
+
+    @Test
+    @DisplayName("出账应从哈希分片开始依次探测，落到首个余额足够的分片")
+    void debitShouldProbeShards() {
+        // Given - 只有最后探测的分片余额足够
+        when(accountBalanceRepository.applyDelta(eq(HOT_ACCOUNT), eq("MOP"), anyInt(), any(BalanceDelta.class)))
+                .thenReturn(null, null, null, shard(2, "100.00"));
+        when(accountBalanceRepository.findShards(HOT_ACCOUNT, "MOP"))
+                .thenReturn(List.of(shard(0, "10.00"), shard(1, "20.00"), shard(2, "100.00"), shard(3, "0.00")));
+
+        // When
+        AccountBalance result = service.applyToShard(HOT_ACCOUNT, "MOP",
+                BalanceDelta.debit(new BigDecimal("50.00"), "V1"), "REQ_001");
+
+        // Then - 分户账余额快照为各分片合计
+        assertEquals(0, new BigDecimal("130.00").compareTo(result.getBalance()));
+        ArgumentCaptor<Integer> shardNos = ArgumentCaptor.forClass(Integer.class);
+        verify(accountBalanceRepository, times(4)).applyDelta(eq(HOT_ACCOUNT), eq("MOP"), shardNos.capture(),
+                any(BalanceDelta.class));
+        assertEquals(4, shardNos.getAllValues().stream().distinct().count(), "每个分片只探测一次");
+    }
+
+    @Test
+    @DisplayName("所有分片余额不足时应抛出余额不足")
+    void debitShouldFailWhenAllShardsInsufficient() {
+        when(accountBalanceRepository.applyDelta(eq(HOT_ACCOUNT), eq("MOP"), anyInt(), any(BalanceDelta.class)))
+                .thenReturn(null);
+        when(accountBalanceRepository.findByAccountAndCurrency(HOT_ACCOUNT, "MOP")).thenReturn(shard(0, "10.00"));
+
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> service.applyToShard(HOT_ACCOUNT, "MOP",
+                        BalanceDelta.debit(new BigDecimal("50.00"), "V1"), "REQ_002"));
+        assertEquals(AccountErrorCode.BALANCE_INSUFFICIENT.getCode(), exception.getCode());
+    }
+
+    @Test
+    @DisplayName("冻结应落在冻结流水号的归属分片")
+    void freezeShouldLandOnHomeShard() {
+        int home = homeShard("FLOW_001");
+        when(accountBalanceRepository.applyDelta(eq(HOT_ACCOUNT), eq("MOP"), eq(home), any(BalanceDelta.class)))
+                .thenReturn(shard(home, "100.00"));
+
+        service.freezeOnShard(HOT_ACCOUNT, "MOP", new BigDecimal("50.00"), "FLOW_001");
+
+        verify(accountBalanceRepository, times(1)).applyDelta(eq(HOT_ACCOUNT), eq("MOP"), anyInt(),
+                any(BalanceDelta.class));
+        verifyNoInteractions(accountSubLedgerRepository);
+    }
+
+    @Test
+    @DisplayName("归属分片不足而合计足够时，应从其他分片调拨补足后冻结并记录调拨分户账")
+    void freezeShouldGatherFromOtherShards() {
+        // Given - 归属分片只有 20，其他分片合计足够
+        int home = homeShard("FLOW_002");
+        int rich = (home + 1) % 4;
+        List<AccountBalance> shards = List.of(shard(0, "0.00"), shard(1, "0.00"), shard(2, "0.00"),
+                shard(3, "0.00"));
+        shards.get(home).setAvailableBalance(new BigDecimal("20.00"));
+        shards.get(rich).setAvailableBalance(new BigDecimal("500.00"));
+        when(accountBalanceRepository.findShards(HOT_ACCOUNT, "MOP")).thenReturn(shards);
+        when(accountBalanceRepository.applyDelta(eq(HOT_ACCOUNT), eq("MOP"), eq(home),
+                argThat(d -> d.getFrozenAmount().signum() > 0)))
+                .thenReturn(null, shard(home, "100.00"));
+        when(accountBalanceRepository.applyDelta(eq(HOT_ACCOUNT), eq("MOP"), anyInt(),
+                argThat(d -> d.getFrozenAmount().signum() == 0)))
+                .thenReturn(shard(rich, "470.00"));
+
+        // When
+        service.freezeOnShard(HOT_ACCOUNT, "MOP", new BigDecimal("50.00"), "FLOW_002");
+
+        // Then - 从最富余分片调拨差额 30，再冻结
+        ArgumentCaptor<BalanceDelta> moved = ArgumentCaptor.forClass(BalanceDelta.class);
+        verify(accountBalanceRepository).applyDelta(eq(HOT_ACCOUNT), eq("MOP"), eq(rich), moved.capture());
+        assertEquals(0, new BigDecimal("-30.00").compareTo(moved.getValue().getAvailableBalance()));
+        verify(accountBalanceRepository, times(2)).applyDelta(eq(HOT_ACCOUNT), eq("MOP"), eq(home),
+                argThat(d -> d.getFrozenAmount().signum() > 0));
+        List<AccountSubLedger> ledgers = transferLedgers();
+        assertEquals(List.of(FlowDirection.OUT, FlowDirection.IN),
+                ledgers.stream().map(AccountSubLedger::getCdFlag).toList());
+    }
+
+    @Test
+    @DisplayName("各分片合计可用余额不足时应拒绝冻结，不调拨")
+    void freezeShouldFailWhenTotalInsufficient() {
+        when(accountBalanceRepository.applyDelta(eq(HOT_ACCOUNT), eq("MOP"), anyInt(), any(BalanceDelta.class)))
+                .thenReturn(null);
+        when(accountBalanceRepository.findShards(HOT_ACCOUNT, "MOP"))
+                .thenReturn(List.of(shard(0, "10.00"), shard(1, "10.00"), shard(2, "10.00"), shard(3, "10.00")));
+
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> service.freezeOnShard(HOT_ACCOUNT, "MOP", new BigDecimal("50.00"), "FLOW_003"));
+
+        assertEquals(AccountErrorCode.BALANCE_INSUFFICIENT.getCode(), exception.getCode());
+        verify(accountBalanceRepository, times(1)).applyDelta(eq(HOT_ACCOUNT), eq("MOP"), anyInt(),
+                any(BalanceDelta.class));
+        verifyNoInteractions(accountSubLedgerRepository);
+    }
+
+    @Test
+    @DisplayName("解冻扣款应先作用于冻结流水号的归属分片，返回各分片合计余额")
+    void unfreezeShouldTargetHomeShard() {
+        int home = homeShard("FLOW_004");
+        when(accountBalanceRepository.applyDelta(eq(HOT_ACCOUNT), eq("MOP"), eq(home), any(BalanceDelta.class)))
+                .thenReturn(shard(home, "50.00"));
+        when(accountBalanceRepository.findShards(HOT_ACCOUNT, "MOP"))
+                .thenReturn(List.of(shard(0, "50.00"), shard(1, "50.00"), shard(2, "50.00"), shard(3, "50.00")));
+
+        AccountBalance merged = service.applyFrozenDelta(HOT_ACCOUNT, "MOP",
+                BalanceDelta.unfreezeAndDebit(new BigDecimal("50.00"), "V1"), "FLOW_004",
+                AccountErrorCode.FROZEN_BALANCE_NOT_ENOUGH);
+
+        assertEquals(0, new BigDecimal("200.00").compareTo(merged.getBalance()));
+        verify(accountBalanceRepository, times(1)).applyDelta(eq(HOT_ACCOUNT), eq("MOP"), anyInt(),
+                any(BalanceDelta.class));
+    }
+
+    @Test
+    @DisplayName("同一账户币种的分片应聚合为一条，非分片行原样返回")
+    void mergeShardsShouldAggregate() {
+        AccountBalance normal = shard(0, "500.00");
+        normal.setAccountNo("ACC_001");
+
+        List<AccountBalance> merged = service.mergeShards(
+                List.of(shard(0, "100.00"), shard(1, "200.00"), shard(2, "300.00"), normal));
+
+        assertEquals(2, merged.size());
+        assertEquals(0, new BigDecimal("600.00").compareTo(merged.get(0).getBalance()));
+        assertEquals(0, new BigDecimal("600.00").compareTo(merged.get(0).getAvailableBalance()));
+        assertNull(merged.get(0).getId(), "聚合视图不可回写");
+        assertSame(normal, merged.get(1));
+    }
+
+    @Test
+    @DisplayName("低水位分片应从最富余分片调拨补足到平均值")
+    void rebalanceShouldMoveFundsToLowShard() {
+        // Given - 平均 250，分片1 为 0 低于水位
+        when(accountBalanceRepository.findShards(HOT_ACCOUNT, "MOP"))
+                .thenReturn(List.of(shard(0, "700.00"), shard(1, "0.00"), shard(2, "150.00"), shard(3, "150.00")));
+        when(accountBalanceRepository.applyDelta(eq(HOT_ACCOUNT), eq("MOP"), eq(0), any(BalanceDelta.class)))
+                .thenReturn(shard(0, "450.00"));
+        when(accountBalanceRepository.applyDelta(eq(HOT_ACCOUNT), eq("MOP"), eq(1), any(BalanceDelta.class)))
+                .thenReturn(shard(1, "250.00"));
+
+        // When
+        int moves = service.rebalance(HOT_ACCOUNT, "MOP");
+
+        // Then
+        assertEquals(1, moves);
+        ArgumentCaptor<BalanceDelta> captor = ArgumentCaptor.forClass(BalanceDelta.class);
+        verify(accountBalanceRepository).applyDelta(eq(HOT_ACCOUNT), eq("MOP"), eq(1), captor.capture());
+        assertEquals(0, new BigDecimal("250.00").compareTo(captor.getValue().getBalance()));
+        assertEquals(0, BigDecimal.ZERO.compareTo(captor.getValue().getTotalIncome()), "调拨不计入累计收入");
+
+        List<AccountSubLedger> ledgers = transferLedgers();
+        assertEquals(2, ledgers.size());
+        assertEquals(ledgers.get(0).getBiz_no(), ledgers.get(1).getBiz_no());
+        assertNotEquals(ledgers.get(0).getRequestId(), ledgers.get(1).getRequestId());
+        assertEquals(0, new BigDecimal("1000.00").compareTo(ledgers.get(0).getBalance()), "余额为各分片合计");
+        assertEquals(0, new BigDecimal("250.00").compareTo(ledgers.get(1).getAmount()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<AccountSubLedger> transferLedgers() {
+        ArgumentCaptor<List<AccountSubLedger>> captor = ArgumentCaptor.forClass(List.class);
+        verify(accountSubLedgerRepository).saveAll(captor.capture());
+        List<AccountSubLedger> ledgers = captor.getValue();
+        assertTrue(ledgers.stream().allMatch(l -> l.getBizType() == BizType.SHARD_TRANSFER));
+        return ledgers;
+    }
+
+    private static int homeShard(String flowNo) {
+        return Math.floorMod(flowNo.hashCode(), 4);
+    }
+
+    private AccountBalance shard(int shardNo, String amount) {
+        AccountBalance balance = new AccountBalance();
+        balance.setId((long) shardNo + 1);
+        balance.setAccountNo(HOT_ACCOUNT);
+        balance.setCurrencyCode("MOP");
+        balance.setShardNo(shardNo);
+        balance.setBalance(new BigDecimal(amount));
+        balance.setAvailableBalance(new BigDecimal(amount));
+        balance.setFrozenAmount(BigDecimal.ZERO);
+        balance.setTotalIncome(BigDecimal.ZERO);
+        balance.setTotalOutcome(BigDecimal.ZERO);
+        return balance;
+    }
+}
@@ -0,0 +1,208 @@
+package com.macau.bank.account.infra.job;
+
+import com.macau.bank.account.application.command.UnfreezeBalanceCmd;
+import com.macau.bank.account.application.service.AccountAppService;
+import com.macau.bank.account.domain.entity.AccountFreezeLog;
+import com.macau.bank.account.domain.model.DeadFreezeLogScan;
+import com.macau.bank.account.domain.repository.AccountFreezeLogRepository;
+import com.macau.bank.account.infra.config.TccCompensationProperties;
+import com.xxl.job.core.context.XxlJobContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+/**
+ * TCC 悬挂冻结补偿任务测试
+ * <p>
+ * 核心场景：
+ * 1. 多批连续捞取，游标推进到上一批最后一条
+ * 2. 同一账户按捞取顺序解冻
+ * 3. 分片广播下 HASH / RANGE 两种划分
+ * 4. 解冻失败计数且不中断整批
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("TCC 悬挂冻结补偿任务测试")
+class TccCompensationJobTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.now().minusHours(2);
+
+    @Mock
+    private AccountAppService accountAppService;
+
+    @Mock
+    private AccountFreezeLogRepository freezeLogRepository;
+
+    @Spy
+    private TccCompensationProperties tccCompensationProperties = new TccCompensationProperties();
+
+    @InjectMocks
+    private TccCompensationJob job;
+
+    @BeforeEach
+    void setUp() {
+        tccCompensationProperties.setBatchSize(2);
+        tccCompensationProperties.setParallelism(4);
+        job.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        job.stop();
+        XxlJobContext.setXxlJobContext(null);
+    }
+
+    @Test
+    @DisplayName("多批捞取：游标推进到上一批最后一条，不足一批时结束")
+    void shouldDrainInBatchesAndAdvanceCursor() {
+        // Given: 两批满批 + 一批不足
+        List<DeadFreezeLogScan> scans = new ArrayList<>();
+        when(freezeLogRepository.findDeadLogs(any(), eq(2))).thenAnswer(inv -> {
+            scans.add(inv.getArgument(0));
+            return switch (scans.size()) {
+                case 1 -> List.of(freezeLog(1L, "ACC_1", 0), freezeLog(2L, "ACC_2", 1));
+                case 2 -> List.of(freezeLog(3L, "ACC_3", 1), freezeLog(4L, "ACC_4", 2));
+                default -> List.of(freezeLog(5L, "ACC_5", 3));
+            };
+        });
+
+        // When
+        job.tccFreezeCompensationJob();
+
+        // Then
+        assertEquals(3, scans.size());
+        assertNull(scans.get(0).getCursorId());
+        assertEquals(2L, scans.get(1).getCursorId());
+        assertEquals(T0.plusSeconds(1), scans.get(1).getCursorTime());
+        assertEquals(4L, scans.get(2).getCursorId());
+        assertEquals(T0.plusSeconds(2), scans.get(2).getCursorTime());
+        assertEquals(0, scans.get(2).getHashTotal());
+        verify(accountAppService, times(5)).unfreezeBalance(any());
+
+        TccCompensationJob.CompensationMetrics metrics = job.metrics();
+        assertEquals(1, metrics.runs());
+        assertEquals(5, metrics.scanned());
+        assertEquals(5, metrics.compensated());
+        assertEquals(0, metrics.failed());
+        assertTrue(metrics.oldestLagSeconds() >= 7200 - 5);
+    }
+
+    @Test
+    @DisplayName("同一账户的解冻按捞取顺序串行执行")
+    void shouldKeepOrderPerAccount() {
+        tccCompensationProperties.setBatchSize(50);
+        List<AccountFreezeLog> batch = new ArrayList<>();
+        for (long i = 0; i < 40; i++) {
+            batch.add(freezeLog(i, "ACC_" + (i % 3), (int) i));
+        }
+        when(freezeLogRepository.findDeadLogs(any(), eq(50))).thenReturn(batch);
+        Map<String, List<String>> executed = new ConcurrentHashMap<>();
+        when(accountAppService.unfreezeBalance(any())).thenAnswer(inv -> {
+            UnfreezeBalanceCmd cmd = inv.getArgument(0);
+            executed.computeIfAbsent(cmd.getAccountNo(), k -> Collections.synchronizedList(new ArrayList<>()))
+                    .add(cmd.getFlowNo());
+            return true;
+        });
+
+        job.tccFreezeCompensationJob();
+
+        for (String accountNo : List.of("ACC_0", "ACC_1", "ACC_2")) {
+            List<String> expected = batch.stream().filter(l -> l.getAccountNo().equals(accountNo))
+                    .map(AccountFreezeLog::getFlowNo).toList();
+            assertEquals(expected, executed.get(accountNo));
+        }
+    }
+
+    @Test
+    @DisplayName("分片广播 HASH：扫描条件携带分片序号与总数")
+    void hashPartitionShouldScanOwnShard() {
+        XxlJobContext.setXxlJobContext(new XxlJobContext(1L, null, null, 2, 3));
+        ArgumentCaptor<DeadFreezeLogScan> captor = ArgumentCaptor.forClass(DeadFreezeLogScan.class);
+        when(freezeLogRepository.findDeadLogs(captor.capture(), anyInt())).thenReturn(List.of());
+
+        job.tccFreezeCompensationJob();
+
+        DeadFreezeLogScan scan = captor.getValue();
+        assertEquals(3, scan.getHashTotal());
+        assertEquals(2, scan.getHashIndex());
+        assertNull(scan.getFromId());
+        verify(freezeLogRepository, never()).findDeadLogIdRange(any());
+        assertEquals(0, job.metrics().oldestLagSeconds());
+    }
+
+    @Test
+    @DisplayName("分片广播 RANGE：按主键区间均分，区间为空的分片直接结束")
+    void rangePartitionShouldSplitIdRange() {
+        tccCompensationProperties.setPartition(TccCompensationProperties.Partition.RANGE);
+        when(freezeLogRepository.findDeadLogIdRange(any())).thenReturn(new DeadFreezeLogScan.IdRange(101L, 110L));
+        ArgumentCaptor<DeadFreezeLogScan> captor = ArgumentCaptor.forClass(DeadFreezeLogScan.class);
+        when(freezeLogRepository.findDeadLogs(captor.capture(), anyInt())).thenReturn(List.of());
+
+        // 10 个 id 分 3 片：[101,104] [105,108] [109,110]
+        XxlJobContext.setXxlJobContext(new XxlJobContext(1L, null, null, 2, 3));
+        job.tccFreezeCompensationJob();
+
+        DeadFreezeLogScan scan = captor.getValue();
+        assertEquals(109L, scan.getFromId());
+        assertEquals(110L, scan.getToId());
+        assertEquals(0, scan.getHashTotal());
+
+        // 2 个 id 分 3 片：第 3 片无数据，不再捞取
+        when(freezeLogRepository.findDeadLogIdRange(any())).thenReturn(new DeadFreezeLogScan.IdRange(101L, 102L));
+        job.tccFreezeCompensationJob();
+        verify(freezeLogRepository, times(1)).findDeadLogs(any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("解冻失败计数，不影响同批其余记录")
+    void failureShouldBeCountedAndNotAbortBatch() {
+        when(freezeLogRepository.findDeadLogs(any(), eq(2)))
+                .thenReturn(List.of(freezeLog(1L, "ACC_1", 0), freezeLog(2L, "ACC_2", 1)))
+                .thenReturn(List.of());
+        when(accountAppService.unfreezeBalance(any())).thenAnswer(inv -> {
+            UnfreezeBalanceCmd cmd = inv.getArgument(0);
+            if ("FLOW_1".equals(cmd.getFlowNo())) {
+                throw new IllegalStateException("db down");
+            }
+            return true;
+        });
+
+        job.tccFreezeCompensationJob();
+
+        TccCompensationJob.CompensationMetrics metrics = job.metrics();
+        assertEquals(2, metrics.scanned());
+        assertEquals(1, metrics.compensated());
+        assertEquals(1, metrics.failed());
+        verify(freezeLogRepository, times(2)).findDeadLogs(any(), eq(2));
+    }
+
+    private AccountFreezeLog freezeLog(Long id, String accountNo, int offsetSeconds) {
+        AccountFreezeLog log = new AccountFreezeLog();
+        log.setId(id);
+        log.setFlowNo("FLOW_" + id);
+        log.setAccountNo(accountNo);
+        log.setCurrencyCode("MOP");
+        log.setAmount(new BigDecimal("10.00"));
+        log.setCreateTime(T0.plusSeconds(offsetSeconds));
+        return log;
+    }
+}
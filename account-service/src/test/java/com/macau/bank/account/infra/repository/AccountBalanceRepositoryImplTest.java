@@ -0,0 +1,183 @@
+package com.macau.bank.account.infra.repository;
+
+import com.macau.bank.account.domain.entity.AccountBalance;
+import com.macau.bank.account.domain.model.UserAccountView;
+import com.macau.bank.account.infra.converter.AccountBalanceConverter;
+import com.macau.bank.account.infra.converter.AccountBalanceConverterImpl;
+import com.macau.bank.account.infra.converter.AccountInfoConverter;
+import com.macau.bank.account.infra.converter.AccountInfoConverterImpl;
+import com.macau.bank.account.infra.mapper.AccountBalanceMapper;
+import com.macau.bank.account.infra.mapper.AccountInfoMapper;
+import com.macau.bank.account.infra.persistent.po.AccountBalancePO;
+import com.macau.bank.account.infra.persistent.po.AccountInfoPO;
+import com.macau.bank.account.infra.persistent.po.UserAccountPO;
+import com.macau.bank.account.infra.util.AccountSecurityUtil;
+import com.macau.bank.common.core.exception.FatalSystemException;
+import io.seata.core.context.RootContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 账户余额仓储查询次数测试
+ * <p>
+ * 核心场景：
+ * 1. 用户账户读模型：账户与余额一次联表查询
+ * 2. 读缓存开启时：账户主档一次查询，余额行走缓存
+ * 3. 按用户与币种定位账户：一次联表查询
+ * 4. Seata 全局事务内写入只删除读缓存
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("账户余额仓储查询次数测试")
+class AccountBalanceRepositoryImplTest {
+
+    @Mock
+    private AccountBalanceMapper accountBalanceMapper;
+
+    @Mock
+    private AccountInfoMapper accountInfoMapper;
+
+    @Mock
+    private BalanceReadCache balanceReadCache;
+
+    @Spy
+    private AccountBalanceConverter accountBalanceConverter = new AccountBalanceConverterImpl();
+
+    @Spy
+    private AccountInfoConverter accountInfoConverter = new AccountInfoConverterImpl();
+
+    @InjectMocks
+    private AccountBalanceRepositoryImpl repository;
+
+    private final AccountSecurityUtil accountSecurityUtil = new AccountSecurityUtil();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(accountSecurityUtil, "salt", "TestSalt");
+        accountSecurityUtil.init();
+        ReflectionTestUtils.setField(repository, "accountSecurityUtil", accountSecurityUtil);
+    }
+
+    @Test
+    @DisplayName("用户账户读模型应以一次联表查询返回账户与余额")
+    void userAccountViewShouldUseSingleJoinedQuery() {
+        // Given: 两个账户，其中一个尚无余额行
+        UserAccountPO first = account(1L, "ACC_001");
+        first.getBalances().add(balance(11L, "ACC_001", "MOP", "100.00"));
+        first.getBalances().add(balance(12L, "ACC_001", "USD", "20.00"));
+        UserAccountPO second = account(2L, "ACC_002");
+        when(accountBalanceMapper.selectUserAccounts("USER_001")).thenReturn(List.of(first, second));
+
+        // When
+        UserAccountView view = repository.findUserAccountView("USER_001");
+
+        // Then
+        assertEquals(2, view.getAccounts().size());
+        assertEquals(2, view.getBalances().size());
+        assertEquals("USER_001", view.getAccounts().get(1).getUserNo());
+        verify(accountBalanceMapper, times(1)).selectUserAccounts("USER_001");
+        verifyNoMoreInteractions(accountBalanceMapper);
+        verifyNoInteractions(accountInfoMapper);
+    }
+
+    @Test
+    @DisplayName("联表查询出的余额行同样校验 HMAC")
+    void userAccountViewShouldVerifyMac() {
+        UserAccountPO account = account(1L, "ACC_001");
+        AccountBalancePO tampered = balance(11L, "ACC_001", "MOP", "100.00");
+        tampered.setBalance(new BigDecimal("999999.00"));
+        account.getBalances().add(tampered);
+        when(accountBalanceMapper.selectUserAccounts("USER_001")).thenReturn(List.of(account));
+
+        assertThrows(FatalSystemException.class, () -> repository.findUserAccountView("USER_001"));
+    }
+
+    @Test
+    @DisplayName("读缓存开启时账户主档只查询一次，余额行不访问数据库")
+    void userAccountViewShouldReadBalancesFromCache() {
+        // Given
+        when(balanceReadCache.isEnabled()).thenReturn(true);
+        when(accountInfoMapper.selectList(any())).thenReturn(List.of(account(1L, "ACC_001"), account(2L, "ACC_002")));
+        AccountBalance cached = new AccountBalance();
+        cached.setAccountNo("ACC_001");
+        cached.setCurrencyCode("MOP");
+        when(balanceReadCache.getByAccountNos(eq(List.of("ACC_001", "ACC_002")), any())).thenReturn(List.of(cached));
+
+        // When
+        UserAccountView view = repository.findUserAccountView("USER_001");
+
+        // Then
+        assertEquals(2, view.getAccounts().size());
+        assertEquals(List.of(cached), view.getBalances());
+        verify(accountInfoMapper, times(1)).selectList(any());
+        verifyNoInteractions(accountBalanceMapper);
+    }
+
+    @Test
+    @DisplayName("按用户与币种定位账户应为一次联表查询")
+    void findUserBalanceShouldUseSingleJoinedQuery() {
+        when(accountBalanceMapper.findUserBalance("USER_001", "USD"))
+                .thenReturn(balance(12L, "ACC_001", "USD", "20.00"));
+
+        AccountBalance balance = repository.findUserBalance("USER_001", "USD");
+
+        assertEquals("ACC_001", balance.getAccountNo());
+        verify(accountBalanceMapper, times(1)).findUserBalance("USER_001", "USD");
+        verifyNoMoreInteractions(accountBalanceMapper);
+        verifyNoInteractions(accountInfoMapper);
+    }
+
+    @Test
+    @DisplayName("Seata 全局事务内的余额更新只删除读缓存，不回填可能被全局回滚的后像")
+    void globalTransactionWriteShouldEvictCache() {
+        when(balanceReadCache.isEnabled()).thenReturn(true);
+        when(accountBalanceMapper.updateOptimistic(any())).thenReturn(1);
+        AccountBalance entity = accountBalanceConverter.toEntity(balance(11L, "ACC_001", "MOP", "80.00"));
+
+        RootContext.bind("xid-test");
+        try {
+            repository.save(entity);
+        } finally {
+            RootContext.unbind();
+        }
+        repository.save(entity);
+
+        verify(balanceReadCache).evict("ACC_001", "MOP");
+        verify(balanceReadCache, times(1)).put(any());
+        assertEquals(5, entity.getVersion());
+    }
+
+    private UserAccountPO account(Long id, String accountNo) {
+        UserAccountPO po = new UserAccountPO();
+        po.setId(id);
+        po.setUserNo("USER_001");
+        po.setAccountNo(accountNo);
+        return po;
+    }
+
+    private AccountBalancePO balance(Long id, String accountNo, String currencyCode, String amount) {
+        AccountBalancePO po = new AccountBalancePO();
+        po.setId(id);
+        po.setAccountNo(accountNo);
+        po.setCurrencyCode(currencyCode);
+        po.setShardNo(0);
+        po.setBalance(new BigDecimal(amount));
+        po.setAvailableBalance(new BigDecimal(amount));
+        po.setVersion(3);
+        po.setMacCode(accountSecurityUtil.calculateMac(po.getBalance(), 3));
+        return po;
+    }
+}
@@ -0,0 +1,202 @@
+package com.macau.bank.account.infra.repository;
+
+import cn.hutool.json.JSONUtil;
+import com.macau.bank.account.domain.entity.AccountBalance;
+import com.macau.bank.account.infra.config.BalanceCacheProperties;
+import com.macau.bank.account.infra.util.AccountSecurityUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * 余额读缓存测试
+ * <p>
+ * 核心场景：
+ * 1. 未命中回表并回填，再次查询命中本地缓存
+ * 2. 旧 version 不覆盖新 version
+ * 3. Redis 中 HMAC 不匹配的缓存项被删除并回表
+ * 4. 按账号批量查询合并回表
+ * 5. 抽样比对发现陈旧读
+ * 6. 同一 version 不同 MAC、缓存领先于数据库 (Seata 全局回滚) 时删除或纠正缓存项
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("余额读缓存测试")
+class BalanceReadCacheTest {
+
+    @Spy
+    private BalanceCacheProperties balanceCacheProperties = new BalanceCacheProperties();
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    @InjectMocks
+    private BalanceReadCache cache;
+
+    private final AccountSecurityUtil accountSecurityUtil = new AccountSecurityUtil();
+
+    private final AtomicInteger dbCalls = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(accountSecurityUtil, "salt", "TestSalt");
+        accountSecurityUtil.init();
+        ReflectionTestUtils.setField(cache, "accountSecurityUtil", accountSecurityUtil);
+
+        balanceCacheProperties.setEnabled(true);
+        balanceCacheProperties.setLocalTtlMillis(60_000);
+        balanceCacheProperties.setVerifySampleRate(0);
+        cache.init();
+
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.multiGet(anyList())).thenAnswer(inv -> Arrays.asList(
+                new String[((List<?>) inv.getArgument(0)).size()]));
+    }
+
+    @Test
+    @DisplayName("未命中应回表并回填，再次查询命中本地缓存")
+    void missShouldLoadOnceThenHitLocal() {
+        AccountBalance first = cache.get("ACC_001", "MOP", (a, c) -> load(balance(a, c, "100.00", 1)));
+        AccountBalance second = cache.get("ACC_001", "MOP", (a, c) -> load(balance(a, c, "100.00", 1)));
+
+        assertEquals(1, dbCalls.get());
+        assertEquals(new BigDecimal("100.00"), second.getBalance());
+        assertNotSame(first, second);
+        assertEquals(1, cache.metrics().localHits());
+        assertEquals(1, cache.metrics().misses());
+        assertEquals(0.5D, cache.metrics().hitRatio());
+    }
+
+    @Test
+    @DisplayName("旧 version 回填不应覆盖已提交的新 version")
+    void olderVersionShouldNotOverwriteNewer() {
+        cache.put(balance("ACC_001", "MOP", "300.00", 5));
+        cache.put(balance("ACC_001", "MOP", "200.00", 4));
+
+        AccountBalance cached = cache.get("ACC_001", "MOP", (a, c) -> load(null));
+
+        assertEquals(0, dbCalls.get());
+        assertEquals(5, cached.getVersion());
+        assertEquals(new BigDecimal("300.00"), cached.getBalance());
+    }
+
+    @Test
+    @DisplayName("Redis 中 HMAC 不匹配的缓存项应删除并回表")
+    void tamperedRedisEntryShouldBeRejected() {
+        AccountBalance tampered = balance("ACC_001", "MOP", "100.00", 1);
+        tampered.setBalance(new BigDecimal("999999.00"));
+        String value = "1|" + tampered.getMacCode() + "|" + JSONUtil.toJsonStr(tampered);
+        when(valueOperations.multiGet(List.of("account:balance:row:ACC_001:MOP"))).thenReturn(List.of(value));
+
+        AccountBalance result = cache.get("ACC_001", "MOP", (a, c) -> load(balance(a, c, "100.00", 1)));
+
+        assertEquals(new BigDecimal("100.00"), result.getBalance());
+        assertEquals(1, dbCalls.get());
+        assertEquals(1, cache.metrics().macRejects());
+        verify(stringRedisTemplate).delete("account:balance:row:ACC_001:MOP");
+    }
+
+    @Test
+    @DisplayName("按账号批量查询：未命中账号合并为一次回表，之后命中本地缓存")
+    void batchLookupShouldLoadMissingAccountsOnce() {
+        List<List<String>> loadedAccounts = new ArrayList<>();
+        List<String> accountNos = List.of("ACC_001", "ACC_002");
+
+        List<AccountBalance> first = cache.getByAccountNos(accountNos, accounts -> {
+            loadedAccounts.add(accounts);
+            return List.of(balance("ACC_001", "MOP", "100.00", 1), balance("ACC_001", "USD", "10.00", 1),
+                    balance("ACC_002", "MOP", "50.00", 2));
+        });
+        List<AccountBalance> second = cache.getByAccountNos(accountNos, accounts -> {
+            loadedAccounts.add(accounts);
+            return List.of();
+        });
+
+        assertEquals(List.of(accountNos), loadedAccounts);
+        assertEquals(3, first.size());
+        assertEquals(3, second.size());
+        assertEquals(2, cache.metrics().localHits());
+    }
+
+    @Test
+    @DisplayName("抽样比对发现缓存落后时应返回数据库值并记录陈旧读")
+    void sampledCheckShouldDetectStaleEntry() {
+        balanceCacheProperties.setVerifySampleRate(1);
+        cache.put(balance("ACC_001", "MOP", "100.00", 1));
+
+        AccountBalance result = cache.get("ACC_001", "MOP", (a, c) -> load(balance(a, c, "80.00", 3)));
+
+        assertEquals(3, result.getVersion());
+        assertEquals(1, cache.metrics().staleReads());
+        assertEquals(2, cache.metrics().maxVersionLag());
+        assertEquals(3, cache.get("ACC_001", "MOP", (a, c) -> load(balance(a, c, "80.00", 3))).getVersion());
+    }
+
+    @Test
+    @DisplayName("同一 version 出现不同 MAC 时应删除缓存项，下次查询回表")
+    void sameVersionWithDifferentMacShouldEvict() {
+        cache.put(balance("ACC_001", "MOP", "100.00", 2));
+        cache.put(balance("ACC_001", "MOP", "80.00", 2));
+
+        AccountBalance result = cache.get("ACC_001", "MOP", (a, c) -> load(balance(a, c, "80.00", 2)));
+
+        assertEquals(1, dbCalls.get());
+        assertEquals(new BigDecimal("80.00"), result.getBalance());
+    }
+
+    @Test
+    @DisplayName("抽样比对发现缓存领先于数据库 (全局回滚) 时应纠正缓存")
+    void sampledCheckShouldCorrectRolledBackEntry() {
+        balanceCacheProperties.setVerifySampleRate(1);
+        cache.put(balance("ACC_001", "MOP", "50.00", 4));
+
+        AccountBalance result = cache.get("ACC_001", "MOP", (a, c) -> load(balance(a, c, "100.00", 3)));
+
+        assertEquals(3, result.getVersion());
+        assertEquals(1, cache.metrics().staleReads());
+        balanceCacheProperties.setVerifySampleRate(0);
+        assertEquals(new BigDecimal("100.00"),
+                cache.get("ACC_001", "MOP", (a, c) -> load(null)).getBalance());
+    }
+
+    private AccountBalance load(AccountBalance balance) {
+        dbCalls.incrementAndGet();
+        return balance;
+    }
+
+    private AccountBalance balance(String accountNo, String currencyCode, String amount, int version) {
+        AccountBalance balance = new AccountBalance();
+        balance.setId((long) (accountNo + currencyCode).hashCode());
+        balance.setAccountNo(accountNo);
+        balance.setCurrencyCode(currencyCode);
+        balance.setShardNo(0);
+        balance.setBalance(new BigDecimal(amount));
+        balance.setAvailableBalance(new BigDecimal(amount));
+        balance.setVersion(version);
+        balance.setMacCode(accountSecurityUtil.calculateMac(balance.getBalance(), version));
+        return balance;
+    }
+}
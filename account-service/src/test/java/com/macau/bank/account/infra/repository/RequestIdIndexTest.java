@@ -0,0 +1,125 @@
+package com.macau.bank.account.infra.repository;
+
+import com.macau.bank.account.domain.entity.AccountSubLedger;
+import com.macau.bank.account.infra.config.RequestIdIndexProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 幂等请求ID索引测试
+ * <p>
+ * 核心场景：
+ * 1. 未见过的请求ID不回表
+ * 2. 已提交的请求ID命中缓存，唯一键冲突标记后回表
+ * 3. 布隆过滤器轮换后上一代仍可查
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("幂等请求ID索引测试")
+class RequestIdIndexTest {
+
+    @Spy
+    private RequestIdIndexProperties requestIdIndexProperties = new RequestIdIndexProperties();
+
+    @InjectMocks
+    private RequestIdIndex index;
+
+    private final AtomicInteger dbCalls = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        requestIdIndexProperties.setEnabled(true);
+        requestIdIndexProperties.setExpectedInsertions(1000);
+        requestIdIndexProperties.setRecentCacheSize(2);
+        index.init();
+    }
+
+    @Test
+    @DisplayName("未见过的请求ID应直接判定不存在，不访问数据库")
+    void unseenRequestShouldSkipDatabase() {
+        for (int i = 0; i < 100; i++) {
+            assertNull(index.lookup("REQ_" + i, loader(null)));
+        }
+
+        assertEquals(0, dbCalls.get());
+        assertEquals(100, index.metrics().bloomNegatives());
+        assertEquals(1D, index.metrics().savedRatio());
+    }
+
+    @Test
+    @DisplayName("已提交的请求ID应命中缓存，缓存淘汰后经布隆过滤器回表")
+    void committedRequestShouldBeFound() {
+        // Given
+        AccountSubLedger first = ledger("REQ_001");
+        index.recordCommitted(first);
+        index.recordCommitted(ledger("REQ_002"));
+        index.recordCommitted(ledger("REQ_003"));
+
+        // When - REQ_001 已被容量为 2 的缓存淘汰
+        AccountSubLedger reloaded = index.lookup("REQ_001", loader(first));
+        AccountSubLedger cached = index.lookup("REQ_003", loader(null));
+
+        // Then
+        assertSame(first, reloaded);
+        assertNotNull(cached);
+        assertEquals(1, dbCalls.get());
+        assertEquals(1, index.metrics().cacheHits());
+    }
+
+    @Test
+    @DisplayName("唯一键冲突标记后应回表查询")
+    void markSeenShouldForceDatabaseLookup() {
+        AccountSubLedger existing = ledger("REQ_OTHER_NODE");
+        assertNull(index.lookup("REQ_OTHER_NODE", loader(existing)));
+
+        index.markSeen("REQ_OTHER_NODE");
+
+        assertSame(existing, index.lookup("REQ_OTHER_NODE", loader(existing)));
+        assertEquals(1, dbCalls.get());
+        assertEquals(1, index.metrics().duplicateKeyFallbacks());
+    }
+
+    @Test
+    @DisplayName("轮换后上一代布隆过滤器中的请求ID仍可查")
+    void rotationShouldKeepPreviousGeneration() {
+        // Given - 写满一代触发轮换
+        requestIdIndexProperties.setRecentCacheSize(1);
+        index.init();
+        for (int i = 0; i <= 1000; i++) {
+            index.markSeen("REQ_" + i);
+        }
+
+        // When
+        AccountSubLedger existing = ledger("REQ_0");
+        AccountSubLedger found = index.lookup("REQ_0", loader(existing));
+
+        // Then
+        assertSame(existing, found);
+        assertEquals(1, dbCalls.get());
+    }
+
+    private Function<String, AccountSubLedger> loader(AccountSubLedger result) {
+        return requestId -> {
+            dbCalls.incrementAndGet();
+            return result;
+        };
+    }
+
+    private AccountSubLedger ledger(String requestId) {
+        AccountSubLedger subLedger = new AccountSubLedger();
+        subLedger.setRequestId(requestId);
+        subLedger.setAmount(new BigDecimal("100.00"));
+        subLedger.setCurrencyCode("MOP");
+        return subLedger;
+    }
+}
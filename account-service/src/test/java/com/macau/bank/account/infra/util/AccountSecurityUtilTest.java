@@ -0,0 +1,132 @@
+package com.macau.bank.account.infra.util;
+
+import cn.hutool.crypto.SecureUtil;
+import cn.hutool.crypto.digest.HmacAlgorithm;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 余额 HMAC 测试
+ * <p>
+ * 核心场景：
+ * 1. 新实现与原 Hutool 实现的签名结果逐字节一致 (存量 mac_code 无需重算)
+ * 2. 已校验缓存不会放过被篡改的余额
+ * 3. 校验吞吐对比 (-Dbenchmark=true 开启)
+ */
+@DisplayName("余额 HMAC 测试")
+@Slf4j
+class AccountSecurityUtilTest {
+
+    private static final String SALT = "MacauBankDefaultSalt2025";
+
+    private AccountSecurityUtil util;
+
+    @BeforeEach
+    void setUp() {
+        util = new AccountSecurityUtil();
+        ReflectionTestUtils.setField(util, "salt", SALT);
+        util.init();
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "0, 0",
+            "0.00, 1",
+            "100, 7",
+            "1234.5, 12",
+            "1234.565, 3",
+            "-0.50, 2",
+            "-99999.99, 2147483647",
+            "9999999999999999.99, 100",
+            "123456789012345678901234.56, 5"
+    })
+    @DisplayName("签名结果应与原实现一致")
+    void shouldMatchLegacyMac(String balance, int version) {
+        BigDecimal amount = new BigDecimal(balance);
+
+        String mac = util.calculateMac(amount, version);
+
+        assertEquals(legacyMac(amount, version), mac);
+        assertTrue(util.verify(amount, version, mac));
+    }
+
+    @Test
+    @DisplayName("余额、版本或校验码不一致时校验失败")
+    void shouldRejectTamperedValues() {
+        BigDecimal balance = new BigDecimal("1000.00");
+        String mac = util.calculateMac(balance, 3);
+
+        assertFalse(util.verify(new BigDecimal("1000.01"), 3, mac));
+        assertFalse(util.verify(balance, 4, mac));
+        assertFalse(util.verify(balance, 3, mac.toUpperCase()));
+        assertFalse(util.verify(balance, 3, mac.substring(1)));
+        assertFalse(util.verify(balance, 3, null));
+    }
+
+    @Test
+    @DisplayName("已校验缓存命中后，篡改余额仍应校验失败")
+    void cacheShouldNotHideTampering() {
+        BigDecimal balance = new BigDecimal("1000.00");
+        String mac = util.calculateMac(balance, 3);
+        assertTrue(util.verify(1L, balance, 3, mac));
+        assertTrue(util.verify(1L, balance, 3, mac));
+
+        assertFalse(util.verify(1L, new BigDecimal("9000.00"), 3, mac));
+        assertFalse(util.verify(1L, balance, 3, util.calculateMac(balance, 4)));
+        assertTrue(util.verify(1L, balance, 3, mac));
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    @DisplayName("校验吞吐对比：原实现 vs 新实现 vs 已校验缓存")
+    void benchmarkVerify() {
+        BigDecimal balance = new BigDecimal("123456.78");
+        String mac = util.calculateMac(balance, 42);
+
+        long legacy = throughput(() -> legacyMac(balance, 42).equals(mac));
+        long reusable = throughput(() -> util.verify(balance, 42, mac));
+        long cached = throughput(() -> util.verify(1L, balance, 42, mac));
+
+        log.info("HMAC verify ops/s: legacy={}, reusable={}, cached={}", legacy, reusable, cached);
+        assertTrue(reusable > legacy);
+    }
+
+    private long throughput(BooleanSupplier op) {
+        // 预热
+        long warmupEnd = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (System.nanoTime() < warmupEnd) {
+            assertTrue(op.getAsBoolean());
+        }
+        long ops = 0;
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(3);
+        while (System.nanoTime() < end) {
+            for (int i = 0; i < 1000; i++) {
+                assertTrue(op.getAsBoolean());
+            }
+            ops += 1000;
+        }
+        return ops * TimeUnit.SECONDS.toNanos(1) / (System.nanoTime() - start);
+    }
+
+    /**
+     * 重构前的实现
+     */
+    private String legacyMac(BigDecimal balance, Integer version) {
+        String content = balance.setScale(2, RoundingMode.HALF_UP).toString() + "::" + version;
+        return SecureUtil.hmac(HmacAlgorithm.HmacSHA256, SALT.getBytes()).digestHex(content);
+    }
+}
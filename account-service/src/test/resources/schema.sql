@@ -20,6 +20,7 @@ CREATE TABLE IF NOT EXISTS account_balance (
     id BIGINT AUTO_INCREMENT PRIMARY KEY,
     account_no VARCHAR(32) NOT NULL,
     currency_code VARCHAR(8) NOT NULL,
+    shard_no INT NOT NULL DEFAULT 0,
     balance DECIMAL(18, 2) DEFAULT 0,
     available_balance DECIMAL(18, 2) DEFAULT 0,
     frozen_amount DECIMAL(18, 2) DEFAULT 0,
@@ -30,7 +31,7 @@ CREATE TABLE IF NOT EXISTS account_balance (
     mac_code VARCHAR(128),
     create_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     update_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    UNIQUE (account_no, currency_code)
+    UNIQUE (account_no, currency_code, shard_no)
 );
 
 -- 分户账表
@@ -0,0 +1,57 @@
+package com.macau.bank.api.account.request;
+
+import com.macau.bank.common.core.enums.BalanceOpType;
+import com.macau.bank.common.core.enums.BizType;
+import com.macau.bank.common.core.enums.FreezeType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/**
+ * 批量记账单条分录 RPC 请求
+ * <p>
+ * 字段含义与对应的单笔请求一致：
+ * DEBIT/CREDIT 使用 bizNo、requestId、bizType；FREEZE/UNFREEZE 使用 flowNo、freezeType；
+ * UNFREEZE_AND_DEBIT 使用 flowNo、requestId、bizType
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BalanceOpRpcRequest implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /** 操作类型 */
+    private BalanceOpType opType;
+
+    /** 账户号 */
+    private String accountNo;
+
+    /** 币种代码 */
+    private String currencyCode;
+
+    /** 金额 (必须为正数) */
+    private BigDecimal amount;
+
+    /** 业务描述/原因 */
+    private String description;
+
+    /** 业务流水号 */
+    private String bizNo;
+
+    /** 幂等请求ID */
+    private String requestId;
+
+    /** 业务类型 */
+    private BizType bizType;
+
+    /** 冻结流水号 */
+    private String flowNo;
+
+    /** 冻结类型 */
+    private FreezeType freezeType;
+}
@@ -0,0 +1,35 @@
+package com.macau.bank.api.account.response;
+
+import com.macau.bank.common.core.enums.BalanceOpType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 批量记账单条分录结果 (与请求列表按下标一一对应)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BalanceOpRpcResponse implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /** 操作类型 */
+    private BalanceOpType opType;
+
+    /** 账户号 */
+    private String accountNo;
+
+    /** 幂等请求ID */
+    private String requestId;
+
+    /** 冻结流水号 */
+    private String flowNo;
+
+    /** 执行结果 (例如 TCC 悬挂拦截的冻结返回 false) */
+    private Boolean success;
+}
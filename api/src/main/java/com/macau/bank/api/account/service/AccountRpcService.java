@@ -1,6 +1,7 @@
 package com.macau.bank.api.account.service;
 
 import com.macau.bank.api.account.request.AdjustBalanceRpcRequest;
+import com.macau.bank.api.account.request.BalanceOpRpcRequest;
 import com.macau.bank.api.account.request.CreateAccountRpcRequest;
 import com.macau.bank.api.account.request.CreditRpcRequest;
 import com.macau.bank.api.account.request.DebitRpcRequest;
@@ -9,6 +10,7 @@ import com.macau.bank.api.account.request.UnfreezeAndDebitRpcRequest;
 import com.macau.bank.api.account.request.UnfreezeBalanceRpcRequest;
 import com.macau.bank.api.account.response.AccountInfoRpcResponse;
 import com.macau.bank.api.account.response.AssetSummaryRpcResponse;
+import com.macau.bank.api.account.response.BalanceOpRpcResponse;
 import com.macau.bank.common.core.result.Result;
 
 import java.math.BigDecimal;
@@ -134,4 +136,15 @@ public interface AccountRpcService {
      * @param request 解冻并扣款请求
      */
     Result<Boolean> unfreezeAndDebit(UnfreezeAndDebitRpcRequest request);
-}
\ No newline at end of file
+
+    /**
+     * 批量记账（原子操作）
+     * <p>
+     * 多条分录在账户服务的同一个本地事务中执行，任一失败整体回滚；
+     * 每条分录仍按各自的 requestId 幂等，重复提交的分录直接返回成功
+     *
+     * @param ops 分录列表 (按顺序执行)
+     * @return 与请求列表按下标一一对应的分录结果
+     */
+    Result<List<BalanceOpRpcResponse>> executeBatch(List<BalanceOpRpcRequest> ops);
+}
@@ -14,6 +14,12 @@ public class MqGroupConst {
      */
     public static final String GP_TRANSFER_RISK_CALLBACK = "GP_TRANSFER_RISK_CALLBACK";
 
+    /**
+     * [转账服务] 监听手续费/限额规则变更 (广播，每个实例都刷新本地规则表)
+     * 对应 Listener: TransferRuleChangedConsumer
+     */
+    public static final String GP_TRANSFER_RULE_REFRESH = "GP_TRANSFER_RULE_REFRESH";
+
     /**
      * [账户服务] 监听用户开户审核
      * 对应 Listener: UserAuditMqListener
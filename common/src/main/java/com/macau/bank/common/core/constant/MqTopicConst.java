@@ -42,6 +42,13 @@ public class MqTopicConst {
      * 消费者: Sms Service
      */
     public static final String TP_SMS_NOTIFY = "TP_SMS_NOTIFY";
+
+    /**
+     * [转账域] 手续费/限额规则变更
+     * 生产者: Admin (修改 transfer_fee_config / transfer_limit_config 后发送)
+     * 消费者: Transfer Service (TransferRuleChangedConsumer，广播)
+     */
+    public static final String TP_TRANSFER_RULE_CHANGED = "TP_TRANSFER_RULE_CHANGED";
     
     // 私有构造，防止实例化
     private MqTopicConst() {}
@@ -0,0 +1,20 @@
+package com.macau.bank.common.core.enums;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 余额操作类型 (批量记账的单条分录)
+ */
+@Getter
+@AllArgsConstructor
+public enum BalanceOpType {
+
+    DEBIT("扣款"),
+    CREDIT("入账"),
+    FREEZE("冻结"),
+    UNFREEZE("解冻"),
+    UNFREEZE_AND_DEBIT("解冻并扣款");
+
+    private final String desc;
+}
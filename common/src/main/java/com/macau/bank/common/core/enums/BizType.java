@@ -38,7 +38,10 @@ public enum BizType {
     INTEREST("INTEREST", "利息"),
     
     /** 红字冲正 (配合 AccountingStatus 使用) */
-    REVERSAL("REVERSAL", "冲正");
+    REVERSAL("REVERSAL", "冲正"),
+
+    /** 热点账户分片间调拨 (同一账户一出一进成对记录，账户总额不变) */
+    SHARD_TRANSFER("SHARD_TRANSFER", "分片调拨");
 
     @EnumValue
     @JsonValue
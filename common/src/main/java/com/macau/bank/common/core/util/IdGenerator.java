@@ -2,10 +2,20 @@ package com.macau.bank.common.core.util;
 
 import java.net.InetAddress;
 import java.net.NetworkInterface;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
 
 /**
  * 分布式ID生成器 (基于 Twitter Snowflake 算法)
- * 结构：0(1位) - 时间戳(41位) - 数据中心ID(5位) - 机器ID(5位) - 序列号(12位)
+ * 结构：0(1位) - 时间戳(41位) - 工作节点ID(10位) - 分段号(s位) - 序列号(12-s位)
+ * <p>
+ * - 无锁：序列号空间按线程哈希拆成 2^s 个分段，每个分段的 (时间戳, 序列号) 打包在一个 long 中 CAS 推进
+ * - 序列号用尽时借用下一毫秒 (逻辑时钟前移) 而非自旋等待，前移超过容忍窗口才等待墙钟追上
+ * - 时钟回拨在容忍窗口内沿用上次时间戳继续发号，超出窗口才拒绝
+ * - 工作节点ID默认由网卡/主机名推导，接入租约后 ({@link #configure}) 由租约分配，避免多节点冲突；
+ *   租约到期仍未续约成功时拒绝发号 ({@link #renewLease})，到期的节点ID可能已被其他进程取得
+ * </p>
  */
 public class IdGenerator {
 
@@ -13,99 +23,207 @@ public class IdGenerator {
     private final static long START_TIMESTAMP = 1704067200000L;
 
     // 各部分占用的位数
-    private final static long SEQUENCE_BIT = 12; // 序列号占用的位数
-    private final static long MACHINE_BIT = 5;   // 机器标识占用的位数
-    private final static long DATACENTER_BIT = 5;// 数据中心占用的位数
+    private final static int SEQUENCE_BIT = 12; // 分段号 + 序列号占用的位数
+    private final static int WORKER_BIT = 10;   // 工作节点ID占用的位数 (原 数据中心5位 + 机器5位)
 
-    // 各部分最大值
-    private final static long MAX_DATACENTER_NUM = -1L ^ (-1L << DATACENTER_BIT);
-    private final static long MAX_MACHINE_NUM = -1L ^ (-1L << MACHINE_BIT);
-    private final static long MAX_SEQUENCE = -1L ^ (-1L << SEQUENCE_BIT);
+    private final static long MAX_WORKER_NUM = -1L ^ (-1L << WORKER_BIT);
+    private final static int MAX_STRIPE_BIT = 4;
 
     // 每一部分向左的位移
-    private final static long MACHINE_LEFT = SEQUENCE_BIT;
-    private final static long DATACENTER_LEFT = SEQUENCE_BIT + MACHINE_BIT;
-    private final static long TIMESTAMP_LEFT = DATACENTER_LEFT + DATACENTER_BIT;
+    private final static int WORKER_LEFT = SEQUENCE_BIT;
+    private final static int TIMESTAMP_LEFT = WORKER_LEFT + WORKER_BIT;
 
-    private long datacenterId;  // 数据中心ID
-    private long machineId;     // 机器ID
-    private long sequence = 0L; // 序列号
-    private long lastTimestamp = -1L; // 上次生成ID的时间戳
+    /**
+     * 默认分段位数 (4 个分段，每段每毫秒 1024 个序列号)
+     */
+    public final static int DEFAULT_STRIPE_BIT = 2;
 
-    // 单例模式 (或者作为 Spring Bean 注入)
-    private static IdGenerator INSTANCE = new IdGenerator();
+    /**
+     * 默认时钟回拨容忍窗口 (毫秒)
+     */
+    public final static long DEFAULT_MAX_BACKWARD_MS = 10;
 
-    private IdGenerator() {
-        this.datacenterId = getDatacenterId();
-        this.machineId = getMachineId();
+    // 单例模式，接入租约后整体替换
+    private static volatile IdGenerator INSTANCE = new IdGenerator(defaultWorkerId(), DEFAULT_STRIPE_BIT,
+            DEFAULT_MAX_BACKWARD_MS, System::currentTimeMillis, -1L, -1L);
+
+    private final long workerId;
+    private final int seqBit;
+    private final long maxSequence;
+    private final long maxBackwardMs;
+    private final LongSupplier clock;
+
+    /**
+     * 分段状态：高位为相对起始时间的毫秒数，低 seqBit 位为该毫秒已发出的最大序列号
+     */
+    private final AtomicLongArray stripes;
+
+    /**
+     * 观测到的最大墙钟 (相对起始时间)，用于区分墙钟回拨与借号造成的逻辑时钟超前
+     */
+    private final AtomicLong wallClock;
+
+    /**
+     * 是否受租约有效期约束 (接入租约后才有)
+     */
+    private volatile boolean leaseBound;
+
+    /**
+     * 租约有效期截止时刻 (System.nanoTime)
+     */
+    private volatile long leaseDeadlineNanos;
+
+    /**
+     * @param startAfter 从该时间戳 (相对起始时间) 之后开始发号，-1 表示不限制
+     * @param wallClockSeen 已观测到的最大墙钟 (相对起始时间)，-1 表示未观测
+     */
+    IdGenerator(long workerId, int stripeBit, long maxBackwardMs, LongSupplier clock, long startAfter,
+            long wallClockSeen) {
+        if (workerId < 0 || workerId > MAX_WORKER_NUM) {
+            throw new IllegalArgumentException("workerId 超出范围 [0, " + MAX_WORKER_NUM + "]: " + workerId);
+        }
+        if (stripeBit < 0 || stripeBit > MAX_STRIPE_BIT) {
+            throw new IllegalArgumentException("stripeBit 超出范围 [0, " + MAX_STRIPE_BIT + "]: " + stripeBit);
+        }
+        this.workerId = workerId;
+        this.seqBit = SEQUENCE_BIT - stripeBit;
+        this.maxSequence = -1L ^ (-1L << seqBit);
+        this.maxBackwardMs = Math.max(0, maxBackwardMs);
+        this.clock = clock;
+        this.stripes = new AtomicLongArray(1 << stripeBit);
+        // 序列号置满，首次发号即进入下一毫秒
+        long initial = startAfter < 0 ? -1L : (startAfter << seqBit) | maxSequence;
+        for (int i = 0; i < stripes.length(); i++) {
+            stripes.set(i, initial);
+        }
+        this.wallClock = new AtomicLong(wallClockSeen);
     }
-    
+
     public static IdGenerator getInstance() {
         return INSTANCE;
     }
 
     /**
-     * 核心方法：获取下一个 ID
+     * 以租约分配的工作节点ID重建生成器
+     * <p>
+     * 新生成器从旧生成器已用到的时间戳之后开始发号，同一节点ID切换前后不会重号
+     * </p>
      */
-    public synchronized long nextId() {
-        long currTimestamp = timeGen();
+    public static synchronized void configure(long workerId, int stripeBit, long maxBackwardMs) {
+        IdGenerator current = INSTANCE;
+        INSTANCE = new IdGenerator(workerId, stripeBit, maxBackwardMs, current.clock, current.lastTimestamp(),
+                current.wallClock.get());
+    }
 
-        // 时钟回拨检查
-        if (currTimestamp < lastTimestamp) {
-            throw new RuntimeException("Clock moved backwards. Refusing to generate id");
-        }
+    public long getWorkerId() {
+        return workerId;
+    }
 
-        // 如果是同一毫秒内生成的
-        if (currTimestamp == lastTimestamp) {
-            sequence = (sequence + 1) & MAX_SEQUENCE;
-            // 毫秒内序列溢出
-            if (sequence == 0L) {
-                // 阻塞到下一毫秒,获得新的时间戳
-                currTimestamp = getNextMill();
-            }
-        } else {
-            // 如果是新的一毫秒，序列号重置
-            sequence = 0L;
+    /**
+     * 登记工作节点ID租约的有效期截止时刻，此后未再次登记则拒绝发号
+     *
+     * @param deadlineNanos 截止时刻 (System.nanoTime)
+     */
+    public void renewLease(long deadlineNanos) {
+        this.leaseDeadlineNanos = deadlineNanos;
+        this.leaseBound = true;
+    }
+
+    /**
+     * 核心方法：获取下一个 ID
+     */
+    public long nextId() {
+        if (leaseBound && System.nanoTime() - leaseDeadlineNanos > 0) {
+            throw new IllegalStateException("Worker id lease of " + workerId
+                    + " expired without renewal. Refusing to generate id");
         }
+        int stripe = (int) (Thread.currentThread().getId() & (stripes.length() - 1));
+        for (; ; ) {
+            long prev = stripes.get(stripe);
+            long lastTs = prev >> seqBit;
+            long now = clock.getAsLong() - START_TIMESTAMP;
+            long seen = wallClock.get();
+            if (now > seen) {
+                wallClock.compareAndSet(seen, now);
+            }
 
-        lastTimestamp = currTimestamp;
+            long ts;
+            long seq;
+            if (now > lastTs) {
+                // 新的一毫秒，序列号重置
+                ts = now;
+                seq = 0;
+            } else {
+                // 同一毫秒，或时钟回拨/逻辑时钟前移在容忍窗口内：沿用上次时间戳
+                if (lastTs - now > maxBackwardMs) {
+                    // 先读已观测墙钟再重新取当前时间，避免本线程持有的 now 过旧而误判回拨
+                    long seenWall = wallClock.get();
+                    long backward = seenWall - (clock.getAsLong() - START_TIMESTAMP);
+                    if (backward > maxBackwardMs) {
+                        throw new IllegalStateException("Clock moved backwards " + backward
+                                + "ms, exceeds tolerance " + maxBackwardMs + "ms. Refusing to generate id");
+                    }
+                    // 借用的未来毫秒已用到窗口上限，等待墙钟追上
+                    Thread.onSpinWait();
+                    continue;
+                }
+                ts = lastTs;
+                seq = (prev & maxSequence) + 1;
+                if (seq > maxSequence) {
+                    // 毫秒内序列溢出：借用下一毫秒
+                    ts = lastTs + 1;
+                    seq = 0;
+                }
+            }
 
-        // 移位并通过或运算拼到一起组成64位的ID
-        return ((currTimestamp - START_TIMESTAMP) << TIMESTAMP_LEFT) // 时间戳
-                | (datacenterId << DATACENTER_LEFT)                  // 数据中心
-                | (machineId << MACHINE_LEFT)                        // 机器ID
-                | sequence;                                          // 序列号
+            if (stripes.compareAndSet(stripe, prev, (ts << seqBit) | seq)) {
+                // 移位并通过或运算拼到一起组成64位的ID
+                return (ts << TIMESTAMP_LEFT)              // 时间戳
+                        | (workerId << WORKER_LEFT)        // 工作节点ID
+                        | ((long) stripe << seqBit)        // 分段号
+                        | seq;                             // 序列号
+            }
+        }
     }
-    
+
     /**
      * 生成带业务前缀的字符串ID (推荐使用)
      * 例如: TR + 123456789...
+     * <p>
+     * 字符串拼接由编译器生成的 StringConcatFactory 按精确长度一次分配，long 不装箱
+     * </p>
      */
     public static String generateId(String prefix) {
         return prefix + INSTANCE.nextId();
     }
-    
+
     /**
      * 生成无前缀字符串ID
      */
     public static String generateId() {
-        return String.valueOf(INSTANCE.nextId());
+        return Long.toString(INSTANCE.nextId());
     }
 
-    private long getNextMill() {
-        long mill = timeGen();
-        while (mill <= lastTimestamp) {
-            mill = timeGen();
+    /**
+     * 各分段已用到的最大时间戳 (相对起始时间)
+     */
+    private long lastTimestamp() {
+        long max = -1L;
+        for (int i = 0; i < stripes.length(); i++) {
+            max = Math.max(max, stripes.get(i) >> seqBit);
         }
-        return mill;
+        return max;
     }
 
-    private long timeGen() {
-        return System.currentTimeMillis();
+    /**
+     * 未接入租约时的工作节点ID：数据中心ID(主机名哈希) + 机器ID(网卡地址)
+     */
+    public static long defaultWorkerId() {
+        return (getDatacenterId() << 5) | getMachineId();
     }
 
-    // 自动根据IP获取机器ID (简化版，生产环境建议配合Redis或Zookeeper分配)
-    private long getMachineId() {
+    // 自动根据IP获取机器ID (简化版，生产环境由 WorkerIdLease 分配)
+    private static long getMachineId() {
         try {
             InetAddress ip = InetAddress.getLocalHost();
             NetworkInterface network = NetworkInterface.getByInetAddress(ip);
@@ -116,7 +234,7 @@ public class IdGenerator {
                 byte[] mac = network.getHardwareAddress();
                 if (mac != null) {
                     id = ((0x000000FF & (long) mac[mac.length - 1]) | (0x0000FF00 & (((long) mac[mac.length - 2]) << 8))) >> 6;
-                    id = id % (MAX_MACHINE_NUM + 1);
+                    id = id % 32;
                 } else {
                     id = 1;
                 }
@@ -128,15 +246,15 @@ public class IdGenerator {
     }
 
     // 自动根据PID或HostName获取数据中心ID
-    private long getDatacenterId() {
+    private static long getDatacenterId() {
         try {
             long id = 0L;
             String hostName = InetAddress.getLocalHost().getHostName();
             id = hostName.hashCode();
-            id = id & MAX_DATACENTER_NUM;
+            id = id & 31;
             return id;
         } catch (Exception e) {
             return 1; // 兜底
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,154 @@
+package com.macau.bank.common.framework.expression;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.expression.BeanResolver;
+import org.springframework.expression.Expression;
+import org.springframework.expression.PropertyAccessor;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelEvaluationException;
+import org.springframework.expression.spel.SpelMessage;
+import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.ReflectivePropertyAccessor;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 以方法参数为变量的 SpEL 求值器 (切面注解中的 key/condition 等表达式)
+ * <p>
+ * - 按 (方法, 表达式) 缓存解析结果，以 {@link SpelCompilerMode#IMMEDIATE} 编译为字节码，不可编译的表达式保持解释执行
+ * - 编译后的表达式运行失败 (如参数运行时类型变化) 时，该表达式退回解释执行，不影响业务
+ * - 按方法缓存参数名，求值时按名称直接取参数，不再每次反射并逐个 setVariable
+ * - 属性访问器与 BeanResolver 在所有求值上下文间共享，反射查找的 getter 只解析一次
+ * </p>
+ * 线程安全，可作为切面字段长期持有。
+ */
+@Slf4j
+public class MethodExpressionEvaluator {
+
+    private final ParameterNameDiscoverer discoverer = new DefaultParameterNameDiscoverer();
+
+    private final Map<ExpressionKey, Expression> expressionCache = new ConcurrentHashMap<>();
+
+    private final Map<Method, Map<String, Integer>> parameterCache = new ConcurrentHashMap<>();
+
+    /**
+     * ReflectivePropertyAccessor 内部缓存线程安全，共享后各上下文复用已解析的 getter
+     */
+    private final List<PropertyAccessor> propertyAccessors = List.of(new ReflectivePropertyAccessor());
+
+    private final BeanResolver beanResolver;
+
+    public MethodExpressionEvaluator() {
+        this(null);
+    }
+
+    /**
+     * @param beanResolver 支持 @beanName 引用 Spring Bean，可为 null
+     */
+    public MethodExpressionEvaluator(BeanResolver beanResolver) {
+        this.beanResolver = beanResolver;
+    }
+
+    /**
+     * 求值
+     *
+     * @param method     被拦截的方法
+     * @param expression SpEL 表达式，参数以 #参数名 引用
+     * @param args       方法实参
+     * @param resultType 结果类型
+     */
+    public <T> T evaluate(Method method, String expression, Object[] args, Class<T> resultType) {
+        ExpressionKey key = new ExpressionKey(method, expression);
+        Expression compiled = expressionCache.computeIfAbsent(key, k -> parse(k, SpelCompilerMode.IMMEDIATE));
+        try {
+            return compiled.getValue(createContext(method, args), resultType);
+        } catch (RuntimeException e) {
+            if (!isCompiledFailure(e)) {
+                throw e;
+            }
+            // 编译版本与本次参数不匹配：退回解释执行并替换缓存，后续调用不再尝试编译
+            log.warn("SpEL 编译表达式执行失败，退回解释执行: method={}, expression={}, error={}",
+                    method, expression, e.getMessage());
+            Expression interpreted = parse(key, SpelCompilerMode.OFF);
+            expressionCache.put(key, interpreted);
+            return interpreted.getValue(createContext(method, args), resultType);
+        }
+    }
+
+    /**
+     * 已缓存的表达式个数
+     */
+    public int cacheSize() {
+        return expressionCache.size();
+    }
+
+    private StandardEvaluationContext createContext(Method method, Object[] args) {
+        MethodArgumentsContext context = new MethodArgumentsContext(parameterIndexes(method), args);
+        context.setPropertyAccessors(propertyAccessors);
+        if (beanResolver != null) {
+            context.setBeanResolver(beanResolver);
+        }
+        return context;
+    }
+
+    private Map<String, Integer> parameterIndexes(Method method) {
+        return parameterCache.computeIfAbsent(method, m -> {
+            String[] names = discoverer.getParameterNames(m);
+            if (names == null) {
+                return Collections.emptyMap();
+            }
+            Map<String, Integer> indexes = new HashMap<>(names.length * 2);
+            for (int i = 0; i < names.length; i++) {
+                indexes.put(names[i], i);
+            }
+            return indexes;
+        });
+    }
+
+    private static Expression parse(ExpressionKey key, SpelCompilerMode mode) {
+        ClassLoader classLoader = key.method().getDeclaringClass().getClassLoader();
+        return new SpelExpressionParser(new SpelParserConfiguration(mode, classLoader))
+                .parseExpression(key.expression());
+    }
+
+    private static boolean isCompiledFailure(RuntimeException e) {
+        return e instanceof SpelEvaluationException spel
+                && spel.getMessageCode() == SpelMessage.EXCEPTION_RUNNING_COMPILED_EXPRESSION;
+    }
+
+    private record ExpressionKey(Method method, String expression) {
+    }
+
+    /**
+     * 方法参数求值上下文：#参数名 直接按下标取实参，其余变量沿用标准实现
+     */
+    private static final class MethodArgumentsContext extends StandardEvaluationContext {
+
+        private final Map<String, Integer> parameterIndexes;
+
+        private final Object[] args;
+
+        MethodArgumentsContext(Map<String, Integer> parameterIndexes, Object[] args) {
+            this.parameterIndexes = parameterIndexes;
+            this.args = args;
+        }
+
+        @Override
+        public Object lookupVariable(String name) {
+            Integer index = parameterIndexes.get(name);
+            if (index != null && args != null && index < args.length) {
+                return args[index];
+            }
+            return super.lookupVariable(name);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.macau.bank.common.framework.id;
+
+import com.macau.bank.common.core.util.IdGenerator;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "macau.id")
+public class IdGeneratorProperties {
+    /** 工作节点ID分配方式 */
+    private LeaseType lease = LeaseType.LOCAL;
+    /** LOCAL 方式的固定工作节点ID，未配置时由网卡/主机名推导 */
+    private Long workerId;
+    /** REDIS 租约有效期 (秒)，每 1/3 有效期续约一次 */
+    private long leaseTtlSeconds = 60;
+    /** 序列号分段位数 [0, 4] */
+    private int stripeBits = IdGenerator.DEFAULT_STRIPE_BIT;
+    /** 时钟回拨容忍窗口 (毫秒) */
+    private long maxBackwardMs = IdGenerator.DEFAULT_MAX_BACKWARD_MS;
+
+    public enum LeaseType {
+        LOCAL, REDIS
+    }
+}
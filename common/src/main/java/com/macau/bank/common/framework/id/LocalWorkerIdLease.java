@@ -0,0 +1,33 @@
+package com.macau.bank.common.framework.id;
+
+import com.macau.bank.common.core.util.IdGenerator;
+
+/**
+ * 本地工作节点ID (不做互斥，用于单机部署与测试)
+ * <p>
+ * 未指定时沿用网卡/主机名推导的默认值
+ * </p>
+ */
+public class LocalWorkerIdLease implements WorkerIdLease {
+
+    private final Long workerId;
+
+    public LocalWorkerIdLease(Long workerId) {
+        this.workerId = workerId;
+    }
+
+    @Override
+    public long acquire() {
+        return workerId != null ? workerId : IdGenerator.defaultWorkerId();
+    }
+
+    @Override
+    public boolean renew() {
+        return true;
+    }
+
+    @Override
+    public void release() {
+        // 本地分配无需释放
+    }
+}
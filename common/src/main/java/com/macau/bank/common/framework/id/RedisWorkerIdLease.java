@@ -0,0 +1,92 @@
+package com.macau.bank.common.framework.id;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 基于 Redis 的工作节点ID租约
+ * <p>
+ * 每个工作节点ID对应一个 key，SET NX PX 抢占，值为本进程令牌；续约/释放前比对令牌，避免误操作他人租约
+ * </p>
+ */
+@Slf4j
+public class RedisWorkerIdLease implements WorkerIdLease {
+
+    private static final String KEY_PREFIX = "macau:bank:id:worker:";
+
+    private static final int MAX_WORKER_ID = 1023;
+
+    private static final RedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then "
+                    + "return redis.call('pexpire', KEYS[1], ARGV[2]) else return 0 end", Long.class);
+
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then "
+                    + "return redis.call('del', KEYS[1]) else return 0 end", Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final Duration ttl;
+
+    private final String token;
+
+    private volatile long workerId = -1;
+
+    public RedisWorkerIdLease(StringRedisTemplate stringRedisTemplate, Duration ttl) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.ttl = ttl;
+        this.token = hostName() + ":" + ManagementFactory.getRuntimeMXBean().getName() + ":" + UUID.randomUUID();
+    }
+
+    @Override
+    public long acquire() {
+        // 从令牌哈希处开始探测，减少多个进程同时启动时的抢占冲突
+        int start = Math.floorMod(token.hashCode(), MAX_WORKER_ID + 1);
+        for (int i = 0; i <= MAX_WORKER_ID; i++) {
+            int candidate = (start + i) % (MAX_WORKER_ID + 1);
+            if (Boolean.TRUE.equals(stringRedisTemplate.opsForValue()
+                    .setIfAbsent(KEY_PREFIX + candidate, token, ttl))) {
+                workerId = candidate;
+                log.info("获取 Snowflake 工作节点ID租约: workerId={}, token={}", candidate, token);
+                return candidate;
+            }
+        }
+        throw new IllegalStateException("无可用的 Snowflake 工作节点ID");
+    }
+
+    @Override
+    public boolean renew() {
+        if (workerId < 0) {
+            return false;
+        }
+        Long renewed = stringRedisTemplate.execute(RENEW_SCRIPT, List.of(KEY_PREFIX + workerId), token,
+                String.valueOf(ttl.toMillis()));
+        return renewed != null && renewed > 0;
+    }
+
+    @Override
+    public void release() {
+        if (workerId < 0) {
+            return;
+        }
+        stringRedisTemplate.execute(RELEASE_SCRIPT, List.of(KEY_PREFIX + workerId), token);
+        log.info("释放 Snowflake 工作节点ID租约: workerId={}", workerId);
+        workerId = -1;
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "unknown";
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.macau.bank.common.framework.id;
+
+/**
+ * Snowflake 工作节点ID租约
+ * <p>
+ * 同一时刻一个工作节点ID只能被一个进程持有，租约到期前须续约，否则可能被其他进程取得
+ * </p>
+ */
+public interface WorkerIdLease {
+
+    /**
+     * 获取工作节点ID
+     *
+     * @return 工作节点ID [0, 1023]
+     */
+    long acquire();
+
+    /**
+     * 续约当前持有的工作节点ID
+     *
+     * @return false 表示租约已丢失，须重新获取
+     */
+    boolean renew();
+
+    /**
+     * 释放当前持有的工作节点ID
+     */
+    void release();
+}
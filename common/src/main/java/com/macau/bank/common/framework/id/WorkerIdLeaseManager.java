@@ -0,0 +1,106 @@
+package com.macau.bank.common.framework.id;
+
+import com.macau.bank.common.core.util.IdGenerator;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Snowflake 工作节点ID租约管理
+ * 职责：启动时获取工作节点ID并重建 {@link IdGenerator}，定期续约，租约丢失时重新获取，停机时释放
+ * <p>
+ * 每次获取/续约成功后把有效期截止时刻登记到 {@link IdGenerator} (从发起请求时起算，并扣除 1/10 余量
+ * 抵消本地与 Redis 的计时误差)；续约持续失败直到截止时刻，IdGenerator 拒绝发号，直到重新获取租约
+ * </p>
+ */
+@Slf4j
+@Component
+public class WorkerIdLeaseManager {
+
+    @Resource
+    private IdGeneratorProperties idGeneratorProperties;
+
+    @Resource
+    private ObjectProvider<StringRedisTemplate> stringRedisTemplateProvider;
+
+    private WorkerIdLease lease;
+
+    private ScheduledExecutorService renewer;
+
+    @PostConstruct
+    public void start() {
+        lease = createLease();
+        long acquireStart = System.nanoTime();
+        apply(lease.acquire(), acquireStart);
+
+        if (idGeneratorProperties.getLease() == IdGeneratorProperties.LeaseType.REDIS) {
+            long interval = Math.max(1, idGeneratorProperties.getLeaseTtlSeconds() * 1000 / 3);
+            renewer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "worker-id-lease-renewer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            renewer.scheduleWithFixedDelay(this::renew, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (renewer != null) {
+            renewer.shutdownNow();
+        }
+        try {
+            lease.release();
+        } catch (Exception e) {
+            log.warn("释放工作节点ID租约失败: {}", e.getMessage());
+        }
+    }
+
+    private void renew() {
+        try {
+            long renewStart = System.nanoTime();
+            if (lease.renew()) {
+                IdGenerator.getInstance().renewLease(deadline(renewStart));
+                return;
+            }
+            log.warn("工作节点ID租约已丢失，重新获取: workerId={}", IdGenerator.getInstance().getWorkerId());
+            long acquireStart = System.nanoTime();
+            apply(lease.acquire(), acquireStart);
+        } catch (Exception e) {
+            log.error("工作节点ID租约续约失败，租约到期后将拒绝发号", e);
+        }
+    }
+
+    /**
+     * @param acquireStart 发起获取租约的时刻 (System.nanoTime)，用于计算有效期截止时刻
+     */
+    private void apply(long workerId, long acquireStart) {
+        IdGenerator.configure(workerId, idGeneratorProperties.getStripeBits(), idGeneratorProperties.getMaxBackwardMs());
+        if (idGeneratorProperties.getLease() == IdGeneratorProperties.LeaseType.REDIS) {
+            IdGenerator.getInstance().renewLease(deadline(acquireStart));
+        }
+        log.info("IdGenerator 已就绪: lease={}, workerId={}", idGeneratorProperties.getLease(), workerId);
+    }
+
+    private long deadline(long requestStart) {
+        long ttlNanos = TimeUnit.SECONDS.toNanos(idGeneratorProperties.getLeaseTtlSeconds());
+        return requestStart + ttlNanos - ttlNanos / 10;
+    }
+
+    private WorkerIdLease createLease() {
+        if (idGeneratorProperties.getLease() == IdGeneratorProperties.LeaseType.REDIS) {
+            return new RedisWorkerIdLease(stringRedisTemplateProvider.getObject(),
+                    Duration.ofSeconds(idGeneratorProperties.getLeaseTtlSeconds()));
+        }
+        return new LocalWorkerIdLease(idGeneratorProperties.getWorkerId());
+    }
+}
@@ -11,6 +11,12 @@ public @interface RedissonLock {
     /** 锁的 Key，支持 SpEL 表达式，例如 "#cmd.userNo" */
     String key();
 
+    /**
+     * 加锁条件，支持 SpEL 表达式 (可用 @beanName 引用 Spring Bean)，为空或结果为 true 时加锁，
+     * 例如 "!@hotAccountDomainService.isSharded(#cmd.accountNo)"
+     */
+    String condition() default "";
+
     /** 等待时间，默认 0 秒，拿不到锁直接报错/跳过 */
     long waitTime() default -1;
 
@@ -1,8 +1,10 @@
 package com.macau.bank.common.framework.lock.aspect;
 
 import com.macau.bank.common.core.exception.BusinessException;
+import com.macau.bank.common.framework.expression.MethodExpressionEvaluator;
 import com.macau.bank.common.framework.lock.annotation.RedissonLock;
 import com.macau.bank.common.framework.lock.config.MacauLockProperties;
+import com.macau.bank.common.framework.lock.support.TwoTierLockManager;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
@@ -11,12 +13,10 @@ import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.reflect.MethodSignature;
 import org.redisson.api.RLock;
 import org.redisson.api.RedissonClient;
-import org.springframework.core.DefaultParameterNameDiscoverer;
-import org.springframework.core.ParameterNameDiscoverer;
-import org.springframework.expression.EvaluationContext;
-import org.springframework.expression.ExpressionParser;
-import org.springframework.expression.spel.standard.SpelExpressionParser;
-import org.springframework.expression.spel.support.StandardEvaluationContext;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.context.expression.BeanFactoryResolver;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 
@@ -25,20 +25,35 @@ import java.lang.reflect.Method;
 @Slf4j
 @Aspect
 @Component
-public class RedissonLockAspect {
+public class RedissonLockAspect implements BeanFactoryAware {
 
     @Resource
     private RedissonClient redissonClient;
 
     @Resource
     private MacauLockProperties macauLockProperties;
+
+    @Resource
+    private TwoTierLockManager twoTierLockManager;
     
-    private final ExpressionParser parser = new SpelExpressionParser();
-    // 建议用接口接收，通用性更强
-    private final ParameterNameDiscoverer discoverer = new DefaultParameterNameDiscoverer();
+    /**
+     * key/condition 表达式按方法预编译缓存，每次扣款/入账不再重复解析
+     */
+    private MethodExpressionEvaluator evaluator = new MethodExpressionEvaluator();
+
+    @Override
+    public void setBeanFactory(BeanFactory beanFactory) throws BeansException {
+        this.evaluator = new MethodExpressionEvaluator(new BeanFactoryResolver(beanFactory));
+    }
 
     @Around("@annotation(redissonLock)")
     public Object around(ProceedingJoinPoint joinPoint, RedissonLock redissonLock) throws Throwable {
+        // 0. 加锁条件不满足时直接执行 (例如热点账户已分片，由数据库行锁保证并发安全)
+        if (StringUtils.hasText(redissonLock.condition())
+                && !Boolean.TRUE.equals(evaluate(redissonLock.condition(), joinPoint, Boolean.class))) {
+            return joinPoint.proceed();
+        }
+
         // 1. 解析 SpEL 获取 Key (例如根据 userNo 加锁)
         String key = parseKey(redissonLock.key(), joinPoint);
 
@@ -46,7 +61,13 @@ public class RedissonLockAspect {
         // 如果注解写了 -1，就用全局配置；否则用注解里写的特殊值
         long waitTime = redissonLock.waitTime() == -1 ? macauLockProperties.getWaitTime() : redissonLock.waitTime();
         long leaseTime = redissonLock.leaseTime() == -1 ? macauLockProperties.getLeaseTime() : redissonLock.leaseTime();
-        
+
+        // 两级锁：本节点同 key 请求排队共享租约
+        if (macauLockProperties.isCoalesce()) {
+            return twoTierLockManager.execute(key, waitTime, leaseTime, redissonLock.unit(), redissonLock.msg(),
+                    joinPoint::proceed);
+        }
+
         // 3. 获取锁对象
         RLock lock = redissonClient.getLock(key);
         boolean isLocked = false;
@@ -76,18 +97,15 @@ public class RedissonLockAspect {
         if (!StringUtils.hasText(key)) return "default-lock";
         // 如果不是 SpEL 表达式直接返回
         if (!key.contains("#")) return key;
-        
-        MethodSignature methodSignature = (MethodSignature) joinPoint.getSignature();
-        Method method = methodSignature.getMethod();
-        String[] paramNames = discoverer.getParameterNames(method);
-        Object[] args = joinPoint.getArgs();
 
-        EvaluationContext context = new StandardEvaluationContext();
-        if (paramNames != null) {
-            for (int i = 0; i < paramNames.length; i++) {
-                context.setVariable(paramNames[i], args[i]);
-            }
-        }
-        return parser.parseExpression(key).getValue(context, String.class);
+        return evaluate(key, joinPoint, String.class);
+    }
+
+    /**
+     * 以方法参数为变量求值 SpEL 表达式
+     */
+    private <T> T evaluate(String expression, ProceedingJoinPoint joinPoint, Class<T> resultType) {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        return evaluator.evaluate(method, expression, joinPoint.getArgs(), resultType);
     }
-}
\ No newline at end of file
+}
@@ -12,4 +12,8 @@ public class MacauLockProperties {
     private long waitTime = 3;
     /** 默认持有时间 (秒) */
     private long leaseTime = 10;
+    /** 是否开启两级锁：同一 key 的本节点请求本地排队，共享一个 Redisson 租约 */
+    private boolean coalesce = false;
+    /** 两级锁下一个租约最多连续交接的请求数，达到后释放租约让其他节点获取 */
+    private int maxBurst = 32;
 }
\ No newline at end of file
@@ -0,0 +1,288 @@
+package com.macau.bank.common.framework.lock.support;
+
+import com.macau.bank.common.core.exception.BusinessException;
+import com.macau.bank.common.framework.lock.config.MacauLockProperties;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RFuture;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 两级锁：节点内公平锁 + Redisson 分布式租约
+ * <p>
+ * - 同一 key 在本节点的并发请求先在本地公平锁上按 FIFO 排队，只有队首持有 Redisson 租约
+ * - 队首执行完后若本地仍有等待者，租约直接交给下一个等待者，不释放也不重新加锁；
+ *   一波突发请求只加锁/解锁 Redis 一次
+ * - 租约剩余时间不足一半时，由当前持有者通过可重入加锁续期
+ * - 连续交接达到 maxBurst 次后主动释放租约，让其他节点有机会获取 (跨节点公平)
+ * - 业务执行超过租期视为租约超时，记录指标并放弃该租约
+ * </p>
+ * Redisson 锁以 key 对应的负数 ownerId 代替线程ID加锁，同一波请求中任一线程均可续期、释放。
+ */
+@Slf4j
+@Component
+public class TwoTierLockManager {
+
+    /**
+     * 租约时间 <= 0 时由 Redisson 看门狗续期，本地不再判断过期
+     */
+    private static final long WATCHDOG_HORIZON_NANOS = Long.MAX_VALUE >> 2;
+
+    @Resource
+    private RedissonClient redissonClient;
+
+    @Resource
+    private MacauLockProperties macauLockProperties;
+
+    private final Map<String, LockEntry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * 负数递减，与真实线程ID不冲突
+     */
+    private final AtomicLong ownerSequence = new AtomicLong();
+
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder leaseAcquires = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder renewals = new LongAdder();
+    private final LongAdder leaseTimeouts = new LongAdder();
+    private final LongAdder burstYields = new LongAdder();
+    private final LongAdder acquireFailures = new LongAdder();
+    private final LongAdder localWaitNanos = new LongAdder();
+    private final AtomicLong maxLocalWaitNanos = new AtomicLong();
+
+    /**
+     * 加锁执行
+     *
+     * @param key       锁 key
+     * @param waitTime  等待时间 (本地排队 + Redis 加锁合计)
+     * @param leaseTime 租约时间，<= 0 表示由看门狗续期
+     * @param unit      时间单位
+     * @param failMsg   加锁失败提示
+     * @param action    业务逻辑
+     */
+    public <T> T execute(String key, long waitTime, long leaseTime, TimeUnit unit, String failMsg,
+            LockedAction<T> action) throws Throwable {
+        long deadline = System.nanoTime() + unit.toNanos(waitTime);
+        LockEntry entry = entries.compute(key, (k, e) -> {
+            LockEntry current = e != null ? e : new LockEntry(ownerSequence.decrementAndGet());
+            current.refs.incrementAndGet();
+            return current;
+        });
+        try {
+            long waitStart = System.nanoTime();
+            if (!entry.local.tryLock(deadline - waitStart, TimeUnit.NANOSECONDS)) {
+                acquireFailures.increment();
+                throw new BusinessException(failMsg);
+            }
+            recordLocalWait(System.nanoTime() - waitStart);
+            try {
+                RLock lock = redissonClient.getLock(key);
+                if (!ensureLease(entry, lock, deadline, unit.toMillis(leaseTime))) {
+                    acquireFailures.increment();
+                    throw new BusinessException(failMsg);
+                }
+                acquisitions.increment();
+                try {
+                    return action.run();
+                } finally {
+                    afterHold(key, entry, lock);
+                }
+            } finally {
+                entry.local.unlock();
+            }
+        } finally {
+            leave(key, entry);
+        }
+    }
+
+    /**
+     * 锁指标快照
+     */
+    public LockMetrics metrics() {
+        long total = acquisitions.sum();
+        return new LockMetrics(total, leaseAcquires.sum(), coalesced.sum(), renewals.sum(), leaseTimeouts.sum(),
+                burstYields.sum(), acquireFailures.sum(),
+                total == 0 ? 0D : localWaitNanos.sum() / 1_000D / total,
+                maxLocalWaitNanos.get() / 1_000D,
+                entries.size());
+    }
+
+    /**
+     * 确保当前持有者拥有有效租约 (持有本地锁时调用)
+     */
+    private boolean ensureLease(LockEntry entry, RLock lock, long deadline, long leaseMillis) throws Exception {
+        if (entry.leaseHeld) {
+            long remaining = entry.leaseExpiresAt - System.nanoTime();
+            if (remaining > TimeUnit.MILLISECONDS.toNanos(leaseMillis) / 2) {
+                entry.burst++;
+                coalesced.increment();
+                return true;
+            }
+            if (remaining > 0 && renew(entry, lock, leaseMillis)) {
+                entry.burst++;
+                coalesced.increment();
+                renewals.increment();
+                return true;
+            }
+            // 已过期或续期失败：租约可能已被其他节点获取，重新加锁
+            entry.leaseHeld = false;
+        }
+
+        long waitMillis = Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()));
+        if (!await(lock.tryLockAsync(waitMillis, leaseMillis, TimeUnit.MILLISECONDS, entry.ownerId))) {
+            return false;
+        }
+        entry.leaseHeld = true;
+        entry.leaseExpiresAt = leaseDeadline(leaseMillis);
+        entry.burst = 1;
+        leaseAcquires.increment();
+        return true;
+    }
+
+    /**
+     * 可重入加锁一次再解锁一次：持有计数不变，过期时间重置为 leaseTime
+     */
+    private boolean renew(LockEntry entry, RLock lock, long leaseMillis) throws Exception {
+        if (!await(lock.tryLockAsync(0, leaseMillis, TimeUnit.MILLISECONDS, entry.ownerId))) {
+            return false;
+        }
+        entry.leaseExpiresAt = leaseDeadline(leaseMillis);
+        await(lock.unlockAsync(entry.ownerId));
+        return true;
+    }
+
+    /**
+     * 业务执行完毕，决定租约交给下一个本地等待者还是释放 (持有本地锁时调用)
+     */
+    private void afterHold(String key, LockEntry entry, RLock lock) {
+        // 同一线程重入时由最外层决定
+        if (entry.local.getHoldCount() > 1 || !entry.leaseHeld) {
+            return;
+        }
+        if (System.nanoTime() - entry.leaseExpiresAt > 0) {
+            leaseTimeouts.increment();
+            log.warn("[Lock] 业务执行超过租期，锁可能已被其他节点获取: key={}", key);
+            release(key, entry, lock);
+            return;
+        }
+        boolean hasWaiters = entry.refs.get() > 1;
+        if (hasWaiters && entry.burst < macauLockProperties.getMaxBurst()) {
+            return;
+        }
+        if (hasWaiters) {
+            burstYields.increment();
+        }
+        release(key, entry, lock);
+    }
+
+    /**
+     * 退出排队；最后一个离开的线程负责释放遗留租约 (例如等待者超时放弃)
+     */
+    private void leave(String key, LockEntry entry) {
+        boolean[] last = new boolean[1];
+        entries.compute(key, (k, e) -> {
+            if (entry.refs.decrementAndGet() == 0) {
+                last[0] = true;
+                return null;
+            }
+            return e;
+        });
+        if (last[0] && entry.leaseHeld) {
+            release(key, entry, redissonClient.getLock(key));
+        }
+    }
+
+    private void release(String key, LockEntry entry, RLock lock) {
+        entry.leaseHeld = false;
+        try {
+            await(lock.unlockAsync(entry.ownerId));
+        } catch (Exception e) {
+            // 租约已过期或已被其他节点持有时解锁失败，无需处理
+            log.warn("[Lock] 释放租约失败: key={}, error={}", key, e.getMessage());
+        }
+    }
+
+    private void recordLocalWait(long nanos) {
+        localWaitNanos.add(nanos);
+        maxLocalWaitNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    private static long leaseDeadline(long leaseMillis) {
+        return System.nanoTime() + (leaseMillis > 0 ? TimeUnit.MILLISECONDS.toNanos(leaseMillis) : WATCHDOG_HORIZON_NANOS);
+    }
+
+    private static <V> V await(RFuture<V> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+    }
+
+    /**
+     * 加锁后执行的业务逻辑
+     */
+    @FunctionalInterface
+    public interface LockedAction<T> {
+        T run() throws Throwable;
+    }
+
+    /**
+     * 锁指标
+     *
+     * @param acquisitions        累计加锁成功次数
+     * @param leaseAcquires       累计 Redis 加锁次数
+     * @param coalesced           复用上一持有者租约的次数 (未访问 Redis)
+     * @param renewals            租约续期次数
+     * @param leaseTimeouts       业务执行超过租期的次数
+     * @param burstYields         连续交接达到上限、主动让出租约的次数
+     * @param acquireFailures     等待超时加锁失败次数
+     * @param avgLocalWaitMicros  本地排队平均等待 (微秒)
+     * @param maxLocalWaitMicros  本地排队最大等待 (微秒)
+     * @param activeKeys          当前有请求排队或持有的 key 数
+     */
+    public record LockMetrics(long acquisitions, long leaseAcquires, long coalesced, long renewals,
+            long leaseTimeouts, long burstYields, long acquireFailures, double avgLocalWaitMicros,
+            double maxLocalWaitMicros, int activeKeys) {
+    }
+
+    private static final class LockEntry {
+
+        /**
+         * 公平锁：本地等待者按到达顺序获得锁
+         */
+        final ReentrantLock local = new ReentrantLock(true);
+
+        /**
+         * 排队及持有中的线程数，仅在 entries.compute 内增减
+         */
+        final AtomicInteger refs = new AtomicInteger();
+
+        final long ownerId;
+
+        volatile boolean leaseHeld;
+
+        volatile long leaseExpiresAt;
+
+        /**
+         * 当前租约已服务的请求数，持有本地锁时读写
+         */
+        int burst;
+
+        LockEntry(long ownerId) {
+            this.ownerId = ownerId;
+        }
+    }
+}
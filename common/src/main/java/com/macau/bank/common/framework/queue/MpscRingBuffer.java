@@ -0,0 +1,109 @@
+package com.macau.bank.common.framework.queue;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 有界多生产者单消费者环形队列 (MPSC)
+ * <p>
+ * - 生产者 CAS 抢占写入位置后发布元素，队列满时立即返回 false，不阻塞调用线程
+ * - 仅允许一个消费线程调用 {@link #poll()} / {@link #drainTo}，消费侧无锁无 CAS
+ * - 槽位为 null 表示未发布：生产者已抢占位置但尚未写入时，消费者视为暂时为空
+ * </p>
+ */
+public final class MpscRingBuffer<E> {
+
+    private final int capacity;
+
+    private final int mask;
+
+    private final AtomicReferenceArray<E> buffer;
+
+    private final AtomicLong producerIndex = new AtomicLong();
+
+    private final AtomicLong consumerIndex = new AtomicLong();
+
+    /**
+     * @param capacity 容量，向上取整为 2 的幂
+     */
+    public MpscRingBuffer(int capacity) {
+        if (capacity < 1 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("环形队列容量超出范围 [1, 2^30]: " + capacity);
+        }
+        this.capacity = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = this.capacity - 1;
+        this.buffer = new AtomicReferenceArray<>(this.capacity);
+    }
+
+    /**
+     * 入队 (任意线程)
+     *
+     * @return 队列已满时返回 false
+     */
+    public boolean offer(E e) {
+        if (e == null) {
+            throw new NullPointerException("元素不能为空");
+        }
+        long index;
+        do {
+            index = producerIndex.get();
+            if (index - consumerIndex.get() >= capacity) {
+                return false;
+            }
+        } while (!producerIndex.compareAndSet(index, index + 1));
+        buffer.lazySet((int) index & mask, e);
+        return true;
+    }
+
+    /**
+     * 出队 (仅消费线程)
+     *
+     * @return 队列为空或队首元素尚未发布时返回 null
+     */
+    public E poll() {
+        long index = consumerIndex.get();
+        int offset = (int) index & mask;
+        E e = buffer.get(offset);
+        if (e == null) {
+            return null;
+        }
+        // 先清空槽位再推进消费位置，生产者看到新位置时槽位必然已可复用
+        buffer.lazySet(offset, null);
+        consumerIndex.lazySet(index + 1);
+        return e;
+    }
+
+    /**
+     * 批量出队 (仅消费线程)
+     *
+     * @return 实际取出的元素个数
+     */
+    public int drainTo(Collection<? super E> target, int limit) {
+        int count = 0;
+        while (count < limit) {
+            E e = poll();
+            if (e == null) {
+                break;
+            }
+            target.add(e);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * 当前元素个数 (近似值，含已抢占位置但尚未发布的元素)
+     */
+    public int size() {
+        return (int) Math.max(0, Math.min(capacity, producerIndex.get() - consumerIndex.get()));
+    }
+
+    public boolean isEmpty() {
+        return producerIndex.get() == consumerIndex.get();
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+}
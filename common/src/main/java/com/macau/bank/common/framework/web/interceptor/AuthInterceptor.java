@@ -9,6 +9,7 @@ import com.macau.bank.common.core.util.RedisUtil;
 import com.macau.bank.common.framework.web.context.RequestHeaderContext;
 import com.macau.bank.common.framework.web.model.BaseRequest;
 import jakarta.annotation.Resource;
+import jakarta.servlet.DispatcherType;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
@@ -37,6 +38,11 @@ public class AuthInterceptor implements HandlerInterceptor {
 
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        // 0. 异步接口结果回写时的再次分派：首次分派已认证通过，业务已执行，不再重复校验
+        if (request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true;
+        }
+
         // 1. 基础环境检查
         if (!redisUtil.isAvailable()) {
             log.error("认证失败: Redis服务不可用");
@@ -10,11 +10,11 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.apache.skywalking.apm.toolkit.trace.TraceContext;
 import org.slf4j.MDC;
 import org.springframework.util.StringUtils;
-import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
 
 import java.util.UUID;
 
-public class HeaderContextInterceptor implements HandlerInterceptor {
+public class HeaderContextInterceptor implements AsyncHandlerInterceptor {
 
     @Resource
     private RedisUtil redisUtil;
@@ -68,6 +68,14 @@ public class HeaderContextInterceptor implements HandlerInterceptor {
         MDC.clear();
     }
 
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+            Object handler) {
+        // 异步处理的接口 (返回 CompletableFuture) 不会在本线程回调 afterCompletion，释放线程前同样清理
+        RequestHeaderContext.clear();
+        MDC.clear();
+    }
+
     private String getClientIp(HttpServletRequest request) {
         // 省略具体IP获取逻辑...
         return request.getRemoteAddr();
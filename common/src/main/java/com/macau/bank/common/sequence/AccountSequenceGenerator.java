@@ -1,5 +1,6 @@
 package com.macau.bank.common.sequence;
 
+import jakarta.annotation.PostConstruct;
 import jakarta.annotation.Resource;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Component;
@@ -16,20 +17,42 @@ public class AccountSequenceGenerator {
     // 总行营业部代码
     private static final String BRANCH_CODE = "001";
 
+    // 序列号位数
+    private static final int SEQ_LENGTH = 10;
+
+    // 补零判断的最高位权重 (10^(SEQ_LENGTH-1))
+    private static final long SEQ_PAD_BOUND = 1_000_000_000L;
+
     @Resource
     private StringRedisTemplate stringRedisTemplate;
 
+    @Resource
+    private SequenceProperties sequenceProperties;
+
     private static final String REDIS_KEY_PREFIX = "macau:bank:seq:account";
 
+    private SegmentSequence sequence;
+
+    @PostConstruct
+    public void init() {
+        sequence = new SegmentSequence(stringRedisTemplate, REDIS_KEY_PREFIX,
+                sequenceProperties.getStep(), sequenceProperties.getPrefetchRatio());
+    }
+
     /**
      * 生成唯一的 16 位账号
      */
     public String nextAccountNo() {
-        // 1. Redis 原子递增
-        Long seq = stringRedisTemplate.opsForValue().increment(REDIS_KEY_PREFIX);
+        // 1. 从本地号段取号 (号段用尽前已异步向 Redis 预取)
+        long seq = sequence.next();
         
         // 2. 补零逻辑
         // 假设机构号 888，分行号由参数传入
-        return BANK_CODE + BRANCH_CODE + String.format("%010d", seq);
+        StringBuilder accountNo = new StringBuilder(BANK_CODE.length() + BRANCH_CODE.length() + SEQ_LENGTH)
+                .append(BANK_CODE).append(BRANCH_CODE);
+        for (long bound = SEQ_PAD_BOUND; bound > 1 && seq < bound; bound /= 10) {
+            accountNo.append('0');
+        }
+        return accountNo.append(seq).toString();
     }
-}
\ No newline at end of file
+}
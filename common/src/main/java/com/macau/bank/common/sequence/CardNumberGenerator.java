@@ -1,5 +1,6 @@
 package com.macau.bank.common.sequence; // 建议放在 common 或 domain 模块
 
+import jakarta.annotation.PostConstruct;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Component;
 import jakarta.annotation.Resource;
@@ -13,31 +14,46 @@ public class CardNumberGenerator {
     @Resource
     private StringRedisTemplate stringRedisTemplate;
 
+    @Resource
+    private SequenceProperties sequenceProperties;
+
     // 假设 Macau Bank 的银联 BIN 号
     private static final String BIN_PREFIX = "628888";
     
     // Redis Key
     private static final String REDIS_KEY_CARD_SEQ = "macau:bank:seq:card";
 
+    // 补零判断的最高位权重 (9 位序列号)
+    private static final long SEQ_PAD_BOUND = 100_000_000L;
+
+    private SegmentSequence sequence;
+
+    @PostConstruct
+    public void init() {
+        sequence = new SegmentSequence(stringRedisTemplate, REDIS_KEY_CARD_SEQ,
+                sequenceProperties.getStep(), sequenceProperties.getPrefetchRatio());
+    }
+
     /**
      * 生成唯一的 16 位银行卡号
      */
     public String nextCardNumber() {
-        // 1. 获取 9 位序列号 (Redis原子递增)
+        // 1. 获取 9 位序列号 (本地号段取号，号段由 Redis INCRBY 批量领取)
         // 这里的 9 位决定了最大发卡量，真实银行会更复杂，Demo 足够了
-        Long seq = stringRedisTemplate.opsForValue().increment(REDIS_KEY_CARD_SEQ);
+        long seq = sequence.next();
         
-        // 补齐 9 位，例如 1 -> "000000001"
-        String sequenceBody = String.format("%09d", seq);
-        
-        // 2. 拼装前 15 位 (BIN + 序列)
-        String prefix15 = BIN_PREFIX + sequenceBody;
+        // 2. 拼装前 15 位 (BIN + 序列)，补齐 9 位，例如 1 -> "000000001"
+        StringBuilder cardNo = new StringBuilder(16).append(BIN_PREFIX);
+        for (long bound = SEQ_PAD_BOUND; bound > 1 && seq < bound; bound /= 10) {
+            cardNo.append('0');
+        }
+        cardNo.append(seq);
         
         // 3. 计算最后一位校验码 (Luhn 算法)
-        int checkDigit = calculateLuhnCheckDigit(prefix15);
+        int checkDigit = calculateLuhnCheckDigit(cardNo);
         
         // 4. 返回完整 16 位卡号
-        return prefix15 + checkDigit;
+        return cardNo.append((char) ('0' + checkDigit)).toString();
     }
 
     /**
@@ -47,19 +63,20 @@ public class CardNumberGenerator {
      * 2. 如果 * 2 后大于 9，则减 9 (或者 个位+十位)。
      * 3. 所有结果相加。
      * 4. 校验位 = (10 - (sum % 10)) % 10
+     * 直接按字符取数字，不产生中间字符串
      */
-    private int calculateLuhnCheckDigit(String cardNoPrefix) {
+    static int calculateLuhnCheckDigit(CharSequence cardNoPrefix) {
         int sum = 0;
         boolean alternate = true; // 从最右边开始，第一个数字（其实是倒数第二位）需要 x2
         
         // 从字符串最后一位往前遍历
         for (int i = cardNoPrefix.length() - 1; i >= 0; i--) {
-            int n = Integer.parseInt(cardNoPrefix.substring(i, i + 1));
+            int n = cardNoPrefix.charAt(i) - '0';
             
             if (alternate) {
                 n *= 2;
                 if (n > 9) {
-                    n = (n % 10) + 1; // 等同于 n - 9
+                    n -= 9;
                 }
             }
             sum += n;
@@ -70,4 +87,4 @@ public class CardNumberGenerator {
         int remainder = sum % 10;
         return (remainder == 0) ? 0 : (10 - remainder);
     }
-}
\ No newline at end of file
+}
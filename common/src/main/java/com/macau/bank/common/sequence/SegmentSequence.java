@@ -0,0 +1,136 @@
+package com.macau.bank.common.sequence;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 号段式序列 (Leaf-Segment)
+ * <p>
+ * - 每次通过一次 Redis INCRBY 领取 step 个连续序列号，在本地内存中递增发放
+ * - 当前号段消耗到 prefetchRatio 时异步预取下一号段，切换时通常无需等待 Redis
+ * - 多节点各自持有不同号段，序列号全局唯一但不再严格按时间递增；节点重启时未用完的号段作废
+ * </p>
+ */
+@Slf4j
+public class SegmentSequence {
+
+    private static final Executor DEFAULT_PREFETCHER = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "segment-sequence-prefetch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final String key;
+
+    private final long step;
+
+    private final double prefetchRatio;
+
+    private final Executor prefetcher;
+
+    private volatile Segment current;
+
+    /**
+     * 预取中的下一号段，仅在持有 this 锁时读写
+     */
+    private CompletableFuture<Segment> next;
+
+    public SegmentSequence(StringRedisTemplate stringRedisTemplate, String key, long step, double prefetchRatio) {
+        this(stringRedisTemplate, key, step, prefetchRatio, DEFAULT_PREFETCHER);
+    }
+
+    SegmentSequence(StringRedisTemplate stringRedisTemplate, String key, long step, double prefetchRatio,
+            Executor prefetcher) {
+        if (step < 1) {
+            throw new IllegalArgumentException("号段步长必须大于 0: " + step);
+        }
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.key = key;
+        this.step = step;
+        this.prefetchRatio = Math.min(1D, Math.max(0D, prefetchRatio));
+        this.prefetcher = prefetcher;
+    }
+
+    /**
+     * 获取下一个序列号
+     */
+    public long next() {
+        for (; ; ) {
+            Segment segment = current;
+            if (segment != null) {
+                long value = segment.cursor.getAndIncrement();
+                if (value <= segment.max) {
+                    if (value == segment.prefetchAt) {
+                        prefetch();
+                    }
+                    return value;
+                }
+            }
+            switchSegment(segment);
+        }
+    }
+
+    private synchronized void prefetch() {
+        if (next == null) {
+            try {
+                next = CompletableFuture.supplyAsync(this::allocate, prefetcher);
+            } catch (Exception e) {
+                // 预取失败不影响本次发号，号段用尽时同步领取
+                log.warn("号段预取提交失败: key={}, error={}", key, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 当前号段用尽：切换到预取号段，预取未发起或失败时同步领取
+     */
+    private synchronized void switchSegment(Segment exhausted) {
+        if (current != exhausted) {
+            // 其他线程已完成切换
+            return;
+        }
+        CompletableFuture<Segment> pending = next;
+        next = null;
+        Segment segment = null;
+        if (pending != null) {
+            try {
+                segment = pending.join();
+            } catch (Exception e) {
+                log.warn("号段预取失败，改为同步领取: key={}, error={}", key, e.getMessage());
+            }
+        }
+        current = segment != null ? segment : allocate();
+    }
+
+    private Segment allocate() {
+        Long max = stringRedisTemplate.opsForValue().increment(key, step);
+        if (max == null) {
+            throw new IllegalStateException("领取号段失败: key=" + key);
+        }
+        long start = max - step + 1;
+        log.debug("领取号段: key={}, range=[{}, {}]", key, start, max);
+        return new Segment(start, max, start + (long) ((step - 1) * prefetchRatio));
+    }
+
+    private static final class Segment {
+
+        private final AtomicLong cursor;
+
+        private final long max;
+
+        private final long prefetchAt;
+
+        Segment(long start, long max, long prefetchAt) {
+            this.cursor = new AtomicLong(start);
+            this.max = max;
+            this.prefetchAt = prefetchAt;
+        }
+    }
+}
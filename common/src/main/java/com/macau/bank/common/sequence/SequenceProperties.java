@@ -0,0 +1,15 @@
+package com.macau.bank.common.sequence;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "macau.sequence")
+public class SequenceProperties {
+    /** 每次从 Redis 领取的号段长度，1 表示每个序列号访问一次 Redis */
+    private long step = 1000;
+    /** 当前号段消耗到该比例时异步预取下一号段 */
+    private double prefetchRatio = 0.8;
+}
@@ -0,0 +1,170 @@
+package com.macau.bank.common.core.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 分布式ID生成器测试
+ * <p>
+ * 核心场景：
+ * 1. 多线程并发发号不重复
+ * 2. 时钟回拨容忍窗口、序列号溢出借用下一毫秒
+ * 3. 工作节点ID租约过期后拒绝发号
+ * 4. 多线程吞吐 (-Dbenchmark=true 开启)
+ */
+@DisplayName("分布式ID生成器测试")
+@Slf4j
+class IdGeneratorTest {
+
+    private static final long NOW = 1750000000000L;
+
+    @Test
+    @DisplayName("多线程并发发号不应重复")
+    void concurrentIdsShouldBeUnique() throws InterruptedException {
+        IdGenerator generator = new IdGenerator(7, IdGenerator.DEFAULT_STRIPE_BIT,
+                IdGenerator.DEFAULT_MAX_BACKWARD_MS, System::currentTimeMillis, -1L, -1L);
+        int threads = 16;
+        int perThread = 50_000;
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            pool.execute(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    ids.add(generator.nextId());
+                }
+                done.countDown();
+            });
+        }
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        pool.shutdown();
+
+        assertEquals(threads * perThread, ids.size());
+    }
+
+    @Test
+    @DisplayName("容忍窗口内的时钟回拨应继续单调发号")
+    void shouldTolerateSmallClockBackwards() {
+        AtomicLong clock = new AtomicLong(NOW);
+        IdGenerator generator = new IdGenerator(1, 0, 10, clock::get, -1L, -1L);
+
+        long before = generator.nextId();
+        clock.addAndGet(-5);
+        long after = generator.nextId();
+
+        assertTrue(after > before);
+    }
+
+    @Test
+    @DisplayName("超出容忍窗口的时钟回拨应拒绝发号")
+    void shouldRejectLargeClockBackwards() {
+        AtomicLong clock = new AtomicLong(NOW);
+        IdGenerator generator = new IdGenerator(1, 0, 10, clock::get, -1L, -1L);
+
+        generator.nextId();
+        clock.addAndGet(-100);
+
+        assertThrows(IllegalStateException.class, generator::nextId);
+    }
+
+    @Test
+    @DisplayName("毫秒内序列号用尽应借用下一毫秒，不阻塞")
+    void shouldBorrowNextMillisWhenSequenceExhausted() {
+        AtomicLong clock = new AtomicLong(NOW);
+        IdGenerator generator = new IdGenerator(1, 0, 10, clock::get, -1L, -1L);
+
+        Set<Long> ids = new HashSet<>();
+        long last = -1;
+        for (int i = 0; i < 4096 * 3; i++) {
+            long id = generator.nextId();
+            assertTrue(id > last);
+            last = id;
+            ids.add(id);
+        }
+
+        assertEquals(4096 * 3, ids.size());
+        assertEquals(2, (last >> 22) - ((NOW - 1704067200000L)));
+    }
+
+    @Test
+    @DisplayName("工作节点ID与分段号应编码在ID中")
+    void shouldEncodeWorkerIdAndStripe() {
+        IdGenerator generator = new IdGenerator(1023, 2, 10, () -> NOW, -1L, -1L);
+
+        long id = generator.nextId();
+
+        assertEquals(1023, (id >> 12) & 0x3FF);
+        assertEquals(Thread.currentThread().getId() & 3, (id >> 10) & 0x3);
+    }
+
+    @Test
+    @DisplayName("重建生成器后应从已用时间戳之后继续发号")
+    void configureShouldContinueAfterLastTimestamp() {
+        long before = IdGenerator.getInstance().nextId();
+
+        IdGenerator.configure(5, 2, 10);
+        long after = IdGenerator.getInstance().nextId();
+
+        assertEquals(5, IdGenerator.getInstance().getWorkerId());
+        assertTrue((after >> 22) >= (before >> 22));
+        assertTrue(IdGenerator.generateId("TR").startsWith("TR"));
+    }
+
+    @Test
+    @DisplayName("租约过期未续约应拒绝发号，续约后恢复")
+    void expiredLeaseShouldRefuseToGenerate() {
+        IdGenerator generator = new IdGenerator(3, 0, 10, System::currentTimeMillis, -1L, -1L);
+        generator.nextId();
+
+        generator.renewLease(System.nanoTime() - 1);
+        assertThrows(IllegalStateException.class, generator::nextId);
+
+        generator.renewLease(System.nanoTime() + TimeUnit.SECONDS.toNanos(30));
+        assertEquals(3, (generator.nextId() >> 12) & 0x3FF);
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    @DisplayName("多线程发号吞吐 (1~64 线程)")
+    void benchmarkThroughput() throws InterruptedException {
+        for (int threads : new int[]{1, 2, 4, 8, 16, 32, 64}) {
+            IdGenerator generator = new IdGenerator(1, IdGenerator.DEFAULT_STRIPE_BIT,
+                    IdGenerator.DEFAULT_MAX_BACKWARD_MS, System::currentTimeMillis, -1L, -1L);
+            LongAdder count = new LongAdder();
+            long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            CountDownLatch done = new CountDownLatch(threads);
+            for (int t = 0; t < threads; t++) {
+                pool.execute(() -> {
+                    long local = 0;
+                    while (System.nanoTime() < end) {
+                        generator.nextId();
+                        local++;
+                    }
+                    count.add(local);
+                    done.countDown();
+                });
+            }
+            assertTrue(done.await(30, TimeUnit.SECONDS));
+            pool.shutdown();
+
+            log.info("IdGenerator threads={}, ids/s={}", threads, count.sum() / 2);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.macau.bank.common.framework.lock.support;
+
+import com.macau.bank.common.core.exception.BusinessException;
+import com.macau.bank.common.framework.lock.config.MacauLockProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.redisson.misc.CompletableFutureWrapper;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 两级锁测试
+ * <p>
+ * 核心场景：
+ * 1. 同一 key 的突发请求互斥执行，且共享一个 Redis 租约
+ * 2. 无排队时每次请求独立加锁、解锁
+ * 3. 连续交接达到上限时让出租约
+ * 4. 业务执行超过租期计入超时指标
+ */
+@DisplayName("两级锁测试")
+class TwoTierLockManagerTest {
+
+    private static final String KEY = "lock:account:888001";
+
+    private final RedissonClient redissonClient = mock(RedissonClient.class);
+
+    private final RLock rLock = mock(RLock.class);
+
+    private final MacauLockProperties properties = new MacauLockProperties();
+
+    /**
+     * 模拟 Redis 锁：持有者 ownerId (0 表示空闲) 与重入次数
+     */
+    private long redisOwner;
+
+    private int redisHoldCount;
+
+    private TwoTierLockManager manager;
+
+    @BeforeEach
+    void setUp() {
+        when(redissonClient.getLock(KEY)).thenReturn(rLock);
+        when(rLock.tryLockAsync(anyLong(), anyLong(), any(TimeUnit.class), anyLong())).thenAnswer(invocation -> {
+            long ownerId = invocation.getArgument(3);
+            synchronized (this) {
+                if (redisOwner != 0 && redisOwner != ownerId) {
+                    return new CompletableFutureWrapper<>(false);
+                }
+                redisOwner = ownerId;
+                redisHoldCount++;
+                return new CompletableFutureWrapper<>(true);
+            }
+        });
+        when(rLock.unlockAsync(anyLong())).thenAnswer(invocation -> {
+            long ownerId = invocation.getArgument(0);
+            synchronized (this) {
+                if (redisOwner != ownerId) {
+                    return new CompletableFutureWrapper<Void>(new IllegalMonitorStateException("not owner"));
+                }
+                if (--redisHoldCount == 0) {
+                    redisOwner = 0;
+                }
+                return new CompletableFutureWrapper<>((Void) null);
+            }
+        });
+
+        manager = new TwoTierLockManager();
+        ReflectionTestUtils.setField(manager, "redissonClient", redissonClient);
+        ReflectionTestUtils.setField(manager, "macauLockProperties", properties);
+    }
+
+    @Test
+    @DisplayName("同一 key 的突发请求互斥执行，共享 Redis 租约")
+    void burstShouldShareOneLease() throws Exception {
+        properties.setMaxBurst(1000);
+        int threads = 8;
+        int perThread = 50;
+        AtomicInteger inside = new AtomicInteger();
+        LongAdder violations = new LongAdder();
+
+        runConcurrently(threads, perThread, () -> manager.execute(KEY, 5, 10, TimeUnit.SECONDS, "busy", () -> {
+            if (inside.incrementAndGet() != 1) {
+                violations.increment();
+            }
+            Thread.sleep(0, 100_000);
+            inside.decrementAndGet();
+            return null;
+        }));
+
+        TwoTierLockManager.LockMetrics metrics = manager.metrics();
+        assertEquals(0, violations.sum());
+        assertEquals(threads * perThread, metrics.acquisitions());
+        assertTrue(metrics.leaseAcquires() < metrics.acquisitions() / 2, "leaseAcquires=" + metrics.leaseAcquires());
+        assertEquals(metrics.acquisitions(), metrics.leaseAcquires() + metrics.coalesced());
+        // 突发结束后租约已释放
+        assertEquals(0, redisOwner);
+        assertEquals(0, metrics.activeKeys());
+    }
+
+    @Test
+    @DisplayName("无排队时每次请求独立加锁、解锁")
+    void sequentialCallsShouldReleaseEachTime() throws Throwable {
+        for (int i = 0; i < 3; i++) {
+            assertEquals("ok", manager.execute(KEY, 1, 10, TimeUnit.SECONDS, "busy", () -> "ok"));
+            assertEquals(0, redisOwner);
+        }
+
+        assertEquals(3, manager.metrics().leaseAcquires());
+        verify(rLock, times(3)).unlockAsync(anyLong());
+    }
+
+    @Test
+    @DisplayName("连续交接达到上限时让出租约")
+    void shouldYieldLeaseAfterMaxBurst() throws Exception {
+        properties.setMaxBurst(4);
+
+        runConcurrently(4, 40, () -> manager.execute(KEY, 5, 10, TimeUnit.SECONDS, "busy", () -> {
+            Thread.sleep(0, 100_000);
+            return null;
+        }));
+
+        TwoTierLockManager.LockMetrics metrics = manager.metrics();
+        assertTrue(metrics.burstYields() > 0);
+        assertTrue(metrics.leaseAcquires() * 4 >= metrics.acquisitions(), "leaseAcquires=" + metrics.leaseAcquires());
+        assertEquals(0, redisOwner);
+    }
+
+    @Test
+    @DisplayName("业务执行超过租期计入超时指标，其他节点持锁时加锁失败")
+    void shouldCountLeaseTimeoutAndFailWhenHeldElsewhere() throws Throwable {
+        manager.execute(KEY, 1, 20, TimeUnit.MILLISECONDS, "busy", () -> {
+            Thread.sleep(40);
+            return null;
+        });
+        assertEquals(1, manager.metrics().leaseTimeouts());
+
+        // 其他节点持有
+        redisOwner = 42L;
+        redisHoldCount = 1;
+        BusinessException e = assertThrows(BusinessException.class,
+                () -> manager.execute(KEY, 0, 10, TimeUnit.SECONDS, "busy", () -> null));
+        assertEquals("busy", e.getMessage());
+        assertEquals(1, manager.metrics().acquireFailures());
+    }
+
+    private static void runConcurrently(int threads, int perThread, ThrowingTask task) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        LongAdder failures = new LongAdder();
+        for (int t = 0; t < threads; t++) {
+            pool.execute(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < perThread; i++) {
+                        task.run();
+                    }
+                } catch (Throwable e) {
+                    failures.increment();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        start.countDown();
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        pool.shutdown();
+        assertEquals(0, failures.sum());
+    }
+
+    @FunctionalInterface
+    private interface ThrowingTask {
+        void run() throws Throwable;
+    }
+}
@@ -0,0 +1,141 @@
+package com.macau.bank.common.sequence;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * 号段式序列测试
+ * <p>
+ * 核心场景：
+ * 1. 每个号段只访问一次 Redis，号段内连续发号
+ * 2. 消耗到预取比例时提前领取下一号段
+ * 3. 多线程跨号段发号不重复
+ * 4. 卡号 Luhn 校验位
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("号段式序列测试")
+class SegmentSequenceTest {
+
+    private static final String KEY = "macau:bank:seq:test";
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    private final AtomicLong redisCounter = new AtomicLong();
+
+    @BeforeEach
+    void setUp() {
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.increment(eq(KEY), anyLong()))
+                .thenAnswer(invocation -> redisCounter.addAndGet(invocation.getArgument(1)));
+    }
+
+    @Test
+    @DisplayName("号段内连续发号，每个号段只访问一次 Redis")
+    void shouldAllocateOneSegmentPerStep() {
+        // 同步执行预取，便于断言
+        SegmentSequence sequence = new SegmentSequence(stringRedisTemplate, KEY, 1000, 0.8, Runnable::run);
+
+        List<Long> values = new ArrayList<>();
+        for (int i = 0; i < 2500; i++) {
+            values.add(sequence.next());
+        }
+
+        for (int i = 0; i < values.size(); i++) {
+            assertEquals(i + 1, values.get(i));
+        }
+        verify(valueOperations, times(3)).increment(KEY, 1000L);
+    }
+
+    @Test
+    @DisplayName("消耗到预取比例时应领取下一号段")
+    void shouldPrefetchAtRatio() {
+        SegmentSequence sequence = new SegmentSequence(stringRedisTemplate, KEY, 10, 0.8, Runnable::run);
+
+        for (int i = 0; i < 7; i++) {
+            sequence.next();
+        }
+        verify(valueOperations, times(1)).increment(KEY, 10L);
+
+        assertEquals(8, sequence.next());
+        verify(valueOperations, times(2)).increment(KEY, 10L);
+
+        // 切换到已预取的号段不再访问 Redis
+        sequence.next();
+        sequence.next();
+        assertEquals(11, sequence.next());
+        verify(valueOperations, times(2)).increment(KEY, 10L);
+    }
+
+    @Test
+    @DisplayName("预取失败时应同步领取号段")
+    void shouldFallbackWhenPrefetchFails() {
+        SegmentSequence sequence = new SegmentSequence(stringRedisTemplate, KEY, 2, 0D, runnable -> {
+            throw new IllegalStateException("prefetch rejected");
+        });
+        // 预取被拒绝不影响发号
+        assertEquals(1, sequence.next());
+        assertEquals(2, sequence.next());
+        assertEquals(3, sequence.next());
+        verify(valueOperations, times(2)).increment(KEY, 2L);
+    }
+
+    @Test
+    @DisplayName("多线程跨号段发号不应重复")
+    void concurrentValuesShouldBeUnique() throws InterruptedException {
+        SegmentSequence sequence = new SegmentSequence(stringRedisTemplate, KEY, 100, 0.8);
+        int threads = 8;
+        int perThread = 10_000;
+        Set<Long> values = ConcurrentHashMap.newKeySet();
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            pool.execute(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    values.add(sequence.next());
+                }
+                done.countDown();
+            });
+        }
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        pool.shutdown();
+
+        assertEquals(threads * perThread, values.size());
+    }
+
+    @Test
+    @DisplayName("卡号 Luhn 校验位")
+    void luhnCheckDigit() {
+        assertEquals(3, CardNumberGenerator.calculateLuhnCheckDigit("7992739871"));
+        assertEquals(5, CardNumberGenerator.calculateLuhnCheckDigit("628888000000000"));
+        assertEquals(1, CardNumberGenerator.calculateLuhnCheckDigit("411111111111111"));
+    }
+}
@@ -1,8 +1,9 @@
 package com.macau.bank.forex.application.service.impl;
 
-import com.macau.bank.api.account.request.CreditRpcRequest;
-import com.macau.bank.api.account.request.DebitRpcRequest;
+import com.macau.bank.api.account.request.BalanceOpRpcRequest;
+import com.macau.bank.api.account.response.BalanceOpRpcResponse;
 import com.macau.bank.api.account.service.AccountRpcService;
+import com.macau.bank.common.core.enums.BalanceOpType;
 import com.macau.bank.common.core.enums.BizType;
 import com.macau.bank.common.core.enums.Currency;
 import com.macau.bank.common.core.exception.BusinessException;
@@ -26,7 +27,9 @@ import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Slf4j
@@ -140,45 +143,52 @@ public class ForexAppServiceImpl implements ForexAppService {
             BigDecimal buyCurrencyMopRate) {
 
         try {
-            // 4. 资金扣减 (卖出币种)
-            DebitRpcRequest sellRequest = DebitRpcRequest.builder()
+            // 4. 组装资金分录，一次 RPC 在账户服务的同一个本地事务中完成
+            List<BalanceOpRpcRequest> legs = new ArrayList<>();
+
+            // 4.1 资金扣减 (卖出币种)
+            legs.add(BalanceOpRpcRequest.builder()
+                    .opType(BalanceOpType.DEBIT)
                     .accountNo(cmd.getAccountNo())
                     .currencyCode(cmd.getSellCurrency())
                     .amount(cmd.getSellAmount()) // 金额为正数
                     .description("外币兑换卖出: " + cmd.getPairCode())
                     .bizNo(order.getTxnId())
                     .requestId(cmd.getRequestId() + "_SELL")
-                    .build();
-            Result<Boolean> debitSuccess = accountRpcService.debit(sellRequest);
-            if (!debitSuccess.isSuccess())
-                throw new BusinessException(debitSuccess.getCode(), debitSuccess.getMessage());
+                    .build());
 
-            // 5. 资金增加 (买入币种)
-            CreditRpcRequest buyRequest = CreditRpcRequest.builder()
+            // 4.2 资金增加 (买入币种)
+            legs.add(BalanceOpRpcRequest.builder()
+                    .opType(BalanceOpType.CREDIT)
                     .accountNo(cmd.getAccountNo())
                     .currencyCode(cmd.getBuyCurrency())
                     .amount(order.getBuyAmount()) // 金额为正数
                     .description("外币兑换买入: " + cmd.getPairCode())
                     .bizNo(order.getTxnId())
                     .requestId(order.getRequestId() + "_BUY")
-                    .build();
-            Result<Boolean> creditSuccess = accountRpcService.credit(buyRequest);
-            if (!creditSuccess.isSuccess())
-                throw new BusinessException(creditSuccess.getCode(), creditSuccess.getMessage());
+                    .build());
 
-            // 6. 更新银行资金 (区分本币和外币)
+            // 4.3 本币银行资金通过内部户调账 (区分本币和外币)
             // 用户卖出的币种 -> 银行获得
-            updateBankFunds(cmd.getSellCurrency(), cmd.getSellAmount(), sellCurrencyMopRate,
+            addInternalAccountLeg(legs, cmd.getSellCurrency(), cmd.getSellAmount(),
                     order.getTxnId(), order.getRequestId() + "_BANK_IN", "外汇交易银行收入: " + cmd.getPairCode());
             // 用户买入的币种 -> 银行支出
-            updateBankFunds(cmd.getBuyCurrency(), order.getBuyAmount().negate(), buyCurrencyMopRate,
+            addInternalAccountLeg(legs, cmd.getBuyCurrency(), order.getBuyAmount().negate(),
                     order.getTxnId(), order.getRequestId() + "_BANK_OUT", "外汇交易银行支出: " + cmd.getPairCode());
 
-            // 7. 更新订单状态为成功
+            Result<List<BalanceOpRpcResponse>> batchResult = accountRpcService.executeBatch(legs);
+            if (!batchResult.isSuccess())
+                throw new BusinessException(batchResult.getCode(), batchResult.getMessage());
+
+            // 5. 外币银行资金：更新银行头寸表
+            updateBankPosition(cmd.getSellCurrency(), cmd.getSellAmount(), sellCurrencyMopRate);
+            updateBankPosition(cmd.getBuyCurrency(), order.getBuyAmount().negate(), buyCurrencyMopRate);
+
+            // 6. 更新订单状态为成功
             forexDomainService.updateOrderStatus(order.getTxnId(), ForexTradeStatusEnum.SUCCESS, null);
             order.setStatus(ForexTradeStatusEnum.SUCCESS);
 
-            // 8. 发送异步通知消息
+            // 7. 发送异步通知消息
             sendForexMessage(order);
 
         } catch (BusinessException e) {
@@ -192,56 +202,45 @@ public class ForexAppServiceImpl implements ForexAppService {
     }
 
     /**
-     * 更新银行资金
-     * - 本币(MOP)：通过内部户账户调账
-     * - 外币：更新银行头寸表
+     * 本币(MOP)银行资金：追加银行内部户调账分录，外币不处理
      *
      * @param currency    币种
      * @param amount      金额（正数=银行收入，负数=银行支出）
-     * @param rateToMop   该币种对 MOP 的汇率
      * @param requestId   幂等ID
      * @param description 描述
      */
-    private void updateBankFunds(String currency, BigDecimal amount, BigDecimal rateToMop,
+    private void addInternalAccountLeg(List<BalanceOpRpcRequest> legs, String currency, BigDecimal amount,
             String bizNo, String requestId, String description) {
-        if (LOCAL_CURRENCY.equals(currency)) {
-            // 本币 MOP：通过银行内部户调账
-            log.info("本币调账: currency={}, amount={}, internalAccount={}", currency, amount, bankForexInternalAccountNo);
-
-            // 根据正负决定是扣款还是入账
-            Result<Boolean> result;
-            if (amount.compareTo(BigDecimal.ZERO) < 0) {
-                // 负数 = 扣款
-                DebitRpcRequest request = DebitRpcRequest.builder()
-                        .accountNo(bankForexInternalAccountNo)
-                        .currencyCode(currency)
-                        .amount(amount.abs()) // 转为正数
-                        .description(description)
-                        .bizNo(bizNo)
-                        .requestId(requestId)
-                        .build();
-                result = accountRpcService.debit(request);
-            } else {
-                // 正数 = 入账
-                CreditRpcRequest request = CreditRpcRequest.builder()
-                        .accountNo(bankForexInternalAccountNo)
-                        .currencyCode(currency)
-                        .amount(amount)
-                        .description(description)
-                        .bizNo(bizNo)
-                        .requestId(requestId)
-                        .build();
-                result = accountRpcService.credit(request);
-            }
+        if (!LOCAL_CURRENCY.equals(currency)) {
+            return;
+        }
+        log.info("本币调账: currency={}, amount={}, internalAccount={}", currency, amount, bankForexInternalAccountNo);
+
+        // 根据正负决定是扣款还是入账
+        legs.add(BalanceOpRpcRequest.builder()
+                .opType(amount.compareTo(BigDecimal.ZERO) < 0 ? BalanceOpType.DEBIT : BalanceOpType.CREDIT)
+                .accountNo(bankForexInternalAccountNo)
+                .currencyCode(currency)
+                .amount(amount.abs()) // 转为正数
+                .description(description)
+                .bizNo(bizNo)
+                .requestId(requestId)
+                .build());
+    }
 
-            if (!result.isSuccess()) {
-                throw new BusinessException(result.getCode(), "内部户调账失败: " + result.getMessage());
-            }
-        } else {
-            // 外币：更新银行头寸表
-            log.info("外币头寸更新: currency={}, amount={}", currency, amount);
-            forexDomainService.updateBankPosition(currency, amount, rateToMop);
+    /**
+     * 外币银行资金：更新银行头寸表，本币不处理
+     *
+     * @param currency  币种
+     * @param amount    金额（正数=银行收入，负数=银行支出）
+     * @param rateToMop 该币种对 MOP 的汇率
+     */
+    private void updateBankPosition(String currency, BigDecimal amount, BigDecimal rateToMop) {
+        if (LOCAL_CURRENCY.equals(currency)) {
+            return;
         }
+        log.info("外币头寸更新: currency={}, amount={}", currency, amount);
+        forexDomainService.updateBankPosition(currency, amount, rateToMop);
     }
 
     private void sendForexMessage(ForexTradeOrder order) {
@@ -2,6 +2,7 @@ package com.macau.bank.transfer.application.assembler;
 
 import com.macau.bank.transfer.application.result.TransferOrderResult;
 import com.macau.bank.transfer.domain.entity.TransferOrder;
+import com.macau.bank.transfer.domain.model.TransferOrderSummary;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.ReportingPolicy;
@@ -23,4 +24,8 @@ public interface TransferDtoAssembler {
     TransferOrderResult toResult(TransferOrder transferOrder);
 
     List<TransferOrderResult> toResultList(List<TransferOrder> transferOrderList);
+
+    TransferOrderResult toResult(TransferOrderSummary summary);
+
+    List<TransferOrderResult> toSummaryResultList(List<TransferOrderSummary> summaryList);
 }
@@ -7,6 +7,9 @@ import com.macau.bank.transfer.application.result.TransferResult;
 import com.macau.bank.transfer.common.result.TransferErrorCode;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
 /**
  * Sentinel 降级处理类
  * <p>
@@ -29,7 +32,7 @@ public class TransferSentinelFallback {
      * @param ex  Sentinel 阻塞异常
      * @return 永远不会返回，直接抛出业务异常
      */
-    public static TransferResult submitTransferBlockHandler(TransferCmd cmd, BlockException ex) {
+    public static CompletableFuture<TransferResult> submitTransferBlockHandler(TransferCmd cmd, BlockException ex) {
         log.warn("[Sentinel] 转账接口被限流或熔断: idempotentKey={}, rule={}",
                 cmd.getIdempotentKey(), ex.getRule());
         throw new BusinessException(TransferErrorCode.SYSTEM_BUSY);
@@ -40,19 +43,34 @@ public class TransferSentinelFallback {
      * <p>
      * 当业务逻辑抛出非 BlockException 的异常时，此方法提供兜底响应。
      * 注意：只有在配置了 exceptionsToIgnore 之外的异常时才会触发。
+     * Sentinel 只能拦截同步抛出的异常 (补全、校验、落库)，状态机驱动期间的异常由应用服务经 {@link #degrade} 降级，
+     * 也不计入 Sentinel 的异常统计。
      *
      * @param cmd       转账指令
      * @param throwable 业务异常
      * @return 永远不会返回，直接抛出业务异常
      */
-    public static TransferResult submitTransferFallback(TransferCmd cmd, Throwable throwable) {
+    public static CompletableFuture<TransferResult> submitTransferFallback(TransferCmd cmd, Throwable throwable) {
+        throw degrade(cmd, throwable);
+    }
+
+    /**
+     * 异常降级规则：业务异常原样返回，其余异常转为系统异常提示
+     *
+     * @param cmd       转账指令
+     * @param throwable 异常 (可为 {@link CompletionException} 包装)
+     * @return 应抛给调用方的业务异常
+     */
+    public static BusinessException degrade(TransferCmd cmd, Throwable throwable) {
+        Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+                ? throwable.getCause() : throwable;
         // 如果是业务异常，直接抛出，不做降级处理
-        if (throwable instanceof BusinessException) {
-            throw (BusinessException) throwable;
+        if (cause instanceof BusinessException businessException) {
+            return businessException;
         }
 
         log.error("[Sentinel] 转账接口异常降级: idempotentKey={}, error={}",
-                cmd.getIdempotentKey(), throwable.getMessage(), throwable);
-        throw new BusinessException(TransferErrorCode.SYSTEM_ERROR);
+                cmd.getIdempotentKey(), cause.getMessage(), cause);
+        return new BusinessException(TransferErrorCode.SYSTEM_ERROR);
     }
 }
@@ -0,0 +1,24 @@
+package com.macau.bank.transfer.application.result;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 转账记录分页Result (键集分页)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransferOrderPageResult implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private List<TransferOrderResult> records;
+    private String nextCursor; // 下一页游标，没有更多数据时为 null
+    private boolean hasMore; // 是否还有下一页
+}
@@ -1,10 +1,14 @@
 package com.macau.bank.transfer.application.service;
 
+import com.macau.bank.common.core.enums.TransferChannel;
+import com.macau.bank.common.core.enums.TransferStatus;
 import com.macau.bank.transfer.application.command.TransferCmd;
+import com.macau.bank.transfer.application.result.TransferOrderPageResult;
 import com.macau.bank.transfer.application.result.TransferOrderResult;
 import com.macau.bank.transfer.application.result.TransferResult;
 
-import java.util.List;
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 转账应用服务
@@ -15,23 +19,28 @@ public interface TransferAppService {
 
     /**
      * 发起转账
+     * <p>
+     * 校验、落库失败直接抛出；状态机驱动异步进行，调用线程不等待账户服务响应
      *
      * @param cmd 转账命令对象
-     * @return 转账结果（受理中/成功/失败）
+     * @return 驱动结束时完成的转账结果（受理中/成功/失败）
      */
-    TransferResult submitTransfer(TransferCmd cmd);
+    CompletableFuture<TransferResult> submitTransfer(TransferCmd cmd);
 
     /**
-     * 分页查询转账订单列表
+     * 分页查询转账记录 (按创建时间倒序，游标翻页)
      *
-     * @param payerAccountId     付款账户ID（可选）
+     * @param userNo             付款用户编号
+     * @param payerAccountNo     付款账户号（可选）
      * @param payeeAccountNumber 收款账户号（可选）
-     * @param page               页码
+     * @param status             转账状态（可选）
+     * @param channel            转账通道（可选）
+     * @param cursor             翻页游标，首页为空
      * @param pageSize           每页数量
-     * @return 转账订单结果列表
+     * @return 转账记录分页结果
      */
-    List<TransferOrderResult> getTransferOrders(Long payerAccountId, String payeeAccountNumber, Integer page,
-            Integer pageSize);
+    TransferOrderPageResult getTransferOrders(String userNo, String payerAccountNo, String payeeAccountNumber,
+            TransferStatus status, TransferChannel channel, String cursor, Integer pageSize);
 
     /**
      * 根据ID查询转账订单详情
@@ -48,6 +57,13 @@ public interface TransferAppService {
      */
     void executeDailyReconciliation(int shardIndex);
 
+    /**
+     * 以订单表为准重建累计限额用量
+     *
+     * @param day 重建该日的日累计及其所在月的月累计
+     */
+    void rebuildLimitUsage(LocalDate day);
+
     /**
      * 冲正/退款转账订单
      * <p>
@@ -1,18 +1,25 @@
 package com.macau.bank.transfer.application.service.impl;
 
 import com.alibaba.csp.sentinel.annotation.SentinelResource;
+import com.macau.bank.common.core.enums.TransferChannel;
+import com.macau.bank.common.core.enums.TransferStatus;
 import com.macau.bank.common.core.exception.BusinessException;
 import com.macau.bank.transfer.application.command.TransferCmd;
 import com.macau.bank.transfer.application.fallback.TransferSentinelFallback;
 import com.macau.bank.transfer.common.annotation.Auditable;
+import com.macau.bank.transfer.application.result.TransferOrderPageResult;
 import com.macau.bank.transfer.application.result.TransferOrderResult;
 import com.macau.bank.transfer.application.result.TransferResult;
 import com.macau.bank.transfer.application.service.TransferAppService;
 import com.macau.bank.transfer.domain.ability.TransferContextBuilder;
 import com.macau.bank.transfer.domain.context.TransferContext;
 import com.macau.bank.transfer.domain.entity.TransferOrder;
+import com.macau.bank.transfer.domain.model.TransferOrderSlice;
+import com.macau.bank.transfer.domain.model.TransferOrderSummary;
+import com.macau.bank.transfer.domain.query.TransferOrderCursor;
 import com.macau.bank.transfer.domain.query.TransferOrderQuery;
 import com.macau.bank.transfer.domain.factory.TransferStrategyFactory;
+import com.macau.bank.transfer.domain.service.TransferLimitDomainService;
 import com.macau.bank.transfer.domain.service.TransferOrderDomainService;
 import com.macau.bank.transfer.domain.service.TransferReversalDomainService;
 import com.macau.bank.transfer.domain.strategy.TransferStrategy;
@@ -21,7 +28,9 @@ import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 转账应用服务实现
@@ -46,7 +55,7 @@ public class TransferAppServiceImpl implements TransferAppService {
     @SentinelResource(value = "transfer:submit", blockHandlerClass = TransferSentinelFallback.class, blockHandler = "submitTransferBlockHandler", fallbackClass = TransferSentinelFallback.class, fallback = "submitTransferFallback", exceptionsToIgnore = {
             BusinessException.class })
     @Auditable(action = "TRANSFER_SUBMIT", targetType = "TRANSFER_ORDER", targetIdExpr = "#cmd.idempotentKey")
-    public TransferResult submitTransfer(TransferCmd cmd) {
+    public CompletableFuture<TransferResult> submitTransfer(TransferCmd cmd) {
         log.info("应用服务 - 接收转账指令: from={}, to={}, amount={}",
                 cmd.getFromAccountNo(), cmd.getToAccountNo(), cmd.getAmount());
 
@@ -56,24 +65,43 @@ public class TransferAppServiceImpl implements TransferAppService {
         // 2. 构建上下文 (Cmd -> Context)
         TransferContext context = transferContextBuilder.build(cmd);
 
-        // 3. 执行转账（Domain 层返回 Context）
-        TransferContext executedContext = strategy.execute(context);
-
-        // 4. Application 层组装结果
-        return TransferResult.fromContext(executedContext);
+        // 3. 执行转账（Domain 层异步返回 Context）
+        // 4. Application 层组装结果；驱动期间的异常不经过 Sentinel 切面，按同一规则降级
+        return strategy.execute(context)
+                .thenApply(TransferResult::fromContext)
+                .exceptionally(e -> {
+                    throw TransferSentinelFallback.degrade(cmd, e);
+                });
     }
 
     @Override
-    public List<TransferOrderResult> getTransferOrders(Long payerAccountId, String payeeAccountNumber,
-            Integer page, Integer pageSize) {
+    public TransferOrderPageResult getTransferOrders(String userNo, String payerAccountNo, String payeeAccountNumber,
+            TransferStatus status, TransferChannel channel, String cursor, Integer pageSize) {
         // 构建查询条件
+        TransferOrderCursor position = TransferOrderCursor.decode(cursor);
         TransferOrderQuery condition = TransferOrderQuery.builder()
+                .payerUserNo(userNo)
+                .payerAccountNo(payerAccountNo)
                 .payeeAccountNo(payeeAccountNumber)
+                .status(status)
+                .transferChannel(channel)
+                .cursorTime(position == null ? null : position.createTime())
+                .cursorId(position == null ? null : position.id())
                 .build();
 
-        List<TransferOrder> records = transferOrderDomainService.getTransferOrders(condition, page, pageSize);
+        TransferOrderSlice slice = transferOrderDomainService.getTransferOrders(condition,
+                pageSize == null ? 10 : pageSize);
 
-        return transferDtoAssembler.toResultList(records);
+        String nextCursor = null;
+        if (slice.isHasMore()) {
+            TransferOrderSummary last = slice.getRecords().get(slice.getRecords().size() - 1);
+            nextCursor = new TransferOrderCursor(last.getCreateTime(), last.getId()).encode();
+        }
+        return TransferOrderPageResult.builder()
+                .records(transferDtoAssembler.toSummaryResultList(slice.getRecords()))
+                .nextCursor(nextCursor)
+                .hasMore(slice.isHasMore())
+                .build();
     }
 
     @Override
@@ -94,6 +122,15 @@ public class TransferAppServiceImpl implements TransferAppService {
         log.info("应用层正在编排对账流程，分片：{}", shardIndex);
     }
 
+    @Resource
+    private TransferLimitDomainService transferLimitDomainService;
+
+    @Override
+    public void rebuildLimitUsage(LocalDate day) {
+        log.info("应用服务 - 重建累计限额用量: day={}", day);
+        transferLimitDomainService.rebuildCumulativeUsage(day);
+    }
+
     @Resource
     private TransferReversalDomainService transferReversalDomainService;
 
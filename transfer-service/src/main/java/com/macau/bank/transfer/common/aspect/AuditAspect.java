@@ -1,6 +1,7 @@
 package com.macau.bank.transfer.common.aspect;
 
 import cn.hutool.json.JSONUtil;
+import com.macau.bank.common.framework.expression.MethodExpressionEvaluator;
 import com.macau.bank.transfer.common.annotation.Auditable;
 import com.macau.bank.transfer.domain.repository.AuditLogRepository;
 import com.macau.bank.transfer.domain.entity.AuditLog;
@@ -11,11 +12,6 @@ import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.reflect.MethodSignature;
-import org.springframework.core.DefaultParameterNameDiscoverer;
-import org.springframework.expression.EvaluationContext;
-import org.springframework.expression.Expression;
-import org.springframework.expression.spel.standard.SpelExpressionParser;
-import org.springframework.expression.spel.support.StandardEvaluationContext;
 import org.springframework.stereotype.Component;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
@@ -23,6 +19,8 @@ import org.springframework.web.context.request.ServletRequestAttributes;
 import java.lang.reflect.Method;
 import java.time.LocalDateTime;
 import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 
 /**
  * 审计日志切面
@@ -38,6 +36,12 @@ import java.util.UUID;
  * 架构说明：
  * - 遵循 DDD 分层，通过 Repository 接口访问持久层
  * - 不直接依赖 Mapper，保持层间解耦
+ * <p>
+ * 性能说明：
+ * - targetIdExpr 按方法预解析并缓存，不在每次调用时重新解析
+ * - 请求/响应只序列化最终落库的那一份
+ * - 保存交给 Repository，开启异步写入时业务线程只入队，不等待 INSERT
+ * - 返回 CompletionStage 的方法在 Future 完成时记录结果
  */
 @Slf4j
 @Aspect
@@ -47,8 +51,10 @@ public class AuditAspect {
     @Resource
     private AuditLogRepository auditLogRepository;
 
-    private final SpelExpressionParser parser = new SpelExpressionParser();
-    private final DefaultParameterNameDiscoverer nameDiscoverer = new DefaultParameterNameDiscoverer();
+    /**
+     * targetIdExpr 按方法预编译缓存
+     */
+    private final MethodExpressionEvaluator evaluator = new MethodExpressionEvaluator();
 
     @Around("@annotation(auditable)")
     public Object audit(ProceedingJoinPoint pjp, Auditable auditable) throws Throwable {
@@ -68,65 +74,75 @@ public class AuditAspect {
             auditLog.setTargetId(targetId);
         }
 
-        // 记录请求参数
-        if (auditable.logRequest()) {
-            Object[] args = pjp.getArgs();
-            if (args != null && args.length > 0) {
-                auditLog.setAfterData(toJson(args[0]));
-            }
-        }
-
         // 获取客户端信息
         fillClientInfo(auditLog);
 
-        Object result = null;
+        Object result;
         try {
             // 执行业务逻辑
             result = pjp.proceed();
+        } catch (Throwable e) {
+            finish(auditLog, auditable, pjp, startTime, null, e);
+            throw e;
+        }
 
+        // 异步方法按 Future 的结果记录，耗时统计到完成为止
+        if (result instanceof CompletionStage<?> stage) {
+            return stage.toCompletableFuture().whenComplete((value, e) -> finish(auditLog, auditable, pjp, startTime,
+                    value, e instanceof CompletionException && e.getCause() != null ? e.getCause() : e));
+        }
+        finish(auditLog, auditable, pjp, startTime, result, null);
+        return result;
+    }
+
+    /**
+     * 记录结果并保存
+     */
+    private void finish(AuditLog auditLog, Auditable auditable, ProceedingJoinPoint pjp, long startTime,
+            Object result, Throwable error) {
+        if (error == null) {
             // 记录成功结果
             auditLog.setResult("SUCCESS");
-            if (auditable.logResponse() && result != null) {
-                // 避免响应数据过大，截断处理
-                String responseJson = toJson(result);
-                if (responseJson.length() > 2000) {
-                    responseJson = responseJson.substring(0, 2000) + "...(truncated)";
-                }
-                auditLog.setAfterData(responseJson);
-            }
-
-            return result;
-        } catch (Throwable e) {
+        } else {
             // 记录失败信息
             auditLog.setResult("FAILURE");
-            auditLog.setErrorMessage(e.getMessage());
-            throw e;
-        } finally {
-            // 记录耗时并异步保存
-            auditLog.setDuration(System.currentTimeMillis() - startTime);
-            saveAuditLog(auditLog);
+            auditLog.setErrorMessage(error.getMessage());
         }
+        // 响应优先于请求，只序列化最终保留的一份
+        fillAfterData(auditLog, auditable, pjp, result);
+        // 记录耗时并保存 (异步写入开启时仅入队)
+        auditLog.setDuration(System.currentTimeMillis() - startTime);
+        saveAuditLog(auditLog);
     }
 
     /**
-     * 解析 SpEL 表达式
+     * 记录请求参数或响应结果
      */
-    private String parseSpelExpression(String spelExpr, ProceedingJoinPoint pjp) {
-        try {
-            MethodSignature signature = (MethodSignature) pjp.getSignature();
-            Method method = signature.getMethod();
-            String[] paramNames = nameDiscoverer.getParameterNames(method);
+    private void fillAfterData(AuditLog auditLog, Auditable auditable, ProceedingJoinPoint pjp, Object result) {
+        if (auditable.logResponse() && result != null) {
+            // 避免响应数据过大，截断处理
+            String responseJson = toJson(result);
+            if (responseJson.length() > 2000) {
+                responseJson = responseJson.substring(0, 2000) + "...(truncated)";
+            }
+            auditLog.setAfterData(responseJson);
+            return;
+        }
+        if (auditable.logRequest()) {
             Object[] args = pjp.getArgs();
-
-            EvaluationContext context = new StandardEvaluationContext();
-            if (paramNames != null) {
-                for (int i = 0; i < paramNames.length; i++) {
-                    context.setVariable(paramNames[i], args[i]);
-                }
+            if (args != null && args.length > 0) {
+                auditLog.setAfterData(toJson(args[0]));
             }
+        }
+    }
 
-            Expression expression = parser.parseExpression(spelExpr);
-            Object value = expression.getValue(context);
+    /**
+     * 解析 SpEL 表达式
+     */
+    private String parseSpelExpression(String spelExpr, ProceedingJoinPoint pjp) {
+        try {
+            Method method = ((MethodSignature) pjp.getSignature()).getMethod();
+            Object value = evaluator.evaluate(method, spelExpr, pjp.getArgs(), Object.class);
             return value != null ? value.toString() : null;
         } catch (Exception e) {
             log.warn("解析 SpEL 表达式失败: {}", spelExpr, e);
@@ -16,6 +16,7 @@ import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
 import java.lang.reflect.Method;
+import java.util.concurrent.CompletionStage;
 
 /**
  * 防重复提交切面
@@ -61,14 +62,24 @@ public class PreventDuplicateAspect {
             throw new BusinessException(TransferErrorCode.DUPLICATE_REQUEST);
         }
 
+        Object result;
         try {
             // 5. 执行业务逻辑
-            return joinPoint.proceed();
+            result = joinPoint.proceed();
         } catch (Exception e) {
             // 6. 如果业务逻辑失败，删除 Token（允许重试）
             stringRedisTemplate.delete(key);
             throw e;
         }
+        // 异步方法在 Future 失败时删除 Token，先于响应写回
+        if (result instanceof CompletionStage<?> stage) {
+            return stage.toCompletableFuture().whenComplete((value, e) -> {
+                if (e != null) {
+                    stringRedisTemplate.delete(key);
+                }
+            });
+        }
+        return result;
     }
 
     /**
@@ -0,0 +1,18 @@
+package com.macau.bank.transfer.common.enums;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 累计限额额度占用结果
+ */
+@Getter
+@AllArgsConstructor
+public enum LimitReserveResultEnum {
+    RESERVED("占用成功"),
+    DUPLICATE("该笔交易已占用过额度"),
+    DAILY_EXCEEDED("超出日累计限额"),
+    MONTHLY_EXCEEDED("超出月累计限额");
+
+    private final String desc;
+}
@@ -29,9 +29,14 @@ public enum TransferErrorCode implements IResultCode {
 
     DUPLICATE_REQUEST(303013, "请勿重复提交", "transfer.duplicate.request"),
 
+    TRANSFER_DAILY_LIMIT_EXCEEDED(303014, "超出日累计转账限额", "transfer.daily.limit.exceeded"),
+    TRANSFER_MONTHLY_LIMIT_EXCEEDED(303015, "超出月累计转账限额", "transfer.monthly.limit.exceeded"),
+    INVALID_PAGE_CURSOR(303016, "翻页游标无效", "transfer.page.cursor.invalid"),
+
     // ==================== Transfer服务 - 系统错误 (3039xx) ====================
     SYSTEM_BUSY(303901, "系统繁忙，请稍后重试", "transfer.system.busy"),
     SYSTEM_ERROR(303902, "系统异常，请稍后重试", "transfer.system.error"),
+    PROCESSING_TIMEOUT(303903, "交易处理超时，请稍后查询交易结果", "transfer.processing.timeout"),
 
     // ==================== Transfer服务 - 冲正错误 (3038xx) ====================
     REVERSAL_NOT_ALLOWED(303801, "订单状态不允许冲正", "transfer.reversal.not.allowed"),
@@ -4,21 +4,34 @@ import com.macau.bank.api.user.response.UserInfoRpcResponse;
 import com.macau.bank.common.core.domain.Money;
 import com.macau.bank.common.core.enums.TransferChannel;
 import com.macau.bank.common.core.enums.UserLevel;
+import com.macau.bank.common.core.exception.BusinessException;
 import com.macau.bank.transfer.application.command.TransferCmd;
+import com.macau.bank.transfer.common.result.TransferErrorCode;
 import com.macau.bank.transfer.domain.context.TransferContext;
 import com.macau.bank.transfer.domain.entity.TransferOrder;
 import com.macau.bank.transfer.domain.gateway.AccountGateway;
 import com.macau.bank.transfer.domain.gateway.UserGateway;
 import com.macau.bank.transfer.domain.model.AccountSnapshot;
+import com.macau.bank.transfer.domain.repository.TransferContextCacheRepository;
 import com.macau.bank.transfer.domain.service.TransferFeeDomainService;
+import com.macau.bank.transfer.domain.service.TransferLimitDomainService;
 import com.macau.bank.transfer.domain.service.TransferOrderDomainService;
 import com.macau.bank.transfer.domain.valobj.PayeeInfo;
 import com.macau.bank.transfer.domain.valobj.PayerInfo;
 import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
 
 import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
+@Slf4j
 @Component
 public class TransferContextBuilder {
 
@@ -34,6 +47,21 @@ public class TransferContextBuilder {
     @Resource
     private UserGateway userGateway;
 
+    @Resource
+    private TransferLimitDomainService limitService;
+
+    @Resource
+    private TransferContextCacheRepository contextCacheRepository;
+
+    @Resource(name = "transferEnrichExecutor")
+    private Executor transferEnrichExecutor;
+
+    /**
+     * 上下文补全每一阶段的等待时限 (毫秒)
+     */
+    @Value("${transfer.enrich.stage-timeout-millis:1500}")
+    private long stageTimeoutMillis = 1500;
+
     public TransferContext build(TransferCmd cmd) {
         TransferContext context = new TransferContext();
 
@@ -73,20 +101,34 @@ public class TransferContextBuilder {
 
     /**
      * 上下文补全：查 RPC -> 算费 -> 填充 Context
+     * <p>
+     * 依赖关系：付款账户 -> 用户等级 -> (手续费, 单笔限额)；行内转账的收款账户与上述链路无关。
+     * 互不依赖的查询并行发起，每一阶段最多等待 stageTimeoutMillis，超时视为系统繁忙
      */
     public void enrich(TransferContext context, TransferChannel channel) {
         TransferOrder order = context.getOrder();
+        String currency = order.getPayerInfo().getCurrency();
+
+        // 1. 并行：查付款账户 + (行内转账) 预查收款账户
+        CompletableFuture<AccountSnapshot> payerFuture = CompletableFuture.supplyAsync(
+                () -> accountGateway.getAccount(order.getPayerInfo().getAccountNo()), transferEnrichExecutor);
+        CompletableFuture<AccountSnapshot> payeeFuture = prefetchPayeeAccount(order, channel);
 
-        // 1. 查付款账户 (并行查询优化点)
-        AccountSnapshot fromAccount = accountGateway.getAccount(order.getPayerInfo().getAccountNo());
+        AccountSnapshot fromAccount = await(payerFuture, "查询付款账户");
+        if (fromAccount == null) {
+            throw new BusinessException(TransferErrorCode.FROM_ACCOUNT_NOT_FOUND);
+        }
 
-        // 2. 查用户等级
+        // 2. 查用户等级 (依赖付款账户的 userNo)
         UserInfoRpcResponse user = userGateway.getUserByUserNo(fromAccount.getUserNo());
-        UserLevel level = (user != null) ? user.getUserLevel() : UserLevel.NORMAL;
+        UserLevel level = (user != null && user.getUserLevel() != null) ? user.getUserLevel() : UserLevel.NORMAL;
 
-        // 3. 算费
-        BigDecimal fee = feeService.calculateFee(channel.name(), order.getPayerInfo().getCurrency(), level.getCode(),
-                context.getAmount());
+        // 3. 并行：算费 + 单笔限额校验 (均依赖用户等级)
+        CompletableFuture<Boolean> limitFuture = CompletableFuture.supplyAsync(
+                () -> limitService.checkSingleLimit(level.getCode(), order.getTransferType().name(), currency,
+                        context.getAmount()), transferEnrichExecutor);
+        BigDecimal fee = feeService.calculateFee(channel.name(), currency, level.getCode(), context.getAmount());
+        context.setSingleLimitPassed(await(limitFuture, "查询转账限额"));
 
         // 4. 填充数据
         order.setPayerInfo(order.getPayerInfo().toBuilder()
@@ -97,10 +139,76 @@ public class TransferContextBuilder {
         order.setTransferChannel(channel);
         context.setPayerUserLevel(level);
         context.setPayerAccount(fromAccount);
+        if (payeeFuture != null) {
+            context.setPayeeAccount(awaitQuietly(payeeFuture));
+        }
+    }
+
+    /**
+     * 行内转账预查收款账户；查询失败不影响付款方补全，由策略在校验阶段重新查询并报错
+     */
+    private CompletableFuture<AccountSnapshot> prefetchPayeeAccount(TransferOrder order, TransferChannel channel) {
+        String toAccountNo = order.getPayeeInfo() != null ? order.getPayeeInfo().getAccountNo() : null;
+        if (channel != TransferChannel.INTERNAL || !StringUtils.hasText(toAccountNo)) {
+            return null;
+        }
+        return CompletableFuture.supplyAsync(() -> toAccountNo.length() >= 16
+                // 长度超过16位，大概率是卡号
+                ? accountGateway.getAccountByCardNo(toAccountNo)
+                : accountGateway.getAccount(toAccountNo), transferEnrichExecutor);
+    }
+
+    /**
+     * 在阶段时限内等待查询结果，业务异常原样抛出
+     */
+    private <T> T await(CompletableFuture<T> future, String stage) {
+        try {
+            return future.get(stageTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.warn("转账上下文补全超时: stage={}, timeout={}ms", stage, stageTimeoutMillis);
+            throw new BusinessException(TransferErrorCode.SYSTEM_BUSY);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new BusinessException(TransferErrorCode.SYSTEM_ERROR.getCode(), e.getCause().getMessage(),
+                    e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException(TransferErrorCode.SYSTEM_BUSY);
+        }
+    }
 
+    private <T> T awaitQuietly(CompletableFuture<T> future) {
+        try {
+            return future.get(stageTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (Exception e) {
+            log.warn("预查收款账户失败，校验阶段重新查询: {}", e.getMessage());
+            return null;
+        }
     }
 
+    /**
+     * 暂存提交时补全好的上下文，供风控回调续跑时取回
+     * <p>
+     * 须在订单进入 PENDING_RISK 之后调用；回调已先到达时暂存被拒绝，回调照常回表
+     */
+    public void retain(TransferContext context) {
+        contextCacheRepository.save(context);
+    }
+
+    /**
+     * 风控回调重建上下文：优先取回提交时暂存的上下文 (只能取回一次)，取不到时回表，
+     * 此时只有订单，账户快照等由 Handler 按需查询
+     */
     public TransferContext rebuild(String txnId) {
+        TransferContext retained = contextCacheRepository.take(txnId);
+        if (retained != null) {
+            return retained;
+        }
 
         TransferOrder order = orderDomainService.getTransferOrderByTxnId(txnId);
         TransferContext context = TransferContext
@@ -49,12 +49,15 @@ public class TransferValidator {
             throw new BusinessException(TransferErrorCode.FROM_ACCOUNT_BALANCE_NOT_ENOUGH);
         }
 
-        // 3. 限额校验
-        boolean safe = limitService.checkSingleLimit(
-                context.getPayerUserLevel().getCode(),
-                context.getOrder().getTransferType().name(),
-                context.getOrder().getAmount().getCurrencyCode(),
-                context.getAmount());
+        // 3. 限额校验 (补全阶段已并行校验时直接取结果)
+        Boolean safe = context.getSingleLimitPassed();
+        if (safe == null) {
+            safe = limitService.checkSingleLimit(
+                    context.getPayerUserLevel().getCode(),
+                    context.getOrder().getTransferType().name(),
+                    context.getOrder().getAmount().getCurrencyCode(),
+                    context.getAmount());
+        }
         if (!safe) {
             throw new BusinessException(TransferErrorCode.TRANSFER_AMOUNT_EXCEED_LIMIT);
         }
@@ -30,6 +30,7 @@ public class TransferContext {
     private AccountSnapshot payerAccount;
     private AccountSnapshot payeeAccount;
     private UserLevel payerUserLevel;
+    private Boolean singleLimitPassed; // 补全阶段预先完成的单笔限额校验结果，null 表示未校验
     private String transactionPassword; // 敏感数据只在内存传
 
     // ===========================
@@ -0,0 +1,67 @@
+package com.macau.bank.transfer.domain.entity;
+
+import com.macau.bank.common.core.enums.TransferStatus;
+import com.macau.bank.transfer.domain.pipeline.PhaseOutcome;
+import com.macau.bank.transfer.domain.pipeline.TransferPhaseEnum;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+/**
+ * 状态机阶段日志领域实体
+ * <p>
+ * 只追加不修改：状态机每执行 (或跳过) 一个阶段记录一条，
+ * 恢复/重投递时据此从第一个未完成的阶段继续执行
+ */
+@Getter
+@Setter
+@ToString
+public class TransferPhaseRecord {
+
+    /**
+     * 主键ID
+     */
+    private Long id;
+
+    /**
+     * 交易流水号
+     */
+    private String txnId;
+
+    /**
+     * 本次驱动的起始状态 (同一订单不同流转路径的阶段互不影响)
+     */
+    private TransferStatus fromStatus;
+
+    /**
+     * 执行阶段
+     */
+    private TransferPhaseEnum phase;
+
+    /**
+     * 执行结果
+     */
+    private PhaseOutcome outcome;
+
+    /**
+     * 第几次驱动 (同一起始状态下从 1 开始递增)
+     */
+    private Integer attempt;
+
+    /**
+     * 阶段耗时（微秒）
+     */
+    private Long costMicros;
+
+    /**
+     * 错误信息（执行失败时）
+     */
+    private String errorMessage;
+
+    /**
+     * 创建时间
+     */
+    private LocalDateTime createTime;
+}
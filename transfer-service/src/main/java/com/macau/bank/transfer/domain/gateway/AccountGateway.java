@@ -2,13 +2,21 @@ package com.macau.bank.transfer.domain.gateway;
 
 import com.macau.bank.common.core.enums.BizType;
 import com.macau.bank.transfer.domain.model.AccountSnapshot;
+import com.macau.bank.transfer.domain.model.BalanceEntry;
 
 import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BooleanSupplier;
 
 /**
  * 账户网关接口
  * 归属：Domain 层
  * 作用：策略类只认这个接口，不认 Dubbo
+ * <p>
+ * 余额操作另有 *Async 版本供状态机阶段使用：默认在调用线程上同步执行并返回已结束的 Future；
+ * 基于 RPC 的实现应覆盖为异步调用，调用线程只负责发出请求。返回的 Future 被调用方提前结束 (如阶段超时) 时，
+ * 实现只需停止等待响应，已发出的请求不保证撤回，由幂等 requestId / TCC 空回滚兜底
  */
 public interface AccountGateway {
 
@@ -87,4 +95,71 @@ public interface AccountGateway {
          */
         boolean unfreezeAndDebit(String accountNo, String currencyCode, BigDecimal amount, String flowNo,
                         String reason, BizType bizType, String requestId);
+
+        /**
+         * 批量记账（原子操作）
+         * <p>
+         * 场景：转账结算 → 解冻扣款、扣手续费、收款人入账在账户服务的同一个本地事务中完成，任一分录失败整体回滚；
+         * 各分录按自身 requestId 幂等，与逐笔调用可以互相重试
+         *
+         * @param entries 余额变动分录 (按执行顺序)
+         * @return 全部分录是否成功
+         */
+        boolean executeBatch(List<BalanceEntry> entries);
+
+        /**
+         * 异步扣款，参数与结果同 {@link #debit}
+         */
+        default CompletableFuture<Boolean> debitAsync(String accountNo, String currencyCode, BigDecimal amount,
+                        String description, String bizNo, String requestId) {
+                return supply(() -> debit(accountNo, currencyCode, amount, description, bizNo, requestId));
+        }
+
+        /**
+         * 异步入账，参数与结果同 {@link #credit}
+         */
+        default CompletableFuture<Boolean> creditAsync(String accountNo, String currencyCode, BigDecimal amount,
+                        String description, String bizNo, String requestId) {
+                return supply(() -> credit(accountNo, currencyCode, amount, description, bizNo, requestId));
+        }
+
+        /**
+         * 异步冻结，参数与结果同 {@link #freeze}
+         */
+        default CompletableFuture<Boolean> freezeAsync(String accountNo, String currencyCode, BigDecimal amount,
+                        String flowNo, String reason) {
+                return supply(() -> freeze(accountNo, currencyCode, amount, flowNo, reason));
+        }
+
+        /**
+         * 异步解冻，参数与结果同 {@link #unFreeze}
+         */
+        default CompletableFuture<Boolean> unFreezeAsync(String accountNo, String currencyCode, BigDecimal amount,
+                        String flowNo, String reason) {
+                return supply(() -> unFreeze(accountNo, currencyCode, amount, flowNo, reason));
+        }
+
+        /**
+         * 异步解冻并扣款，参数与结果同 {@link #unfreezeAndDebit}
+         */
+        default CompletableFuture<Boolean> unfreezeAndDebitAsync(String accountNo, String currencyCode,
+                        BigDecimal amount, String flowNo, String reason, BizType bizType, String requestId) {
+                return supply(() -> unfreezeAndDebit(accountNo, currencyCode, amount, flowNo, reason, bizType,
+                                requestId));
+        }
+
+        /**
+         * 异步批量记账，参数与结果同 {@link #executeBatch}
+         */
+        default CompletableFuture<Boolean> executeBatchAsync(List<BalanceEntry> entries) {
+                return supply(() -> executeBatch(entries));
+        }
+
+        private static CompletableFuture<Boolean> supply(BooleanSupplier call) {
+                try {
+                        return CompletableFuture.completedFuture(call.getAsBoolean());
+                } catch (RuntimeException e) {
+                        return CompletableFuture.failedFuture(e);
+                }
+        }
 }
@@ -35,4 +35,9 @@ public class RiskResultMsg implements Serializable {
      */
     private String reason;
 
+    /**
+     * 驱动失败后由消费者重投的次数，风控系统发出时为 0
+     */
+    private int redeliverTimes;
+
 }
\ No newline at end of file
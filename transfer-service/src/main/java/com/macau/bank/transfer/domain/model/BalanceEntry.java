@@ -0,0 +1,51 @@
+package com.macau.bank.transfer.domain.model;
+
+import com.macau.bank.common.core.enums.BalanceOpType;
+import com.macau.bank.common.core.enums.BizType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * 余额变动分录
+ * <p>
+ * 合并阶段批量提交给账户服务的单条分录，字段含义与对应的单笔网关方法一致：
+ * DEBIT/CREDIT 使用 bizNo、requestId；UNFREEZE_AND_DEBIT 使用 flowNo、requestId、bizType
+ * </p>
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BalanceEntry {
+
+    /** 操作类型 */
+    private BalanceOpType opType;
+
+    /** 账户号 */
+    private String accountNo;
+
+    /** 币种代码 */
+    private String currencyCode;
+
+    /** 金额 (必须为正数) */
+    private BigDecimal amount;
+
+    /** 业务描述/原因 */
+    private String description;
+
+    /** 业务流水号 */
+    private String bizNo;
+
+    /** 幂等请求ID (与逐阶段执行时一致) */
+    private String requestId;
+
+    /** 业务类型 */
+    private BizType bizType;
+
+    /** 冻结流水号 */
+    private String flowNo;
+}
@@ -0,0 +1,19 @@
+package com.macau.bank.transfer.domain.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 转账记录一页 (键集分页，不统计总数)
+ */
+@Getter
+@AllArgsConstructor
+public class TransferOrderSlice {
+    private final List<TransferOrderSummary> records;
+    /**
+     * 游标之后是否还有更多记录
+     */
+    private final boolean hasMore;
+}
@@ -0,0 +1,30 @@
+package com.macau.bank.transfer.domain.model;
+
+import com.macau.bank.common.core.enums.TransferChannel;
+import com.macau.bank.common.core.enums.TransferStatus;
+import com.macau.bank.common.core.enums.TransferType;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 转账记录列表投影：只包含列表展示所需字段，不读取风控/AML 详情等大字段
+ */
+@Getter
+@Builder
+public class TransferOrderSummary {
+    private final Long id;
+    private final String txnId;
+    private final String payerAccountNo;
+    private final String payeeAccountNo;
+    private final String payeeAccountName;
+    private final BigDecimal amount;
+    private final String currencyCode;
+    private final BigDecimal fee;
+    private final TransferStatus status;
+    private final TransferType transferType;
+    private final TransferChannel transferChannel;
+    private final LocalDateTime createTime;
+}
@@ -0,0 +1,18 @@
+package com.macau.bank.transfer.domain.pipeline;
+
+/**
+ * 阶段执行结果
+ * <p>
+ * 状态机每执行一个 {@link TransferHandler} 记录一次，写入阶段日志
+ */
+public enum PhaseOutcome {
+
+    /** 执行成功 - 恢复时跳过该阶段 */
+    SUCCESS,
+
+    /** 执行失败 - 恢复时从该阶段重新执行 */
+    FAILED,
+
+    /** 已跳过 - 之前的尝试中已成功，本次未重复调用 */
+    SKIPPED
+}
@@ -1,6 +1,13 @@
 package com.macau.bank.transfer.domain.pipeline;
 
 import com.macau.bank.transfer.domain.context.TransferContext;
+import com.macau.bank.transfer.domain.model.BalanceEntry;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
 
 /**
  * 转账处理器接口
@@ -21,6 +28,66 @@ public interface TransferHandler {
      */
     void handle(TransferContext context);
 
+    /**
+     * 异步执行处理逻辑
+     * <p>
+     * 默认在给定线程池上执行 {@link #handle}；任务开始前返回的 Future 已结束 (超时/取消) 时不再发起调用。
+     * 下游提供异步客户端 (如 Dubbo 异步调用) 的处理器覆盖本方法，直接返回客户端的 Future 而不占用线程等待；
+     * 状态机在阶段超时时结束返回的 Future，客户端据此停止等待，因此不要在其上再派生新的 Future 返回。
+     *
+     * @param context  转账上下文
+     * @param executor 阶段线程池
+     * @return 处理完成时结束的 Future，结果值不使用
+     */
+    default CompletionStage<?> handleAsync(TransferContext context, Executor executor) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        executor.execute(() -> {
+            if (future.isDone()) {
+                return;
+            }
+            try {
+                handle(context);
+                future.complete(null);
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * 同步等待异步处理结果，失败时抛出原异常
+     * <p>
+     * 供以 {@link #handleAsync} 为主实现的处理器实现 {@link #handle}
+     *
+     * @param stage 处理结果
+     */
+    static void await(CompletionStage<?> stage) {
+        try {
+            stage.toCompletableFuture().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 本阶段的余额变动分录，供合并阶段 (如 {@link TransferPhaseEnum#SETTLE}) 在一次账户服务调用中执行
+     * <p>
+     * 分录的幂等 requestId 必须与 {@link #handle} 中的调用一致，合并执行失败后才能安全地退回逐阶段执行。
+     *
+     * @param context 转账上下文
+     * @return 余额变动分录，无需记账时返回空列表；返回 null 表示本阶段不支持合并
+     */
+    default List<BalanceEntry> balanceEntries(TransferContext context) {
+        return null;
+    }
+
     /**
      * 获取本处理器负责的阶段
      *
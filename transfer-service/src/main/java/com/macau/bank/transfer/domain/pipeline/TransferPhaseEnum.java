@@ -1,5 +1,7 @@
 package com.macau.bank.transfer.domain.pipeline;
 
+import java.util.List;
+
 /**
  * 转账阶段枚举
  * <p>
@@ -8,6 +10,7 @@ package com.macau.bank.transfer.domain.pipeline;
  * 设计说明：
  * - 每个枚举值对应一个 {@link TransferHandler} 实现类
  * - 状态机引擎根据策略配置的阶段列表依次执行
+ * - 合并阶段由若干成员阶段组成，没有独立的 Handler，由状态机引擎汇总成员阶段的余额分录后一次执行
  */
 public enum TransferPhaseEnum {
 
@@ -41,5 +44,33 @@ public enum TransferPhaseEnum {
     REVERSE_DEDUCT,
 
     /** 手续费冲正 - 退还手续费（可选） */
-    REVERSE_FEE
+    REVERSE_FEE,
+
+    // ==================== 合并阶段 ====================
+
+    /** 行内结算 - 扣手续费、解冻扣款、收款人入账在账户服务的同一个事务中完成 */
+    SETTLE(DEDUCT_FEE, DEDUCT_PAYER, CREDIT_PAYEE),
+
+    /** 出款结算 - 扣手续费、解冻扣款在账户服务的同一个事务中完成（收款方在行外） */
+    SETTLE_OUTBOUND(DEDUCT_FEE, DEDUCT_PAYER);
+
+    private final List<TransferPhaseEnum> fusedPhases;
+
+    TransferPhaseEnum(TransferPhaseEnum... fusedPhases) {
+        this.fusedPhases = List.of(fusedPhases);
+    }
+
+    /**
+     * 合并阶段包含的成员阶段 (按执行顺序)，普通阶段返回空列表
+     */
+    public List<TransferPhaseEnum> getFusedPhases() {
+        return fusedPhases;
+    }
+
+    /**
+     * 是否为合并阶段
+     */
+    public boolean isFused() {
+        return !fusedPhases.isEmpty();
+    }
 }
\ No newline at end of file
@@ -1,13 +1,19 @@
 package com.macau.bank.transfer.domain.pipeline.impl;
 
+import com.macau.bank.common.core.enums.BalanceOpType;
 import com.macau.bank.transfer.domain.context.TransferContext;
 import com.macau.bank.transfer.domain.gateway.AccountGateway;
+import com.macau.bank.transfer.domain.model.BalanceEntry;
 import com.macau.bank.transfer.domain.pipeline.TransferHandler;
 import com.macau.bank.transfer.domain.pipeline.TransferPhaseEnum;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+
 /**
  * 收款人入账处理器
  * <p>
@@ -31,10 +37,15 @@ public class CreditPayeeHandler implements TransferHandler {
 
     @Override
     public void handle(TransferContext context) {
+        TransferHandler.await(handleAsync(context, Runnable::run));
+    }
+
+    @Override
+    public CompletionStage<?> handleAsync(TransferContext context, Executor executor) {
         log.info("阶段 [CreditPayee]: 行内转账，准备给收款人入账...");
 
         // 直接调用 Account 服务给收款人加钱
-        accountGateway.credit(
+        return accountGateway.creditAsync(
                 context.getOrder().getPayeeInfo().getAccountNo(),
                 context.getOrder().getAmount().getCurrencyCode(),
                 context.getAmount(),
@@ -43,4 +54,17 @@ public class CreditPayeeHandler implements TransferHandler {
                 context.getOrder().getIdempotentKey() + "_PAYEE" // 幂等键
         );
     }
+
+    @Override
+    public List<BalanceEntry> balanceEntries(TransferContext context) {
+        return List.of(BalanceEntry.builder()
+                .opType(BalanceOpType.CREDIT)
+                .accountNo(context.getOrder().getPayeeInfo().getAccountNo())
+                .currencyCode(context.getOrder().getAmount().getCurrencyCode())
+                .amount(context.getAmount())
+                .description("行内转账收款")
+                .bizNo(context.getOrder().getTxnId())
+                .requestId(context.getOrder().getIdempotentKey() + "_PAYEE")
+                .build());
+    }
 }
\ No newline at end of file
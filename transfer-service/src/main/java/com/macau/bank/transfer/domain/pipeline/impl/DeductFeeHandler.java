@@ -1,8 +1,10 @@
 package com.macau.bank.transfer.domain.pipeline.impl;
 
+import com.macau.bank.common.core.enums.BalanceOpType;
 import com.macau.bank.transfer.domain.context.TransferContext;
 import com.macau.bank.transfer.domain.entity.TransferOrder;
 import com.macau.bank.transfer.domain.gateway.AccountGateway;
+import com.macau.bank.transfer.domain.model.BalanceEntry;
 import com.macau.bank.transfer.domain.pipeline.TransferHandler;
 import com.macau.bank.transfer.domain.pipeline.TransferPhaseEnum;
 import jakarta.annotation.Resource;
@@ -10,6 +12,10 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
 
 /**
  * 扣除手续费处理器
@@ -37,20 +43,43 @@ public class DeductFeeHandler implements TransferHandler {
 
     @Override
     public void handle(TransferContext context) {
+        TransferHandler.await(handleAsync(context, Runnable::run));
+    }
+
+    @Override
+    public CompletionStage<?> handleAsync(TransferContext context, Executor executor) {
         BigDecimal fee = context.getOrder().getFee();
         if (fee == null || fee.compareTo(BigDecimal.ZERO) == 0) {
             log.info("免手续费，跳过 DeductFee 阶段");
-            return;
+            return CompletableFuture.completedFuture(null);
         }
 
         log.info("阶段 [DeductFee]: 开始扣除手续费: {}", fee);
 
         // 这里假设手续费是立即扣除的
         TransferOrder order = context.getOrder();
-        accountGateway.debit(
+        return accountGateway.debitAsync(
                 context.getOrder().getPayerInfo().getAccountNo(),
                 context.getOrder().getAmount().getCurrencyCode(), fee, "转账手续费", order.getTxnId(),
                 order.getIdempotentKey() + "_FEE");
 
     }
+
+    @Override
+    public List<BalanceEntry> balanceEntries(TransferContext context) {
+        BigDecimal fee = context.getOrder().getFee();
+        if (fee == null || fee.compareTo(BigDecimal.ZERO) == 0) {
+            return List.of();
+        }
+        TransferOrder order = context.getOrder();
+        return List.of(BalanceEntry.builder()
+                .opType(BalanceOpType.DEBIT)
+                .accountNo(order.getPayerInfo().getAccountNo())
+                .currencyCode(order.getAmount().getCurrencyCode())
+                .amount(fee)
+                .description("转账手续费")
+                .bizNo(order.getTxnId())
+                .requestId(order.getIdempotentKey() + "_FEE")
+                .build());
+    }
 }
\ No newline at end of file
@@ -1,15 +1,21 @@
 package com.macau.bank.transfer.domain.pipeline.impl;
 
+import com.macau.bank.common.core.enums.BalanceOpType;
 import com.macau.bank.common.core.enums.BizType;
 import com.macau.bank.transfer.domain.context.TransferContext;
 import com.macau.bank.transfer.domain.entity.TransferOrder;
 import com.macau.bank.transfer.domain.gateway.AccountGateway;
+import com.macau.bank.transfer.domain.model.BalanceEntry;
 import com.macau.bank.transfer.domain.pipeline.TransferHandler;
 import com.macau.bank.transfer.domain.pipeline.TransferPhaseEnum;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+
 /**
  * 扣款处理器
  * <p>
@@ -36,16 +42,36 @@ public class DeductMoneyHandler implements TransferHandler {
 
     @Override
     public void handle(TransferContext context) {
+        TransferHandler.await(handleAsync(context, Runnable::run));
+    }
+
+    @Override
+    public CompletionStage<?> handleAsync(TransferContext context, Executor executor) {
         log.info("阶段 [DeductMoney]: 风控通过，执行 TCC Confirm (实扣), txnId={}",
                 context.getOrder().getPayerInfo().getAccountNo());
 
         // 调用 TCC Confirm 接口
         // 关键点：传 txnId，Account 服务会根据 txnId 找到那条 "FROZEN" 记录，并将其核销
         TransferOrder order = context.getOrder();
-        accountGateway.unfreezeAndDebit(
+        return accountGateway.unfreezeAndDebitAsync(
                 context.getOrder().getPayerInfo().getAccountNo(),
                 context.getOrder().getAmount().getCurrencyCode(),
                 order.getAmount().getAmount(),
                 order.getTxnId(), "转账资金解冻", BizType.TRANSFER_OUT, order.getIdempotentKey() + "_PAYER");
     }
+
+    @Override
+    public List<BalanceEntry> balanceEntries(TransferContext context) {
+        TransferOrder order = context.getOrder();
+        return List.of(BalanceEntry.builder()
+                .opType(BalanceOpType.UNFREEZE_AND_DEBIT)
+                .accountNo(order.getPayerInfo().getAccountNo())
+                .currencyCode(order.getAmount().getCurrencyCode())
+                .amount(order.getAmount().getAmount())
+                .flowNo(order.getTxnId())
+                .description("转账资金解冻")
+                .bizType(BizType.TRANSFER_OUT)
+                .requestId(order.getIdempotentKey() + "_PAYER")
+                .build());
+    }
 }
\ No newline at end of file
@@ -9,6 +9,9 @@ import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+
 /**
  * 冻结资金处理器
  * <p>
@@ -32,8 +35,13 @@ public class FreezeFundHandler implements TransferHandler {
 
     @Override
     public void handle(TransferContext context) {
+        TransferHandler.await(handleAsync(context, Runnable::run));
+    }
+
+    @Override
+    public CompletionStage<?> handleAsync(TransferContext context, Executor executor) {
         log.info("开始请求账户服务进行冻结: txnId={}", context.getOrder().getTxnId());
-        accountGateway.freeze(context.getOrder().getPayerInfo().getAccountNo(),
+        return accountGateway.freezeAsync(context.getOrder().getPayerInfo().getAccountNo(),
                 context.getOrder().getPayerInfo().getCurrency(),
                 context.getAmount(), context.getOrder().getTxnId(), "转账资金冻结");
     }
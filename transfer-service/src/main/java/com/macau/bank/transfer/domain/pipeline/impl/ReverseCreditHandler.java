@@ -8,6 +8,10 @@ import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+
 /**
  * 入账冲正处理器
  * <p>
@@ -35,6 +39,11 @@ public class ReverseCreditHandler implements TransferHandler {
 
     @Override
     public void handle(TransferContext context) {
+        TransferHandler.await(handleAsync(context, Runnable::run));
+    }
+
+    @Override
+    public CompletionStage<?> handleAsync(TransferContext context, Executor executor) {
         log.info("[冲正] 开始入账冲正: orderId={}, payeeAccount={}, amount={}",
                 context.getOrder().getId(),
                 context.getOrder().getPayeeInfo().getAccountNo(),
@@ -44,7 +53,7 @@ public class ReverseCreditHandler implements TransferHandler {
         String reversalIdempotentKey = "REVERSE_CREDIT:" + context.getOrder().getIdempotentKey();
 
         // 从收款方账户扣回资金
-        accountGateway.debit(
+        CompletableFuture<Boolean> future = accountGateway.debitAsync(
                 context.getOrder().getPayeeInfo().getAccountNo(),
                 context.getOrder().getAmount().getCurrencyCode(),
                 context.getOrder().getAmount().getAmount(),
@@ -52,9 +61,10 @@ public class ReverseCreditHandler implements TransferHandler {
                 context.getOrder().getTxnId(),
                 reversalIdempotentKey);
 
-        log.info("[冲正] 入账冲正成功: orderId={}, 已从收款方 {} 扣回 {}",
+        future.thenRun(() -> log.info("[冲正] 入账冲正成功: orderId={}, 已从收款方 {} 扣回 {}",
                 context.getOrder().getId(),
                 context.getOrder().getPayeeInfo().getAccountNo(),
-                context.getOrder().getAmount().getAmount());
+                context.getOrder().getAmount().getAmount()));
+        return future;
     }
 }
@@ -8,6 +8,10 @@ import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+
 /**
  * 扣款冲正处理器
  * <p>
@@ -35,6 +39,11 @@ public class ReverseDeductHandler implements TransferHandler {
 
     @Override
     public void handle(TransferContext context) {
+        TransferHandler.await(handleAsync(context, Runnable::run));
+    }
+
+    @Override
+    public CompletionStage<?> handleAsync(TransferContext context, Executor executor) {
         log.info("[冲正] 开始扣款冲正: orderId={}, payerAccount={}, amount={}",
                 context.getOrder().getId(),
                 context.getOrder().getPayerInfo().getAccountNo(),
@@ -44,7 +53,7 @@ public class ReverseDeductHandler implements TransferHandler {
         String reversalIdempotentKey = "REVERSE_DEDUCT:" + context.getOrder().getIdempotentKey();
 
         // 将资金退回付款方账户
-        accountGateway.credit(
+        CompletableFuture<Boolean> future = accountGateway.creditAsync(
                 context.getOrder().getPayerInfo().getAccountNo(),
                 context.getOrder().getAmount().getCurrencyCode(),
                 context.getOrder().getAmount().getAmount(),
@@ -52,9 +61,10 @@ public class ReverseDeductHandler implements TransferHandler {
                 context.getOrder().getTxnId(),
                 reversalIdempotentKey);
 
-        log.info("[冲正] 扣款冲正成功: orderId={}, 已退回付款方 {} 金额 {}",
+        future.thenRun(() -> log.info("[冲正] 扣款冲正成功: orderId={}, 已退回付款方 {} 金额 {}",
                 context.getOrder().getId(),
                 context.getOrder().getPayerInfo().getAccountNo(),
-                context.getOrder().getAmount().getAmount());
+                context.getOrder().getAmount().getAmount()));
+        return future;
     }
 }
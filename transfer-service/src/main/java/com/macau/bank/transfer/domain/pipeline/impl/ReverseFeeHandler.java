@@ -9,6 +9,9 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
 
 /**
  * 手续费冲正处理器
@@ -36,13 +39,18 @@ public class ReverseFeeHandler implements TransferHandler {
 
     @Override
     public void handle(TransferContext context) {
+        TransferHandler.await(handleAsync(context, Runnable::run));
+    }
+
+    @Override
+    public CompletionStage<?> handleAsync(TransferContext context, Executor executor) {
         BigDecimal fee = context.getOrder().getFee();
 
         // 如果没有手续费，跳过
         if (fee == null || fee.compareTo(BigDecimal.ZERO) <= 0) {
             log.info("[冲正] 无手续费，跳过手续费冲正: orderId={}",
                     context.getOrder().getId());
-            return;
+            return CompletableFuture.completedFuture(null);
         }
 
         log.info("[冲正] 开始手续费冲正: orderId={}, payerAccount={}, fee={}",
@@ -54,7 +62,7 @@ public class ReverseFeeHandler implements TransferHandler {
         String reversalIdempotentKey = "REVERSE_FEE:" + context.getOrder().getIdempotentKey();
 
         // 将手续费退回付款方账户
-        accountGateway.credit(
+        CompletableFuture<Boolean> future = accountGateway.creditAsync(
                 context.getOrder().getPayerInfo().getAccountNo(),
                 context.getOrder().getAmount().getCurrencyCode(),
                 fee,
@@ -62,9 +70,10 @@ public class ReverseFeeHandler implements TransferHandler {
                 context.getOrder().getTxnId(),
                 reversalIdempotentKey);
 
-        log.info("[冲正] 手续费冲正成功: orderId={}, 已退回付款方 {} 手续费 {}",
+        future.thenRun(() -> log.info("[冲正] 手续费冲正成功: orderId={}, 已退回付款方 {} 手续费 {}",
                 context.getOrder().getId(),
                 context.getOrder().getPayerInfo().getAccountNo(),
-                fee);
+                fee));
+        return future;
     }
 }
@@ -7,9 +7,15 @@ import com.macau.bank.transfer.domain.pipeline.TransferHandler;
 import com.macau.bank.transfer.domain.pipeline.TransferPhaseEnum;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.rocketmq.client.producer.SendCallback;
+import org.apache.rocketmq.client.producer.SendResult;
 import org.apache.rocketmq.spring.core.RocketMQTemplate;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+
 /**
  * 风控消息发送处理器
  * <p>
@@ -35,6 +41,16 @@ public class SendRiskMqHandler implements TransferHandler {
 
     @Override
     public void handle(TransferContext context) {
+        TransferHandler.await(handleAsync(context, Runnable::run));
+    }
+
+    /**
+     * 异步发送风控申请，Broker 确认后结束
+     * <p>
+     * 发送无法撤回：阶段超时后消息仍可能投递成功，风控回调按当前订单状态续跑
+     */
+    @Override
+    public CompletionStage<?> handleAsync(TransferContext context, Executor executor) {
         log.info("阶段 [SendRiskMq]: 准备发送风控申请, txnId={}", context.getOrder().getTxnId());
 
         // 构造消息体 (必须包含 txnId 以便回调接力)
@@ -45,8 +61,23 @@ public class SendRiskMqHandler implements TransferHandler {
         msg.setTargetCountry("MO");
 
         // 发送普通消息 (因为本地事务马上就提交了，这里不需要再用事务消息了)
-        rocketMQTemplate.convertAndSend(MqTopicConst.TP_RISK_CHECK_REQUEST, msg);
+        CompletableFuture<SendResult> future = new CompletableFuture<>();
+        try {
+            rocketMQTemplate.asyncSend(MqTopicConst.TP_RISK_CHECK_REQUEST, msg, new SendCallback() {
+                @Override
+                public void onSuccess(SendResult sendResult) {
+                    log.info("风控消息已发送，等待回调: txnId={}, msgId={}", msg.getTxnId(), sendResult.getMsgId());
+                    future.complete(sendResult);
+                }
 
-        log.info("风控消息已发送，当前线程任务结束，等待回调...");
+                @Override
+                public void onException(Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
     }
 }
\ No newline at end of file
@@ -9,6 +9,9 @@ import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+
 /**
  * 解冻资金处理器
  * <p>
@@ -32,11 +35,16 @@ public class UnfreezeHandler implements TransferHandler {
 
     @Override
     public void handle(TransferContext context) {
+        TransferHandler.await(handleAsync(context, Runnable::run));
+    }
+
+    @Override
+    public CompletionStage<?> handleAsync(TransferContext context, Executor executor) {
         log.info("阶段 [Unfreeze]: 交易终止，执行 TCC Cancel (解冻), txnId={}", context.getOrder().getAmount().getCurrencyCode());
 
         // 解冻资金
         TransferOrder order = context.getOrder();
-        accountGateway.unFreeze(
+        return accountGateway.unFreezeAsync(
                 context.getOrder().getPayerInfo().getAccountNo(),
                 context.getOrder().getAmount().getCurrencyCode(),
                 order.getAmount().getAmount(),
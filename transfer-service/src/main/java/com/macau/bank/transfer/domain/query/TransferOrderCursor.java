@@ -0,0 +1,47 @@
+package com.macau.bank.transfer.domain.query;
+
+import com.macau.bank.common.core.exception.BusinessException;
+import com.macau.bank.transfer.common.result.TransferErrorCode;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * 转账记录翻页游标：(create_time, id) 编码为对调用方不透明的 URL 安全字符串
+ *
+ * @param createTime 上一页最后一条订单的创建时间
+ * @param id         上一页最后一条订单的主键
+ */
+public record TransferOrderCursor(LocalDateTime createTime, Long id) {
+
+    private static final char SEPARATOR = '|';
+
+    public String encode() {
+        String raw = createTime.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析游标，空串表示第一页返回 null
+     *
+     * @throws BusinessException 游标被篡改或格式错误
+     */
+    public static TransferOrderCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int idx = raw.lastIndexOf(SEPARATOR);
+            if (idx <= 0) {
+                throw new BusinessException(TransferErrorCode.INVALID_PAGE_CURSOR);
+            }
+            return new TransferOrderCursor(LocalDateTime.parse(raw.substring(0, idx)),
+                    Long.parseLong(raw.substring(idx + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new BusinessException(TransferErrorCode.INVALID_PAGE_CURSOR);
+        }
+    }
+}
@@ -1,9 +1,12 @@
 package com.macau.bank.transfer.domain.query;
 
+import com.macau.bank.common.core.enums.TransferChannel;
 import com.macau.bank.common.core.enums.TransferStatus;
 import lombok.Builder;
 import lombok.Data;
 
+import java.time.LocalDateTime;
+
 /**
  * 转账订单查询条件 VO
  * <p>
@@ -18,6 +21,11 @@ public class TransferOrderQuery {
      */
     private String payerUserNo;
 
+    /**
+     * 付款账号
+     */
+    private String payerAccountNo;
+
     /**
      * 收款方账号
      */
@@ -28,4 +36,19 @@ public class TransferOrderQuery {
      */
     private TransferStatus status;
 
+    /**
+     * 转账通道
+     */
+    private TransferChannel transferChannel;
+
+    /**
+     * 翻页游标：上一页最后一条订单的创建时间 (为空表示第一页)
+     */
+    private LocalDateTime cursorTime;
+
+    /**
+     * 翻页游标：上一页最后一条订单的主键
+     */
+    private Long cursorId;
+
 }
@@ -0,0 +1,20 @@
+package com.macau.bank.transfer.domain.repository;
+
+import java.time.Duration;
+
+/**
+ * 风控频率计数仓储接口
+ * <p>
+ * 按用户统计固定窗口内的预筛放行笔数，窗口从该用户第一次计数开始
+ */
+public interface RiskVelocityRepository {
+
+    /**
+     * 计数加一并返回窗口内的累计值
+     *
+     * @param userNo 用户编号
+     * @param window 统计窗口
+     * @return 加一后的累计值
+     */
+    long increment(String userNo, Duration window);
+}
@@ -0,0 +1,37 @@
+package com.macau.bank.transfer.domain.repository;
+
+import com.macau.bank.transfer.domain.context.TransferContext;
+
+/**
+ * 转账上下文暂存仓储接口
+ * <p>
+ * 提交时补全好的上下文 (订单、付款/收款账户快照、用户等级、限额校验结果) 按 txnId 暂存，
+ * 风控回调直接取回续跑，不再回表、不再重复 RPC 补全。交易密码与扩展属性不暂存。
+ * <p>
+ * 暂存项只能取回一次；订单在回调之外被修改 (如冲正) 前必须先 {@link #evict}，
+ * 取不到时调用方回表重建
+ */
+public interface TransferContextCacheRepository {
+
+    /**
+     * 暂存上下文；该 txnId 已被取回或作废时不再写入
+     *
+     * @param context 已补全的上下文
+     */
+    void save(TransferContext context);
+
+    /**
+     * 取回并作废暂存的上下文
+     *
+     * @param txnId 交易流水号
+     * @return 上下文 (订单为独立副本)，未暂存、已过期、已取回或出错时返回 null
+     */
+    TransferContext take(String txnId);
+
+    /**
+     * 作废暂存的上下文，之后的 {@link #save} 与 {@link #take} 均不再生效
+     *
+     * @param txnId 交易流水号
+     */
+    void evict(String txnId);
+}
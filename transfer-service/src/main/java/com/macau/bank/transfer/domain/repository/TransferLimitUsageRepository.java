@@ -0,0 +1,47 @@
+package com.macau.bank.transfer.domain.repository;
+
+import com.macau.bank.common.core.enums.TransferType;
+import com.macau.bank.transfer.common.enums.LimitReserveResultEnum;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+/**
+ * 累计限额用量仓储接口
+ * <p>
+ * 按 (用户, 转账类型, 币种, 周期) 记录已占用额度，每笔交易按 txnId 占用一次、释放一次
+ */
+public interface TransferLimitUsageRepository {
+
+    /**
+     * 原子地校验并占用日/月额度
+     *
+     * @param dailyLimit   日累计限额，null 表示不限制
+     * @param monthlyLimit 月累计限额，null 表示不限制
+     * @return 占用结果，超限时不占用任何额度
+     */
+    LimitReserveResultEnum reserve(String userNo, TransferType transferType, String currency, String txnId,
+            BigDecimal amount, LocalDate bizDate, BigDecimal dailyLimit, BigDecimal monthlyLimit);
+
+    /**
+     * 释放该笔交易占用的额度，未占用或已释放时不做任何操作
+     *
+     * @return 是否实际释放了额度
+     */
+    boolean release(String userNo, String txnId);
+
+    /**
+     * 以订单表为准重建某一天的日累计用量
+     *
+     * @return 重建的计数器数量
+     */
+    int rebuildDaily(LocalDate day);
+
+    /**
+     * 以订单表为准重建某一月的月累计用量
+     *
+     * @return 重建的计数器数量
+     */
+    int rebuildMonthly(YearMonth month);
+}
@@ -1,6 +1,7 @@
 package com.macau.bank.transfer.domain.repository;
 
 import com.macau.bank.transfer.domain.entity.TransferOrder;
+import com.macau.bank.transfer.domain.model.TransferOrderSummary;
 import com.macau.bank.transfer.domain.query.TransferOrderQuery;
 import java.util.List;
 
@@ -36,11 +37,12 @@ public interface TransferOrderRepository {
     TransferOrder findByTxnId(String txnId);
 
     /**
-     * 列表查询
+     * 转账记录键集分页查询：从游标位置 (不含) 起按创建时间倒序取 limit 条列表投影
      *
-     * @param condition 查询条件
-     * @return 结果列表
+     * @param condition 查询条件 (payerUserNo 必填)
+     * @param limit     最多返回条数
+     * @return 列表投影
      */
-    List<TransferOrder> query(TransferOrderQuery condition);
+    List<TransferOrderSummary> queryHistory(TransferOrderQuery condition, int limit);
 
 }
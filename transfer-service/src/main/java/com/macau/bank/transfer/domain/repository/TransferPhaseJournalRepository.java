@@ -0,0 +1,31 @@
+package com.macau.bank.transfer.domain.repository;
+
+import com.macau.bank.common.core.enums.TransferStatus;
+import com.macau.bank.transfer.domain.entity.TransferPhaseRecord;
+
+import java.util.List;
+
+/**
+ * 状态机阶段日志仓储接口
+ * <p>
+ * 阶段日志只用于加速恢复：记录丢失时状态机会重新执行对应阶段，由下游幂等保证正确性，
+ * 因此实现可以异步批量写入。
+ */
+public interface TransferPhaseJournalRepository {
+
+    /**
+     * 追加一条阶段日志
+     *
+     * @param record 阶段日志
+     */
+    void append(TransferPhaseRecord record);
+
+    /**
+     * 查询订单在指定起始状态下的阶段日志
+     *
+     * @param txnId      交易流水号
+     * @param fromStatus 驱动起始状态
+     * @return 阶段日志，按写入顺序
+     */
+    List<TransferPhaseRecord> findByTxnId(String txnId, TransferStatus fromStatus);
+}
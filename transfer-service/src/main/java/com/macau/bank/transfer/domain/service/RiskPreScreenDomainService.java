@@ -0,0 +1,175 @@
+package com.macau.bank.transfer.domain.service;
+
+import com.macau.bank.common.core.enums.RiskLevel;
+import com.macau.bank.transfer.domain.context.TransferContext;
+import com.macau.bank.transfer.domain.entity.TransferOrder;
+import com.macau.bank.transfer.domain.entity.TransferPayeeBook;
+import com.macau.bank.transfer.domain.model.AccountSnapshot;
+import com.macau.bank.transfer.domain.repository.RiskVelocityRepository;
+import com.macau.bank.transfer.domain.repository.TransferPayeeBookRepository;
+import com.macau.bank.transfer.infra.config.RiskPreScreenProperties;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 风控预筛领域服务
+ * <p>
+ * 在转账服务内按配置规则快速判定低风险转账，放行的转账在本次请求内直接结算，
+ * 其余 (包括预筛自身出错) 一律走异步风控，预筛只会放行、不会拒绝。
+ * <p>
+ * 规则按成本从低到高依次判定，任一不满足即停止：
+ * 1. 转账类型、币种在白名单内
+ * 2. 金额不超过付款人等级对应的上限
+ * 3. 付款账户风险等级为 LOW
+ * 4. 收款方为本人账户，或在收款人名册中有足够的历史转账
+ * 5. 窗口内放行笔数未超过频率上限 (最后判定，只有前面全部通过才计数)
+ * </p>
+ * 指标：各判定结果的笔数，见 {@link #metrics()}。
+ */
+@Slf4j
+@Service
+public class RiskPreScreenDomainService {
+
+    @Resource
+    private RiskPreScreenProperties riskPreScreenProperties;
+
+    @Resource
+    private TransferPayeeBookRepository transferPayeeBookRepository;
+
+    @Resource
+    private RiskVelocityRepository riskVelocityRepository;
+
+    private final Map<Verdict, LongAdder> verdictCounts = newCounters();
+
+    /**
+     * 预筛当前转账
+     *
+     * @param context 已完成补全与校验的转账上下文
+     * @return 是否放行 (true 表示可跳过异步风控直接结算)
+     */
+    public boolean clear(TransferContext context) {
+        Verdict verdict;
+        try {
+            verdict = evaluate(context);
+        } catch (Exception e) {
+            log.warn("风控预筛异常，走异步风控: txnId={}, error={}", context.getOrder().getTxnId(), e.getMessage());
+            verdict = Verdict.ERROR;
+        }
+        verdictCounts.get(verdict).increment();
+        log.info("风控预筛: txnId={}, verdict={}", context.getOrder().getTxnId(), verdict);
+        return verdict == Verdict.CLEARED;
+    }
+
+    /**
+     * 预筛指标快照：各判定结果的累计笔数
+     */
+    public Map<Verdict, Long> metrics() {
+        Map<Verdict, Long> snapshot = new EnumMap<>(Verdict.class);
+        verdictCounts.forEach((verdict, count) -> snapshot.put(verdict, count.sum()));
+        return Collections.unmodifiableMap(snapshot);
+    }
+
+    private Verdict evaluate(TransferContext context) {
+        if (!riskPreScreenProperties.isEnabled()) {
+            return Verdict.DISABLED;
+        }
+        TransferOrder order = context.getOrder();
+        if (!riskPreScreenProperties.getTransferTypes().contains(order.getTransferType())) {
+            return Verdict.TRANSFER_TYPE;
+        }
+        if (!riskPreScreenProperties.getCurrencies().contains(order.getAmount().getCurrencyCode())) {
+            return Verdict.CURRENCY;
+        }
+
+        BigDecimal maxAmount = context.getPayerUserLevel() == null ? null
+                : riskPreScreenProperties.getMaxAmount().get(context.getPayerUserLevel().getCode());
+        if (maxAmount == null || context.getAmount().compareTo(maxAmount) > 0) {
+            return Verdict.AMOUNT;
+        }
+
+        AccountSnapshot payerAccount = context.getPayerAccount();
+        if (payerAccount == null || payerAccount.getRiskLevel() != RiskLevel.LOW) {
+            return Verdict.PAYER_RISK;
+        }
+
+        String userNo = order.getPayerInfo().getUserNo();
+        if (!isKnownPayee(context, userNo)) {
+            return Verdict.NEW_PAYEE;
+        }
+
+        long count = riskVelocityRepository.increment(userNo,
+                Duration.ofSeconds(riskPreScreenProperties.getVelocityWindowSeconds()));
+        if (count > riskPreScreenProperties.getMaxVelocity()) {
+            return Verdict.VELOCITY;
+        }
+        return Verdict.CLEARED;
+    }
+
+    /**
+     * 收款方是否为本人账户或熟悉的收款人
+     */
+    private boolean isKnownPayee(TransferContext context, String userNo) {
+        AccountSnapshot payeeAccount = context.getPayeeAccount();
+        if (payeeAccount != null && userNo != null && userNo.equals(payeeAccount.getUserNo())) {
+            return true;
+        }
+
+        TransferPayeeBook condition = new TransferPayeeBook();
+        condition.setUserNo(userNo);
+        condition.setAccountNo(context.getOrder().getPayeeInfo().getAccountNo());
+        TransferPayeeBook payee = transferPayeeBookRepository.findOne(condition);
+        return payee != null
+                && Objects.requireNonNullElse(payee.getTotalTransCount(), 0)
+                >= riskPreScreenProperties.getMinPayeeTransCount();
+    }
+
+    private static Map<Verdict, LongAdder> newCounters() {
+        Map<Verdict, LongAdder> counters = new EnumMap<>(Verdict.class);
+        for (Verdict verdict : Verdict.values()) {
+            counters.put(verdict, new LongAdder());
+        }
+        return counters;
+    }
+
+    /**
+     * 预筛判定结果，除 CLEARED 外均表示走异步风控及其原因
+     */
+    public enum Verdict {
+
+        /** 放行 */
+        CLEARED,
+
+        /** 未启用预筛 */
+        DISABLED,
+
+        /** 转账类型不在白名单 */
+        TRANSFER_TYPE,
+
+        /** 币种不在白名单 */
+        CURRENCY,
+
+        /** 金额超过等级上限或等级未配置 */
+        AMOUNT,
+
+        /** 付款账户风险等级非 LOW */
+        PAYER_RISK,
+
+        /** 新收款人 (非本人且历史转账不足) */
+        NEW_PAYEE,
+
+        /** 超过放行频率上限 */
+        VELOCITY,
+
+        /** 预筛出错 */
+        ERROR
+    }
+}
@@ -1,13 +1,11 @@
 package com.macau.bank.transfer.domain.service;
 
-import com.macau.bank.transfer.common.enums.FeeCalcModeEnum;
 import com.macau.bank.transfer.domain.entity.TransferFeeConfig;
 import com.macau.bank.transfer.domain.repository.TransferFeeConfigRepository;
 import jakarta.annotation.Resource;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 
 /**
  * 转账手续费领域服务
@@ -18,29 +16,25 @@ public class TransferFeeDomainService {
     @Resource
     private TransferFeeConfigRepository transferFeeConfigRepository;
 
+    @Resource
+    private TransferRuleTable transferRuleTable;
+
     /**
      * 计算手续费
      */
     public BigDecimal calculateFee(String channel, String currency, String userLevel, BigDecimal amount) {
-        // 使用 Repository 查询
-        TransferFeeConfig config = transferFeeConfigRepository.findMatch(channel, currency, userLevel);
-
-        if (config == null) return BigDecimal.ZERO;
-
-        BigDecimal fee = BigDecimal.ZERO;
-        // 1-固定金额 2-百分比 3-固定+百分比
-        if (config.getCalcMode() == FeeCalcModeEnum.FIXED) {
-            fee = config.getFixedAmount();
-        } else if (config.getCalcMode() == FeeCalcModeEnum.PERCENTAGE) {
-            fee = amount.multiply(config.getRate());
-        } else if (config.getCalcMode() == FeeCalcModeEnum.BOTH) {
-            fee = config.getFixedAmount().add(amount.multiply(config.getRate()));
+        TransferRuleTable.FeeRule rule;
+        if (transferRuleTable.isReady()) {
+            // 内存规则表，不查库
+            rule = transferRuleTable.findFeeRule(channel, currency, userLevel);
+        } else {
+            // 规则表尚未加载成功，回退到 Repository 查询
+            TransferFeeConfig config = transferFeeConfigRepository.findMatch(channel, currency, userLevel);
+            rule = config == null ? null : TransferRuleTable.FeeRule.compile(config);
         }
 
-        // 封顶保底
-        if (fee.compareTo(config.getMinFee()) < 0) fee = config.getMinFee();
-        if (fee.compareTo(config.getMaxFee()) > 0) fee = config.getMaxFee();
+        if (rule == null) return BigDecimal.ZERO;
 
-        return fee.setScale(2, RoundingMode.HALF_UP);
+        return rule.calculate(amount);
     }
-}
\ No newline at end of file
+}
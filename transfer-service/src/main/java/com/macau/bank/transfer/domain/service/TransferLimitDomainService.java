@@ -1,27 +1,47 @@
 package com.macau.bank.transfer.domain.service;
 
 import com.macau.bank.common.core.enums.TransferType;
+import com.macau.bank.common.core.exception.BusinessException;
+import com.macau.bank.transfer.common.enums.LimitReserveResultEnum;
+import com.macau.bank.transfer.common.result.TransferErrorCode;
+import com.macau.bank.transfer.domain.context.TransferContext;
 import com.macau.bank.transfer.domain.entity.TransferLimitConfig;
+import com.macau.bank.transfer.domain.entity.TransferOrder;
 import com.macau.bank.transfer.domain.repository.TransferLimitConfigRepository;
+import com.macau.bank.transfer.domain.repository.TransferLimitUsageRepository;
 import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
 
 /**
  * 转账限额领域服务
  */
+@Slf4j
 @Service
 public class TransferLimitDomainService {
 
     @Resource
     private TransferLimitConfigRepository transferLimitConfigRepository;
 
+    @Resource
+    private TransferRuleTable transferRuleTable;
+
+    @Resource
+    private TransferLimitUsageRepository transferLimitUsageRepository;
+
     /**
      * 获取限额配置
      */
     public TransferLimitConfig getLimitConfig(String userLevel, String transferTypeStr, String currency) {
-        // String -> Enum
+        if (transferRuleTable.isReady()) {
+            // 内存规则表按类型名称索引，无需解析枚举
+            return transferRuleTable.findLimitRule(userLevel, transferTypeStr, currency);
+        }
+        // 规则表尚未加载成功，回退到 Repository 查询: String -> Enum
         TransferType transferType = TransferType.valueOf(transferTypeStr);
         return transferLimitConfigRepository.findMatch(userLevel, transferType, currency);
     }
@@ -34,4 +54,60 @@ public class TransferLimitDomainService {
         if (config == null) return true; // 无配置不限制
         return amount.compareTo(config.getSingleLimit()) <= 0;
     }
-}
\ No newline at end of file
+
+    /**
+     * 占用日/月累计限额 (订单落库后、资金冻结前调用)
+     * <p>
+     * 校验与占用在 Redis 中一次原子完成，同一 txnId 重复调用只占用一次
+     *
+     * @throws BusinessException 超出日/月累计限额
+     */
+    public void reserveCumulativeLimit(TransferContext context) {
+        TransferOrder order = context.getOrder();
+        String currency = order.getAmount().getCurrencyCode();
+        TransferLimitConfig config = getLimitConfig(context.getPayerUserLevel().getCode(),
+                order.getTransferType().name(), currency);
+        if (config == null || (config.getDailyLimit() == null && config.getMonthlyLimit() == null)) {
+            return; // 无累计限额配置不占用
+        }
+
+        LimitReserveResultEnum result = transferLimitUsageRepository.reserve(order.getPayerInfo().getUserNo(),
+                order.getTransferType(), currency, order.getTxnId(), context.getAmount(),
+                order.getCreateTime().toLocalDate(), config.getDailyLimit(), config.getMonthlyLimit());
+        log.debug("累计限额占用: txnId={}, result={}", order.getTxnId(), result);
+
+        if (result == LimitReserveResultEnum.DAILY_EXCEEDED) {
+            throw new BusinessException(TransferErrorCode.TRANSFER_DAILY_LIMIT_EXCEEDED);
+        }
+        if (result == LimitReserveResultEnum.MONTHLY_EXCEEDED) {
+            throw new BusinessException(TransferErrorCode.TRANSFER_MONTHLY_LIMIT_EXCEEDED);
+        }
+    }
+
+    /**
+     * 释放该笔交易占用的累计限额 (订单失败/冲正后调用)
+     * <p>
+     * 释放失败只记录日志，由定时重建修正
+     */
+    public void releaseCumulativeLimit(TransferOrder order) {
+        if (order.getPayerInfo() == null || order.getPayerInfo().getUserNo() == null) {
+            return;
+        }
+        try {
+            boolean released = transferLimitUsageRepository.release(order.getPayerInfo().getUserNo(),
+                    order.getTxnId());
+            log.debug("累计限额释放: txnId={}, released={}", order.getTxnId(), released);
+        } catch (Exception e) {
+            log.error("累计限额释放失败，等待定时重建修正: txnId={}, error={}", order.getTxnId(), e.getMessage());
+        }
+    }
+
+    /**
+     * 以订单表为准重建指定日期所在日、月的累计用量
+     */
+    public void rebuildCumulativeUsage(LocalDate day) {
+        int daily = transferLimitUsageRepository.rebuildDaily(day);
+        int monthly = transferLimitUsageRepository.rebuildMonthly(YearMonth.from(day));
+        log.info("累计限额用量已重建: day={}, dailyCounters={}, monthlyCounters={}", day, daily, monthly);
+    }
+}
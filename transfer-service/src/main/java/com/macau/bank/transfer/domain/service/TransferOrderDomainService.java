@@ -7,13 +7,16 @@ import com.macau.bank.common.core.util.IdGenerator;
 import com.macau.bank.transfer.common.result.TransferErrorCode;
 import com.macau.bank.transfer.domain.context.TransferContext;
 import com.macau.bank.transfer.domain.entity.TransferOrder;
+import com.macau.bank.transfer.domain.model.TransferOrderSlice;
+import com.macau.bank.transfer.domain.model.TransferOrderSummary;
 import com.macau.bank.transfer.domain.query.TransferOrderQuery;
+import com.macau.bank.transfer.domain.repository.TransferContextCacheRepository;
 import com.macau.bank.transfer.domain.repository.TransferOrderRepository;
-import com.macau.bank.transfer.domain.query.TransferOrderQuery;
 import com.macau.bank.transfer.domain.valobj.PayerInfo;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.util.Assert;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -32,9 +35,20 @@ import java.util.List;
 @Service
 public class TransferOrderDomainService {
 
+    /**
+     * 转账记录每页条数上限
+     */
+    public static final int MAX_PAGE_SIZE = 100;
+
     @Resource
     private TransferOrderRepository transferOrderRepository;
 
+    /**
+     * 在风控回调之外修改订单前作废暂存的上下文
+     */
+    @Resource
+    private TransferContextCacheRepository contextCacheRepository;
+
     /**
      * 创建转账订单
      *
@@ -80,6 +94,7 @@ public class TransferOrderDomainService {
 
         // 使用实体的状态流转方法（带状态机保护）
         order.transitionTo(status);
+        contextCacheRepository.evict(txnId);
         transferOrderRepository.save(order);
     }
 
@@ -97,6 +112,7 @@ public class TransferOrderDomainService {
 
         // 使用实体的充血方法
         order.markSuccess(externalTxnId);
+        contextCacheRepository.evict(txnId);
         transferOrderRepository.save(order);
     }
 
@@ -114,6 +130,7 @@ public class TransferOrderDomainService {
 
         // 使用实体的充血方法
         order.markFailed(failReason);
+        contextCacheRepository.evict(txnId);
         transferOrderRepository.save(order);
     }
 
@@ -132,10 +149,16 @@ public class TransferOrderDomainService {
     }
 
     /**
-     * 查询转账订单列表
+     * 查询转账记录 (键集分页)
+     * <p>
+     * 必须限定付款用户；每页条数硬上限为 {@link #MAX_PAGE_SIZE}，多取一条判断是否还有下一页
      */
-    public List<TransferOrder> getTransferOrders(TransferOrderQuery condition, Integer page, Integer pageSize) {
-        return transferOrderRepository.query(condition);
+    public TransferOrderSlice getTransferOrders(TransferOrderQuery condition, int pageSize) {
+        Assert.hasText(condition.getPayerUserNo(), "查询转账记录必须指定付款用户");
+        int size = Math.min(Math.max(pageSize, 1), MAX_PAGE_SIZE);
+        List<TransferOrderSummary> rows = transferOrderRepository.queryHistory(condition, size + 1);
+        boolean hasMore = rows.size() > size;
+        return new TransferOrderSlice(hasMore ? rows.subList(0, size) : rows, hasMore);
     }
 
     /**
@@ -6,6 +6,7 @@ import com.macau.bank.transfer.common.result.TransferErrorCode;
 import com.macau.bank.transfer.domain.context.TransferContext;
 import com.macau.bank.transfer.domain.entity.TransferOrder;
 import com.macau.bank.transfer.domain.factory.TransferStrategyFactory;
+import com.macau.bank.transfer.domain.repository.TransferContextCacheRepository;
 import com.macau.bank.transfer.domain.repository.TransferOrderRepository;
 import com.macau.bank.transfer.domain.statemachine.StateMachineExecutor;
 import com.macau.bank.transfer.domain.statemachine.StateTransition;
@@ -41,6 +42,12 @@ public class TransferReversalDomainService {
     @Resource
     private StateMachineExecutor stateMachineExecutor;
 
+    @Resource
+    private TransferLimitDomainService limitService;
+
+    @Resource
+    private TransferContextCacheRepository contextCacheRepository;
+
     /**
      * 执行订单冲正
      * <p>
@@ -66,7 +73,8 @@ public class TransferReversalDomainService {
         // 3. 记录原状态，用于决定冲正路径
         TransferStatus originalStatus = order.getStatus();
 
-        // 4. 先更新为 REVERSING 状态
+        // 4. 作废风控回调暂存的上下文，再更新为 REVERSING 状态
+        contextCacheRepository.evict(order.getTxnId());
         order.setStatus(TransferStatus.REVERSING);
         order.setFailReason("冲正原因: " + reversalReason);
         transferOrderRepository.save(order);
@@ -84,6 +92,7 @@ public class TransferReversalDomainService {
             log.warn("[冲正] 策略返回空配置，无需冲正操作: orderId={}, originalStatus={}", orderId, originalStatus);
             order.setStatus(TransferStatus.REVERSED);
             transferOrderRepository.save(order);
+            limitService.releaseCumulativeLimit(order);
             return order;
         }
 
@@ -0,0 +1,273 @@
+package com.macau.bank.transfer.domain.service;
+
+import com.macau.bank.transfer.common.enums.ConfigStatusEnum;
+import com.macau.bank.transfer.common.enums.FeeCalcModeEnum;
+import com.macau.bank.transfer.domain.entity.TransferFeeConfig;
+import com.macau.bank.transfer.domain.entity.TransferLimitConfig;
+import com.macau.bank.transfer.domain.repository.TransferFeeConfigRepository;
+import com.macau.bank.transfer.domain.repository.TransferLimitConfigRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 手续费/限额规则表 (内存快照)
+ * <p>
+ * - 启动时将 transfer_fee_config、transfer_limit_config 中生效的规则编译为按 (渠道/类型, 币种, 等级) 索引的只读快照
+ * - 定时轮询或收到规则变更消息时重新加载，内容有变化才整体替换快照并递增版本号
+ * - 转账热路径只读 volatile 快照，不访问数据库；快照未就绪时返回 null，由调用方回退到按条件查库
+ * </p>
+ */
+@Slf4j
+@Component
+public class TransferRuleTable {
+
+    @Resource
+    private TransferFeeConfigRepository transferFeeConfigRepository;
+
+    @Resource
+    private TransferLimitConfigRepository transferLimitConfigRepository;
+
+    @Value("${transfer.rule.refresh-interval-seconds:60}")
+    private long refreshIntervalSeconds;
+
+    private volatile Snapshot snapshot;
+
+    private ScheduledExecutorService refresher;
+
+    @PostConstruct
+    public void start() {
+        refresh();
+        if (refreshIntervalSeconds > 0) {
+            refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "transfer-rule-refresher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            refresher.scheduleWithFixedDelay(this::refresh, refreshIntervalSeconds, refreshIntervalSeconds,
+                    TimeUnit.SECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+    }
+
+    /**
+     * 重新加载规则，内容未变化时保留原快照
+     *
+     * @return 是否替换了快照
+     */
+    public synchronized boolean refresh() {
+        List<TransferFeeConfig> feeConfigs;
+        List<TransferLimitConfig> limitConfigs;
+        try {
+            feeConfigs = transferFeeConfigRepository.findAll();
+            limitConfigs = transferLimitConfigRepository.findAll();
+        } catch (Exception e) {
+            // 加载失败沿用旧快照，下次轮询再试
+            log.error("加载转账规则失败: version={}", getVersion(), e);
+            return false;
+        }
+
+        List<String> fingerprint = fingerprint(feeConfigs, limitConfigs);
+        Snapshot current = snapshot;
+        if (current != null && current.fingerprint.equals(fingerprint)) {
+            return false;
+        }
+
+        long version = current == null ? 1 : current.version + 1;
+        snapshot = new Snapshot(version, fingerprint, compileFeeRules(feeConfigs), compileLimitRules(limitConfigs));
+        log.info("转账规则已更新: version={}, feeRules={}, limitRules={}", version, feeConfigs.size(),
+                limitConfigs.size());
+        return true;
+    }
+
+    /**
+     * 当前快照版本，0 表示尚未加载
+     */
+    public long getVersion() {
+        Snapshot current = snapshot;
+        return current == null ? 0 : current.version;
+    }
+
+    public boolean isReady() {
+        return snapshot != null;
+    }
+
+    /**
+     * 查找手续费规则，无匹配时返回 null
+     */
+    public FeeRule findFeeRule(String channel, String currency, String userLevel) {
+        Snapshot current = snapshot;
+        return current == null ? null : lookup(current.feeRules, channel, currency, userLevel);
+    }
+
+    /**
+     * 查找限额规则，无匹配时返回 null
+     *
+     * @param transferType 转账类型名称，与 TransferType#name 一致
+     */
+    public TransferLimitConfig findLimitRule(String userLevel, String transferType, String currency) {
+        Snapshot current = snapshot;
+        return current == null ? null : lookup(current.limitRules, userLevel, transferType, currency);
+    }
+
+    private static Map<String, Map<String, Map<String, FeeRule>>> compileFeeRules(List<TransferFeeConfig> configs) {
+        Map<String, Map<String, Map<String, FeeRule>>> rules = new HashMap<>();
+        for (TransferFeeConfig config : configs) {
+            if (config.getStatus() != ConfigStatusEnum.ENABLED) {
+                continue;
+            }
+            FeeRule previous = rules.computeIfAbsent(config.getTransferChannel(), k -> new HashMap<>())
+                    .computeIfAbsent(config.getCurrencyCode(), k -> new HashMap<>())
+                    .putIfAbsent(config.getUserLevel(), FeeRule.compile(config));
+            if (previous != null) {
+                log.warn("手续费规则重复，保留先加载的一条: id={}", config.getId());
+            }
+        }
+        return rules;
+    }
+
+    private static Map<String, Map<String, Map<String, TransferLimitConfig>>> compileLimitRules(
+            List<TransferLimitConfig> configs) {
+        Map<String, Map<String, Map<String, TransferLimitConfig>>> rules = new HashMap<>();
+        for (TransferLimitConfig config : configs) {
+            if (config.getStatus() != ConfigStatusEnum.ENABLED || config.getTransferType() == null) {
+                continue;
+            }
+            TransferLimitConfig previous = rules.computeIfAbsent(config.getUserLevel(), k -> new HashMap<>())
+                    .computeIfAbsent(config.getTransferType().name(), k -> new HashMap<>())
+                    .putIfAbsent(config.getCurrency(), config);
+            if (previous != null) {
+                log.warn("限额规则重复，保留先加载的一条: id={}", config.getId());
+            }
+        }
+        return rules;
+    }
+
+    /**
+     * 三级 Map 逐级查找，避免拼接组合键产生临时字符串
+     */
+    private static <T> T lookup(Map<String, Map<String, Map<String, T>>> rules, String k1, String k2, String k3) {
+        Map<String, Map<String, T>> level1 = rules.get(k1);
+        if (level1 == null) {
+            return null;
+        }
+        Map<String, T> level2 = level1.get(k2);
+        return level2 == null ? null : level2.get(k3);
+    }
+
+    /**
+     * 规则内容指纹：逐行比较全部字段，任何一行增删改都会触发替换
+     */
+    private static List<String> fingerprint(List<TransferFeeConfig> feeConfigs, List<TransferLimitConfig> limitConfigs) {
+        List<String> rows = new ArrayList<>(feeConfigs.size() + limitConfigs.size());
+        feeConfigs.forEach(config -> rows.add(String.valueOf(config)));
+        limitConfigs.forEach(config -> rows.add(String.valueOf(config)));
+        return rows;
+    }
+
+    private static final class Snapshot {
+
+        private final long version;
+
+        private final List<String> fingerprint;
+
+        private final Map<String, Map<String, Map<String, FeeRule>>> feeRules;
+
+        private final Map<String, Map<String, Map<String, TransferLimitConfig>>> limitRules;
+
+        Snapshot(long version, List<String> fingerprint, Map<String, Map<String, Map<String, FeeRule>>> feeRules,
+                Map<String, Map<String, Map<String, TransferLimitConfig>>> limitRules) {
+            this.version = version;
+            this.fingerprint = fingerprint;
+            this.feeRules = Collections.unmodifiableMap(feeRules);
+            this.limitRules = Collections.unmodifiableMap(limitRules);
+        }
+    }
+
+    /**
+     * 编译后的手续费规则
+     * <p>
+     * 固定金额模式的结果与转账金额无关，编译时即算好，计费时不再产生新的 BigDecimal
+     * </p>
+     */
+    public static final class FeeRule {
+
+        private final FeeCalcModeEnum calcMode;
+
+        private final BigDecimal fixedAmount;
+
+        private final BigDecimal rate;
+
+        private final BigDecimal minFee;
+
+        private final BigDecimal maxFee;
+
+        /**
+         * 固定金额模式下预先算好的手续费，其他模式为 null
+         */
+        private final BigDecimal fixedFee;
+
+        private FeeRule(FeeCalcModeEnum calcMode, BigDecimal fixedAmount, BigDecimal rate, BigDecimal minFee,
+                BigDecimal maxFee) {
+            this.calcMode = calcMode;
+            this.fixedAmount = fixedAmount;
+            this.rate = rate;
+            this.minFee = minFee;
+            this.maxFee = maxFee;
+            this.fixedFee = calcMode == FeeCalcModeEnum.FIXED && fixedAmount != null && minFee != null && maxFee != null
+                    ? clamp(fixedAmount) : null;
+        }
+
+        public static FeeRule compile(TransferFeeConfig config) {
+            return new FeeRule(config.getCalcMode(), config.getFixedAmount(), config.getRate(), config.getMinFee(),
+                    config.getMaxFee());
+        }
+
+        /**
+         * 计算手续费
+         */
+        public BigDecimal calculate(BigDecimal amount) {
+            if (fixedFee != null) {
+                return fixedFee;
+            }
+            BigDecimal fee = BigDecimal.ZERO;
+            // 1-固定金额 2-百分比 3-固定+百分比
+            if (calcMode == FeeCalcModeEnum.FIXED) {
+                fee = fixedAmount;
+            } else if (calcMode == FeeCalcModeEnum.PERCENTAGE) {
+                fee = amount.multiply(rate);
+            } else if (calcMode == FeeCalcModeEnum.BOTH) {
+                fee = fixedAmount.add(amount.multiply(rate));
+            }
+            return clamp(fee);
+        }
+
+        private BigDecimal clamp(BigDecimal fee) {
+            // 封顶保底
+            if (fee.compareTo(minFee) < 0) fee = minFee;
+            if (fee.compareTo(maxFee) > 0) fee = maxFee;
+
+            return fee.setScale(2, RoundingMode.HALF_UP);
+        }
+    }
+}
@@ -1,19 +1,60 @@
 package com.macau.bank.transfer.domain.statemachine;
 
+import com.alibaba.ttl.TransmittableThreadLocal;
 import com.macau.bank.common.core.enums.TransferStatus;
+import com.macau.bank.common.core.exception.BusinessException;
+import com.macau.bank.common.core.exception.SystemException;
+import com.macau.bank.transfer.common.result.TransferErrorCode;
 import com.macau.bank.transfer.domain.context.TransferContext;
+import com.macau.bank.transfer.domain.entity.TransferPhaseRecord;
+import com.macau.bank.transfer.domain.gateway.AccountGateway;
+import com.macau.bank.transfer.domain.model.BalanceEntry;
+import com.macau.bank.transfer.domain.pipeline.PhaseOutcome;
 import com.macau.bank.transfer.domain.pipeline.TransferHandler;
 import com.macau.bank.transfer.domain.pipeline.TransferPhaseEnum;
+import com.macau.bank.transfer.domain.repository.TransferPhaseJournalRepository;
+import com.macau.bank.transfer.domain.service.TransferLimitDomainService;
 import com.macau.bank.transfer.domain.service.TransferOrderDomainService;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
 
+/**
+ * 状态机执行引擎
+ * <p>
+ * - 按流程配置依次执行 Handler 链，全部成功后更新订单状态
+ * - 每个阶段的结果 (成功/失败/跳过) 追加到阶段日志；MQ 重投递或人工重试时，
+ *   同一起始状态下已成功的阶段直接跳过，从第一个未完成的阶段继续，省去重复的 RPC
+ * - 阶段日志缺失 (未写入/写入丢失) 时退化为重新执行全部阶段，由下游幂等保证正确性
+ * - 调用账户服务/MQ 的 Handler 直接返回客户端的异步 Future，等待响应不占用任何线程；其余 Handler 在阶段线程池上执行。
+ *   每个阶段的时限取自整条链路的 SLA 预算，超时即结束该阶段的 Future (客户端停止等待，已发出的请求不撤回)
+ * - 合并阶段 (如 {@link TransferPhaseEnum#SETTLE}) 汇总成员阶段的余额分录，通过一次批量记账完成；
+ *   未开启合并、成员不支持合并或批量调用出现系统异常时，退回逐个执行尚未完成的成员阶段
+ * </p>
+ * 指标：续跑次数、跳过阶段数、超时次数、合并退回次数、各阶段耗时分布，见 {@link #metrics()}。
+ */
 @Slf4j
 @Component
 public class StateMachineExecutor {
@@ -21,6 +62,56 @@ public class StateMachineExecutor {
     @Resource
     private TransferOrderDomainService orderDomainService;
 
+    @Resource
+    private TransferLimitDomainService limitService;
+
+    @Resource
+    private TransferPhaseJournalRepository phaseJournalRepository;
+
+    @Resource
+    private AccountGateway accountGateway;
+
+    @Resource(name = "transferPhaseExecutor")
+    private Executor transferPhaseExecutor;
+
+    /**
+     * 是否启用合并阶段；关闭后合并阶段按成员阶段逐个执行
+     */
+    @Value("${transfer.phase.fusion-enabled:true}")
+    private boolean fusionEnabled = true;
+
+    /**
+     * 单次驱动的总时间预算 (毫秒)，覆盖整条 Handler 链
+     */
+    @Value("${transfer.phase.sla-millis:10000}")
+    private long slaMillis = 10000;
+
+    /**
+     * 单个阶段的时限上限 (毫秒)，略大于 Dubbo 超时，正常情况下由 Dubbo 超时先行返回
+     */
+    @Value("${transfer.phase.timeout-millis:3500}")
+    private long phaseTimeoutMillis = 3500;
+
+    /**
+     * 阶段耗时分桶上界 (毫秒)，最后一个桶收纳超出上界的样本
+     */
+    public static final long[] LATENCY_BUCKETS_MILLIS = {1, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000};
+
+    /**
+     * 上下文扩展属性：本次驱动失败的阶段 ({@link TransferPhaseEnum})，成功或未执行任何阶段时为 null。
+     * 合并阶段退回逐阶段执行时为最后失败的成员阶段；调用方据此判断失败前哪些操作可能已在下游落地
+     */
+    public static final String FAILED_PHASE_ATTRIBUTE = "stateMachine.failedPhase";
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final Map<TransferPhaseEnum, PhaseLatency> latencies = newLatencies();
+
+    private final LongAdder resumedCount = new LongAdder();
+    private final LongAdder skippedPhaseCount = new LongAdder();
+    private final LongAdder timeoutCount = new LongAdder();
+    private final LongAdder fusionFallbackCount = new LongAdder();
+
     // 自动注入所有 Handler
     private final Map<TransferPhaseEnum, TransferHandler> handlerMap = new EnumMap<>(TransferPhaseEnum.class);
 
@@ -30,52 +121,527 @@ public class StateMachineExecutor {
     }
 
     /**
-     * 驱动引擎运行
+     * 驱动引擎运行 (同步等待 {@link #driveAsync} 完成)
+     * <p>
+     * 调用线程阻塞至驱动结束，最长约 slaMillis，只用于冲正等低频的后台路径；提交接口与风控回调使用 {@link #driveAsync}，
+     * 不占用请求线程/消费线程等待。
      * <p>
      * 优化说明:
      * 1. 移除 TransactionTemplate: Handler 是 RPC 调用,不受本地事务控制
      * 2. 单次 UPDATE 操作,MyBatis 自动提交,无需显式事务
      * 3. 异常处理: 不改状态,保持当前状态,避免资损
+     * 4. 断点续跑: 同一起始状态下阶段日志中已成功的阶段不再重复执行
+     * 5. 时间预算: 整条链路最多等待 slaMillis，超出后不再发起后续阶段
+     * 6. 合并阶段: 成员阶段的余额变动在账户服务一次调用、一个本地事务内完成
      *
      * @param context    上下文
      * @param transition 流程配置
      */
     public void drive(TransferContext context, StateTransition transition) {
+        try {
+            driveAsync(context, transition).join();
+        } catch (CompletionException e) {
+            Throwable cause = unwrap(e);
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 异步驱动引擎运行
+     * <p>
+     * 各阶段通过 {@link TransferHandler#handleAsync} 依次发起，调用线程只负责发起第一个阶段：
+     * - 账户服务/MQ 阶段直接返回客户端的 Future，后续阶段在上一阶段的响应回调中发起；发起前恢复调用线程的上下文
+     *   (RequestHeaderContext、MDC)，保证透传给下游的 traceId/userNo 与日志不丢失
+     * - 每个阶段的时限为 min(phaseTimeoutMillis, 剩余 SLA 预算)，超时即视为失败并结束该阶段的 Future：
+     *   Dubbo 调用随之取消本端等待，但<b>不会取消账户服务侧的执行</b>，请求已发出就可能落地；
+     *   会被重试的驱动由阶段日志 + 下游幂等收敛，不会被重试的驱动 (INIT) 由调用方补偿
+     * - 预算耗尽时尚未开始的阶段不再发起 (包括已入阶段线程池队列但未执行的阶段)
+     * - 全部阶段成功后在阶段线程池上更新订单状态 (不占用 RPC 回调线程做 DB 写入)；
+     *   任一阶段失败保持当前状态，返回的 Future 以原异常结束
+     * </p>
+     *
+     * @param context    上下文
+     * @param transition 流程配置
+     * @return 状态更新完成 (或失败) 时结束的 Future
+     */
+    public CompletableFuture<Void> driveAsync(TransferContext context, StateTransition transition) {
         TransferStatus currentStatus = context.getOrder().getStatus();
 
         if (transition == null) {
             log.warn("状态机停止:当前状态无后续路径, currentStatus={}", currentStatus);
-            return;
+            return CompletableFuture.completedFuture(null);
         }
 
+        String txnId = context.getOrder().getTxnId();
+        context.addAttribute(FAILED_PHASE_ATTRIBUTE, null);
+        CompletableFuture<Void> chain;
         try {
-            log.info(">>> 状态机启动: {} -> {}, txnId={}",
-                    currentStatus, transition.getNextStatus(), context.getOrder().getTxnId());
+            Journal journal = loadJournal(txnId, currentStatus);
+            log.info(">>> 状态机启动: {} -> {}, txnId={}, attempt={}",
+                    currentStatus, transition.getNextStatus(), txnId, journal.attempt());
+            Drive drive = new Drive(context, currentStatus, journal.attempt(),
+                    System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(slaMillis), CallerContext.capture());
 
-            // 1. 执行 Handler 链 (RPC 调用,不需要事务)
+            // 1. 依次执行 Handler 链 (RPC 调用,不需要事务)，跳过之前已成功的阶段
+            chain = CompletableFuture.completedFuture(null);
             for (TransferPhaseEnum phase : transition.getHandlers()) {
+                if (phase.isFused()) {
+                    List<TransferHandler> members = pendingMembers(phase, txnId, currentStatus, journal);
+                    if (!members.isEmpty()) {
+                        chain = chain.thenCompose(v -> runFused(phase, members, drive));
+                    }
+                    continue;
+                }
                 TransferHandler handler = handlerMap.get(phase);
-                if (handler != null) {
-                    log.debug("执行 Handler: phase={}, txnId={}", phase, context.getOrder().getTxnId());
-                    handler.handle(context);
+                if (handler == null) {
+                    continue;
                 }
+                if (journal.completed().contains(phase)) {
+                    skipPhase(txnId, currentStatus, phase, journal.attempt());
+                    continue;
+                }
+                chain = chain.thenCompose(v -> runPhase(handler, drive));
             }
 
             // 2. 更新状态 (单次 DB 操作,MyBatis 自动提交)
-            context.getOrder().setStatus(transition.getNextStatus());
-            orderDomainService.saveOrder(context.getOrder());
+            chain = chain.thenRunAsync(() -> drive.caller().run(() -> complete(context, transition, currentStatus)),
+                    transferPhaseExecutor);
+        } catch (RuntimeException e) {
+            chain = CompletableFuture.failedFuture(e);
+        }
+
+        return chain.whenComplete((v, e) -> {
+            if (e != null) {
+                // 4. 异常处理: 不改状态,保持当前状态
+                // 原因: Handler 可能部分成功 (如 Freeze 成功但 SendMQ 失败)
+                // 直接标记失败会导致资损 (资金已冻结但订单显示失败)
+                // 正确做法: 保持当前状态,让 MQ 重试或人工介入
+                Throwable cause = unwrap(e);
+                log.error("状态机执行失败,保持当前状态: currentStatus={}, txnId={}, error={}",
+                        currentStatus, txnId, cause.getMessage(), cause);
+            }
+        });
+    }
 
-            log.info("<<< 状态机完成: {} -> {}, txnId={}",
-                    currentStatus, transition.getNextStatus(), context.getOrder().getTxnId());
+    private void complete(TransferContext context, StateTransition transition, TransferStatus currentStatus) {
+        context.getOrder().setStatus(transition.getNextStatus());
+        orderDomainService.saveOrder(context.getOrder());
 
+        // 3. 解冻失败 / 冲正完成的订单退回累计限额
+        if (transition.getNextStatus() == TransferStatus.FAILED
+                || transition.getNextStatus() == TransferStatus.REVERSED) {
+            limitService.releaseCumulativeLimit(context.getOrder());
+        }
+
+        log.info("<<< 状态机完成: {} -> {}, txnId={}",
+                currentStatus, transition.getNextStatus(), context.getOrder().getTxnId());
+    }
+
+    /**
+     * 阶段耗时指标快照
+     */
+    public StateMachineMetrics metrics() {
+        Map<TransferPhaseEnum, PhaseLatencyMetrics> phases = new EnumMap<>(TransferPhaseEnum.class);
+        latencies.forEach((phase, latency) -> {
+            if (latency.count.sum() > 0) {
+                phases.put(phase, latency.snapshot());
+            }
+        });
+        return new StateMachineMetrics(resumedCount.sum(), skippedPhaseCount.sum(), timeoutCount.sum(),
+                fusionFallbackCount.sum(), Collections.unmodifiableMap(phases));
+    }
+
+    private static Map<TransferPhaseEnum, PhaseLatency> newLatencies() {
+        Map<TransferPhaseEnum, PhaseLatency> latencies = new EnumMap<>(TransferPhaseEnum.class);
+        for (TransferPhaseEnum phase : TransferPhaseEnum.values()) {
+            latencies.put(phase, new PhaseLatency());
+        }
+        return latencies;
+    }
+
+    private void skipPhase(String txnId, TransferStatus fromStatus, TransferPhaseEnum phase, int attempt) {
+        log.info("阶段已完成，跳过: phase={}, txnId={}", phase, txnId);
+        skippedPhaseCount.increment();
+        appendJournal(txnId, fromStatus, phase, PhaseOutcome.SKIPPED, attempt, 0, null);
+    }
+
+    /**
+     * 合并阶段中尚未完成的成员阶段 (已完成的成员记为跳过)
+     */
+    private List<TransferHandler> pendingMembers(TransferPhaseEnum phase, String txnId, TransferStatus fromStatus,
+            Journal journal) {
+        List<TransferHandler> members = new ArrayList<>(phase.getFusedPhases().size());
+        for (TransferPhaseEnum member : phase.getFusedPhases()) {
+            TransferHandler handler = handlerMap.get(member);
+            if (handler == null) {
+                continue;
+            }
+            if (journal.completed().contains(member)) {
+                skipPhase(txnId, fromStatus, member, journal.attempt());
+                continue;
+            }
+            members.add(handler);
+        }
+        return members;
+    }
+
+    /**
+     * 执行合并阶段
+     * <p>
+     * 各成员阶段的分录使用与逐阶段执行相同的幂等 requestId，因此：
+     * - 续跑时只合并尚未完成的成员，只剩一个成员时直接执行该阶段
+     * - 批量调用出现系统异常 (RPC 失败、账户服务不可用) 时退回逐阶段执行，
+     *   即使批量事务实际已提交，逐阶段调用也会按幂等直接返回
+     * - 业务异常 (余额不足、超时等) 不退回，逐阶段执行只会得到相同结果
+     * </p>
+     */
+    private CompletableFuture<Void> runFused(TransferPhaseEnum phase, List<TransferHandler> members, Drive drive) {
+        TransferContext context = drive.context();
+        List<BalanceEntry> entries = fusionEnabled && members.size() > 1 ? collectEntries(members, context) : null;
+        if (entries == null) {
+            return runSequentially(members, drive);
+        }
+
+        TransferHandler fused = new FusedHandler(phase, entries, accountGateway);
+        return runPhase(fused, drive).exceptionallyCompose(e -> {
+            Throwable cause = unwrap(e);
+            if (cause instanceof BusinessException) {
+                return CompletableFuture.failedFuture(cause);
+            }
+            fusionFallbackCount.increment();
+            log.warn("合并阶段执行失败，退回逐阶段执行: phase={}, txnId={}, error={}",
+                    phase, context.getOrder().getTxnId(), cause.getMessage());
+            return runSequentially(members, drive);
+        });
+    }
+
+    private CompletableFuture<Void> runSequentially(List<TransferHandler> handlers, Drive drive) {
+        CompletableFuture<Void> chain = CompletableFuture.completedFuture(null);
+        for (TransferHandler handler : handlers) {
+            chain = chain.thenCompose(v -> runPhase(handler, drive));
+        }
+        return chain;
+    }
+
+    /**
+     * 汇总成员阶段的余额分录，任一成员不支持合并时返回 null
+     */
+    private static List<BalanceEntry> collectEntries(List<TransferHandler> members, TransferContext context) {
+        List<BalanceEntry> entries = new ArrayList<>();
+        for (TransferHandler member : members) {
+            List<BalanceEntry> memberEntries = member.balanceEntries(context);
+            if (memberEntries == null) {
+                return null;
+            }
+            entries.addAll(memberEntries);
+        }
+        return entries;
+    }
+
+    /**
+     * 在预算内执行单个阶段
+     * <p>
+     * 超时由 {@code orTimeout} 结束 Handler 返回的 Future：异步客户端据此停止等待 (见 {@link TransferHandler#handleAsync})，
+     * 尚未开始的线程池任务不再执行；已发出的 RPC/消息不会被撤回
+     */
+    private CompletableFuture<Void> runPhase(TransferHandler handler, Drive drive) {
+        TransferPhaseEnum phase = handler.getPhase();
+        TransferContext context = drive.context();
+        String txnId = context.getOrder().getTxnId();
+        long remaining = drive.deadline() - System.nanoTime();
+        if (remaining <= 0) {
+            // 预算已在前序阶段耗尽：不再发起本阶段
+            timeoutCount.increment();
+            context.addAttribute(FAILED_PHASE_ATTRIBUTE, phase);
+            appendJournal(txnId, drive.fromStatus(), phase, PhaseOutcome.FAILED, drive.attempt(), 0,
+                    "SLA 预算耗尽，未执行");
+            log.warn("状态机预算耗尽，停止后续阶段: phase={}, txnId={}, sla={}ms", phase, txnId, slaMillis);
+            return CompletableFuture.failedFuture(new BusinessException(TransferErrorCode.PROCESSING_TIMEOUT));
+        }
+        long timeoutNanos = Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(phaseTimeoutMillis));
+
+        long start = System.nanoTime();
+        CompletableFuture<?> phaseFuture = drive.caller().call(() -> {
+            log.debug("执行 Handler: phase={}, txnId={}, timeout={}ms", phase, txnId,
+                    TimeUnit.NANOSECONDS.toMillis(timeoutNanos));
+            try {
+                return handler.handleAsync(context, transferPhaseExecutor).toCompletableFuture();
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        });
+        return phaseFuture.orTimeout(timeoutNanos, TimeUnit.NANOSECONDS).handle((v, e) -> {
+            long costNanos = System.nanoTime() - start;
+            if (e == null) {
+                latencies.get(phase).record(costNanos, true);
+                appendJournal(txnId, drive.fromStatus(), phase, PhaseOutcome.SUCCESS, drive.attempt(), costNanos,
+                        null);
+                return null;
+            }
+            Throwable cause = unwrap(e);
+            latencies.get(phase).record(costNanos, false);
+            context.addAttribute(FAILED_PHASE_ATTRIBUTE, phase);
+            if (cause instanceof TimeoutException) {
+                timeoutCount.increment();
+                log.warn("阶段执行超时，停止等待 (已发出的请求不撤回): phase={}, txnId={}, timeout={}ms", phase, txnId,
+                        TimeUnit.NANOSECONDS.toMillis(timeoutNanos));
+                cause = new BusinessException(TransferErrorCode.PROCESSING_TIMEOUT);
+            }
+            appendJournal(txnId, drive.fromStatus(), phase, PhaseOutcome.FAILED, drive.attempt(), costNanos,
+                    cause.getMessage());
+            throw new CompletionException(cause);
+        });
+    }
+
+    /**
+     * 取出异步驱动失败的原始异常 (去掉 {@link CompletionException} / {@link ExecutionException} 包装)
+     */
+    public static Throwable unwrap(Throwable e) {
+        Throwable cause = e;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    /**
+     * 读取本次驱动之前的阶段日志
+     * <p>
+     * INIT 状态只在下单时驱动一次 (订单刚落库)，不存在可续跑的日志，省去一次查询；
+     * 读取失败时按首次执行处理
+     * </p>
+     */
+    private Journal loadJournal(String txnId, TransferStatus fromStatus) {
+        if (fromStatus == TransferStatus.INIT) {
+            return Journal.FIRST;
+        }
+        List<TransferPhaseRecord> records;
+        try {
+            records = phaseJournalRepository.findByTxnId(txnId, fromStatus);
         } catch (Exception e) {
-            // 3. 异常处理: 不改状态,保持当前状态
-            // 原因: Handler 可能部分成功 (如 Freeze 成功但 SendMQ 失败)
-            // 直接标记失败会导致资损 (资金已冻结但订单显示失败)
-            // 正确做法: 保持当前状态,让 MQ 重试或人工介入
-            log.error("状态机执行失败,保持当前状态: currentStatus={}, txnId={}, error={}",
-                    currentStatus, context.getOrder().getTxnId(), e.getMessage(), e);
-            throw e;
+            log.warn("读取阶段日志失败，重新执行全部阶段: txnId={}, error={}", txnId, e.getMessage());
+            return Journal.FIRST;
+        }
+        if (records.isEmpty()) {
+            return Journal.FIRST;
         }
+
+        Set<TransferPhaseEnum> completed = EnumSet.noneOf(TransferPhaseEnum.class);
+        int lastAttempt = 0;
+        for (TransferPhaseRecord record : records) {
+            if (record.getOutcome() != PhaseOutcome.FAILED) {
+                // 合并阶段成功即全部成员阶段成功
+                completed.add(record.getPhase());
+                completed.addAll(record.getPhase().getFusedPhases());
+            }
+            if (record.getAttempt() != null) {
+                lastAttempt = Math.max(lastAttempt, record.getAttempt());
+            }
+        }
+        resumedCount.increment();
+        log.info("状态机续跑: txnId={}, fromStatus={}, completed={}, attempt={}",
+                txnId, fromStatus, completed, lastAttempt + 1);
+        return new Journal(completed, lastAttempt + 1);
+    }
+
+    private void appendJournal(String txnId, TransferStatus fromStatus, TransferPhaseEnum phase, PhaseOutcome outcome,
+            int attempt, long costNanos, String errorMessage) {
+        TransferPhaseRecord record = new TransferPhaseRecord();
+        record.setTxnId(txnId);
+        record.setFromStatus(fromStatus);
+        record.setPhase(phase);
+        record.setOutcome(outcome);
+        record.setAttempt(attempt);
+        record.setCostMicros(TimeUnit.NANOSECONDS.toMicros(costNanos));
+        record.setErrorMessage(errorMessage != null && errorMessage.length() > MAX_ERROR_LENGTH
+                ? errorMessage.substring(0, MAX_ERROR_LENGTH) : errorMessage);
+        record.setCreateTime(LocalDateTime.now());
+        try {
+            phaseJournalRepository.append(record);
+        } catch (Exception e) {
+            // 阶段日志只用于加速恢复，写入失败不影响状态机
+            log.warn("阶段日志写入失败: txnId={}, phase={}, error={}", txnId, phase, e.getMessage());
+        }
+    }
+
+    /**
+     * 本次驱动前的执行进度
+     *
+     * @param completed 已成功的阶段
+     * @param attempt   本次驱动序号
+     */
+    private record Journal(Set<TransferPhaseEnum> completed, int attempt) {
+
+        static final Journal FIRST = new Journal(Collections.emptySet(), 1);
+    }
+
+    /**
+     * 一次驱动的执行参数
+     *
+     * @param context    上下文
+     * @param fromStatus 起始状态
+     * @param attempt    本次驱动序号
+     * @param deadline   整条链路的截止时间 (System.nanoTime)
+     * @param caller     发起驱动的线程上下文
+     */
+    private record Drive(TransferContext context, TransferStatus fromStatus, int attempt, long deadline,
+            CallerContext caller) {
+    }
+
+    /**
+     * 发起驱动的线程上下文快照：TTL 变量 (RequestHeaderContext 等) 与 MDC
+     * <p>
+     * 后续阶段由上一阶段的响应回调线程发起，执行前恢复快照、执行后还原该线程原有的上下文
+     */
+    private record CallerContext(Object ttl, Map<String, String> mdc) {
+
+        static CallerContext capture() {
+            return new CallerContext(TransmittableThreadLocal.Transmitter.capture(), MDC.getCopyOfContextMap());
+        }
+
+        <T> T call(Supplier<T> action) {
+            Object backup = TransmittableThreadLocal.Transmitter.replay(ttl);
+            Map<String, String> previous = MDC.getCopyOfContextMap();
+            setMdc(mdc);
+            try {
+                return action.get();
+            } finally {
+                setMdc(previous);
+                TransmittableThreadLocal.Transmitter.restore(backup);
+            }
+        }
+
+        void run(Runnable action) {
+            call(() -> {
+                action.run();
+                return null;
+            });
+        }
+
+        private static void setMdc(Map<String, String> contextMap) {
+            if (contextMap != null) {
+                MDC.setContextMap(contextMap);
+            } else {
+                MDC.clear();
+            }
+        }
+    }
+
+    /**
+     * 合并阶段的执行体：一次批量记账完成全部成员阶段的余额变动
+     * <p>
+     * 批量结果中存在未成功的分录时按系统异常失败，不记为成功；由合并阶段退回逐阶段执行，
+     * 已落地的分录按 requestId 幂等返回，未落地的分录由对应成员阶段重新发起
+     * </p>
+     */
+    private record FusedHandler(TransferPhaseEnum phase, List<BalanceEntry> entries,
+            AccountGateway accountGateway) implements TransferHandler {
+
+        @Override
+        public void handle(TransferContext context) {
+            TransferHandler.await(handleAsync(context, Runnable::run));
+        }
+
+        @Override
+        public CompletionStage<?> handleAsync(TransferContext context, Executor executor) {
+            if (entries.isEmpty()) {
+                return CompletableFuture.completedFuture(null);
+            }
+            log.info("阶段 [{}]: 批量记账, entries={}, txnId={}", phase, entries.size(),
+                    context.getOrder().getTxnId());
+            CompletableFuture<Boolean> batch = accountGateway.executeBatchAsync(entries);
+            CompletableFuture<Boolean> checked = batch.thenApply(success -> {
+                if (!success) {
+                    throw new SystemException("批量记账存在未成功的分录: phase=" + phase
+                            + ", txnId=" + context.getOrder().getTxnId());
+                }
+                return true;
+            });
+            // 阶段超时结束的是 checked，需同时结束批量调用的 Future，客户端才会停止等待
+            checked.whenComplete((v, e) -> batch.cancel(false));
+            return checked;
+        }
+
+        @Override
+        public TransferPhaseEnum getPhase() {
+            return phase;
+        }
+    }
+
+    /**
+     * 单个阶段的耗时分布
+     */
+    private static final class PhaseLatency {
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final LongAdder[] buckets = new LongAdder[LATENCY_BUCKETS_MILLIS.length + 1];
+
+        PhaseLatency() {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        void record(long nanos, boolean success) {
+            count.increment();
+            if (!success) {
+                failures.increment();
+            }
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+            long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+            int bucket = 0;
+            while (bucket < LATENCY_BUCKETS_MILLIS.length && millis > LATENCY_BUCKETS_MILLIS[bucket]) {
+                bucket++;
+            }
+            buckets[bucket].increment();
+        }
+
+        PhaseLatencyMetrics snapshot() {
+            long samples = count.sum();
+            List<Long> bucketCounts = new ArrayList<>(buckets.length);
+            for (LongAdder bucket : buckets) {
+                bucketCounts.add(bucket.sum());
+            }
+            return new PhaseLatencyMetrics(samples, failures.sum(),
+                    samples == 0 ? 0D : totalNanos.sum() / 1_000_000D / samples,
+                    maxNanos.get() / 1_000_000D, Collections.unmodifiableList(bucketCounts));
+        }
+    }
+
+    /**
+     * 状态机指标
+     *
+     * @param resumed         读到阶段日志并续跑的驱动次数
+     * @param skippedPhases   因已成功而跳过的阶段数 (即省下的 RPC 次数)
+     * @param timeouts        阶段超时或预算耗尽的次数
+     * @param fusionFallbacks 合并阶段因系统异常退回逐阶段执行的次数
+     * @param phases          各阶段耗时分布，只包含执行过的阶段
+     */
+    public record StateMachineMetrics(long resumed, long skippedPhases, long timeouts, long fusionFallbacks,
+            Map<TransferPhaseEnum, PhaseLatencyMetrics> phases) {
+    }
+
+    /**
+     * 阶段耗时指标
+     *
+     * @param count        执行次数
+     * @param failures     失败次数
+     * @param avgMillis    平均耗时 (毫秒)
+     * @param maxMillis    最大耗时 (毫秒)
+     * @param bucketCounts 按 {@link #LATENCY_BUCKETS_MILLIS} 分桶的样本数，最后一个为超出上界的样本
+     */
+    public record PhaseLatencyMetrics(long count, long failures, double avgMillis, double maxMillis,
+            List<Long> bucketCounts) {
     }
 }
\ No newline at end of file
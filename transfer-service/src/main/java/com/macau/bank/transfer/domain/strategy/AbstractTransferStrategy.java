@@ -1,25 +1,34 @@
 package com.macau.bank.transfer.domain.strategy;
 
+import com.macau.bank.common.core.enums.RiskStatus;
 import com.macau.bank.common.core.enums.TransferChannel;
 import com.macau.bank.common.core.enums.TransferStatus;
+import com.macau.bank.common.core.exception.BusinessException;
+import com.macau.bank.transfer.common.result.TransferErrorCode;
 import com.macau.bank.transfer.domain.ability.TransferContextBuilder;
 import com.macau.bank.transfer.domain.ability.TransferValidator;
 import com.macau.bank.transfer.domain.context.TransferContext;
+import com.macau.bank.transfer.domain.entity.TransferOrder;
 import com.macau.bank.transfer.domain.gateway.AccountGateway;
+import com.macau.bank.transfer.domain.service.RiskPreScreenDomainService;
+import com.macau.bank.transfer.domain.service.TransferLimitDomainService;
 import com.macau.bank.transfer.domain.service.TransferOrderDomainService;
 import com.macau.bank.transfer.domain.statemachine.StateMachineExecutor;
 import com.macau.bank.transfer.domain.statemachine.StateTransition;
 import com.macau.bank.transfer.domain.pipeline.TransferPhaseEnum;
 import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 转账策略抽象基类 (模板方法模式)
  * <p>
  * 封装了转账的标准流程：数据准备 -> 统一校验 -> 子类校验 -> 事务执行 -> 后置处理
  */
+@Slf4j
 public abstract class AbstractTransferStrategy implements TransferStrategy {
 
     @Resource
@@ -37,13 +46,21 @@ public abstract class AbstractTransferStrategy implements TransferStrategy {
     @Resource
     protected StateMachineExecutor stateMachineExecutor;
 
+    @Resource
+    protected TransferLimitDomainService limitService;
+
+    @Resource
+    protected RiskPreScreenDomainService riskPreScreenService;
+
     /**
      * 执行转账（Template Method）
      * 注意：此方法负责前置准备和发消息，不涉及数据库强事务，因此不需要 @GlobalTransactional
      * 避免 RPC (enrich) 拉长事务生命周期
+     * <p>
+     * 前置准备与落库在调用线程上完成；状态机驱动 (含失败补偿) 异步进行，调用线程不等待账户服务响应
      */
     @Override
-    public TransferContext execute(TransferContext context) {
+    public CompletableFuture<TransferContext> execute(TransferContext context) {
         // --- 1. 公共准备阶段 (这一步所有策略都一样) ---
         // 补全数据 (查户口)
         contextBuilder.enrich(context, getTransferChannel(context));
@@ -58,13 +75,143 @@ public abstract class AbstractTransferStrategy implements TransferStrategy {
         // 先落库 (状态为 INIT)
         orderDomainService.createOrder(context);
 
+        // 占用日/月累计限额 (需要 txnId，因此在落库之后)，超限或占用失败时订单直接置为失败
+        try {
+            limitService.reserveCumulativeLimit(context);
+        } catch (RuntimeException e) {
+            context.getOrder().markFailed(e.getMessage());
+            orderDomainService.saveOrder(context.getOrder());
+            throw e;
+        }
+
         // --- 3. 启动状态机 ---
         // 获取当前策略类流程配置，自动开始跑第一阶段
         StateTransition transition = this.getNextTransition(TransferStatus.INIT, true);
-        stateMachineExecutor.drive(context, transition);
+        CompletableFuture<Void> flow;
+        if (transition == null || !riskPreScreenService.clear(context)) {
+            flow = driveInit(context, transition);
+        } else {
+            // 风控预筛放行：冻结后不发风控消息，在本次请求内直接结算
+            List<TransferPhaseEnum> phases = transition.getHandlers().stream()
+                    .filter(phase -> phase != TransferPhaseEnum.SEND_RISK_MQ)
+                    .toList();
+            flow = driveInit(context, new StateTransition(phases, transition.getNextStatus()))
+                    .thenCompose(v -> settleInline(context));
+        }
+
+        return flow.thenApply(v -> {
+            // 等待风控回调的交易暂存上下文，回调续跑时免去回表与重复补全
+            if (context.getOrder().getStatus() == TransferStatus.PENDING_RISK) {
+                contextBuilder.retain(context);
+            }
+
+            // --- 4. 返回上下文（由 Application 层组装 TransferResult）---
+            return context;
+        });
+    }
+
+    /**
+     * 驱动 INIT 流程，冻结阶段失败 (含超时) 时解冻并将订单置为失败
+     * <p>
+     * 阶段超时只停止等待，不会取消已发出的冻结 RPC，冻结可能在本次驱动报告失败之后才落地，而 INIT 不会被重试。
+     * 因此按 txnId 发起解冻 (TCC Cancel)：冻结已落地则释放；尚未落地则由账户服务写入空回滚标记，迟到的冻结被防悬挂拦截。
+     * 解冻也失败时订单保持 INIT，可经冲正 (INIT 仅解冻) 处理。
+     * <p>
+     * 冻结之后的阶段 (SEND_RISK_MQ) 失败时不补偿：消息可能已投递，风控回调会按 INIT 重新驱动 (冻结幂等)；
+     * 未投递时订单保持 INIT，经冲正解冻
+     *
+     * @return 驱动 (及补偿) 结束时完成的 Future，驱动失败时以原异常结束
+     */
+    private CompletableFuture<Void> driveInit(TransferContext context, StateTransition transition) {
+        return stateMachineExecutor.driveAsync(context, transition).exceptionallyCompose(e -> {
+            Throwable cause = StateMachineExecutor.unwrap(e);
+            TransferOrder order = context.getOrder();
+            if (order.getStatus() == TransferStatus.INIT && context.getAttribute(
+                    StateMachineExecutor.FAILED_PHASE_ATTRIBUTE) == TransferPhaseEnum.FREEZE_FUND) {
+                return compensateFreeze(context, cause).thenCompose(v -> CompletableFuture.failedFuture(cause));
+            }
+            return CompletableFuture.failedFuture(cause);
+        });
+    }
 
-        // --- 4. 返回上下文（由 Application 层组装 TransferResult）---
-        return context;
+    private CompletableFuture<Void> compensateFreeze(TransferContext context, Throwable cause) {
+        TransferOrder order = context.getOrder();
+        log.warn("INIT 驱动失败，解冻并置为失败: txnId={}, error={}", order.getTxnId(), cause.getMessage());
+        order.setFailReason(cause.getMessage());
+        return stateMachineExecutor.driveAsync(context,
+                new StateTransition(List.of(TransferPhaseEnum.UNFREEZE), TransferStatus.FAILED))
+                .exceptionally(e -> {
+                    Throwable error = StateMachineExecutor.unwrap(e);
+                    log.error("INIT 驱动失败后解冻失败，订单保持 INIT 待冲正: txnId={}, error={}",
+                            order.getTxnId(), error.getMessage(), error);
+                    return null;
+                });
+    }
+
+    /**
+     * 预筛放行后推进风控通过的流程
+     * <p>
+     * 结算失败时补发风控消息交还异步链路：风控回调按阶段日志从失败的阶段续跑，
+     * 本次请求与异步风控一样返回处理中。补发也失败时不会再有风控回调推进订单，在本次请求内补偿
+     */
+    private CompletableFuture<Void> settleInline(TransferContext context) {
+        TransferOrder order = context.getOrder();
+        RiskStatus previousRiskStatus = order.getRiskStatus();
+        order.setRiskStatus(RiskStatus.PASSED);
+        StateTransition settle = this.getNextTransition(order.getStatus(), true);
+        return stateMachineExecutor.driveAsync(context, settle).exceptionallyCompose(e -> {
+            Throwable settleError = StateMachineExecutor.unwrap(e);
+            log.warn("预筛放行后结算失败，转异步风控: txnId={}, error={}", order.getTxnId(), settleError.getMessage());
+            TransferPhaseEnum failedPhase = context.getAttribute(StateMachineExecutor.FAILED_PHASE_ATTRIBUTE);
+            order.setRiskStatus(previousRiskStatus);
+            return stateMachineExecutor.driveAsync(context,
+                    new StateTransition(List.of(TransferPhaseEnum.SEND_RISK_MQ), order.getStatus()))
+                    .exceptionallyCompose(fallbackError -> compensateSettle(context, settle, failedPhase, settleError)
+                            .thenCompose(v -> CompletableFuture.failedFuture(
+                                    StateMachineExecutor.unwrap(fallbackError))));
+        });
+    }
+
+    /**
+     * 结算失败且补发风控消息失败：按 txnId 解冻，并按结算是否可能已部分落地决定订单状态
+     * <p>
+     * - 结算的第一个余额操作即被账户服务明确拒绝 (业务异常且非超时)：没有任何余额变动，置为失败并退回累计限额
+     * - 其余情况 (超时、系统异常、后续阶段失败) 扣费/扣款可能已落地 (已扣款时账户服务跳过解冻)：
+     *   置为待补偿，由人工核对后冲正或补记成功
+     * 解冻也失败时订单保持 PENDING_RISK，经冲正 (仅解冻) 处理
+     */
+    private CompletableFuture<Void> compensateSettle(TransferContext context, StateTransition settle,
+            TransferPhaseEnum failedPhase, Throwable settleError) {
+        TransferOrder order = context.getOrder();
+        TransferStatus target = isRejectedBeforeAnyEntry(settle, failedPhase, settleError)
+                ? TransferStatus.FAILED : TransferStatus.PENDING_COMPENSATION;
+        log.error("预筛放行后结算与补发风控消息均失败，解冻并置为 {}: txnId={}, failedPhase={}, error={}",
+                target, order.getTxnId(), failedPhase, settleError.getMessage());
+        order.setFailReason(settleError.getMessage());
+        return stateMachineExecutor.driveAsync(context,
+                new StateTransition(List.of(TransferPhaseEnum.UNFREEZE), target))
+                .exceptionally(e -> {
+                    Throwable error = StateMachineExecutor.unwrap(e);
+                    log.error("结算补偿解冻失败，订单保持 PENDING_RISK 待冲正: txnId={}, error={}",
+                            order.getTxnId(), error.getMessage(), error);
+                    return null;
+                });
+    }
+
+    /**
+     * 结算是否在第一个余额操作处即被明确拒绝
+     * <p>
+     * 合并阶段是账户服务的单个本地事务；退回逐阶段执行时，已提交的合并记账会让首个成员按幂等返回成功，
+     * 因此首个成员被拒绝同样说明没有任何分录落地
+     */
+    private static boolean isRejectedBeforeAnyEntry(StateTransition settle, TransferPhaseEnum failedPhase,
+            Throwable error) {
+        if (failedPhase == null || !(error instanceof BusinessException businessException)
+                || TransferErrorCode.PROCESSING_TIMEOUT.getCode().equals(businessException.getCode())) {
+            return false;
+        }
+        TransferPhaseEnum first = settle.getHandlers().get(0);
+        return failedPhase == first || (first.isFused() && failedPhase == first.getFusedPhases().get(0));
     }
 
     /**
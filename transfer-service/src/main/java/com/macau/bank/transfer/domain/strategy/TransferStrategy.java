@@ -7,6 +7,7 @@ import com.macau.bank.transfer.domain.context.TransferContext;
 import com.macau.bank.transfer.domain.statemachine.StateTransition;
 
 import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 转账策略接口
@@ -39,12 +40,13 @@ public interface TransferStrategy {
     /**
      * 执行转账
      * <p>
-     * 领域层执行，返回更新后的上下文，Application 层负责组装 TransferResult
+     * 领域层执行，返回更新后的上下文，Application 层负责组装 TransferResult。
+     * 补全、校验、落库在调用线程上完成，失败直接抛出；状态机驱动异步进行，结果 (含驱动失败) 通过 Future 返回
      *
      * @param context 转账上下文
-     * @return 执行后的转账上下文（包含订单状态等信息）
+     * @return 驱动结束时完成的 Future，值为执行后的转账上下文（包含订单状态等信息）
      */
-    TransferContext execute(TransferContext context);
+    CompletableFuture<TransferContext> execute(TransferContext context);
 
     /**
      * 计算手续费
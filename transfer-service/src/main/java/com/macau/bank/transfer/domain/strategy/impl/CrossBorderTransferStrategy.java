@@ -57,9 +57,9 @@ public class CrossBorderTransferStrategy extends AbstractTransferStrategy {
         // 2. 风控回调阶段
         if (currentStatus == TransferStatus.PENDING_RISK) {
             if (isRiskPass) {
+                // 扣手续费 + 解冻扣款合并为一次批量记账，再发送 SWIFT 报文
                 return new StateTransition(
-                        List.of(TransferPhaseEnum.DEDUCT_FEE, TransferPhaseEnum.DEDUCT_PAYER,
-                                TransferPhaseEnum.NOTIFY_SWIFT),
+                        List.of(TransferPhaseEnum.SETTLE_OUTBOUND, TransferPhaseEnum.NOTIFY_SWIFT),
                         TransferStatus.SUCCESS);
             } else {
                 return new StateTransition(
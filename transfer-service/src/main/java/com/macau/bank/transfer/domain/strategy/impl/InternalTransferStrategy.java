@@ -42,8 +42,11 @@ public class InternalTransferStrategy extends AbstractTransferStrategy {
             throw new BusinessException("收款账户非本行账户，请走跨境转账");
         }
 
-        AccountSnapshot toAccount = null;
-        if (toAccountNo.length() >= 16) {
+        // 补全阶段已并行预查时直接使用
+        AccountSnapshot toAccount = context.getPayeeAccount();
+        if (toAccount != null) {
+            log.debug("使用预查的收款账户: toAccountNo={}", toAccountNo);
+        } else if (toAccountNo.length() >= 16) {
             // 长度超过16位，大概率是卡号
             toAccount = accountGateway.getAccountByCardNo(toAccountNo);
         } else {
@@ -78,8 +81,8 @@ public class InternalTransferStrategy extends AbstractTransferStrategy {
         if (currentStatus == TransferStatus.PENDING_RISK && isRiskPass) {
             return new StateTransition(
                     // 这里的区别是：CreditPayee (直接入账)，没有 NotifySwift
-                    List.of(TransferPhaseEnum.DEDUCT_FEE, TransferPhaseEnum.DEDUCT_PAYER,
-                            TransferPhaseEnum.CREDIT_PAYEE),
+                    // 双方都在行内：扣手续费、解冻扣款、入账合并为一次批量记账
+                    List.of(TransferPhaseEnum.SETTLE),
                     TransferStatus.SUCCESS);
         }
         // ...
@@ -0,0 +1,38 @@
+package com.macau.bank.transfer.infra.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 审计日志异步批量写入配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "transfer.audit.writer")
+public class AuditWriterProperties {
+
+    /** 是否开启异步批量写入；关闭时审计日志在业务线程同步插入 */
+    private boolean enabled = false;
+
+    /** 环形队列容量 (向上取整为 2 的幂)，队列满时直接写入本地溢出日志 */
+    private int ringCapacity = 8192;
+
+    /** 单批最大行数 */
+    private int maxBatchSize = 200;
+
+    /** 攒批等待上限 (毫秒)：队列不满一批时最多等待该时长 */
+    private long maxWaitMillis = 50;
+
+    /** 单批写库耗时超过该值 (毫秒) 视为数据库变慢 */
+    private long slowWriteMillis = 500;
+
+    /** 写库失败或变慢后，后续批次改写本地溢出日志的时长 (毫秒) */
+    private long degradeMillis = 10000;
+
+    /** 本地溢出日志目录 */
+    private String spillDir = "./logs/audit-spill";
+
+    /** 数据库恢复后回放溢出日志的间隔 (毫秒) */
+    private long replayIntervalMillis = 30000;
+}
@@ -0,0 +1,29 @@
+package com.macau.bank.transfer.infra.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 状态机阶段日志配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "transfer.phase-journal")
+public class PhaseJournalProperties {
+
+    /** 是否记录阶段日志；关闭后不写也不读，恢复时重新执行全部阶段 */
+    private boolean enabled = true;
+
+    /** 是否异步批量写入；关闭时在业务线程同步插入 */
+    private boolean asyncWrite = true;
+
+    /** 环形队列容量 (向上取整为 2 的幂)，队列满时丢弃并计数 (丢失只会让恢复时多执行一次该阶段) */
+    private int ringCapacity = 8192;
+
+    /** 单批最大行数 */
+    private int maxBatchSize = 200;
+
+    /** 攒批等待上限 (毫秒)：应远小于风控回调的到达间隔，使恢复时能读到上一次驱动的日志 */
+    private long maxWaitMillis = 20;
+}
@@ -0,0 +1,25 @@
+package com.macau.bank.transfer.infra.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 风控回调消费配置
+ * <p>
+ * 回调消息触发的状态机驱动异步进行，消费线程不等待驱动结束；驱动失败时由消费者延时重投该消息
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "transfer.risk-callback")
+public class RiskCallbackProperties {
+
+    /** 同时进行中的驱动上限，达到上限时消费线程等待 (背压)，避免回调积压时无界地发起 RPC */
+    private int maxInFlight = 256;
+
+    /** 驱动失败后的最大重投次数 (与 RocketMQ 默认最大重试次数一致)，超出后订单保持原状态待冲正/人工处理 */
+    private int maxRedeliverTimes = 16;
+
+    /** 重投消息的发送超时 (毫秒) */
+    private long redeliverTimeoutMillis = 3000;
+}
@@ -0,0 +1,44 @@
+package com.macau.bank.transfer.infra.config;
+
+import com.macau.bank.common.core.enums.TransferType;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 风控预筛配置
+ * <p>
+ * 同时满足全部规则的转账在本次请求内直接结算，不再经过异步风控 (SEND_RISK_MQ → 风控回调)
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "transfer.risk-pre-screen")
+public class RiskPreScreenProperties {
+
+    /** 是否启用预筛；关闭后所有转账走异步风控 */
+    private boolean enabled = false;
+
+    /** 允许预筛放行的转账类型 */
+    private List<TransferType> transferTypes = new ArrayList<>(List.of(TransferType.INTERNAL));
+
+    /** 允许预筛放行的币种 */
+    private List<String> currencies = new ArrayList<>(List.of("MOP", "HKD"));
+
+    /** 各用户等级的单笔金额上限 (key 为 UserLevel#code)，未配置的等级不放行 */
+    private Map<String, BigDecimal> maxAmount = new HashMap<>();
+
+    /** 非本人账户时，收款人名册中要求的最少历史转账次数 */
+    private int minPayeeTransCount = 1;
+
+    /** 频率统计窗口 (秒) */
+    private long velocityWindowSeconds = 3600;
+
+    /** 窗口内同一用户最多放行笔数，超出后走异步风控 */
+    private int maxVelocity = 10;
+}
@@ -0,0 +1,23 @@
+package com.macau.bank.transfer.infra.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 转账上下文暂存配置 (本地 LRU + Redis 两级，Redis 为准)
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "transfer.context-cache")
+public class TransferContextCacheProperties {
+
+    /** 是否开启；关闭时风控回调始终回表重建上下文 */
+    private boolean enabled = false;
+
+    /** 本地缓存容量 (笔数)，超出按 LRU 淘汰，淘汰后从 Redis 取回 */
+    private int localMaxSize = 10000;
+
+    /** 暂存时长 (秒)，与风控回调时限一致；超时未回调的交易回表重建 */
+    private long ttlSeconds = 300;
+}
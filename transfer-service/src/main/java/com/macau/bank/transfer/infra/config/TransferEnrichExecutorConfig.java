@@ -0,0 +1,45 @@
+package com.macau.bank.transfer.infra.config;
+
+import com.alibaba.ttl.threadpool.TtlExecutors;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 转账上下文补全线程池
+ * <p>
+ * - 用于并行发起互不依赖的账户/用户/规则查询
+ * - 经 TTL 包装以透传 RequestHeaderContext (traceId、userNo 随 Dubbo 调用下发)，并复制 MDC 保证日志可追踪
+ * - 队列满时由调用线程执行，退化为串行查询而非拒绝转账
+ * </p>
+ */
+@Configuration
+public class TransferEnrichExecutorConfig {
+
+    @Value("${transfer.enrich.core-pool-size:16}")
+    private int corePoolSize;
+
+    @Value("${transfer.enrich.max-pool-size:64}")
+    private int maxPoolSize;
+
+    @Value("${transfer.enrich.queue-capacity:512}")
+    private int queueCapacity;
+
+    @Bean(name = "transferEnrichExecutor")
+    public Executor transferEnrichExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(corePoolSize);
+        executor.setMaxPoolSize(maxPoolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("transfer-enrich-");
+        executor.setDaemon(true);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setTaskDecorator(new MdcTaskDecorator());
+        executor.initialize();
+        return TtlExecutors.getTtlExecutor(executor);
+    }
+}
@@ -0,0 +1,46 @@
+package com.macau.bank.transfer.infra.config;
+
+import com.alibaba.ttl.threadpool.TtlExecutors;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 状态机阶段线程池
+ * <p>
+ * - 账户服务调用与风控消息发送走异步客户端，等待期间不占用本线程池；
+ *   本线程池只执行未提供异步实现的 Handler (同步调用在本线程池上阻塞，如 SWIFT 通知) 与阶段完成后的状态落库
+ * - 经 TTL 包装以透传 RequestHeaderContext，并复制 MDC 保证日志可追踪
+ * - 队列满时由提交线程执行，退化为同步执行而非拒绝转账；正常负载下不应触发
+ * </p>
+ */
+@Configuration
+public class TransferPhaseExecutorConfig {
+
+    @Value("${transfer.phase.core-pool-size:16}")
+    private int corePoolSize;
+
+    @Value("${transfer.phase.max-pool-size:64}")
+    private int maxPoolSize;
+
+    @Value("${transfer.phase.queue-capacity:1024}")
+    private int queueCapacity;
+
+    @Bean(name = "transferPhaseExecutor")
+    public Executor transferPhaseExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(corePoolSize);
+        executor.setMaxPoolSize(maxPoolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("transfer-phase-");
+        executor.setDaemon(true);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setTaskDecorator(new MdcTaskDecorator());
+        executor.initialize();
+        return TtlExecutors.getTtlExecutor(executor);
+    }
+}
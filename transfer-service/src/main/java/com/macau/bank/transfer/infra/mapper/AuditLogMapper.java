@@ -3,10 +3,18 @@ package com.macau.bank.transfer.infra.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.macau.bank.transfer.infra.persistent.po.AuditLogPO;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
 
 /**
  * 审计日志 Mapper
  */
 @Mapper
 public interface AuditLogMapper extends BaseMapper<AuditLogPO> {
+
+    /**
+     * 多行 INSERT 批量写入
+     */
+    int insertBatch(@Param("list") List<AuditLogPO> list);
 }
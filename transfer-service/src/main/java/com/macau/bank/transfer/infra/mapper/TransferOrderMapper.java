@@ -1,9 +1,28 @@
 package com.macau.bank.transfer.infra.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.macau.bank.transfer.domain.query.TransferOrderQuery;
 import com.macau.bank.transfer.infra.persistent.po.TransferOrderPO;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.session.ResultHandler;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 @Mapper
 public interface TransferOrderMapper extends BaseMapper<TransferOrderPO> {
-}
\ No newline at end of file
+
+    /**
+     * 流式读取时间段内占用限额的订单 (仅 user_no / transfer_type / currency_code / amount)
+     * <p>
+     * 使用游标逐行回调，不在内存中缓存整月订单
+     */
+    void streamLimitUsage(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+            ResultHandler<TransferOrderPO> handler);
+
+    /**
+     * 转账记录键集分页：仅读取列表展示列，按 create_time DESC, id DESC 从游标位置 (不含) 起取 limit 条
+     */
+    List<TransferOrderPO> selectHistory(@Param("q") TransferOrderQuery query, @Param("limit") int limit);
+}
@@ -0,0 +1,20 @@
+package com.macau.bank.transfer.infra.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.macau.bank.transfer.infra.persistent.po.TransferPhaseJournalPO;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+/**
+ * 状态机阶段日志 Mapper
+ */
+@Mapper
+public interface TransferPhaseJournalMapper extends BaseMapper<TransferPhaseJournalPO> {
+
+    /**
+     * 多行 INSERT 批量写入
+     */
+    int insertBatch(@Param("list") List<TransferPhaseJournalPO> list);
+}
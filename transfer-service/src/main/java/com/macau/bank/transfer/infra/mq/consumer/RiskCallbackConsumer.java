@@ -3,6 +3,7 @@ package com.macau.bank.transfer.infra.mq.consumer;
 import com.macau.bank.common.core.constant.MqGroupConst;
 import com.macau.bank.common.core.constant.MqTopicConst;
 import com.macau.bank.common.core.enums.RiskStatus;
+import com.macau.bank.common.core.exception.SystemException;
 import com.macau.bank.transfer.domain.ability.TransferContextBuilder;
 import com.macau.bank.transfer.domain.context.TransferContext;
 import com.macau.bank.transfer.domain.factory.TransferStrategyFactory;
@@ -10,14 +11,29 @@ import com.macau.bank.transfer.domain.message.RiskResultMsg;
 import com.macau.bank.transfer.domain.statemachine.StateMachineExecutor;
 import com.macau.bank.transfer.domain.statemachine.StateTransition;
 import com.macau.bank.transfer.domain.strategy.TransferStrategy;
+import com.macau.bank.transfer.infra.config.RiskCallbackProperties;
+import jakarta.annotation.PostConstruct;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.rocketmq.client.producer.SendCallback;
+import org.apache.rocketmq.client.producer.SendResult;
 import org.apache.rocketmq.spring.annotation.RocketMQMessageListener;
 import org.apache.rocketmq.spring.core.RocketMQListener;
+import org.apache.rocketmq.spring.core.RocketMQTemplate;
+import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+
 /**
  * 监听风控结果，断点续传驱动状态机
+ * <p>
+ * - 回表重建上下文在消费线程上完成，失败时抛出由 MQ 重试
+ * - 状态机驱动异步进行，消费线程发起驱动后即返回 (消息随之确认)，不等待账户服务响应；
+ *   进行中的驱动数达到上限时消费线程等待，形成背压
+ * - 驱动失败时由本消费者延时重投该消息 (次数记在消息体中)，重投后按阶段日志从失败的阶段续跑；
+ *   重投失败或超过次数上限时订单保持原状态，经冲正/人工处理
  */
 @Slf4j
 @Component
@@ -27,6 +43,11 @@ import org.springframework.stereotype.Component;
 )
 public class RiskCallbackConsumer implements RocketMQListener<RiskResultMsg> {
 
+    /**
+     * 延时级别上限 (RocketMQ 默认级别 18 = 2h)
+     */
+    private static final int MAX_DELAY_LEVEL = 18;
+
     @Resource
     private StateMachineExecutor stateMachineExecutor;
     
@@ -36,9 +57,23 @@ public class RiskCallbackConsumer implements RocketMQListener<RiskResultMsg> {
     @Resource
     private TransferStrategyFactory strategyFactory;
 
+    @Resource
+    private RocketMQTemplate rocketMQTemplate;
+
+    @Resource
+    private RiskCallbackProperties properties;
+
+    private Semaphore inFlight;
+
+    @PostConstruct
+    public void init() {
+        inFlight = new Semaphore(properties.getMaxInFlight());
+    }
+
     @Override
     public void onMessage(RiskResultMsg message) {
-        log.info("收到风控回调消息: txnId={}, pass={}", message.getTxnId(), message.isPass());
+        log.info("收到风控回调消息: txnId={}, pass={}, redeliverTimes={}",
+                message.getTxnId(), message.isPass(), message.getRedeliverTimes());
 
         try {
             // 1. 恢复上下文 (从数据库查出 TransferOrder，重新构建 Context)
@@ -55,14 +90,83 @@ public class RiskCallbackConsumer implements RocketMQListener<RiskResultMsg> {
             // 3. 消费者负责问路
             StateTransition transition = strategy.getNextTransition(context.getOrder().getStatus(), message.isPass());
 
-            // 4. 驱动状态机继续往下跑
+            // 4. 驱动状态机继续往下跑 (异步，不等待结束)
             context.getOrder().setRiskStatus(message.isPass() ? RiskStatus.PASSED : RiskStatus.REJECTED);
             context.getOrder().setFailReason(message.isPass() ? null : "风控审核拒绝");
-            stateMachineExecutor.drive(context, transition);
+            drive(message, context, transition);
             
         } catch (Exception e) {
             log.error("消费风控回调失败，等待重试", e);
             throw e; // 抛出异常，让 MQ 重试
         }
     }
-}
\ No newline at end of file
+
+    private void drive(RiskResultMsg message, TransferContext context, StateTransition transition) {
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SystemException("等待状态机驱动名额时被中断: txnId=" + message.getTxnId());
+        }
+
+        CompletableFuture<Void> future;
+        try {
+            future = stateMachineExecutor.driveAsync(context, transition);
+        } catch (RuntimeException e) {
+            inFlight.release();
+            throw e;
+        }
+        future.whenComplete((v, e) -> {
+            inFlight.release();
+            if (e != null) {
+                redeliver(message, StateMachineExecutor.unwrap(e));
+            }
+        });
+    }
+
+    /**
+     * 驱动失败：延时重投回调消息，代替 MQ 的消费重试 (消息在驱动发起时已确认)
+     */
+    private void redeliver(RiskResultMsg message, Throwable error) {
+        int times = message.getRedeliverTimes() + 1;
+        if (times > properties.getMaxRedeliverTimes()) {
+            log.error("风控回调驱动失败且已达重投上限，订单保持原状态待冲正/人工处理: txnId={}, times={}, error={}",
+                    message.getTxnId(), message.getRedeliverTimes(), error.getMessage());
+            return;
+        }
+
+        RiskResultMsg retry = RiskResultMsg.builder()
+                .txnId(message.getTxnId())
+                .isPass(message.isPass())
+                .reason(message.getReason())
+                .redeliverTimes(times)
+                .build();
+        log.warn("风控回调驱动失败，延时重投: txnId={}, times={}, error={}", message.getTxnId(), times,
+                error.getMessage());
+        try {
+            rocketMQTemplate.asyncSend(MqTopicConst.TP_RISK_CALLBACK, MessageBuilder.withPayload(retry).build(),
+                    new SendCallback() {
+                        @Override
+                        public void onSuccess(SendResult sendResult) {
+                            log.info("风控回调已重投: txnId={}, times={}", retry.getTxnId(), times);
+                        }
+
+                        @Override
+                        public void onException(Throwable e) {
+                            log.error("风控回调重投失败，订单保持原状态待冲正/人工处理: txnId={}, error={}",
+                                    retry.getTxnId(), e.getMessage(), e);
+                        }
+                    }, properties.getRedeliverTimeoutMillis(), delayLevel(times));
+        } catch (RuntimeException e) {
+            log.error("风控回调重投失败，订单保持原状态待冲正/人工处理: txnId={}, error={}",
+                    retry.getTxnId(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 重投延时级别：第 1 次 10s (级别 3)，之后逐次退避，与 RocketMQ 消费重试的节奏一致
+     */
+    private static int delayLevel(int times) {
+        return Math.min(times + 2, MAX_DELAY_LEVEL);
+    }
+}
@@ -0,0 +1,34 @@
+package com.macau.bank.transfer.infra.mq.consumer;
+
+import com.macau.bank.common.core.constant.MqGroupConst;
+import com.macau.bank.common.core.constant.MqTopicConst;
+import com.macau.bank.transfer.domain.service.TransferRuleTable;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.rocketmq.spring.annotation.MessageModel;
+import org.apache.rocketmq.spring.annotation.RocketMQMessageListener;
+import org.apache.rocketmq.spring.core.RocketMQListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * 监听手续费/限额规则变更，立即刷新本地规则表 (不必等待下一次轮询)
+ */
+@Slf4j
+@Component
+@RocketMQMessageListener(
+    topic = MqTopicConst.TP_TRANSFER_RULE_CHANGED,
+    consumerGroup = MqGroupConst.GP_TRANSFER_RULE_REFRESH,
+    messageModel = MessageModel.BROADCASTING // 每个实例都需要刷新
+)
+public class TransferRuleChangedConsumer implements RocketMQListener<String> {
+
+    @Resource
+    private TransferRuleTable transferRuleTable;
+
+    @Override
+    public void onMessage(String message) {
+        boolean changed = transferRuleTable.refresh();
+        log.info("收到转账规则变更消息: message={}, changed={}, version={}", message, changed,
+                transferRuleTable.getVersion());
+    }
+}
@@ -1,6 +1,7 @@
 package com.macau.bank.transfer.infra.persistent.converter;
 
 import com.macau.bank.transfer.domain.entity.TransferOrder;
+import com.macau.bank.transfer.domain.model.TransferOrderSummary;
 import com.macau.bank.transfer.infra.persistent.po.TransferOrderPO;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
@@ -30,4 +31,6 @@ public interface TransferOrderPOConverter {
     @Mapping(source = "amount.amount", target = "amount")
     @Mapping(source = "amount.currencyCode", target = "currencyCode")
     TransferOrderPO toPO(TransferOrder entity);
+
+    TransferOrderSummary toSummary(TransferOrderPO po);
 }
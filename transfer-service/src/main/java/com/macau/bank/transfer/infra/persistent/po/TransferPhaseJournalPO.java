@@ -0,0 +1,66 @@
+package com.macau.bank.transfer.infra.persistent.po;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import com.macau.bank.common.core.enums.TransferStatus;
+import com.macau.bank.transfer.domain.pipeline.PhaseOutcome;
+import com.macau.bank.transfer.domain.pipeline.TransferPhaseEnum;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+/**
+ * 状态机阶段日志持久化对象（PO）
+ */
+@Getter
+@Setter
+@ToString
+@TableName("transfer_phase_journal")
+public class TransferPhaseJournalPO {
+
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 交易流水号
+     */
+    private String txnId;
+
+    /**
+     * 驱动起始状态
+     */
+    private TransferStatus fromStatus;
+
+    /**
+     * 执行阶段
+     */
+    private TransferPhaseEnum phase;
+
+    /**
+     * 执行结果
+     */
+    private PhaseOutcome outcome;
+
+    /**
+     * 第几次驱动
+     */
+    private Integer attempt;
+
+    /**
+     * 阶段耗时（微秒）
+     */
+    private Long costMicros;
+
+    /**
+     * 错误信息
+     */
+    private String errorMessage;
+
+    /**
+     * 创建时间
+     */
+    private LocalDateTime createTime;
+}
@@ -0,0 +1,254 @@
+package com.macau.bank.transfer.infra.repository;
+
+import cn.hutool.json.JSONUtil;
+import com.macau.bank.common.framework.queue.MpscRingBuffer;
+import com.macau.bank.transfer.domain.entity.AuditLog;
+import com.macau.bank.transfer.infra.config.AuditWriterProperties;
+import com.macau.bank.transfer.infra.mapper.AuditLogMapper;
+import com.macau.bank.transfer.infra.persistent.po.AuditLogPO;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 审计日志异步批量写入器
+ * <p>
+ * 业务线程只把审计日志放入有界 MPSC 环形队列，由单个写线程攒批后以一条多行 INSERT 写库：
+ * - 环形队列已满时，业务线程直接追加到本地溢出日志，不阻塞也不丢弃
+ * - 写库失败或单批耗时超过 slowWriteMillis 时进入降级期，降级期内的批次写入本地溢出日志
+ * - 降级期结束且队列空闲时，按 replayIntervalMillis 回放溢出日志
+ * - 停机时队列中剩余的审计日志写入溢出日志，下次启动后回放
+ * </p>
+ * 指标：入队数、写库数、溢出数 (队列满/降级)、写库失败次数、刷盘耗时、队列深度，见 {@link #metrics()}。
+ */
+@Slf4j
+@Component
+public class AuditLogBatchWriter {
+
+    @Resource
+    private AuditLogMapper auditLogMapper;
+
+    @Resource
+    private AuditWriterProperties auditWriterProperties;
+
+    private MpscRingBuffer<AuditLog> ring;
+
+    private AuditSpillJournal journal;
+
+    private Thread worker;
+
+    private volatile boolean running;
+
+    /**
+     * 降级截止时间 (System.nanoTime)，仅写线程读写
+     */
+    private long degradedUntil;
+
+    private long nextReplayAt;
+
+    private final LongAdder submittedCount = new LongAdder();
+    private final LongAdder writtenCount = new LongAdder();
+    private final LongAdder batchCount = new LongAdder();
+    private final LongAdder overflowSpillCount = new LongAdder();
+    private final LongAdder degradedSpillCount = new LongAdder();
+    private final LongAdder replayedCount = new LongAdder();
+    private final LongAdder writeFailureCount = new LongAdder();
+    private final LongAdder flushNanos = new LongAdder();
+    private final AtomicLong maxFlushNanos = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        if (!auditWriterProperties.isEnabled()) {
+            return;
+        }
+        ring = new MpscRingBuffer<>(auditWriterProperties.getRingCapacity());
+        journal = new AuditSpillJournal(auditWriterProperties.getSpillDir());
+        degradedUntil = System.nanoTime();
+        nextReplayAt = degradedUntil;
+        running = true;
+        worker = new Thread(this::runLoop, "audit-log-writer");
+        worker.setDaemon(true);
+        worker.start();
+        log.info("[Audit] 审计日志异步写入器已启动: ringCapacity={}, maxBatchSize={}, spillDir={}",
+                ring.capacity(), auditWriterProperties.getMaxBatchSize(), auditWriterProperties.getSpillDir());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (worker == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(worker);
+        worker.join(TimeUnit.SECONDS.toMillis(5));
+        // 写线程未能写完的审计日志落本地，下次启动回放
+        List<AuditLog> remaining = new ArrayList<>();
+        ring.drainTo(remaining, Integer.MAX_VALUE);
+        if (!remaining.isEmpty()) {
+            spill(remaining);
+            degradedSpillCount.add(remaining.size());
+        }
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * 提交一条审计日志
+     *
+     * @return 写入器未运行时返回 false，调用方应直接插入
+     */
+    public boolean submit(AuditLog auditLog) {
+        if (!running) {
+            return false;
+        }
+        submittedCount.increment();
+        if (!ring.offer(auditLog)) {
+            // 背压：队列已满说明写库跟不上，直接落本地
+            spill(List.of(auditLog));
+            overflowSpillCount.increment();
+        }
+        return true;
+    }
+
+    /**
+     * 写入指标快照
+     */
+    public AuditWriterMetrics metrics() {
+        long batches = batchCount.sum();
+        return new AuditWriterMetrics(submittedCount.sum(), writtenCount.sum(), batches,
+                overflowSpillCount.sum(), degradedSpillCount.sum(), replayedCount.sum(), writeFailureCount.sum(),
+                batches == 0 ? 0D : flushNanos.sum() / 1_000_000D / batches,
+                maxFlushNanos.get() / 1_000_000D,
+                ring == null ? 0 : ring.size(),
+                ring == null ? 0 : ring.capacity());
+    }
+
+    private void runLoop() {
+        int maxBatch = Math.max(1, auditWriterProperties.getMaxBatchSize());
+        long maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(auditWriterProperties.getMaxWaitMillis());
+        List<AuditLog> batch = new ArrayList<>(maxBatch);
+
+        while (running || !ring.isEmpty()) {
+            ring.drainTo(batch, maxBatch);
+            if (batch.size() < maxBatch && running) {
+                // 不满一批时等待一个攒批周期，写线程空闲时也以此为轮询间隔
+                LockSupport.parkNanos(maxWaitNanos);
+                ring.drainTo(batch, maxBatch - batch.size());
+            }
+
+            if (batch.isEmpty()) {
+                replayIfIdle();
+                continue;
+            }
+            try {
+                flush(batch);
+            } catch (Exception e) {
+                log.error("[Audit] 审计日志写入异常: size={}", batch.size(), e);
+            }
+            batch.clear();
+        }
+    }
+
+    private void flush(List<AuditLog> batch) {
+        if (System.nanoTime() - degradedUntil < 0) {
+            spill(batch);
+            degradedSpillCount.add(batch.size());
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            insertBatch(batch);
+            writtenCount.add(batch.size());
+        } catch (Exception e) {
+            log.warn("[Audit] 审计日志批量写库失败，转存本地: size={}, error={}", batch.size(), e.getMessage());
+            writeFailureCount.increment();
+            degrade();
+            spill(batch);
+            degradedSpillCount.add(batch.size());
+            return;
+        }
+
+        long elapsed = System.nanoTime() - start;
+        batchCount.increment();
+        flushNanos.add(elapsed);
+        maxFlushNanos.accumulateAndGet(elapsed, Math::max);
+        if (elapsed > TimeUnit.MILLISECONDS.toNanos(auditWriterProperties.getSlowWriteMillis())) {
+            log.warn("[Audit] 审计日志写库变慢，进入降级: size={}, cost={}ms", batch.size(),
+                    TimeUnit.NANOSECONDS.toMillis(elapsed));
+            degrade();
+        }
+    }
+
+    private void replayIfIdle() {
+        long now = System.nanoTime();
+        if (!running || now - degradedUntil < 0 || now - nextReplayAt < 0) {
+            return;
+        }
+        nextReplayAt = now + TimeUnit.MILLISECONDS.toNanos(auditWriterProperties.getReplayIntervalMillis());
+        if (!journal.hasBacklog()) {
+            return;
+        }
+        int replayed = journal.replay(this::insertBatch, Math.max(1, auditWriterProperties.getMaxBatchSize()));
+        replayedCount.add(replayed);
+        if (replayed > 0) {
+            log.info("[Audit] 溢出日志回放完成: rows={}", replayed);
+        }
+    }
+
+    private void degrade() {
+        degradedUntil = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(auditWriterProperties.getDegradeMillis());
+    }
+
+    private void insertBatch(List<AuditLog> batch) {
+        List<AuditLogPO> rows = new ArrayList<>(batch.size());
+        for (AuditLog auditLog : batch) {
+            AuditLogPO po = new AuditLogPO();
+            BeanUtils.copyProperties(auditLog, po);
+            rows.add(po);
+        }
+        auditLogMapper.insertBatch(rows);
+    }
+
+    private void spill(List<AuditLog> logs) {
+        try {
+            journal.append(logs);
+        } catch (Exception e) {
+            // 本地磁盘也不可用：最后写入应用日志，由日志采集留存
+            log.error("[Audit] 审计日志溢出写入失败，内容转存应用日志: error={}, logs={}", e.getMessage(),
+                    JSONUtil.toJsonStr(logs));
+        }
+    }
+
+    /**
+     * 写入指标
+     *
+     * @param submitted      累计提交数
+     * @param written        累计写库行数 (不含回放)
+     * @param batches        累计写库批次数
+     * @param overflowSpills 队列已满直接落本地的行数 (背压)
+     * @param degradedSpills 写库失败/变慢降级期间落本地的行数
+     * @param replayed       从本地溢出日志回放写库的行数
+     * @param writeFailures  写库失败批次数
+     * @param avgFlushMillis 平均写库耗时 (毫秒)
+     * @param maxFlushMillis 最大写库耗时 (毫秒)
+     * @param queueDepth     当前队列长度
+     * @param queueCapacity  队列容量
+     */
+    public record AuditWriterMetrics(long submitted, long written, long batches, long overflowSpills,
+            long degradedSpills, long replayed, long writeFailures, double avgFlushMillis, double maxFlushMillis,
+            int queueDepth, int queueCapacity) {
+    }
+}
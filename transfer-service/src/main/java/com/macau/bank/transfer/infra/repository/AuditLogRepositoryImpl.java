@@ -7,7 +7,6 @@ import com.macau.bank.transfer.infra.persistent.po.AuditLogPO;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -15,7 +14,7 @@ import org.springframework.stereotype.Repository;
  * <p>
  * Infrastructure 层实现，负责审计日志的持久化。
  * 负责领域实体与持久化对象之间的转换。
- * 使用 @Async 异步保存，避免影响主业务性能。
+ * 开启异步批量写入时交给 {@link AuditLogBatchWriter}，业务线程只入队；否则同步插入。
  */
 @Slf4j
 @Repository
@@ -24,9 +23,14 @@ public class AuditLogRepositoryImpl implements AuditLogRepository {
     @Resource
     private AuditLogMapper auditLogMapper;
 
+    @Resource
+    private AuditLogBatchWriter auditLogBatchWriter;
+
     @Override
-    @Async
     public void save(AuditLog auditLog) {
+        if (auditLogBatchWriter.submit(auditLog)) {
+            return;
+        }
         try {
             // 领域实体 -> 持久化对象转换
             AuditLogPO po = toPO(auditLog);
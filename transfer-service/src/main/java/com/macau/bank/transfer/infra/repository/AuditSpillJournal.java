@@ -0,0 +1,181 @@
+package com.macau.bank.transfer.infra.repository;
+
+import cn.hutool.json.JSONUtil;
+import com.macau.bank.transfer.domain.entity.AuditLog;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 审计日志本地溢出日志
+ * <p>
+ * - 数据库不可用/变慢或环形队列已满时，审计日志以 JSON 行追加到 audit-spill.log，保证不丢失
+ * - 回放时先将当前文件改名为 *.replay 再逐批写库，回放与新的追加互不干扰
+ * - 某批回放失败时，未回放的行 (含失败批) 另存为新的 *.replay 文件，下次继续，已写库的行不会重复回放
+ * </p>
+ */
+@Slf4j
+class AuditSpillJournal {
+
+    private static final String ACTIVE_FILE = "audit-spill.log";
+
+    private static final String REPLAY_SUFFIX = ".replay";
+
+    private final Path dir;
+
+    private final Path active;
+
+    /**
+     * 切换序号，保证同一毫秒内切换出的文件名不重复，仅在持有 this 锁时读写
+     */
+    private int rotations;
+
+    AuditSpillJournal(String dir) {
+        this.dir = Paths.get(dir);
+        this.active = this.dir.resolve(ACTIVE_FILE);
+    }
+
+    /**
+     * 追加审计日志 (多线程安全)
+     */
+    synchronized void append(List<AuditLog> logs) {
+        try {
+            Files.createDirectories(dir);
+            try (BufferedWriter writer = Files.newBufferedWriter(active, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                for (AuditLog auditLog : logs) {
+                    writer.write(JSONUtil.toJsonStr(auditLog));
+                    writer.newLine();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 是否有待回放的记录
+     */
+    synchronized boolean hasBacklog() {
+        if (Files.exists(active)) {
+            return true;
+        }
+        return !replayFiles().isEmpty();
+    }
+
+    /**
+     * 回放全部溢出记录
+     *
+     * @param writer    批量写库，抛出异常表示本批失败
+     * @param batchSize 单批行数
+     * @return 成功回放的行数
+     */
+    int replay(Consumer<List<AuditLog>> writer, int batchSize) {
+        rotate();
+        int replayed = 0;
+        for (Path file : replayFiles()) {
+            int done = replayFile(file, writer, batchSize);
+            if (done < 0) {
+                break;
+            }
+            replayed += done;
+        }
+        return replayed;
+    }
+
+    /**
+     * @return 回放行数；回放中途失败返回 -1
+     */
+    private int replayFile(Path file, Consumer<List<AuditLog>> writer, int batchSize) {
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            log.error("[Audit] 读取溢出日志失败: file={}", file, e);
+            return -1;
+        }
+
+        int done = 0;
+        while (done < lines.size()) {
+            List<String> batchLines = lines.subList(done, Math.min(done + batchSize, lines.size()));
+            List<AuditLog> batch = new ArrayList<>(batchLines.size());
+            for (String line : batchLines) {
+                if (!line.isBlank()) {
+                    batch.add(JSONUtil.toBean(line, AuditLog.class));
+                }
+            }
+            try {
+                if (!batch.isEmpty()) {
+                    writer.accept(batch);
+                }
+            } catch (Exception e) {
+                log.warn("[Audit] 回放溢出日志失败，稍后重试: file={}, remaining={}, error={}", file,
+                        lines.size() - done, e.getMessage());
+                keepRemaining(file, lines.subList(done, lines.size()));
+                return -1;
+            }
+            done += batchLines.size();
+        }
+        delete(file);
+        return done;
+    }
+
+    private void keepRemaining(Path file, List<String> remaining) {
+        try {
+            Path rest = dir.resolve(file.getFileName() + ".rest" + REPLAY_SUFFIX);
+            Files.write(rest, remaining, StandardCharsets.UTF_8);
+            delete(file);
+        } catch (IOException e) {
+            // 保留原文件，下次整文件重放 (已写入的行会重复)
+            log.error("[Audit] 保存未回放记录失败: file={}", file, e);
+        }
+    }
+
+    private synchronized void rotate() {
+        if (!Files.exists(active)) {
+            return;
+        }
+        try {
+            String name = String.format("%s.%d-%06d%s", ACTIVE_FILE, System.currentTimeMillis(), ++rotations,
+                    REPLAY_SUFFIX);
+            Files.move(active, dir.resolve(name),
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.error("[Audit] 溢出日志切换失败: file={}", active, e);
+        }
+    }
+
+    private List<Path> replayFiles() {
+        List<Path> files = new ArrayList<>();
+        if (!Files.isDirectory(dir)) {
+            return files;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*" + REPLAY_SUFFIX)) {
+            stream.forEach(files::add);
+        } catch (IOException e) {
+            log.error("[Audit] 列出溢出日志失败: dir={}", dir, e);
+        }
+        files.sort(null);
+        return files;
+    }
+
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.error("[Audit] 删除已回放的溢出日志失败: file={}", file, e);
+        }
+    }
+}
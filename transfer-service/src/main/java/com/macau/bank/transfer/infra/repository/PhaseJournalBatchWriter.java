@@ -0,0 +1,152 @@
+package com.macau.bank.transfer.infra.repository;
+
+import com.macau.bank.common.framework.queue.MpscRingBuffer;
+import com.macau.bank.transfer.domain.entity.TransferPhaseRecord;
+import com.macau.bank.transfer.infra.config.PhaseJournalProperties;
+import com.macau.bank.transfer.infra.mapper.TransferPhaseJournalMapper;
+import com.macau.bank.transfer.infra.persistent.po.TransferPhaseJournalPO;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 状态机阶段日志异步批量写入器
+ * <p>
+ * 与 {@link AuditLogBatchWriter} 相同的攒批方式：业务线程只入队，单个写线程攒批后以一条多行 INSERT 写库。
+ * 阶段日志只是恢复加速手段，丢失的代价是恢复时多执行一次已幂等的阶段，因此不做本地溢出：
+ * - 队列已满或写库失败时丢弃该批并计数
+ * - 停机时尽量写完队列中剩余的日志
+ * </p>
+ * 指标：入队数、写库数、丢弃数、写库失败次数、队列深度，见 {@link #metrics()}。
+ */
+@Slf4j
+@Component
+public class PhaseJournalBatchWriter {
+
+    @Resource
+    private TransferPhaseJournalMapper transferPhaseJournalMapper;
+
+    @Resource
+    private PhaseJournalProperties phaseJournalProperties;
+
+    private MpscRingBuffer<TransferPhaseRecord> ring;
+
+    private Thread worker;
+
+    private volatile boolean running;
+
+    private final LongAdder submittedCount = new LongAdder();
+    private final LongAdder writtenCount = new LongAdder();
+    private final LongAdder batchCount = new LongAdder();
+    private final LongAdder droppedCount = new LongAdder();
+    private final LongAdder writeFailureCount = new LongAdder();
+
+    @PostConstruct
+    public void start() {
+        if (!phaseJournalProperties.isEnabled() || !phaseJournalProperties.isAsyncWrite()) {
+            return;
+        }
+        ring = new MpscRingBuffer<>(phaseJournalProperties.getRingCapacity());
+        running = true;
+        worker = new Thread(this::runLoop, "phase-journal-writer");
+        worker.setDaemon(true);
+        worker.start();
+        log.info("[PhaseJournal] 阶段日志异步写入器已启动: ringCapacity={}, maxBatchSize={}",
+                ring.capacity(), phaseJournalProperties.getMaxBatchSize());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (worker == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(worker);
+        worker.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    /**
+     * 提交一条阶段日志
+     *
+     * @return 写入器未运行时返回 false，调用方应直接插入
+     */
+    public boolean submit(TransferPhaseRecord record) {
+        if (!running) {
+            return false;
+        }
+        submittedCount.increment();
+        if (!ring.offer(record)) {
+            droppedCount.increment();
+        }
+        return true;
+    }
+
+    /**
+     * 写入指标快照
+     */
+    public PhaseJournalWriterMetrics metrics() {
+        return new PhaseJournalWriterMetrics(submittedCount.sum(), writtenCount.sum(), batchCount.sum(),
+                droppedCount.sum(), writeFailureCount.sum(), ring == null ? 0 : ring.size());
+    }
+
+    private void runLoop() {
+        int maxBatch = Math.max(1, phaseJournalProperties.getMaxBatchSize());
+        long maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(phaseJournalProperties.getMaxWaitMillis());
+        List<TransferPhaseRecord> batch = new ArrayList<>(maxBatch);
+
+        while (running || !ring.isEmpty()) {
+            ring.drainTo(batch, maxBatch);
+            if (batch.size() < maxBatch && running) {
+                LockSupport.parkNanos(maxWaitNanos);
+                ring.drainTo(batch, maxBatch - batch.size());
+            }
+            if (batch.isEmpty()) {
+                continue;
+            }
+            try {
+                insertBatch(batch);
+                writtenCount.add(batch.size());
+                batchCount.increment();
+            } catch (Exception e) {
+                log.warn("[PhaseJournal] 阶段日志批量写库失败，丢弃本批: size={}, error={}", batch.size(),
+                        e.getMessage());
+                writeFailureCount.increment();
+                droppedCount.add(batch.size());
+            }
+            batch.clear();
+        }
+    }
+
+    void insertBatch(List<TransferPhaseRecord> batch) {
+        List<TransferPhaseJournalPO> rows = new ArrayList<>(batch.size());
+        for (TransferPhaseRecord record : batch) {
+            TransferPhaseJournalPO po = new TransferPhaseJournalPO();
+            BeanUtils.copyProperties(record, po);
+            rows.add(po);
+        }
+        transferPhaseJournalMapper.insertBatch(rows);
+    }
+
+    /**
+     * 写入指标
+     *
+     * @param submitted     累计提交数
+     * @param written       累计写库行数
+     * @param batches       累计写库批次数
+     * @param dropped       队列已满或写库失败丢弃的行数
+     * @param writeFailures 写库失败批次数
+     * @param queueDepth    当前队列长度
+     */
+    public record PhaseJournalWriterMetrics(long submitted, long written, long batches, long dropped,
+            long writeFailures, int queueDepth) {
+    }
+}
@@ -0,0 +1,46 @@
+package com.macau.bank.transfer.infra.repository;
+
+import com.macau.bank.transfer.domain.repository.RiskVelocityRepository;
+import jakarta.annotation.Resource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 风控频率计数仓储 (Redis 实现)
+ * <p>
+ * key 形如 transfer:risk:velocity:{userNo}，首次计数时设置过期时间，过期即开始新窗口
+ * </p>
+ */
+@Repository
+public class RiskVelocityRepositoryImpl implements RiskVelocityRepository {
+
+    private static final String KEY_PREFIX = "transfer:risk:velocity:";
+
+    /**
+     * KEYS: 计数器
+     * ARGV: 窗口秒数
+     * 返回: 加一后的计数
+     */
+    private static final RedisScript<Long> INCREMENT_SCRIPT = new DefaultRedisScript<>(
+            "local count = redis.call('incr', KEYS[1]) "
+                    + "if count == 1 then redis.call('expire', KEYS[1], ARGV[1]) end "
+                    + "return count", Long.class);
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Override
+    public long increment(String userNo, Duration window) {
+        Long count = stringRedisTemplate.execute(INCREMENT_SCRIPT, List.of(KEY_PREFIX + "{" + userNo + "}"),
+                String.valueOf(Math.max(1, window.toSeconds())));
+        if (count == null) {
+            throw new IllegalStateException("风控频率计数脚本无返回: userNo=" + userNo);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,211 @@
+package com.macau.bank.transfer.infra.repository;
+
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.LRUCache;
+import cn.hutool.json.JSONConfig;
+import cn.hutool.json.JSONUtil;
+import com.macau.bank.common.core.enums.UserLevel;
+import com.macau.bank.transfer.domain.context.TransferContext;
+import com.macau.bank.transfer.domain.model.AccountSnapshot;
+import com.macau.bank.transfer.domain.repository.TransferContextCacheRepository;
+import com.macau.bank.transfer.infra.config.TransferContextCacheProperties;
+import com.macau.bank.transfer.infra.persistent.converter.TransferOrderPOConverter;
+import com.macau.bank.transfer.infra.persistent.po.TransferOrderPO;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 转账上下文暂存仓储 (本地 LRU + Redis 两级)
+ * <p>
+ * - Redis 中的 key 决定暂存项是否有效：取回与作废都把 key 置为墓碑 (保留 ttlSeconds)，
+ *   之后的 save 使用 SET NX 不会再写入，风控回调先于提交线程暂存到达时也不会留下旧上下文
+ * - 本地缓存只省去 Redis 传输与反序列化，命中后仍须在 Redis 上原子取回成功才采用，
+ *   因此其他节点的取回/作废对本节点立即生效
+ * - 暂存内容为订单 PO 与账户快照等补全结果，不含交易密码与扩展属性；每次取回生成新的订单实体
+ * - Redis 出错时取回返回 null，由调用方回表
+ * </p>
+ * 指标：暂存/拒绝写入/命中 (本地、Redis)/未命中/出错次数，见 {@link #metrics()}。
+ */
+@Slf4j
+@Repository
+public class TransferContextCacheRepositoryImpl implements TransferContextCacheRepository {
+
+    private static final String KEY_PREFIX = "transfer:context:";
+
+    private static final String TOMBSTONE = "-";
+
+    /**
+     * 保留金额小数位，取回的订单与回表读出的一致
+     */
+    private static final JSONConfig JSON_CONFIG = JSONConfig.create().setStripTrailingZeros(false);
+
+    /**
+     * KEYS: 暂存项
+     * ARGV: 墓碑, TTL(秒), 是否返回暂存内容 (1-返回)
+     * 返回: '' 未暂存/已取回/已作废；暂存内容；不返回内容时为 '1'
+     */
+    private static final RedisScript<String> TAKE_SCRIPT = new DefaultRedisScript<>(
+            "local v = redis.call('get', KEYS[1]) "
+                    + "redis.call('set', KEYS[1], ARGV[1], 'EX', ARGV[2]) "
+                    + "if (not v) or v == ARGV[1] then return '' end "
+                    + "if ARGV[3] == '1' then return v end "
+                    + "return '1'", String.class);
+
+    @Resource
+    private TransferContextCacheProperties contextCacheProperties;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private TransferOrderPOConverter orderPOConverter;
+
+    private LRUCache<String, Snapshot> localSnapshots;
+
+    private final LongAdder saves = new LongAdder();
+    private final LongAdder rejectedSaves = new LongAdder();
+    private final LongAdder localHits = new LongAdder();
+    private final LongAdder redisHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        if (!contextCacheProperties.isEnabled()) {
+            return;
+        }
+        localSnapshots = CacheUtil.newLRUCache(contextCacheProperties.getLocalMaxSize(),
+                TimeUnit.SECONDS.toMillis(contextCacheProperties.getTtlSeconds()));
+    }
+
+    public boolean isEnabled() {
+        return localSnapshots != null;
+    }
+
+    @Override
+    public void save(TransferContext context) {
+        if (!isEnabled() || context == null || context.getOrder() == null) {
+            return;
+        }
+        String txnId = context.getOrder().getTxnId();
+        try {
+            Snapshot snapshot = new Snapshot(orderPOConverter.toPO(context.getOrder()), context.getPayerAccount(),
+                    context.getPayeeAccount(), context.getPayerUserLevel(), context.getSingleLimitPassed());
+            Boolean written = stringRedisTemplate.opsForValue().setIfAbsent(key(txnId),
+                    JSONUtil.toJsonStr(snapshot, JSON_CONFIG), Duration.ofSeconds(contextCacheProperties.getTtlSeconds()));
+            if (!Boolean.TRUE.equals(written)) {
+                // 风控回调已先到达或订单已作废
+                rejectedSaves.increment();
+                return;
+            }
+            localSnapshots.put(txnId, snapshot);
+            saves.increment();
+        } catch (RuntimeException e) {
+            errors.increment();
+            log.warn("暂存转账上下文失败，风控回调将回表重建: txnId={}, error={}", txnId, e.getMessage());
+        }
+    }
+
+    @Override
+    public TransferContext take(String txnId) {
+        if (!isEnabled()) {
+            return null;
+        }
+        Snapshot local = localSnapshots.get(txnId, false);
+        localSnapshots.remove(txnId);
+        try {
+            String value = stringRedisTemplate.execute(TAKE_SCRIPT, List.of(key(txnId)), TOMBSTONE,
+                    String.valueOf(contextCacheProperties.getTtlSeconds()), local == null ? "1" : "0");
+            if (value == null || value.isEmpty()) {
+                misses.increment();
+                return null;
+            }
+            if (local != null) {
+                localHits.increment();
+                return toContext(local);
+            }
+            Snapshot snapshot = JSONUtil.parseObj(value, JSON_CONFIG).toBean(Snapshot.class);
+            redisHits.increment();
+            return toContext(snapshot);
+        } catch (RuntimeException e) {
+            errors.increment();
+            log.warn("取回转账上下文失败，回表重建: txnId={}, error={}", txnId, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 作废暂存项；开启时 Redis 写入失败向上抛出，避免风控回调取到修改前的订单
+     */
+    @Override
+    public void evict(String txnId) {
+        if (isEnabled()) {
+            localSnapshots.remove(txnId);
+        }
+        try {
+            stringRedisTemplate.opsForValue().set(key(txnId), TOMBSTONE,
+                    Duration.ofSeconds(contextCacheProperties.getTtlSeconds()));
+        } catch (RuntimeException e) {
+            errors.increment();
+            if (isEnabled()) {
+                throw e;
+            }
+            log.warn("作废转账上下文失败 (暂存未开启): txnId={}, error={}", txnId, e.getMessage());
+        }
+    }
+
+    public ContextCacheMetrics metrics() {
+        return new ContextCacheMetrics(saves.sum(), rejectedSaves.sum(), localHits.sum(), redisHits.sum(),
+                misses.sum(), errors.sum());
+    }
+
+    private TransferContext toContext(Snapshot snapshot) {
+        return TransferContext.builder()
+                .order(orderPOConverter.toEntity(snapshot.getOrder()))
+                .payerAccount(snapshot.getPayerAccount())
+                .payeeAccount(snapshot.getPayeeAccount())
+                .payerUserLevel(snapshot.getPayerUserLevel())
+                .singleLimitPassed(snapshot.getSingleLimitPassed())
+                .build();
+    }
+
+    private static String key(String txnId) {
+        return KEY_PREFIX + txnId;
+    }
+
+    /**
+     * 暂存内容
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Snapshot {
+
+        private TransferOrderPO order;
+
+        private AccountSnapshot payerAccount;
+
+        private AccountSnapshot payeeAccount;
+
+        private UserLevel payerUserLevel;
+
+        private Boolean singleLimitPassed;
+    }
+
+    public record ContextCacheMetrics(long saves, long rejectedSaves, long localHits, long redisHits, long misses,
+                                      long errors) {
+    }
+}
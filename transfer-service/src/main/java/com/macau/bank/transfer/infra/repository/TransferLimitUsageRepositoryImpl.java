@@ -0,0 +1,249 @@
+package com.macau.bank.transfer.infra.repository;
+
+import com.macau.bank.common.core.enums.TransferType;
+import com.macau.bank.transfer.common.enums.LimitReserveResultEnum;
+import com.macau.bank.transfer.domain.repository.TransferLimitUsageRepository;
+import com.macau.bank.transfer.infra.mapper.TransferOrderMapper;
+import com.macau.bank.transfer.infra.persistent.po.TransferOrderPO;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 累计限额用量仓储 (Redis 实现)
+ * <p>
+ * - 计数器以分为单位存整数，key 形如 transfer:limit:usage:{userNo}:INTERNAL:MOP:D20260101 / M202601
+ * - 每笔交易的占用记录 (txn key) 保存所占用的日/月计数器与金额，释放时按记录回退，跨天冲正也能退回原周期
+ * - 同一用户的 key 带相同 hash tag，集群模式下 Lua 脚本访问的 key 落在同一 slot
+ * </p>
+ */
+@Slf4j
+@Repository
+public class TransferLimitUsageRepositoryImpl implements TransferLimitUsageRepository {
+
+    private static final String KEY_PREFIX = "transfer:limit:usage:";
+
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private static final Duration DAY_TTL = Duration.ofDays(2);
+
+    private static final Duration MONTH_TTL = Duration.ofDays(32);
+
+    /**
+     * 占用记录需覆盖整个月周期，月内冲正才能退回月累计
+     */
+    private static final Duration TXN_TTL = Duration.ofDays(35);
+
+    private static final int REBUILD_BATCH_SIZE = 500;
+
+    /**
+     * KEYS: 日计数器, 月计数器, 占用记录
+     * ARGV: 金额, 日限额(-1 不限), 月限额(-1 不限), 日TTL, 月TTL, 占用记录TTL
+     * 返回: 1-占用成功 0-重复占用 -1-超日限额 -2-超月限额
+     */
+    private static final RedisScript<Long> RESERVE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('exists', KEYS[3]) == 1 then return 0 end "
+                    + "local amount = tonumber(ARGV[1]) "
+                    + "local dailyLimit = tonumber(ARGV[2]) "
+                    + "if dailyLimit >= 0 and tonumber(redis.call('get', KEYS[1]) or '0') + amount > dailyLimit then return -1 end "
+                    + "local monthlyLimit = tonumber(ARGV[3]) "
+                    + "if monthlyLimit >= 0 and tonumber(redis.call('get', KEYS[2]) or '0') + amount > monthlyLimit then return -2 end "
+                    + "redis.call('incrby', KEYS[1], amount) "
+                    + "redis.call('expire', KEYS[1], ARGV[4]) "
+                    + "redis.call('incrby', KEYS[2], amount) "
+                    + "redis.call('expire', KEYS[2], ARGV[5]) "
+                    + "redis.call('set', KEYS[3], KEYS[1] .. '|' .. KEYS[2] .. '|' .. ARGV[1], 'EX', ARGV[6]) "
+                    + "return 1", Long.class);
+
+    /**
+     * KEYS: 计数器
+     * ARGV: 增量 (分), TTL(秒)
+     * 调整后不大于 0 时删除计数器
+     */
+    private static final String ADJUST_SCRIPT =
+            "local v = redis.call('incrby', KEYS[1], ARGV[1]) "
+                    + "if v <= 0 then redis.call('del', KEYS[1]) return 0 end "
+                    + "redis.call('expire', KEYS[1], ARGV[2]) "
+                    + "return v";
+
+    /**
+     * KEYS: 占用记录
+     * 计数器已过期 (周期已结束) 时不回退，避免产生负数计数器
+     */
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "local record = redis.call('get', KEYS[1]) "
+                    + "if not record then return 0 end "
+                    + "redis.call('del', KEYS[1]) "
+                    + "local dayKey, monthKey, amount = string.match(record, '^(.-)|(.-)|(%d+)$') "
+                    + "if redis.call('exists', dayKey) == 1 then redis.call('decrby', dayKey, amount) end "
+                    + "if redis.call('exists', monthKey) == 1 then redis.call('decrby', monthKey, amount) end "
+                    + "return 1", Long.class);
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private TransferOrderMapper transferOrderMapper;
+
+    @Override
+    public LimitReserveResultEnum reserve(String userNo, TransferType transferType, String currency, String txnId,
+            BigDecimal amount, LocalDate bizDate, BigDecimal dailyLimit, BigDecimal monthlyLimit) {
+        String counterPrefix = counterPrefix(userNo, transferType.name(), currency);
+        Long result = stringRedisTemplate.execute(RESERVE_SCRIPT,
+                List.of(counterPrefix + "D" + DAY_FORMAT.format(bizDate),
+                        counterPrefix + "M" + MONTH_FORMAT.format(bizDate),
+                        txnKey(userNo, txnId)),
+                String.valueOf(toCents(amount, RoundingMode.HALF_UP)),
+                String.valueOf(dailyLimit == null ? -1 : toCents(dailyLimit, RoundingMode.DOWN)),
+                String.valueOf(monthlyLimit == null ? -1 : toCents(monthlyLimit, RoundingMode.DOWN)),
+                String.valueOf(DAY_TTL.toSeconds()),
+                String.valueOf(MONTH_TTL.toSeconds()),
+                String.valueOf(TXN_TTL.toSeconds()));
+        if (result == null) {
+            throw new IllegalStateException("累计限额占用脚本无返回: txnId=" + txnId);
+        }
+        if (result == 1) {
+            return LimitReserveResultEnum.RESERVED;
+        }
+        if (result == 0) {
+            return LimitReserveResultEnum.DUPLICATE;
+        }
+        return result == -1 ? LimitReserveResultEnum.DAILY_EXCEEDED : LimitReserveResultEnum.MONTHLY_EXCEEDED;
+    }
+
+    @Override
+    public boolean release(String userNo, String txnId) {
+        Long released = stringRedisTemplate.execute(RELEASE_SCRIPT, List.of(txnKey(userNo, txnId)));
+        return released != null && released > 0;
+    }
+
+    @Override
+    public int rebuildDaily(LocalDate day) {
+        return rebuild(day.atStartOfDay(), day.plusDays(1).atStartOfDay(), "D" + DAY_FORMAT.format(day), DAY_TTL);
+    }
+
+    @Override
+    public int rebuildMonthly(YearMonth month) {
+        return rebuild(month.atDay(1).atStartOfDay(), month.plusMonths(1).atDay(1).atStartOfDay(),
+                "M" + MONTH_FORMAT.format(month), MONTH_TTL);
+    }
+
+    /**
+     * 游标流式读取订单，在本地按计数器聚合后按差额调整 Redis
+     * <p>
+     * - 先 SCAN 该周期已有的计数器并记下当前值，再流式读取订单；订单表中已没有占用的计数器
+     *   (订单全部失败、释放失败遗留的占用) 调整为 0 并删除
+     * - 每个计数器原子地加上 (订单合计 - 读取订单前的值)，重建期间新发生的占用/释放保留在计数器上，不会被覆盖；
+     *   仅在"订单已落库/状态已变更但尚未占用/释放"的毫秒级窗口内的交易可能偏差一笔，由下一次重建修正
+     * </p>
+     */
+    private int rebuild(LocalDateTime from, LocalDateTime to, String period, Duration ttl) {
+        Map<String, Long> before = snapshotCounters(period);
+
+        Map<String, Long> totals = new HashMap<>();
+        transferOrderMapper.streamLimitUsage(from, to, context -> {
+            TransferOrderPO po = context.getResultObject();
+            if (po.getUserNo() == null || po.getTransferType() == null || po.getAmount() == null) {
+                return;
+            }
+            totals.merge(counterPrefix(po.getUserNo(), po.getTransferType().name(), po.getCurrencyCode()) + period,
+                    toCents(po.getAmount(), RoundingMode.HALF_UP), Long::sum);
+        });
+
+        Set<String> keys = new LinkedHashSet<>(totals.keySet());
+        keys.addAll(before.keySet());
+        List<Map.Entry<String, Long>> deltas = new ArrayList<>();
+        for (String key : keys) {
+            long delta = totals.getOrDefault(key, 0L) - before.getOrDefault(key, 0L);
+            if (delta != 0) {
+                deltas.add(Map.entry(key, delta));
+            }
+        }
+        for (int i = 0; i < deltas.size(); i += REBUILD_BATCH_SIZE) {
+            List<Map.Entry<String, Long>> batch = deltas.subList(i, Math.min(i + REBUILD_BATCH_SIZE, deltas.size()));
+            stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                adjustCounters(connection, batch, ttl);
+                return null;
+            });
+        }
+        log.info("累计限额重建完成: period={}, counters={}, adjusted={}, stale={}", period, keys.size(), deltas.size(),
+                before.keySet().stream().filter(key -> !totals.containsKey(key)).count());
+        return keys.size();
+    }
+
+    /**
+     * SCAN 该周期已有的计数器及其当前值
+     */
+    private Map<String, Long> snapshotCounters(String period) {
+        List<String> keys = new ArrayList<>();
+        ScanOptions options = ScanOptions.scanOptions().match(KEY_PREFIX + "*:" + period).count(REBUILD_BATCH_SIZE)
+                .build();
+        try (Cursor<String> cursor = stringRedisTemplate.scan(options)) {
+            cursor.forEachRemaining(keys::add);
+        }
+
+        Map<String, Long> counters = new HashMap<>();
+        for (int i = 0; i < keys.size(); i += REBUILD_BATCH_SIZE) {
+            List<String> batch = keys.subList(i, Math.min(i + REBUILD_BATCH_SIZE, keys.size()));
+            List<String> values = stringRedisTemplate.opsForValue().multiGet(batch);
+            for (int j = 0; j < batch.size(); j++) {
+                String value = values == null ? null : values.get(j);
+                if (value != null) {
+                    counters.put(batch.get(j), Long.parseLong(value));
+                }
+            }
+        }
+        return counters;
+    }
+
+    private static void adjustCounters(RedisConnection connection, List<Map.Entry<String, Long>> batch,
+            Duration ttl) {
+        byte[] script = ADJUST_SCRIPT.getBytes(StandardCharsets.UTF_8);
+        byte[] ttlSeconds = String.valueOf(ttl.toSeconds()).getBytes(StandardCharsets.UTF_8);
+        for (Map.Entry<String, Long> entry : batch) {
+            connection.scriptingCommands().eval(script, ReturnType.INTEGER, 1,
+                    entry.getKey().getBytes(StandardCharsets.UTF_8),
+                    String.valueOf(entry.getValue()).getBytes(StandardCharsets.UTF_8), ttlSeconds);
+        }
+    }
+
+    private static String counterPrefix(String userNo, String transferType, String currency) {
+        return KEY_PREFIX + "{" + userNo + "}:" + transferType + ":" + currency + ":";
+    }
+
+    private static String txnKey(String userNo, String txnId) {
+        return KEY_PREFIX + "{" + userNo + "}:txn:" + txnId;
+    }
+
+    /**
+     * 金额转为以分为单位的整数，Redis 计数器不使用浮点
+     */
+    private static long toCents(BigDecimal amount, RoundingMode roundingMode) {
+        return amount.setScale(2, roundingMode).unscaledValue().longValueExact();
+    }
+}
@@ -2,6 +2,7 @@ package com.macau.bank.transfer.infra.repository;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.macau.bank.transfer.domain.entity.TransferOrder;
+import com.macau.bank.transfer.domain.model.TransferOrderSummary;
 import com.macau.bank.transfer.domain.query.TransferOrderQuery;
 import com.macau.bank.transfer.domain.repository.TransferOrderRepository;
 import com.macau.bank.transfer.infra.mapper.TransferOrderMapper;
@@ -58,23 +59,10 @@ public class TransferOrderRepositoryImpl implements TransferOrderRepository {
     }
 
     @Override
-    public java.util.List<TransferOrder> query(TransferOrderQuery condition) {
-        LambdaQueryWrapper<TransferOrderPO> wrapper = new LambdaQueryWrapper<>();
-        if (condition != null) {
-            String userNo = condition.getPayerUserNo();
-            String payeeAcc = condition.getPayeeAccountNo();
-
-            wrapper.eq(userNo != null, TransferOrderPO::getUserNo, userNo);
-            wrapper.eq(payeeAcc != null && !payeeAcc.isEmpty(),
-                    TransferOrderPO::getPayeeAccountNo, payeeAcc);
-            wrapper.eq(condition.getStatus() != null, TransferOrderPO::getStatus, condition.getStatus());
-        }
-        wrapper.orderByDesc(TransferOrderPO::getCreateTime);
-
-        java.util.List<TransferOrderPO> poList = transferOrderMapper.selectList(wrapper);
-        return poList.stream()
-                .map(orderPOConverter::toEntity)
-                .collect(java.util.stream.Collectors.toList());
+    public List<TransferOrderSummary> queryHistory(TransferOrderQuery condition, int limit) {
+        return transferOrderMapper.selectHistory(condition, limit).stream()
+                .map(orderPOConverter::toSummary)
+                .toList();
     }
 
 }
@@ -0,0 +1,70 @@
+package com.macau.bank.transfer.infra.repository;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.macau.bank.common.core.enums.TransferStatus;
+import com.macau.bank.transfer.domain.entity.TransferPhaseRecord;
+import com.macau.bank.transfer.domain.repository.TransferPhaseJournalRepository;
+import com.macau.bank.transfer.infra.config.PhaseJournalProperties;
+import com.macau.bank.transfer.infra.mapper.TransferPhaseJournalMapper;
+import com.macau.bank.transfer.infra.persistent.po.TransferPhaseJournalPO;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 状态机阶段日志仓储实现
+ * <p>
+ * 开启异步写入时交给 {@link PhaseJournalBatchWriter}，业务线程只入队；否则同步插入。
+ * 写入失败只记录日志，不影响状态机执行。
+ */
+@Slf4j
+@Repository
+public class TransferPhaseJournalRepositoryImpl implements TransferPhaseJournalRepository {
+
+    @Resource
+    private TransferPhaseJournalMapper transferPhaseJournalMapper;
+
+    @Resource
+    private PhaseJournalBatchWriter phaseJournalBatchWriter;
+
+    @Resource
+    private PhaseJournalProperties phaseJournalProperties;
+
+    @Override
+    public void append(TransferPhaseRecord record) {
+        if (!phaseJournalProperties.isEnabled() || phaseJournalBatchWriter.submit(record)) {
+            return;
+        }
+        try {
+            TransferPhaseJournalPO po = new TransferPhaseJournalPO();
+            BeanUtils.copyProperties(record, po);
+            transferPhaseJournalMapper.insert(po);
+        } catch (Exception e) {
+            log.warn("[PhaseJournal] 阶段日志保存失败: txnId={}, phase={}, error={}",
+                    record.getTxnId(), record.getPhase(), e.getMessage());
+        }
+    }
+
+    @Override
+    public List<TransferPhaseRecord> findByTxnId(String txnId, TransferStatus fromStatus) {
+        if (!phaseJournalProperties.isEnabled()) {
+            return List.of();
+        }
+        LambdaQueryWrapper<TransferPhaseJournalPO> wrapper = new LambdaQueryWrapper<TransferPhaseJournalPO>()
+                .eq(TransferPhaseJournalPO::getTxnId, txnId)
+                .eq(TransferPhaseJournalPO::getFromStatus, fromStatus)
+                .orderByAsc(TransferPhaseJournalPO::getId);
+        List<TransferPhaseJournalPO> rows = transferPhaseJournalMapper.selectList(wrapper);
+        List<TransferPhaseRecord> records = new ArrayList<>(rows.size());
+        for (TransferPhaseJournalPO po : rows) {
+            TransferPhaseRecord record = new TransferPhaseRecord();
+            BeanUtils.copyProperties(po, record);
+            records.add(record);
+        }
+        return records;
+    }
+}
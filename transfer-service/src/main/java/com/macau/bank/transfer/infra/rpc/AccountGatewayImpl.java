@@ -1,10 +1,12 @@
 package com.macau.bank.transfer.infra.rpc;
 
+import com.macau.bank.api.account.request.BalanceOpRpcRequest;
 import com.macau.bank.api.account.request.CreditRpcRequest;
 import com.macau.bank.api.account.request.DebitRpcRequest;
 import com.macau.bank.api.account.request.FreezeBalanceRpcRequest;
 import com.macau.bank.api.account.request.UnfreezeBalanceRpcRequest;
 import com.macau.bank.api.account.response.AccountInfoRpcResponse;
+import com.macau.bank.api.account.response.BalanceOpRpcResponse;
 import com.macau.bank.api.account.service.AccountRpcService;
 import com.macau.bank.common.core.enums.FreezeType;
 import com.macau.bank.common.core.exception.BusinessException;
@@ -14,14 +16,19 @@ import com.macau.bank.api.account.request.UnfreezeAndDebitRpcRequest;
 import com.macau.bank.common.core.enums.BizType;
 import com.macau.bank.transfer.domain.gateway.AccountGateway;
 import com.macau.bank.transfer.domain.model.AccountSnapshot;
+import com.macau.bank.transfer.domain.model.BalanceEntry;
 import com.macau.bank.transfer.infra.rpc.converter.AccountRpcConverter;
 import jakarta.annotation.Nullable;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.dubbo.config.annotation.DubboReference;
+import org.apache.dubbo.rpc.RpcContext;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 账户网关实现（防腐层）
@@ -30,6 +37,7 @@ import java.math.BigDecimal;
  * 1. 调用 account-service 的 RPC 接口
  * 2. 将 RPC Response 转换为 Domain 模型
  * 3. 统一处理 RPC 调用结果
+ * 4. 余额操作的 *Async 版本走 Dubbo 异步调用，不占用调用线程等待响应
  */
 @Component
 @Slf4j
@@ -61,7 +69,116 @@ public class AccountGatewayImpl implements AccountGateway {
     @Override
     public boolean debit(String accountNo, String currencyCode, BigDecimal amount, String description, String bizNo,
             String requestId) {
-        DebitRpcRequest request = DebitRpcRequest.builder()
+        Result<Boolean> result = accountRpcService.debit(
+                debitRequest(accountNo, currencyCode, amount, description, bizNo, requestId));
+        return handleRpcResult(result, "扣款", true);
+    }
+
+    @Override
+    public boolean credit(String accountNo, String currencyCode, BigDecimal amount, String description, String bizNo,
+            String requestId) {
+        Result<Boolean> result = accountRpcService.credit(
+                creditRequest(accountNo, currencyCode, amount, description, bizNo, requestId));
+        return handleRpcResult(result, "入账", true);
+    }
+
+    @Override
+    public boolean freeze(String accountNo, String currencyCode, BigDecimal amount, String flowNo, String reason) {
+        Result<Boolean> result = accountRpcService.freezeBalance(
+                freezeRequest(accountNo, currencyCode, amount, flowNo, reason));
+        return handleRpcResult(result, "冻结余额", true);
+    }
+
+    @Override
+    public boolean unFreeze(String accountNo, String currencyCode, BigDecimal amount, String flowNo, String reason) {
+        Result<Boolean> result = accountRpcService.unfreezeBalance(
+                unfreezeRequest(accountNo, currencyCode, amount, flowNo, reason));
+        return handleRpcResult(result, "解冻余额", true);
+    }
+
+    @Override
+    public boolean unfreezeAndDebit(String accountNo, String currencyCode, BigDecimal amount, String flowNo,
+            String reason, BizType bizType, String requestId) {
+        Result<Boolean> result = accountRpcService.unfreezeAndDebit(
+                unfreezeAndDebitRequest(accountNo, currencyCode, amount, flowNo, reason, bizType, requestId));
+        return handleRpcResult(result, "解冻并扣款", true);
+    }
+
+    @Override
+    public boolean executeBatch(List<BalanceEntry> entries) {
+        List<BalanceOpRpcRequest> ops = accountRpcConverter.toBalanceOpRequests(entries);
+
+        Result<List<BalanceOpRpcResponse>> result = accountRpcService.executeBatch(ops);
+        return allSucceeded(handleRpcResult(result, "批量记账", true));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> debitAsync(String accountNo, String currencyCode, BigDecimal amount,
+            String description, String bizNo, String requestId) {
+        DebitRpcRequest request = debitRequest(accountNo, currencyCode, amount, description, bizNo, requestId);
+        return callAsync(() -> accountRpcService.debit(request), "扣款");
+    }
+
+    @Override
+    public CompletableFuture<Boolean> creditAsync(String accountNo, String currencyCode, BigDecimal amount,
+            String description, String bizNo, String requestId) {
+        CreditRpcRequest request = creditRequest(accountNo, currencyCode, amount, description, bizNo, requestId);
+        return callAsync(() -> accountRpcService.credit(request), "入账");
+    }
+
+    @Override
+    public CompletableFuture<Boolean> freezeAsync(String accountNo, String currencyCode, BigDecimal amount,
+            String flowNo, String reason) {
+        FreezeBalanceRpcRequest request = freezeRequest(accountNo, currencyCode, amount, flowNo, reason);
+        return callAsync(() -> accountRpcService.freezeBalance(request), "冻结余额");
+    }
+
+    @Override
+    public CompletableFuture<Boolean> unFreezeAsync(String accountNo, String currencyCode, BigDecimal amount,
+            String flowNo, String reason) {
+        UnfreezeBalanceRpcRequest request = unfreezeRequest(accountNo, currencyCode, amount, flowNo, reason);
+        return callAsync(() -> accountRpcService.unfreezeBalance(request), "解冻余额");
+    }
+
+    @Override
+    public CompletableFuture<Boolean> unfreezeAndDebitAsync(String accountNo, String currencyCode, BigDecimal amount,
+            String flowNo, String reason, BizType bizType, String requestId) {
+        UnfreezeAndDebitRpcRequest request = unfreezeAndDebitRequest(accountNo, currencyCode, amount, flowNo, reason,
+                bizType, requestId);
+        return callAsync(() -> accountRpcService.unfreezeAndDebit(request), "解冻并扣款");
+    }
+
+    @Override
+    public CompletableFuture<Boolean> executeBatchAsync(List<BalanceEntry> entries) {
+        List<BalanceOpRpcRequest> ops = accountRpcConverter.toBalanceOpRequests(entries);
+        return callAsync(() -> accountRpcService.executeBatch(ops), "批量记账").thenApply(this::allSucceeded);
+    }
+
+    /**
+     * 以 Dubbo 异步方式调用账户服务
+     * <p>
+     * 调用线程只负责发出请求，结果在响应到达 (或 Dubbo 超时) 时按 {@link #handleRpcResult} 处理。
+     * 返回的 Future 被调用方提前结束 (如状态机阶段超时) 时取消 RPC 的 Future，本端不再等待响应；
+     * 已发出的请求不会撤回，账户服务仍会执行完毕，Dubbo 的待响应记录在其自身超时后清理
+     *
+     * @param call      发起 RPC 的调用，在 Dubbo 异步上下文中执行
+     * @param operation 操作描述
+     * @return 响应处理完成时结束的 Future
+     */
+    private <T> CompletableFuture<T> callAsync(Callable<Result<T>> call, String operation) {
+        CompletableFuture<Result<T>> rpc = RpcContext.getServiceContext().asyncCall(call);
+        CompletableFuture<T> result = rpc.thenApply(r -> handleRpcResult(r, operation, true));
+        result.whenComplete((v, e) -> rpc.cancel(false));
+        return result;
+    }
+
+    private boolean allSucceeded(@Nullable List<BalanceOpRpcResponse> responses) {
+        return responses != null && responses.stream().allMatch(r -> Boolean.TRUE.equals(r.getSuccess()));
+    }
+
+    private static DebitRpcRequest debitRequest(String accountNo, String currencyCode, BigDecimal amount,
+            String description, String bizNo, String requestId) {
+        return DebitRpcRequest.builder()
                 .accountNo(accountNo)
                 .currencyCode(currencyCode)
                 .amount(amount)
@@ -69,15 +186,11 @@ public class AccountGatewayImpl implements AccountGateway {
                 .bizNo(bizNo)
                 .requestId(requestId)
                 .build();
-
-        Result<Boolean> result = accountRpcService.debit(request);
-        return handleRpcResult(result, "扣款", true);
     }
 
-    @Override
-    public boolean credit(String accountNo, String currencyCode, BigDecimal amount, String description, String bizNo,
-            String requestId) {
-        CreditRpcRequest request = CreditRpcRequest.builder()
+    private static CreditRpcRequest creditRequest(String accountNo, String currencyCode, BigDecimal amount,
+            String description, String bizNo, String requestId) {
+        return CreditRpcRequest.builder()
                 .accountNo(accountNo)
                 .currencyCode(currencyCode)
                 .amount(amount)
@@ -85,14 +198,11 @@ public class AccountGatewayImpl implements AccountGateway {
                 .bizNo(bizNo)
                 .requestId(requestId)
                 .build();
-
-        Result<Boolean> result = accountRpcService.credit(request);
-        return handleRpcResult(result, "入账", true);
     }
 
-    @Override
-    public boolean freeze(String accountNo, String currencyCode, BigDecimal amount, String flowNo, String reason) {
-        FreezeBalanceRpcRequest request = FreezeBalanceRpcRequest.builder()
+    private static FreezeBalanceRpcRequest freezeRequest(String accountNo, String currencyCode, BigDecimal amount,
+            String flowNo, String reason) {
+        return FreezeBalanceRpcRequest.builder()
                 .accountNo(accountNo)
                 .currencyCode(currencyCode)
                 .amount(amount)
@@ -100,29 +210,22 @@ public class AccountGatewayImpl implements AccountGateway {
                 .freezeType(FreezeType.TRANSACTION)
                 .reason(reason)
                 .build();
-
-        Result<Boolean> result = accountRpcService.freezeBalance(request);
-        return handleRpcResult(result, "冻结余额", true);
     }
 
-    @Override
-    public boolean unFreeze(String accountNo, String currencyCode, BigDecimal amount, String flowNo, String reason) {
-        UnfreezeBalanceRpcRequest request = UnfreezeBalanceRpcRequest.builder()
+    private static UnfreezeBalanceRpcRequest unfreezeRequest(String accountNo, String currencyCode, BigDecimal amount,
+            String flowNo, String reason) {
+        return UnfreezeBalanceRpcRequest.builder()
                 .accountNo(accountNo)
                 .currencyCode(currencyCode)
                 .amount(amount)
                 .flowNo(flowNo)
                 .reason(reason)
                 .build();
-
-        Result<Boolean> result = accountRpcService.unfreezeBalance(request);
-        return handleRpcResult(result, "解冻余额", true);
     }
 
-    @Override
-    public boolean unfreezeAndDebit(String accountNo, String currencyCode, BigDecimal amount, String flowNo,
-            String reason, BizType bizType, String requestId) {
-        UnfreezeAndDebitRpcRequest request = UnfreezeAndDebitRpcRequest.builder()
+    private static UnfreezeAndDebitRpcRequest unfreezeAndDebitRequest(String accountNo, String currencyCode,
+            BigDecimal amount, String flowNo, String reason, BizType bizType, String requestId) {
+        return UnfreezeAndDebitRpcRequest.builder()
                 .accountNo(accountNo)
                 .currencyCode(currencyCode)
                 .amount(amount)
@@ -131,9 +234,6 @@ public class AccountGatewayImpl implements AccountGateway {
                 .bizType(bizType)
                 .requestId(requestId)
                 .build();
-
-        Result<Boolean> result = accountRpcService.unfreezeAndDebit(request);
-        return handleRpcResult(result, "解冻并扣款", true);
     }
 
     /**
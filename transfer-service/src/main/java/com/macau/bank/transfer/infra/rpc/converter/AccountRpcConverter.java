@@ -1,12 +1,18 @@
 package com.macau.bank.transfer.infra.rpc.converter;
 
+import com.macau.bank.api.account.request.BalanceOpRpcRequest;
 import com.macau.bank.api.account.response.AccountInfoRpcResponse;
 import com.macau.bank.transfer.domain.model.AccountSnapshot;
+import com.macau.bank.transfer.domain.model.BalanceEntry;
 import org.mapstruct.Mapper;
 import org.mapstruct.ReportingPolicy;
 
+import java.util.List;
+
 @Mapper(componentModel = "spring", unmappedTargetPolicy = ReportingPolicy.IGNORE)
 public interface AccountRpcConverter {
 
     AccountSnapshot toSnapshot(AccountInfoRpcResponse response);
+
+    List<BalanceOpRpcRequest> toBalanceOpRequests(List<BalanceEntry> entries);
 }
\ No newline at end of file
@@ -5,11 +5,13 @@ import com.macau.bank.transfer.application.command.AddPayeeCmd;
 import com.macau.bank.transfer.application.command.TransferCmd;
 import com.macau.bank.transfer.application.command.UpdatePayeeCmd;
 import com.macau.bank.transfer.application.result.PayeeResult;
+import com.macau.bank.transfer.application.result.TransferOrderPageResult;
 import com.macau.bank.transfer.application.result.TransferOrderResult;
 import com.macau.bank.transfer.application.result.TransferResult;
 import com.macau.bank.transfer.interfaces.http.request.AddPayeeRequest;
 import com.macau.bank.transfer.interfaces.http.request.UpdatePayeeRequest;
 import com.macau.bank.transfer.interfaces.http.response.PayeeResponse;
+import com.macau.bank.transfer.interfaces.http.response.TransferOrderPageResponse;
 import com.macau.bank.transfer.interfaces.http.response.TransferOrderResponse;
 import com.macau.bank.transfer.interfaces.http.response.TransferResponse;
 import org.mapstruct.Mapper;
@@ -57,6 +59,8 @@ public interface TransferWebAssembler {
 
     List<TransferOrderResponse> toResponseList(List<TransferOrderResult> resultList);
 
+    TransferOrderPageResponse toResponse(TransferOrderPageResult result);
+
     @Named("formatDateTime")
     default String formatDateTime(LocalDateTime dateTime) {
         if (dateTime == null)
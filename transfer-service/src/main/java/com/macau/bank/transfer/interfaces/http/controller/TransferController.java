@@ -1,13 +1,17 @@
 package com.macau.bank.transfer.interfaces.http.controller;
 
 import com.macau.bank.api.dto.TransferRequest;
+import com.macau.bank.common.core.enums.TransferChannel;
+import com.macau.bank.common.core.enums.TransferStatus;
 import com.macau.bank.common.core.result.Result;
+import com.macau.bank.common.framework.web.context.RequestHeaderContext;
 import com.macau.bank.transfer.application.command.TransferCmd;
 import com.macau.bank.transfer.common.annotation.PreventDuplicate;
 import com.macau.bank.transfer.interfaces.http.assembler.TransferWebAssembler;
+import com.macau.bank.transfer.application.result.TransferOrderPageResult;
 import com.macau.bank.transfer.application.result.TransferOrderResult;
-import com.macau.bank.transfer.application.result.TransferResult;
 import com.macau.bank.transfer.application.service.TransferAppService;
+import com.macau.bank.transfer.interfaces.http.response.TransferOrderPageResponse;
 import com.macau.bank.transfer.interfaces.http.response.TransferOrderResponse;
 import com.macau.bank.transfer.interfaces.http.response.TransferResponse;
 import com.macau.bank.transfer.interfaces.http.request.TransferReversalRequest;
@@ -15,9 +19,12 @@ import org.springframework.web.bind.annotation.*;
 
 import org.springframework.validation.annotation.Validated;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 
 import jakarta.annotation.Resource;
-import java.util.List;
+
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 转账服务控制器
@@ -35,33 +42,39 @@ public class TransferController {
 
     /**
      * 发起转账
+     * <p>
+     * 异步返回：状态机驱动期间释放 Servlet 线程，驱动结束后再写回响应
      */
     @PreventDuplicate(prefix = "transfer:submit:", timeout = 5, message = "请勿重复提交转账请求")
     @PostMapping("/submit")
-    public Result<TransferResponse> submitTransfer(@RequestBody @Valid TransferRequest request) {
+    public CompletableFuture<Result<TransferResponse>> submitTransfer(@RequestBody @Valid TransferRequest request) {
         // 1. 【拆包】 Request -> Cmd
         TransferCmd cmd = transferWebAssembler.toCmd(request);
 
         // 2. 【办事】 Call App Service
-        TransferResult result = transferAppService.submitTransfer(cmd);
-
         // 3. 【包装】 Result -> Response
-        return Result.success(transferWebAssembler.toResponse(result));
+        return transferAppService.submitTransfer(cmd)
+                .thenApply(result -> Result.success(transferWebAssembler.toResponse(result)));
     }
 
     /**
      * 查询转账记录
+     * <p>
+     * 仅返回当前用户的记录，按创建时间倒序；首页不传 cursor，之后传入上一页返回的 nextCursor
      */
     @GetMapping("/list")
-    public Result<List<TransferOrderResponse>> getTransferOrders(
-            @RequestParam(required = false) Long payerAccountId,
+    public Result<TransferOrderPageResponse> getTransferOrders(
+            @RequestParam(required = false) String payerAccountNo,
             @RequestParam(required = false) String payeeAccountNumber,
-            @RequestParam(defaultValue = "1") Integer page,
-            @RequestParam(defaultValue = "10") Integer pageSize) {
-
-        List<TransferOrderResult> records = transferAppService.getTransferOrders(
-                payerAccountId, payeeAccountNumber, page, pageSize);
-        return Result.success(transferWebAssembler.toResponseList(records));
+            @RequestParam(required = false) TransferStatus status,
+            @RequestParam(required = false) TransferChannel channel,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") @Min(1) @Max(100) Integer pageSize) {
+
+        String userNo = RequestHeaderContext.get().getUserNo();
+        TransferOrderPageResult result = transferAppService.getTransferOrders(
+                userNo, payerAccountNo, payeeAccountNumber, status, channel, cursor, pageSize);
+        return Result.success(transferWebAssembler.toResponse(result));
     }
 
     /**
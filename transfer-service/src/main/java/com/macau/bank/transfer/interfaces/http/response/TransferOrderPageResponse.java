@@ -0,0 +1,25 @@
+package com.macau.bank.transfer.interfaces.http.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 转账记录分页响应 (键集分页)
+ */
+@Data
+@Schema(description = "转账记录分页结果")
+public class TransferOrderPageResponse implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    @Schema(description = "转账记录")
+    private List<TransferOrderResponse> records;
+
+    @Schema(description = "下一页游标，没有更多数据时为空")
+    private String nextCursor;
+
+    @Schema(description = "是否还有下一页", example = "true")
+    private boolean hasMore;
+}
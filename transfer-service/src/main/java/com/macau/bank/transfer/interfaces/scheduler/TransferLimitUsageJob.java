@@ -0,0 +1,32 @@
+package com.macau.bank.transfer.interfaces.scheduler;
+
+import cn.hutool.core.util.StrUtil;
+import com.macau.bank.transfer.application.service.TransferAppService;
+import com.xxl.job.core.context.XxlJobHelper;
+import com.xxl.job.core.handler.annotation.XxlJob;
+import jakarta.annotation.Resource;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * 接口层：累计限额用量重建任务
+ * 职责：以订单表为准覆盖 Redis 中的日/月累计用量，修正释放失败或 Redis 数据丢失造成的偏差
+ * 参数：yyyy-MM-dd，缺省为前一天 (当天的日计数器仍在被实时占用；按差额调整，当月计数器可在线重建)
+ */
+@Component
+public class TransferLimitUsageJob {
+
+    @Resource
+    private TransferAppService transferAppService;
+
+    @XxlJob("transferLimitUsageRebuildHandler")
+    public void transferLimitUsageRebuildHandler() {
+        String param = XxlJobHelper.getJobParam();
+        LocalDate day = StrUtil.isBlank(param) ? LocalDate.now().minusDays(1) : LocalDate.parse(param.trim());
+
+        XxlJobHelper.log("开始重建累计限额用量: day={}", day);
+        transferAppService.rebuildLimitUsage(day);
+        XxlJobHelper.log("累计限额用量重建结束");
+    }
+}
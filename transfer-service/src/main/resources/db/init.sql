@@ -51,7 +51,7 @@ CREATE TABLE `transfer_order` (
           UNIQUE KEY `idempotent_key` (`idempotent_key`),
           UNIQUE KEY `uq_txn_id` (`txn_id`),
           UNIQUE KEY `uq_idempotent` (`idempotent_key`),
-          KEY `idx_user_no` (`user_no`),
+          KEY `idx_user_create_time` (`user_no`,`create_time`,`id`,`status`,`transfer_channel`,`deleted`),
           KEY `idx_payee_account_no` (`payee_account_no`),
           KEY `idx_payee_bank` (`payee_bank_code`,`payee_swift_code`),
           KEY `idx_transfer_channel` (`transfer_channel`),
@@ -0,0 +1,19 @@
+-- ============================================================
+-- 状态机阶段日志表
+-- 只追加：记录每笔订单每次驱动中各阶段的执行结果，用于断点续跑与阶段耗时分析
+-- ============================================================
+
+CREATE TABLE IF NOT EXISTS `transfer_phase_journal` (
+    `id` BIGINT NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+    `txn_id` VARCHAR(64) NOT NULL COMMENT '交易流水号',
+    `from_status` VARCHAR(32) NOT NULL COMMENT '驱动起始状态',
+    `phase` VARCHAR(32) NOT NULL COMMENT '执行阶段',
+    `outcome` VARCHAR(16) NOT NULL COMMENT '执行结果：SUCCESS/FAILED/SKIPPED',
+    `attempt` INT NOT NULL DEFAULT 1 COMMENT '第几次驱动',
+    `cost_micros` BIGINT DEFAULT NULL COMMENT '阶段耗时（微秒）',
+    `error_message` VARCHAR(500) DEFAULT NULL COMMENT '错误信息',
+    `create_time` DATETIME(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) COMMENT '创建时间',
+    PRIMARY KEY (`id`),
+    INDEX `idx_txn_status` (`txn_id`, `from_status`),
+    INDEX `idx_create_time` (`create_time`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='状态机阶段日志表';
@@ -26,6 +26,7 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -108,10 +109,10 @@ class TransferFlowIntegrationTest {
             TransferContext resultContext = TransferContext.builder()
                     .order(mockOrder)
                     .build();
-            when(mockStrategy.execute(any(TransferContext.class))).thenReturn(resultContext);
+            when(mockStrategy.execute(any(TransferContext.class))).thenReturn(CompletableFuture.completedFuture(resultContext));
 
             // When - 执行转账
-            TransferResult result = transferAppService.submitTransfer(transferCmd);
+            TransferResult result = transferAppService.submitTransfer(transferCmd).join();
 
             // Then - 验证完整流程
             assertNotNull(result);
@@ -143,10 +144,10 @@ class TransferFlowIntegrationTest {
             TransferContext resultContext = TransferContext.builder()
                     .order(mockOrder)
                     .build();
-            when(mockStrategy.execute(any())).thenReturn(resultContext);
+            when(mockStrategy.execute(any())).thenReturn(CompletableFuture.completedFuture(resultContext));
 
             // When
-            transferAppService.submitTransfer(transferCmd);
+            transferAppService.submitTransfer(transferCmd).join();
 
             // Then - 验证选择了正确的策略
             verify(transferStrategyFactory).getStrategy(transferType);
@@ -178,10 +179,10 @@ class TransferFlowIntegrationTest {
             TransferContext resultContext = TransferContext.builder()
                     .order(mockOrder)
                     .build();
-            when(mockStrategy.execute(any())).thenReturn(resultContext);
+            when(mockStrategy.execute(any())).thenReturn(CompletableFuture.completedFuture(resultContext));
 
             // When
-            TransferResult result = transferAppService.submitTransfer(transferCmd);
+            TransferResult result = transferAppService.submitTransfer(transferCmd).join();
 
             // Then
             assertNotNull(result);
@@ -214,10 +215,10 @@ class TransferFlowIntegrationTest {
             TransferContext resultContext = TransferContext.builder()
                     .order(mockOrder)
                     .build();
-            when(mockStrategy.execute(any())).thenReturn(resultContext);
+            when(mockStrategy.execute(any())).thenReturn(CompletableFuture.completedFuture(resultContext));
 
             // When
-            TransferResult result = transferAppService.submitTransfer(transferCmd);
+            TransferResult result = transferAppService.submitTransfer(transferCmd).join();
 
             // Then
             assertEquals(expectedStatus, result.getStatus(),
@@ -245,12 +246,12 @@ class TransferFlowIntegrationTest {
             TransferContext resultContext = TransferContext.builder()
                     .order(mockOrder)
                     .build();
-            when(mockStrategy.execute(any())).thenReturn(resultContext);
+            when(mockStrategy.execute(any())).thenReturn(CompletableFuture.completedFuture(resultContext));
 
             // When - 第一次调用
-            TransferResult result1 = transferAppService.submitTransfer(transferCmd);
+            TransferResult result1 = transferAppService.submitTransfer(transferCmd).join();
             // When - 第二次调用（相同幂等键）
-            TransferResult result2 = transferAppService.submitTransfer(transferCmd);
+            TransferResult result2 = transferAppService.submitTransfer(transferCmd).join();
 
             // Then - 应该返回相同的交易号
             assertEquals(result1.getTxnId(), result2.getTxnId());
@@ -0,0 +1,169 @@
+package com.macau.bank.transfer.domain.ability;
+
+import com.macau.bank.api.user.response.UserInfoRpcResponse;
+import com.macau.bank.common.core.domain.Money;
+import com.macau.bank.common.core.enums.TransferChannel;
+import com.macau.bank.common.core.enums.TransferType;
+import com.macau.bank.common.core.enums.UserLevel;
+import com.macau.bank.common.core.exception.BusinessException;
+import com.macau.bank.transfer.common.result.TransferErrorCode;
+import com.macau.bank.transfer.domain.context.TransferContext;
+import com.macau.bank.transfer.domain.entity.TransferOrder;
+import com.macau.bank.transfer.domain.gateway.AccountGateway;
+import com.macau.bank.transfer.domain.gateway.UserGateway;
+import com.macau.bank.transfer.domain.model.AccountSnapshot;
+import com.macau.bank.transfer.domain.service.TransferFeeDomainService;
+import com.macau.bank.transfer.domain.service.TransferLimitDomainService;
+import com.macau.bank.transfer.domain.valobj.PayeeInfo;
+import com.macau.bank.transfer.domain.valobj.PayerInfo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * 转账上下文补全测试
+ * <p>
+ * 核心场景：
+ * 1. 付款账户与收款账户并行查询，限额与算费并行执行
+ * 2. 阶段超时视为系统繁忙
+ * 3. 收款账户预查失败不影响补全
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("转账上下文补全测试")
+class TransferContextBuilderTest {
+
+    private static final String PAYER = "8880010000000001";
+    private static final String PAYEE = "888002";
+
+    @Mock
+    private TransferFeeDomainService feeService;
+
+    @Mock
+    private TransferLimitDomainService limitService;
+
+    @Mock
+    private AccountGateway accountGateway;
+
+    @Mock
+    private UserGateway userGateway;
+
+    @InjectMocks
+    private TransferContextBuilder builder;
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newCachedThreadPool();
+        ReflectionTestUtils.setField(builder, "transferEnrichExecutor", executor);
+        ReflectionTestUtils.setField(builder, "stageTimeoutMillis", 500L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("付款账户与收款账户应并行查询")
+    void shouldQueryPayerAndPayeeConcurrently() {
+        // Given - 两个查询互相等待对方开始，串行执行会超时
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        when(accountGateway.getAccount(PAYER)).thenAnswer(inv -> awaitPeer(bothStarted, account(PAYER, "U001")));
+        when(accountGateway.getAccount(PAYEE)).thenAnswer(inv -> awaitPeer(bothStarted, account(PAYEE, "U002")));
+        when(userGateway.getUserByUserNo("U001")).thenReturn(user(UserLevel.VIP));
+        when(limitService.checkSingleLimit(anyString(), anyString(), anyString(), any())).thenReturn(false);
+        when(feeService.calculateFee(anyString(), anyString(), anyString(), any())).thenReturn(new BigDecimal("5.00"));
+
+        TransferContext context = context();
+
+        // When
+        builder.enrich(context, TransferChannel.INTERNAL);
+
+        // Then
+        assertEquals("U001", context.getOrder().getPayerInfo().getUserNo());
+        assertEquals(PAYEE, context.getPayeeAccount().getAccountNo());
+        assertEquals(UserLevel.VIP, context.getPayerUserLevel());
+        assertEquals(new BigDecimal("5.00"), context.getOrder().getFee());
+        assertFalse(context.getSingleLimitPassed());
+    }
+
+    @Test
+    @DisplayName("付款账户查询超时应视为系统繁忙")
+    void payerTimeoutShouldFailFast() {
+        when(accountGateway.getAccount(PAYER)).thenAnswer(inv -> {
+            TimeUnit.SECONDS.sleep(5);
+            return account(PAYER, "U001");
+        });
+
+        long start = System.nanoTime();
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> builder.enrich(context(), TransferChannel.FPS));
+
+        assertEquals(TransferErrorCode.SYSTEM_BUSY.getCode(), exception.getCode());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2000);
+        verifyNoInteractions(userGateway);
+    }
+
+    @Test
+    @DisplayName("收款账户预查失败不影响补全")
+    void payeeFailureShouldNotFailEnrich() {
+        when(accountGateway.getAccount(PAYER)).thenReturn(account(PAYER, "U001"));
+        when(accountGateway.getAccount(PAYEE)).thenThrow(new IllegalStateException("rpc timeout"));
+        when(userGateway.getUserByUserNo("U001")).thenReturn(null);
+        when(limitService.checkSingleLimit(anyString(), anyString(), anyString(), any())).thenReturn(true);
+        when(feeService.calculateFee(anyString(), anyString(), anyString(), any())).thenReturn(BigDecimal.ZERO);
+
+        TransferContext context = context();
+        builder.enrich(context, TransferChannel.INTERNAL);
+
+        assertNull(context.getPayeeAccount());
+        assertEquals(UserLevel.NORMAL, context.getPayerUserLevel());
+        assertTrue(context.getSingleLimitPassed());
+    }
+
+    private <T> T awaitPeer(CountDownLatch latch, T result) throws InterruptedException {
+        latch.countDown();
+        assertTrue(latch.await(400, TimeUnit.MILLISECONDS), "查询未并行执行");
+        return result;
+    }
+
+    private TransferContext context() {
+        TransferOrder order = new TransferOrder();
+        order.setPayerInfo(PayerInfo.builder().accountNo(PAYER).currency("MOP").build());
+        order.setPayeeInfo(PayeeInfo.builder().accountNo(PAYEE).build());
+        order.setAmount(Money.of(new BigDecimal("100.00"), "MOP"));
+        order.setTransferType(TransferType.INTERNAL);
+        return TransferContext.builder().order(order).build();
+    }
+
+    private AccountSnapshot account(String accountNo, String userNo) {
+        AccountSnapshot snapshot = new AccountSnapshot();
+        snapshot.setAccountNo(accountNo);
+        snapshot.setUserNo(userNo);
+        return snapshot;
+    }
+
+    private UserInfoRpcResponse user(UserLevel level) {
+        UserInfoRpcResponse user = new UserInfoRpcResponse();
+        user.setUserLevel(level);
+        return user;
+    }
+}
@@ -0,0 +1,160 @@
+package com.macau.bank.transfer.domain.service;
+
+import com.macau.bank.common.core.domain.Money;
+import com.macau.bank.common.core.enums.RiskLevel;
+import com.macau.bank.common.core.enums.TransferType;
+import com.macau.bank.common.core.enums.UserLevel;
+import com.macau.bank.transfer.domain.context.TransferContext;
+import com.macau.bank.transfer.domain.entity.TransferOrder;
+import com.macau.bank.transfer.domain.entity.TransferPayeeBook;
+import com.macau.bank.transfer.domain.model.AccountSnapshot;
+import com.macau.bank.transfer.domain.repository.RiskVelocityRepository;
+import com.macau.bank.transfer.domain.repository.TransferPayeeBookRepository;
+import com.macau.bank.transfer.domain.service.RiskPreScreenDomainService.Verdict;
+import com.macau.bank.transfer.domain.valobj.PayeeInfo;
+import com.macau.bank.transfer.domain.valobj.PayerInfo;
+import com.macau.bank.transfer.infra.config.RiskPreScreenProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * 风控预筛测试
+ * <p>
+ * 核心场景：
+ * 1. 本人账户/熟悉收款人的小额转账放行
+ * 2. 金额、风险等级、新收款人不满足时走异步风控，且不计入频率
+ * 3. 超过频率上限、预筛出错时走异步风控
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("风控预筛测试")
+class RiskPreScreenDomainServiceTest {
+
+    @Spy
+    private RiskPreScreenProperties riskPreScreenProperties = new RiskPreScreenProperties();
+
+    @Mock
+    private TransferPayeeBookRepository payeeBookRepository;
+
+    @Mock
+    private RiskVelocityRepository velocityRepository;
+
+    @InjectMocks
+    private RiskPreScreenDomainService preScreenService;
+
+    @BeforeEach
+    void setUp() {
+        riskPreScreenProperties.setEnabled(true);
+        riskPreScreenProperties.getMaxAmount().put(UserLevel.NORMAL.getCode(), new BigDecimal("5000"));
+    }
+
+    @Test
+    @DisplayName("转入本人账户：不查收款人名册，计数后放行")
+    void ownAccountShouldBeCleared() {
+        when(velocityRepository.increment(eq("U001"), any())).thenReturn(1L);
+
+        assertTrue(preScreenService.clear(context("100.00", "U001")));
+
+        verify(payeeBookRepository, never()).findOne(any());
+        verify(velocityRepository).increment("U001", Duration.ofSeconds(3600));
+        assertEquals(1L, preScreenService.metrics().get(Verdict.CLEARED));
+    }
+
+    @Test
+    @DisplayName("熟悉的收款人放行，新收款人走异步风控且不计频率")
+    void payeeHistoryShouldDecide() {
+        TransferPayeeBook payee = new TransferPayeeBook();
+        payee.setTotalTransCount(3);
+        when(payeeBookRepository.findOne(any())).thenReturn(payee).thenReturn(null);
+        when(velocityRepository.increment(eq("U001"), any())).thenReturn(1L);
+
+        assertTrue(preScreenService.clear(context("100.00", "U002")));
+        assertFalse(preScreenService.clear(context("100.00", "U002")));
+
+        verify(velocityRepository, times(1)).increment(any(), any());
+        Map<Verdict, Long> metrics = preScreenService.metrics();
+        assertEquals(1L, metrics.get(Verdict.CLEARED));
+        assertEquals(1L, metrics.get(Verdict.NEW_PAYEE));
+    }
+
+    @Test
+    @DisplayName("超过等级金额上限或付款账户非低风险：走异步风控")
+    void amountAndRiskLevelShouldBeChecked() {
+        assertFalse(preScreenService.clear(context("5000.01", "U001")));
+
+        TransferContext risky = context("100.00", "U001");
+        risky.getPayerAccount().setRiskLevel(RiskLevel.MEDIUM);
+        assertFalse(preScreenService.clear(risky));
+
+        TransferContext vip = context("100.00", "U001");
+        vip.setPayerUserLevel(UserLevel.VIP);
+        assertFalse(preScreenService.clear(vip));
+
+        verifyNoInteractions(payeeBookRepository, velocityRepository);
+        assertEquals(2L, preScreenService.metrics().get(Verdict.AMOUNT));
+        assertEquals(1L, preScreenService.metrics().get(Verdict.PAYER_RISK));
+    }
+
+    @Test
+    @DisplayName("超过频率上限或计数出错：走异步风控")
+    void velocityAndErrorShouldNotClear() {
+        when(velocityRepository.increment(eq("U001"), any()))
+                .thenReturn(11L)
+                .thenThrow(new IllegalStateException("redis down"));
+
+        assertFalse(preScreenService.clear(context("100.00", "U001")));
+        assertFalse(preScreenService.clear(context("100.00", "U001")));
+
+        assertEquals(1L, preScreenService.metrics().get(Verdict.VELOCITY));
+        assertEquals(1L, preScreenService.metrics().get(Verdict.ERROR));
+    }
+
+    @Test
+    @DisplayName("未启用或非白名单类型：直接走异步风控")
+    void disabledOrUnlistedTypeShouldNotClear() {
+        TransferContext crossBorder = context("100.00", "U001");
+        crossBorder.getOrder().setTransferType(TransferType.CROSS_BORDER);
+        assertFalse(preScreenService.clear(crossBorder));
+
+        riskPreScreenProperties.setEnabled(false);
+        assertFalse(preScreenService.clear(context("100.00", "U001")));
+
+        verifyNoInteractions(payeeBookRepository, velocityRepository);
+        assertEquals(1L, preScreenService.metrics().get(Verdict.TRANSFER_TYPE));
+        assertEquals(1L, preScreenService.metrics().get(Verdict.DISABLED));
+    }
+
+    private TransferContext context(String amount, String payeeUserNo) {
+        TransferOrder order = new TransferOrder();
+        order.setTxnId("TR1001");
+        order.setTransferType(TransferType.INTERNAL);
+        order.setAmount(Money.of(new BigDecimal(amount), "MOP"));
+        order.setPayerInfo(PayerInfo.builder().userNo("U001").accountNo("888001").currency("MOP").build());
+        order.setPayeeInfo(PayeeInfo.builder().accountNo("888002").build());
+
+        AccountSnapshot payer = new AccountSnapshot();
+        payer.setAccountNo("888001");
+        payer.setRiskLevel(RiskLevel.LOW);
+        AccountSnapshot payee = new AccountSnapshot();
+        payee.setAccountNo("888002");
+        payee.setUserNo(payeeUserNo);
+
+        TransferContext context = TransferContext.builder().order(order).payerAccount(payer).payeeAccount(payee).build();
+        context.setPayerUserLevel(UserLevel.NORMAL);
+        return context;
+    }
+}
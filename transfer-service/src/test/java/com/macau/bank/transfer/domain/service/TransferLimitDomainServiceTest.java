@@ -0,0 +1,136 @@
+package com.macau.bank.transfer.domain.service;
+
+import com.macau.bank.common.core.domain.Money;
+import com.macau.bank.common.core.enums.TransferType;
+import com.macau.bank.common.core.enums.UserLevel;
+import com.macau.bank.common.core.exception.BusinessException;
+import com.macau.bank.transfer.common.enums.ConfigStatusEnum;
+import com.macau.bank.transfer.common.enums.LimitReserveResultEnum;
+import com.macau.bank.transfer.common.result.TransferErrorCode;
+import com.macau.bank.transfer.domain.context.TransferContext;
+import com.macau.bank.transfer.domain.entity.TransferLimitConfig;
+import com.macau.bank.transfer.domain.entity.TransferOrder;
+import com.macau.bank.transfer.domain.repository.TransferLimitConfigRepository;
+import com.macau.bank.transfer.domain.repository.TransferLimitUsageRepository;
+import com.macau.bank.transfer.domain.valobj.PayerInfo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * 累计限额测试
+ * <p>
+ * 核心场景：
+ * 1. 超出日/月累计限额时拒绝交易
+ * 2. 无累计限额配置时不占用额度
+ * 3. 释放失败不影响状态机，重建覆盖日、月两个周期
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("累计限额测试")
+class TransferLimitDomainServiceTest {
+
+    private static final LocalDateTime CREATE_TIME = LocalDateTime.of(2026, 3, 15, 10, 30);
+
+    @Mock
+    private TransferLimitConfigRepository limitConfigRepository;
+
+    @Mock
+    private TransferRuleTable ruleTable;
+
+    @Mock
+    private TransferLimitUsageRepository usageRepository;
+
+    @InjectMocks
+    private TransferLimitDomainService limitService;
+
+    private TransferContext context;
+
+    @BeforeEach
+    void setUp() {
+        TransferOrder order = new TransferOrder();
+        order.setTxnId("TR1001");
+        order.setTransferType(TransferType.INTERNAL);
+        order.setAmount(Money.of(new BigDecimal("3000.00"), "MOP"));
+        order.setPayerInfo(PayerInfo.builder().userNo("U001").accountNo("888001").currency("MOP").build());
+        order.setCreateTime(CREATE_TIME);
+        context = TransferContext.builder().order(order).build();
+        context.setPayerUserLevel(UserLevel.NORMAL);
+
+        when(ruleTable.isReady()).thenReturn(true);
+    }
+
+    @Test
+    @DisplayName("超出日累计限额应拒绝交易")
+    void shouldRejectWhenDailyLimitExceeded() {
+        when(ruleTable.findLimitRule("NORMAL", "INTERNAL", "MOP")).thenReturn(limit("10000", "50000"));
+        when(usageRepository.reserve(eq("U001"), eq(TransferType.INTERNAL), eq("MOP"), eq("TR1001"),
+                eq(new BigDecimal("3000.00")), eq(LocalDate.of(2026, 3, 15)), eq(new BigDecimal("10000")),
+                eq(new BigDecimal("50000")))).thenReturn(LimitReserveResultEnum.DAILY_EXCEEDED);
+
+        BusinessException e = assertThrows(BusinessException.class, () -> limitService.reserveCumulativeLimit(context));
+
+        assertEquals(TransferErrorCode.TRANSFER_DAILY_LIMIT_EXCEEDED.getCode(), e.getCode());
+    }
+
+    @Test
+    @DisplayName("占用成功或重复占用不抛异常")
+    void shouldPassWhenReservedOrDuplicate() {
+        when(ruleTable.findLimitRule("NORMAL", "INTERNAL", "MOP")).thenReturn(limit(null, "50000"));
+        when(usageRepository.reserve(any(), any(), any(), any(), any(), any(), any(), any()))
+                .thenReturn(LimitReserveResultEnum.RESERVED, LimitReserveResultEnum.DUPLICATE);
+
+        assertDoesNotThrow(() -> limitService.reserveCumulativeLimit(context));
+        assertDoesNotThrow(() -> limitService.reserveCumulativeLimit(context));
+    }
+
+    @Test
+    @DisplayName("无累计限额配置时不占用额度")
+    void shouldSkipWhenNoCumulativeLimit() {
+        when(ruleTable.findLimitRule("NORMAL", "INTERNAL", "MOP")).thenReturn(limit(null, null));
+
+        limitService.reserveCumulativeLimit(context);
+
+        verifyNoInteractions(usageRepository);
+    }
+
+    @Test
+    @DisplayName("释放失败只记录日志，重建覆盖日、月两个周期")
+    void releaseShouldNotThrowAndRebuildShouldCoverBothPeriods() {
+        when(usageRepository.release("U001", "TR1001")).thenThrow(new IllegalStateException("redis down"));
+
+        assertDoesNotThrow(() -> limitService.releaseCumulativeLimit(context.getOrder()));
+
+        limitService.rebuildCumulativeUsage(LocalDate.of(2026, 3, 15));
+        verify(usageRepository).rebuildDaily(LocalDate.of(2026, 3, 15));
+        verify(usageRepository).rebuildMonthly(YearMonth.of(2026, 3));
+    }
+
+    private static TransferLimitConfig limit(String dailyLimit, String monthlyLimit) {
+        TransferLimitConfig config = new TransferLimitConfig();
+        config.setUserLevel("NORMAL");
+        config.setTransferType(TransferType.INTERNAL);
+        config.setCurrency("MOP");
+        config.setSingleLimit(new BigDecimal("50000"));
+        config.setDailyLimit(dailyLimit == null ? null : new BigDecimal(dailyLimit));
+        config.setMonthlyLimit(monthlyLimit == null ? null : new BigDecimal(monthlyLimit));
+        config.setStatus(ConfigStatusEnum.ENABLED);
+        return config;
+    }
+}
@@ -6,6 +6,10 @@ import com.macau.bank.common.core.enums.TransferStatus;
 import com.macau.bank.transfer.domain.context.TransferContext;
 import com.macau.bank.transfer.domain.entity.TransferOrder;
 import com.macau.bank.transfer.domain.model.AccountSnapshot;
+import com.macau.bank.transfer.domain.model.TransferOrderSlice;
+import com.macau.bank.transfer.domain.model.TransferOrderSummary;
+import com.macau.bank.transfer.domain.query.TransferOrderQuery;
+import com.macau.bank.transfer.domain.repository.TransferContextCacheRepository;
 import com.macau.bank.transfer.domain.repository.TransferOrderRepository;
 import com.macau.bank.transfer.domain.valobj.PayeeInfo;
 import com.macau.bank.transfer.domain.valobj.PayerInfo;
@@ -21,10 +25,14 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 /**
@@ -43,6 +51,9 @@ class TransferOrderDomainServiceTest {
     @Mock
     private TransferOrderRepository transferOrderRepository;
 
+    @Mock
+    private TransferContextCacheRepository contextCacheRepository;
+
     @InjectMocks
     private TransferOrderDomainService service;
 
@@ -142,6 +153,7 @@ class TransferOrderDomainServiceTest {
             // Then
             assertEquals(TransferStatus.FAILED, existingOrder.getStatus());
             assertEquals("余额不足", existingOrder.getFailReason());
+            verify(contextCacheRepository).evict("TR_TEST_001");
             verify(transferOrderRepository).save(existingOrder);
         }
 
@@ -206,4 +218,51 @@ class TransferOrderDomainServiceTest {
             assertFalse(result);
         }
     }
+
+    @Nested
+    @DisplayName("转账记录查询 (键集分页)")
+    class HistoryQueryTests {
+
+        private final TransferOrderQuery condition = TransferOrderQuery.builder().payerUserNo("U001").build();
+
+        @Test
+        @DisplayName("多取一条判断是否有下一页，返回时截掉多取的一条")
+        void shouldTrimExtraRowAndReportHasMore() {
+            // Given
+            when(transferOrderRepository.queryHistory(condition, 3)).thenReturn(List.of(summary(3L), summary(2L), summary(1L)));
+
+            // When
+            TransferOrderSlice slice = service.getTransferOrders(condition, 2);
+
+            // Then
+            assertTrue(slice.isHasMore());
+            assertEquals(List.of(3L, 2L), slice.getRecords().stream().map(TransferOrderSummary::getId).toList());
+        }
+
+        @Test
+        @DisplayName("每页条数超出上限时按上限查询")
+        void shouldCapPageSize() {
+            // Given
+            when(transferOrderRepository.queryHistory(any(), anyInt())).thenReturn(List.of(summary(1L)));
+
+            // When
+            TransferOrderSlice slice = service.getTransferOrders(condition, 100_000);
+
+            // Then
+            verify(transferOrderRepository).queryHistory(condition, TransferOrderDomainService.MAX_PAGE_SIZE + 1);
+            assertFalse(slice.isHasMore());
+        }
+
+        @Test
+        @DisplayName("未指定付款用户时拒绝查询")
+        void shouldRejectQueryWithoutUser() {
+            assertThrows(IllegalArgumentException.class,
+                    () -> service.getTransferOrders(TransferOrderQuery.builder().build(), 10));
+            verifyNoInteractions(transferOrderRepository);
+        }
+
+        private TransferOrderSummary summary(Long id) {
+            return TransferOrderSummary.builder().id(id).createTime(LocalDateTime.of(2024, 1, 1, 0, 0)).build();
+        }
+    }
 }
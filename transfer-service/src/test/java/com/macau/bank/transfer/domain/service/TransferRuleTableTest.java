@@ -0,0 +1,159 @@
+package com.macau.bank.transfer.domain.service;
+
+import com.macau.bank.common.core.enums.TransferType;
+import com.macau.bank.transfer.common.enums.ConfigStatusEnum;
+import com.macau.bank.transfer.common.enums.FeeCalcModeEnum;
+import com.macau.bank.transfer.domain.entity.TransferFeeConfig;
+import com.macau.bank.transfer.domain.entity.TransferLimitConfig;
+import com.macau.bank.transfer.domain.repository.TransferFeeConfigRepository;
+import com.macau.bank.transfer.domain.repository.TransferLimitConfigRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * 手续费/限额规则表测试
+ * <p>
+ * 核心场景：
+ * 1. 规则编译后计费结果与原按行计算一致 (封顶保底、两位小数)
+ * 2. 内容未变化时不替换快照，变化后版本递增
+ * 3. 规则表就绪后算费与限额校验不再查库
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("手续费/限额规则表测试")
+class TransferRuleTableTest {
+
+    @Mock
+    private TransferFeeConfigRepository feeConfigRepository;
+
+    @Mock
+    private TransferLimitConfigRepository limitConfigRepository;
+
+    @InjectMocks
+    private TransferRuleTable ruleTable;
+
+    @Test
+    @DisplayName("编译后的规则应按计费模式计算并封顶保底")
+    void compiledRuleShouldMatchFeeSemantics() {
+        TransferRuleTable.FeeRule fixed = TransferRuleTable.FeeRule.compile(
+                fee("INTERNAL", FeeCalcModeEnum.FIXED, "5", "0", "1", "100"));
+        TransferRuleTable.FeeRule percentage = TransferRuleTable.FeeRule.compile(
+                fee("FPS", FeeCalcModeEnum.PERCENTAGE, "0", "0.001", "2", "50"));
+        TransferRuleTable.FeeRule both = TransferRuleTable.FeeRule.compile(
+                fee("SWIFT", FeeCalcModeEnum.BOTH, "10", "0.0015", "0", "200"));
+
+        assertEquals(new BigDecimal("5.00"), fixed.calculate(new BigDecimal("99999")));
+        assertSame(fixed.calculate(BigDecimal.ONE), fixed.calculate(BigDecimal.TEN));
+        assertEquals(new BigDecimal("2.00"), percentage.calculate(new BigDecimal("100")));
+        assertEquals(new BigDecimal("12.35"), percentage.calculate(new BigDecimal("12345")));
+        assertEquals(new BigDecimal("50.00"), percentage.calculate(new BigDecimal("1000000")));
+        assertEquals(new BigDecimal("25.00"), both.calculate(new BigDecimal("10000")));
+    }
+
+    @Test
+    @DisplayName("规则内容不变时不替换快照，变化后版本递增")
+    void shouldSwapSnapshotOnlyWhenRulesChange() {
+        TransferFeeConfig fee = fee("INTERNAL", FeeCalcModeEnum.FIXED, "5", "0", "0", "100");
+        TransferFeeConfig disabled = fee("FPS", FeeCalcModeEnum.FIXED, "8", "0", "0", "100");
+        disabled.setStatus(ConfigStatusEnum.DISABLED);
+        when(feeConfigRepository.findAll()).thenReturn(List.of(fee, disabled));
+        when(limitConfigRepository.findAll()).thenReturn(List.of(limit("50000")));
+
+        assertTrue(ruleTable.refresh());
+        assertFalse(ruleTable.refresh());
+        assertEquals(1, ruleTable.getVersion());
+        assertNotNull(ruleTable.findFeeRule("INTERNAL", "MOP", "NORMAL"));
+        assertNull(ruleTable.findFeeRule("FPS", "MOP", "NORMAL"));
+        assertEquals(new BigDecimal("50000"),
+                ruleTable.findLimitRule("NORMAL", "INTERNAL", "MOP").getSingleLimit());
+
+        when(limitConfigRepository.findAll()).thenReturn(List.of(limit("20000")));
+        assertTrue(ruleTable.refresh());
+        assertEquals(2, ruleTable.getVersion());
+        assertEquals(new BigDecimal("20000"),
+                ruleTable.findLimitRule("NORMAL", "INTERNAL", "MOP").getSingleLimit());
+    }
+
+    @Test
+    @DisplayName("加载失败时沿用旧快照")
+    void shouldKeepSnapshotWhenReloadFails() {
+        when(feeConfigRepository.findAll()).thenReturn(List.of(fee("INTERNAL", FeeCalcModeEnum.FIXED, "5", "0", "0", "100")));
+        when(limitConfigRepository.findAll()).thenReturn(List.of());
+        ruleTable.refresh();
+
+        when(feeConfigRepository.findAll()).thenThrow(new IllegalStateException("db down"));
+
+        assertFalse(ruleTable.refresh());
+        assertEquals(1, ruleTable.getVersion());
+        assertNotNull(ruleTable.findFeeRule("INTERNAL", "MOP", "NORMAL"));
+    }
+
+    @Test
+    @DisplayName("规则表就绪后算费与限额校验不查库，未就绪时回退查库")
+    void domainServicesShouldReadFromTable() {
+        TransferFeeDomainService feeService = new TransferFeeDomainService();
+        TransferLimitDomainService limitService = new TransferLimitDomainService();
+        ReflectionTestUtils.setField(feeService, "transferFeeConfigRepository", feeConfigRepository);
+        ReflectionTestUtils.setField(feeService, "transferRuleTable", ruleTable);
+        ReflectionTestUtils.setField(limitService, "transferLimitConfigRepository", limitConfigRepository);
+        ReflectionTestUtils.setField(limitService, "transferRuleTable", ruleTable);
+
+        // 未就绪：回退查库
+        when(feeConfigRepository.findMatch("INTERNAL", "MOP", "NORMAL"))
+                .thenReturn(fee("INTERNAL", FeeCalcModeEnum.FIXED, "3", "0", "0", "100"));
+        assertEquals(new BigDecimal("3.00"),
+                feeService.calculateFee("INTERNAL", "MOP", "NORMAL", new BigDecimal("100")));
+
+        when(feeConfigRepository.findAll()).thenReturn(List.of(fee("INTERNAL", FeeCalcModeEnum.FIXED, "5", "0", "0", "100")));
+        when(limitConfigRepository.findAll()).thenReturn(List.of(limit("50000")));
+        ruleTable.refresh();
+        clearInvocations(feeConfigRepository, limitConfigRepository);
+
+        assertEquals(new BigDecimal("5.00"),
+                feeService.calculateFee("INTERNAL", "MOP", "NORMAL", new BigDecimal("100")));
+        assertEquals(BigDecimal.ZERO, feeService.calculateFee("SWIFT", "MOP", "NORMAL", new BigDecimal("100")));
+        assertTrue(limitService.checkSingleLimit("NORMAL", "INTERNAL", "MOP", new BigDecimal("50000")));
+        assertFalse(limitService.checkSingleLimit("NORMAL", "INTERNAL", "MOP", new BigDecimal("50000.01")));
+        assertTrue(limitService.checkSingleLimit("VIP", "INTERNAL", "MOP", new BigDecimal("99999999")));
+
+        verify(feeConfigRepository, never()).findMatch(anyString(), anyString(), anyString());
+        verify(limitConfigRepository, never()).findMatch(anyString(), any(), anyString());
+    }
+
+    private static TransferFeeConfig fee(String channel, FeeCalcModeEnum mode, String fixedAmount, String rate,
+            String minFee, String maxFee) {
+        TransferFeeConfig config = new TransferFeeConfig();
+        config.setTransferChannel(channel);
+        config.setCurrencyCode("MOP");
+        config.setUserLevel("NORMAL");
+        config.setCalcMode(mode);
+        config.setFixedAmount(new BigDecimal(fixedAmount));
+        config.setRate(new BigDecimal(rate));
+        config.setMinFee(new BigDecimal(minFee));
+        config.setMaxFee(new BigDecimal(maxFee));
+        config.setStatus(ConfigStatusEnum.ENABLED);
+        return config;
+    }
+
+    private static TransferLimitConfig limit(String singleLimit) {
+        TransferLimitConfig config = new TransferLimitConfig();
+        config.setUserLevel("NORMAL");
+        config.setTransferType(TransferType.INTERNAL);
+        config.setCurrency("MOP");
+        config.setSingleLimit(new BigDecimal(singleLimit));
+        config.setStatus(ConfigStatusEnum.ENABLED);
+        return config;
+    }
+}
@@ -0,0 +1,458 @@
+package com.macau.bank.transfer.domain.statemachine;
+
+import com.macau.bank.common.core.constant.CommonConstant;
+import com.macau.bank.common.core.enums.BalanceOpType;
+import com.macau.bank.common.core.enums.TransferStatus;
+import com.macau.bank.common.core.exception.BusinessException;
+import com.macau.bank.common.core.exception.SystemException;
+import com.macau.bank.transfer.common.result.TransferErrorCode;
+import com.macau.bank.transfer.domain.context.TransferContext;
+import com.macau.bank.transfer.domain.entity.TransferOrder;
+import com.macau.bank.transfer.domain.entity.TransferPhaseRecord;
+import com.macau.bank.transfer.domain.gateway.AccountGateway;
+import com.macau.bank.transfer.domain.model.BalanceEntry;
+import com.macau.bank.transfer.domain.pipeline.PhaseOutcome;
+import com.macau.bank.transfer.domain.pipeline.TransferHandler;
+import com.macau.bank.transfer.domain.pipeline.TransferPhaseEnum;
+import com.macau.bank.transfer.domain.repository.TransferPhaseJournalRepository;
+import com.macau.bank.transfer.domain.service.TransferLimitDomainService;
+import com.macau.bank.transfer.domain.service.TransferOrderDomainService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.slf4j.MDC;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * 状态机阶段日志与断点续跑测试
+ * <p>
+ * 核心场景：
+ * 1. 每个阶段的结果写入阶段日志
+ * 2. 重投递时跳过已成功的阶段，从失败阶段继续
+ * 3. INIT 首次驱动不读阶段日志
+ * 4. 阶段日志不可用时退化为全量执行
+ * 5. 阶段超时后放弃后续阶段
+ * 6. 合并阶段一次批量记账，系统异常时退回逐阶段执行
+ * 7. 异步处理器超时时结束其返回的 Future，后续阶段沿用调用方上下文
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("状态机阶段日志与断点续跑测试")
+class StateMachineExecutorTest {
+
+    private static final String TXN_ID = "TXN_001";
+
+    private static final StateTransition CONFIRM = new StateTransition(
+            List.of(TransferPhaseEnum.DEDUCT_FEE, TransferPhaseEnum.DEDUCT_PAYER, TransferPhaseEnum.CREDIT_PAYEE),
+            TransferStatus.SUCCESS);
+
+    private static final StateTransition SETTLE = new StateTransition(
+            List.of(TransferPhaseEnum.SETTLE), TransferStatus.SUCCESS);
+
+    @Mock
+    private TransferOrderDomainService orderDomainService;
+
+    @Mock
+    private TransferLimitDomainService limitService;
+
+    @Mock
+    private TransferPhaseJournalRepository phaseJournalRepository;
+
+    @Mock(answer = Answers.CALLS_REAL_METHODS)
+    private AccountGateway accountGateway;
+
+    @Mock(answer = Answers.CALLS_REAL_METHODS)
+    private TransferHandler deductFee;
+
+    @Mock(answer = Answers.CALLS_REAL_METHODS)
+    private TransferHandler deductPayer;
+
+    @Mock(answer = Answers.CALLS_REAL_METHODS)
+    private TransferHandler creditPayee;
+
+    private StateMachineExecutor executor;
+
+    private final ExecutorService phaseExecutor = Executors.newFixedThreadPool(2);
+
+    @BeforeEach
+    void setUp() {
+        executor = new StateMachineExecutor();
+        ReflectionTestUtils.setField(executor, "orderDomainService", orderDomainService);
+        ReflectionTestUtils.setField(executor, "limitService", limitService);
+        ReflectionTestUtils.setField(executor, "phaseJournalRepository", phaseJournalRepository);
+        ReflectionTestUtils.setField(executor, "transferPhaseExecutor", phaseExecutor);
+        ReflectionTestUtils.setField(executor, "accountGateway", accountGateway);
+        when(deductFee.getPhase()).thenReturn(TransferPhaseEnum.DEDUCT_FEE);
+        when(deductPayer.getPhase()).thenReturn(TransferPhaseEnum.DEDUCT_PAYER);
+        when(creditPayee.getPhase()).thenReturn(TransferPhaseEnum.CREDIT_PAYEE);
+        executor.setHandlers(List.of(deductFee, deductPayer, creditPayee));
+    }
+
+    @AfterEach
+    void tearDown() {
+        phaseExecutor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("中途失败：已成功阶段与失败阶段写入日志，状态不变")
+    void failureShouldJournalCompletedAndFailedPhases() {
+        TransferContext context = context(TransferStatus.PENDING_RISK);
+        doThrow(new IllegalStateException("account timeout")).when(deductPayer).handle(context);
+
+        assertThrows(IllegalStateException.class, () -> executor.drive(context, CONFIRM));
+
+        List<TransferPhaseRecord> records = appended(2);
+        assertEquals(TransferPhaseEnum.DEDUCT_FEE, records.get(0).getPhase());
+        assertEquals(PhaseOutcome.SUCCESS, records.get(0).getOutcome());
+        assertEquals(TransferPhaseEnum.DEDUCT_PAYER, records.get(1).getPhase());
+        assertEquals(PhaseOutcome.FAILED, records.get(1).getOutcome());
+        assertEquals("account timeout", records.get(1).getErrorMessage());
+        assertEquals(TransferStatus.PENDING_RISK, records.get(1).getFromStatus());
+        assertEquals(1, records.get(1).getAttempt());
+        verify(creditPayee, never()).handle(any());
+        verify(orderDomainService, never()).saveOrder(any());
+        assertEquals(TransferStatus.PENDING_RISK, context.getOrder().getStatus());
+    }
+
+    @Test
+    @DisplayName("重投递：跳过已成功阶段，从失败阶段续跑，驱动序号递增")
+    void redeliveryShouldResumeFromFirstIncompletePhase() {
+        when(phaseJournalRepository.findByTxnId(TXN_ID, TransferStatus.PENDING_RISK)).thenReturn(List.of(
+                record(TransferPhaseEnum.DEDUCT_FEE, PhaseOutcome.SUCCESS, 1),
+                record(TransferPhaseEnum.DEDUCT_PAYER, PhaseOutcome.FAILED, 1)));
+        TransferContext context = context(TransferStatus.PENDING_RISK);
+
+        executor.drive(context, CONFIRM);
+
+        verify(deductFee, never()).handle(any());
+        verify(deductPayer).handle(context);
+        verify(creditPayee).handle(context);
+        assertEquals(TransferStatus.SUCCESS, context.getOrder().getStatus());
+
+        List<TransferPhaseRecord> records = appended(3);
+        assertEquals(List.of(PhaseOutcome.SKIPPED, PhaseOutcome.SUCCESS, PhaseOutcome.SUCCESS),
+                records.stream().map(TransferPhaseRecord::getOutcome).toList());
+        assertTrue(records.stream().allMatch(r -> r.getAttempt() == 2));
+
+        StateMachineExecutor.StateMachineMetrics metrics = executor.metrics();
+        assertEquals(1, metrics.resumed());
+        assertEquals(1, metrics.skippedPhases());
+        assertFalse(metrics.phases().containsKey(TransferPhaseEnum.DEDUCT_FEE));
+        assertEquals(1, metrics.phases().get(TransferPhaseEnum.CREDIT_PAYEE).count());
+    }
+
+    @Test
+    @DisplayName("INIT 首次驱动不查询阶段日志")
+    void initDriveShouldNotReadJournal() {
+        TransferContext context = context(TransferStatus.INIT);
+
+        executor.drive(context, new StateTransition(List.of(TransferPhaseEnum.DEDUCT_FEE), TransferStatus.PENDING_RISK));
+
+        verify(phaseJournalRepository, never()).findByTxnId(any(), any());
+        verify(deductFee).handle(context);
+        StateMachineExecutor.PhaseLatencyMetrics latency = executor.metrics().phases().get(TransferPhaseEnum.DEDUCT_FEE);
+        assertEquals(1, latency.count());
+        assertEquals(0, latency.failures());
+        assertEquals(1, latency.bucketCounts().stream().mapToLong(Long::longValue).sum());
+    }
+
+    @Test
+    @DisplayName("阶段日志读写失败不影响执行，退化为全量执行")
+    void journalFailureShouldFallBackToFullRun() {
+        when(phaseJournalRepository.findByTxnId(any(), any())).thenThrow(new IllegalStateException("db down"));
+        doThrow(new IllegalStateException("db down")).when(phaseJournalRepository).append(any());
+        TransferContext context = context(TransferStatus.PENDING_RISK);
+
+        executor.drive(context, CONFIRM);
+
+        verify(deductFee).handle(context);
+        verify(deductPayer).handle(context);
+        verify(creditPayee).handle(context);
+        verify(orderDomainService).saveOrder(context.getOrder());
+        assertEquals(0, executor.metrics().resumed());
+    }
+
+    @Test
+    @DisplayName("阶段超时：以处理超时结束，不再发起后续阶段，状态不变")
+    void phaseTimeoutShouldStopChain() throws Exception {
+        ReflectionTestUtils.setField(executor, "phaseTimeoutMillis", 100L);
+        doAnswer(inv -> {
+            TimeUnit.MILLISECONDS.sleep(400);
+            return null;
+        }).when(deductPayer).handle(any());
+        TransferContext context = context(TransferStatus.PENDING_RISK);
+
+        BusinessException ex = assertThrows(BusinessException.class, () -> executor.drive(context, CONFIRM));
+
+        assertEquals(TransferErrorCode.PROCESSING_TIMEOUT.getCode(), ex.getCode());
+        // 超时的阶段完成后也不会继续推进
+        TimeUnit.MILLISECONDS.sleep(500);
+        verify(creditPayee, never()).handle(any());
+        verify(orderDomainService, never()).saveOrder(any());
+        assertEquals(TransferStatus.PENDING_RISK, context.getOrder().getStatus());
+
+        List<TransferPhaseRecord> records = appended(2);
+        assertEquals(PhaseOutcome.FAILED, records.get(1).getOutcome());
+        assertEquals(TransferPhaseEnum.DEDUCT_PAYER, records.get(1).getPhase());
+        assertEquals(1, executor.metrics().timeouts());
+    }
+
+    @Test
+    @DisplayName("异步处理器超时：结束处理器返回的 Future，不占用阶段线程等待")
+    void asyncPhaseTimeoutShouldEndClientFuture() {
+        ReflectionTestUtils.setField(executor, "phaseTimeoutMillis", 100L);
+        CompletableFuture<Void> pending = new CompletableFuture<>();
+        doReturn(pending).when(deductPayer).handleAsync(any(), any());
+        TransferContext context = context(TransferStatus.PENDING_RISK);
+
+        CompletionException ex = assertThrows(CompletionException.class,
+                () -> executor.driveAsync(context, CONFIRM).join());
+
+        BusinessException cause = assertInstanceOf(BusinessException.class, ex.getCause());
+        assertEquals(TransferErrorCode.PROCESSING_TIMEOUT.getCode(), cause.getCode());
+        assertTrue(pending.isCompletedExceptionally(), "客户端 Future 必须被结束，客户端据此停止等待");
+        verify(deductPayer, never()).handle(any());
+        verify(creditPayee, never()).handleAsync(any(), any());
+        assertEquals(TransferStatus.PENDING_RISK, context.getOrder().getStatus());
+    }
+
+    @Test
+    @DisplayName("异步阶段在其他线程完成：后续阶段仍带调用方的日志上下文发起")
+    void laterPhaseShouldRunWithCallerContext() {
+        CompletableFuture<Void> feeDone = new CompletableFuture<>();
+        doReturn(feeDone).when(deductFee).handleAsync(any(), any());
+        AtomicReference<String> traceIdSeen = new AtomicReference<>();
+        doAnswer(inv -> {
+            traceIdSeen.set(MDC.get(CommonConstant.LOG_TRACE_ID));
+            return CompletableFuture.completedFuture(null);
+        }).when(deductPayer).handleAsync(any(), any());
+        TransferContext context = context(TransferStatus.PENDING_RISK);
+
+        MDC.put(CommonConstant.LOG_TRACE_ID, "TRACE_001");
+        CompletableFuture<Void> drive;
+        try {
+            drive = executor.driveAsync(context, CONFIRM);
+        } finally {
+            MDC.remove(CommonConstant.LOG_TRACE_ID);
+        }
+        // 模拟 RPC 响应线程完成第一个阶段
+        new Thread(() -> feeDone.complete(null), "rpc-callback").start();
+        drive.join();
+
+        assertEquals("TRACE_001", traceIdSeen.get());
+        assertEquals(TransferStatus.SUCCESS, context.getOrder().getStatus());
+    }
+
+    @Test
+    @DisplayName("SLA 预算耗尽：已入队未开始的阶段不再发起调用")
+    void exhaustedBudgetShouldSkipQueuedPhase() throws Exception {
+        // 单线程且被占满：阶段任务只能排队，直到预算耗尽
+        ExecutorService busy = Executors.newSingleThreadExecutor();
+        busy.execute(() -> sleepQuietly(400));
+        ReflectionTestUtils.setField(executor, "transferPhaseExecutor", busy);
+        ReflectionTestUtils.setField(executor, "slaMillis", 100L);
+        TransferContext context = context(TransferStatus.PENDING_RISK);
+
+        BusinessException ex = assertThrows(BusinessException.class, () -> executor.drive(context, CONFIRM));
+
+        assertEquals(TransferErrorCode.PROCESSING_TIMEOUT.getCode(), ex.getCode());
+        busy.shutdown();
+        assertTrue(busy.awaitTermination(2, TimeUnit.SECONDS));
+        verify(deductFee, never()).handle(any());
+        verify(deductPayer, never()).handle(any());
+    }
+
+    @Test
+    @DisplayName("合并阶段：三个成员的分录一次批量记账，只记一条合并阶段日志")
+    void fusedPhaseShouldSettleInOneBatch() {
+        stubEntries();
+        TransferContext context = context(TransferStatus.PENDING_RISK);
+
+        executor.drive(context, SETTLE);
+
+        List<BalanceEntry> entries = batched();
+        assertEquals(List.of("FEE", "PAYER", "PAYEE"), entries.stream().map(BalanceEntry::getRequestId).toList());
+        verify(deductFee, never()).handle(any());
+        verify(deductPayer, never()).handle(any());
+        verify(creditPayee, never()).handle(any());
+        assertEquals(TransferStatus.SUCCESS, context.getOrder().getStatus());
+
+        List<TransferPhaseRecord> records = appended(1);
+        assertEquals(TransferPhaseEnum.SETTLE, records.get(0).getPhase());
+        assertEquals(PhaseOutcome.SUCCESS, records.get(0).getOutcome());
+        assertEquals(1, executor.metrics().phases().get(TransferPhaseEnum.SETTLE).count());
+    }
+
+    @Test
+    @DisplayName("合并阶段系统异常：退回逐阶段执行")
+    void systemErrorShouldFallBackToMemberPhases() {
+        stubEntries();
+        when(accountGateway.executeBatch(any())).thenThrow(new SystemException("账户服务不可用"));
+        TransferContext context = context(TransferStatus.PENDING_RISK);
+
+        executor.drive(context, SETTLE);
+
+        verify(deductFee).handle(context);
+        verify(deductPayer).handle(context);
+        verify(creditPayee).handle(context);
+        assertEquals(TransferStatus.SUCCESS, context.getOrder().getStatus());
+
+        List<TransferPhaseRecord> records = appended(4);
+        assertEquals(List.of(TransferPhaseEnum.SETTLE, TransferPhaseEnum.DEDUCT_FEE, TransferPhaseEnum.DEDUCT_PAYER,
+                TransferPhaseEnum.CREDIT_PAYEE), records.stream().map(TransferPhaseRecord::getPhase).toList());
+        assertEquals(PhaseOutcome.FAILED, records.get(0).getOutcome());
+        assertEquals(1, executor.metrics().fusionFallbacks());
+    }
+
+    @Test
+    @DisplayName("合并阶段存在未成功分录：不记为成功，退回逐阶段执行")
+    void partialBatchShouldFallBackToMemberPhases() {
+        stubEntries();
+        when(accountGateway.executeBatch(any())).thenReturn(false);
+        TransferContext context = context(TransferStatus.PENDING_RISK);
+
+        executor.drive(context, SETTLE);
+
+        verify(deductFee).handle(context);
+        verify(deductPayer).handle(context);
+        verify(creditPayee).handle(context);
+        List<TransferPhaseRecord> records = appended(4);
+        assertEquals(TransferPhaseEnum.SETTLE, records.get(0).getPhase());
+        assertEquals(PhaseOutcome.FAILED, records.get(0).getOutcome());
+        assertEquals(1, executor.metrics().fusionFallbacks());
+        assertEquals(TransferStatus.SUCCESS, context.getOrder().getStatus());
+    }
+
+    @Test
+    @DisplayName("合并阶段业务异常：不退回，保持当前状态")
+    void businessErrorShouldNotFallBack() {
+        stubEntries();
+        when(accountGateway.executeBatch(any())).thenThrow(new BusinessException(400, "余额不足"));
+        TransferContext context = context(TransferStatus.PENDING_RISK);
+
+        assertThrows(BusinessException.class, () -> executor.drive(context, SETTLE));
+
+        verify(deductFee, never()).handle(any());
+        verify(deductPayer, never()).handle(any());
+        verify(creditPayee, never()).handle(any());
+        assertEquals(TransferStatus.PENDING_RISK, context.getOrder().getStatus());
+        assertEquals(0, executor.metrics().fusionFallbacks());
+    }
+
+    @Test
+    @DisplayName("合并阶段续跑：只合并尚未完成的成员")
+    void resumedFusedPhaseShouldBatchPendingMembersOnly() {
+        stubEntries();
+        when(phaseJournalRepository.findByTxnId(TXN_ID, TransferStatus.PENDING_RISK)).thenReturn(List.of(
+                record(TransferPhaseEnum.DEDUCT_FEE, PhaseOutcome.SUCCESS, 1),
+                record(TransferPhaseEnum.DEDUCT_PAYER, PhaseOutcome.FAILED, 1)));
+        TransferContext context = context(TransferStatus.PENDING_RISK);
+
+        executor.drive(context, SETTLE);
+
+        assertEquals(List.of("PAYER", "PAYEE"), batched().stream().map(BalanceEntry::getRequestId).toList());
+        verify(deductFee, never()).balanceEntries(any());
+        List<TransferPhaseRecord> records = appended(2);
+        assertEquals(TransferPhaseEnum.DEDUCT_FEE, records.get(0).getPhase());
+        assertEquals(PhaseOutcome.SKIPPED, records.get(0).getOutcome());
+        assertEquals(TransferPhaseEnum.SETTLE, records.get(1).getPhase());
+    }
+
+    @Test
+    @DisplayName("合并阶段已成功：全部成员跳过，不再调用账户服务")
+    void completedFusedPhaseShouldSkipAllMembers() {
+        when(phaseJournalRepository.findByTxnId(TXN_ID, TransferStatus.PENDING_RISK)).thenReturn(List.of(
+                record(TransferPhaseEnum.SETTLE, PhaseOutcome.SUCCESS, 1)));
+        TransferContext context = context(TransferStatus.PENDING_RISK);
+
+        executor.drive(context, SETTLE);
+
+        verifyNoInteractions(accountGateway);
+        verify(deductPayer, never()).handle(any());
+        assertEquals(3, executor.metrics().skippedPhases());
+        assertEquals(TransferStatus.SUCCESS, context.getOrder().getStatus());
+    }
+
+    @Test
+    @DisplayName("关闭合并：按成员阶段逐个执行")
+    void disabledFusionShouldRunMemberPhases() {
+        ReflectionTestUtils.setField(executor, "fusionEnabled", false);
+        TransferContext context = context(TransferStatus.PENDING_RISK);
+
+        executor.drive(context, SETTLE);
+
+        verifyNoInteractions(accountGateway);
+        verify(deductFee).handle(context);
+        verify(deductPayer).handle(context);
+        verify(creditPayee).handle(context);
+        assertEquals(List.of(TransferPhaseEnum.DEDUCT_FEE, TransferPhaseEnum.DEDUCT_PAYER,
+                TransferPhaseEnum.CREDIT_PAYEE), appended(3).stream().map(TransferPhaseRecord::getPhase).toList());
+    }
+
+    private void stubEntries() {
+        lenient().doReturn(List.of(entry(BalanceOpType.DEBIT, "FEE"))).when(deductFee).balanceEntries(any());
+        doReturn(List.of(entry(BalanceOpType.UNFREEZE_AND_DEBIT, "PAYER"))).when(deductPayer).balanceEntries(any());
+        doReturn(List.of(entry(BalanceOpType.CREDIT, "PAYEE"))).when(creditPayee).balanceEntries(any());
+        lenient().when(accountGateway.executeBatch(any())).thenReturn(true);
+    }
+
+    private BalanceEntry entry(BalanceOpType opType, String requestId) {
+        return BalanceEntry.builder().opType(opType).requestId(requestId).build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<BalanceEntry> batched() {
+        ArgumentCaptor<List<BalanceEntry>> captor = ArgumentCaptor.forClass(List.class);
+        verify(accountGateway).executeBatch(captor.capture());
+        return captor.getValue();
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private List<TransferPhaseRecord> appended(int expected) {
+        ArgumentCaptor<TransferPhaseRecord> captor = ArgumentCaptor.forClass(TransferPhaseRecord.class);
+        verify(phaseJournalRepository, times(expected)).append(captor.capture());
+        return new ArrayList<>(captor.getAllValues());
+    }
+
+    private TransferContext context(TransferStatus status) {
+        TransferOrder order = new TransferOrder();
+        order.setTxnId(TXN_ID);
+        order.setStatus(status);
+        return TransferContext.builder().order(order).build();
+    }
+
+    private TransferPhaseRecord record(TransferPhaseEnum phase, PhaseOutcome outcome, int attempt) {
+        TransferPhaseRecord record = new TransferPhaseRecord();
+        record.setTxnId(TXN_ID);
+        record.setFromStatus(TransferStatus.PENDING_RISK);
+        record.setPhase(phase);
+        record.setOutcome(outcome);
+        record.setAttempt(attempt);
+        return record;
+    }
+}
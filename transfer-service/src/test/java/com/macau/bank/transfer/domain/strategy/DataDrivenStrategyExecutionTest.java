@@ -1,29 +1,42 @@
 package com.macau.bank.transfer.domain.strategy;
 
 import com.macau.bank.common.core.domain.Money;
+import com.macau.bank.common.core.enums.BalanceOpType;
 import com.macau.bank.common.core.enums.BizType;
+import com.macau.bank.common.core.enums.RiskStatus;
 import com.macau.bank.common.core.enums.TransferStatus;
 import com.macau.bank.common.core.enums.TransferType;
+import com.macau.bank.common.core.exception.BusinessException;
+import com.macau.bank.common.core.exception.SystemException;
 import com.macau.bank.transfer.domain.ability.TransferContextBuilder;
 import com.macau.bank.transfer.domain.ability.TransferValidator;
 import com.macau.bank.transfer.domain.context.TransferContext;
 import com.macau.bank.transfer.domain.entity.TransferOrder;
 import com.macau.bank.transfer.domain.gateway.AccountGateway;
 import com.macau.bank.transfer.domain.model.AccountSnapshot;
+import com.macau.bank.transfer.domain.model.BalanceEntry;
 import com.macau.bank.transfer.domain.pipeline.TransferHandler;
 import com.macau.bank.transfer.domain.pipeline.impl.*;
+import com.macau.bank.transfer.domain.repository.TransferPhaseJournalRepository;
+import com.macau.bank.transfer.domain.service.RiskPreScreenDomainService;
+import com.macau.bank.transfer.domain.service.TransferLimitDomainService;
 import com.macau.bank.transfer.domain.service.TransferOrderDomainService;
 import com.macau.bank.transfer.domain.statemachine.StateMachineExecutor;
 import com.macau.bank.transfer.domain.strategy.impl.CrossBorderTransferStrategy;
 import com.macau.bank.transfer.domain.strategy.impl.InternalTransferStrategy;
 import com.macau.bank.transfer.domain.valobj.PayeeInfo;
 import com.macau.bank.transfer.domain.valobj.PayerInfo;
+import org.apache.rocketmq.client.producer.SendCallback;
+import org.apache.rocketmq.client.producer.SendResult;
 import org.apache.rocketmq.spring.core.RocketMQTemplate;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
+import org.mockito.Answers;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
@@ -32,8 +45,13 @@ import org.springframework.transaction.support.TransactionTemplate;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
@@ -66,10 +84,16 @@ class DataDrivenStrategyExecutionTest {
     private TransferOrderDomainService orderDomainService;
     @Mock
     private TransactionTemplate transactionTemplate;
+    @Mock
+    private TransferLimitDomainService limitService;
+    @Mock
+    private TransferPhaseJournalRepository phaseJournalRepository;
+    @Mock
+    private RiskPreScreenDomainService riskPreScreenService;
 
     // === 核心 RPC 依赖 (被 Handler 调用) ===
-    @Mock
-    private AccountGateway accountGateway; // 账户服务
+    @Mock(answer = Answers.CALLS_REAL_METHODS)
+    private AccountGateway accountGateway; // 账户服务 (异步方法走接口默认实现，委托给下面打桩的同步方法)
     @Mock
     private RocketMQTemplate rocketMQTemplate; // MQ
 
@@ -78,6 +102,15 @@ class DataDrivenStrategyExecutionTest {
         // 1. 初始化状态机执行器
         stateMachineExecutor = new StateMachineExecutor();
         ReflectionTestUtils.setField(stateMachineExecutor, "orderDomainService", orderDomainService);
+        ReflectionTestUtils.setField(stateMachineExecutor, "limitService", limitService);
+        ReflectionTestUtils.setField(stateMachineExecutor, "phaseJournalRepository", phaseJournalRepository);
+        ReflectionTestUtils.setField(stateMachineExecutor, "transferPhaseExecutor", (Executor) Runnable::run);
+        ReflectionTestUtils.setField(stateMachineExecutor, "accountGateway", accountGateway);
+        lenient().when(accountGateway.executeBatch(any())).thenReturn(true);
+        lenient().doAnswer(invocation -> {
+            invocation.<SendCallback>getArgument(2).onSuccess(new SendResult());
+            return null;
+        }).when(rocketMQTemplate).asyncSend(anyString(), any(Object.class), any(SendCallback.class));
 
         // 2. === 手动装配真实 Handler 链 ===
         List<TransferHandler> handlers = new ArrayList<>();
@@ -133,6 +166,8 @@ class DataDrivenStrategyExecutionTest {
         ReflectionTestUtils.setField(strategy, "orderDomainService", orderDomainService);
         ReflectionTestUtils.setField(strategy, "accountGateway", accountGateway);
         ReflectionTestUtils.setField(strategy, "stateMachineExecutor", stateMachineExecutor);
+        ReflectionTestUtils.setField(strategy, "limitService", limitService);
+        ReflectionTestUtils.setField(strategy, "riskPreScreenService", riskPreScreenService);
     }
 
     @DisplayName("验证全流程：策略解析 -> Handler执行 -> RPC调用")
@@ -188,7 +223,7 @@ class DataDrivenStrategyExecutionTest {
 
         if (initStatus == TransferStatus.INIT) {
             // 提交阶段：App -> Strategy.execute
-            TransferContext executedContext = strategy.execute(context);
+            TransferContext executedContext = strategy.execute(context).join();
             assertEquals(expectedStatus, executedContext.getOrder().getStatus());
         } else {
             // 回调阶段：StateMachine.drive
@@ -205,36 +240,204 @@ class DataDrivenStrategyExecutionTest {
                     .freeze(eq(payerNo), any(), eq(amount), eq(order.getTxnId()), any());
 
             verify(rocketMQTemplate, times(1).description("必须发送风控消息"))
-                    .convertAndSend(anyString(), any(Object.class));
+                    .asyncSend(anyString(), any(Object.class), any(SendCallback.class));
 
             verify(accountGateway, never()).debit(any(), any(), any(), any(), any(), any()); // 不应扣款
+
+            verify(limitService, description("落库后必须占用累计限额")).reserveCumulativeLimit(context);
         }
 
-        // 2. PENDING_RISK -> SUCCESS: 应该 扣费 + 扣款(实扣) + 入账(行内only)
+        // 2. PENDING_RISK -> SUCCESS: 扣费 + 扣款(实扣) + 入账(行内only) 合并为一次批量记账
         if (initStatus == TransferStatus.PENDING_RISK && isRiskPass) {
+            @SuppressWarnings("unchecked")
+            ArgumentCaptor<List<BalanceEntry>> captor = ArgumentCaptor.forClass(List.class);
+            verify(accountGateway, times(1).description("结算必须一次批量记账")).executeBatch(captor.capture());
+            List<BalanceEntry> entries = captor.getValue();
+
             // 2.1 扣费
-            verify(accountGateway).debit(eq(payerNo), any(), eq(fee), any(), any(), contains("_FEE"));
+            BalanceEntry feeEntry = entries.get(0);
+            assertEquals(BalanceOpType.DEBIT, feeEntry.getOpType());
+            assertEquals(payerNo, feeEntry.getAccountNo());
+            assertEquals(fee, feeEntry.getAmount());
+            assertEquals(order.getIdempotentKey() + "_FEE", feeEntry.getRequestId());
 
             // 2.2 实扣 (unfreezeAndDebit)
-            verify(accountGateway).unfreezeAndDebit(eq(payerNo), any(), eq(amount), eq(order.getTxnId()),
-                    any(), eq(BizType.TRANSFER_OUT), contains("_PAYER"));
+            BalanceEntry payerEntry = entries.get(1);
+            assertEquals(BalanceOpType.UNFREEZE_AND_DEBIT, payerEntry.getOpType());
+            assertEquals(payerNo, payerEntry.getAccountNo());
+            assertEquals(amount, payerEntry.getAmount());
+            assertEquals(order.getTxnId(), payerEntry.getFlowNo());
+            assertEquals(BizType.TRANSFER_OUT, payerEntry.getBizType());
+            assertEquals(order.getIdempotentKey() + "_PAYER", payerEntry.getRequestId());
 
             // 2.3 入账 (仅行内)
             if (type == TransferType.INTERNAL) {
-                verify(accountGateway).credit(eq(payeeNo), any(), eq(amount), any(), eq(order.getTxnId()),
-                        contains("_PAYEE"));
+                assertEquals(3, entries.size());
+                BalanceEntry payeeEntry = entries.get(2);
+                assertEquals(BalanceOpType.CREDIT, payeeEntry.getOpType());
+                assertEquals(payeeNo, payeeEntry.getAccountNo());
+                assertEquals(amount, payeeEntry.getAmount());
+                assertEquals(order.getTxnId(), payeeEntry.getBizNo());
+                assertEquals(order.getIdempotentKey() + "_PAYEE", payeeEntry.getRequestId());
             } else {
-                verify(accountGateway, never()).credit(any(), any(), any(), any(), any(), any());
                 // 跨境应该走 NotifySwift (Console Log, 无法 verification mocks unless we spy handler
                 // or check logger)
-                // 这里主要通过 absence of credit call 验证
+                // 这里主要通过 absence of credit entry 验证
+                assertEquals(2, entries.size());
             }
+
+            // 不再逐笔调用账户服务
+            verify(accountGateway, never()).debit(any(), any(), any(), any(), any(), any());
+            verify(accountGateway, never()).unfreezeAndDebit(any(), any(), any(), any(), any(), any(), any());
+            verify(accountGateway, never()).credit(any(), any(), any(), any(), any(), any());
         }
 
         // 3. PENDING_RISK -> FAILED: 应该 解冻
         if (initStatus == TransferStatus.PENDING_RISK && !isRiskPass) {
             verify(accountGateway).unFreeze(eq(payerNo), any(), eq(amount), eq(order.getTxnId()), any());
             verify(accountGateway, never()).unfreezeAndDebit(any(), any(), any(), any(), any(), any(), any());
+
+            verify(limitService, description("失败订单必须退回累计限额")).releaseCumulativeLimit(order);
+        } else {
+            verify(limitService, never()).releaseCumulativeLimit(any());
         }
     }
+
+    @Test
+    @DisplayName("风控预筛放行：冻结后不发风控消息，同一请求内结算成功")
+    void preScreenClearedShouldSettleInline() {
+        TransferContext context = internalContext();
+        when(riskPreScreenService.clear(context)).thenReturn(true);
+
+        internalStrategy.execute(context).join();
+
+        TransferOrder order = context.getOrder();
+        verify(accountGateway).freeze(eq("888001"), any(), any(), eq(order.getTxnId()), any());
+        verify(rocketMQTemplate, never()).asyncSend(anyString(), any(Object.class), any(SendCallback.class));
+        verify(accountGateway).executeBatch(any());
+        assertEquals(TransferStatus.SUCCESS, order.getStatus());
+        assertEquals(RiskStatus.PASSED, order.getRiskStatus());
+    }
+
+    @Test
+    @DisplayName("风控预筛放行但结算失败：补发风控消息，保持风控中")
+    void inlineSettleFailureShouldFallBackToAsyncRisk() {
+        TransferContext context = internalContext();
+        when(riskPreScreenService.clear(context)).thenReturn(true);
+        when(accountGateway.executeBatch(any())).thenThrow(new SystemException("账户服务不可用"));
+        when(accountGateway.unfreezeAndDebit(any(), any(), any(), any(), any(), any(), any()))
+                .thenThrow(new SystemException("账户服务不可用"));
+
+        internalStrategy.execute(context).join();
+
+        TransferOrder order = context.getOrder();
+        verify(rocketMQTemplate, times(1).description("结算失败后必须交还异步风控"))
+                .asyncSend(anyString(), any(Object.class), any(SendCallback.class));
+        verify(accountGateway, never()).credit(any(), any(), any(), any(), any(), any());
+        assertEquals(TransferStatus.PENDING_RISK, order.getStatus());
+        assertNull(order.getRiskStatus());
+    }
+
+    @Test
+    @DisplayName("预筛放行后结算超时且补发风控消息失败：解冻，订单置为待补偿")
+    void settleAndFallbackFailureShouldUnfreezeAndHoldForCompensation() {
+        TransferContext context = internalContext();
+        when(riskPreScreenService.clear(context)).thenReturn(true);
+        when(accountGateway.executeBatch(any())).thenThrow(new SystemException("账户服务超时"));
+        when(accountGateway.unfreezeAndDebit(any(), any(), any(), any(), any(), any(), any()))
+                .thenThrow(new SystemException("账户服务超时"));
+        failRiskMq("MQ 不可用");
+
+        CompletionException ex = assertThrows(CompletionException.class,
+                () -> internalStrategy.execute(context).join());
+        assertInstanceOf(SystemException.class, ex.getCause());
+
+        TransferOrder order = context.getOrder();
+        verify(accountGateway, description("不再有风控回调，必须当场解冻"))
+                .unFreeze(eq("888001"), eq("MOP"), eq(new BigDecimal("100.00")), eq(order.getTxnId()), any());
+        // 扣款可能已落地，不能直接判定失败
+        assertEquals(TransferStatus.PENDING_COMPENSATION, order.getStatus());
+        verify(limitService, never()).releaseCumulativeLimit(any());
+    }
+
+    @Test
+    @DisplayName("预筛放行后结算被账户服务拒绝且补发风控消息失败：解冻，订单置为失败")
+    void settleRejectedAndFallbackFailureShouldUnfreezeAndFail() {
+        TransferContext context = internalContext();
+        when(riskPreScreenService.clear(context)).thenReturn(true);
+        when(accountGateway.executeBatch(any())).thenThrow(new BusinessException(200001, "余额不足"));
+        failRiskMq("MQ 不可用");
+
+        CompletionException ex = assertThrows(CompletionException.class,
+                () -> internalStrategy.execute(context).join());
+        assertInstanceOf(SystemException.class, ex.getCause());
+
+        TransferOrder order = context.getOrder();
+        verify(accountGateway).unFreeze(eq("888001"), any(), any(), eq(order.getTxnId()), any());
+        assertEquals(TransferStatus.FAILED, order.getStatus());
+        assertEquals("余额不足", order.getFailReason());
+        verify(limitService).releaseCumulativeLimit(order);
+    }
+
+    @Test
+    @DisplayName("INIT 驱动失败 (冻结超时)：按 txnId 解冻，订单置为失败并退回限额")
+    void initFailureShouldUnfreezeAndFail() {
+        TransferContext context = internalContext();
+        when(accountGateway.freeze(any(), any(), any(), any(), any())).thenThrow(new SystemException("冻结超时"));
+
+        CompletionException ex = assertThrows(CompletionException.class,
+                () -> internalStrategy.execute(context).join());
+        assertInstanceOf(SystemException.class, ex.getCause());
+
+        TransferOrder order = context.getOrder();
+        verify(accountGateway, description("冻结可能迟到落地，必须按 txnId 解冻"))
+                .unFreeze(eq("888001"), eq("MOP"), eq(new BigDecimal("100.00")), eq(order.getTxnId()), any());
+        verify(rocketMQTemplate, never()).asyncSend(anyString(), any(Object.class), any(SendCallback.class));
+        verify(limitService).releaseCumulativeLimit(order);
+        assertEquals(TransferStatus.FAILED, order.getStatus());
+        assertEquals("冻结超时", order.getFailReason());
+    }
+
+    @Test
+    @DisplayName("INIT 驱动在发风控消息时失败：消息可能已投递，不解冻，订单保持 INIT")
+    void riskMqFailureShouldNotUnfreeze() {
+        TransferContext context = internalContext();
+        failRiskMq("MQ 发送超时");
+
+        CompletionException ex = assertThrows(CompletionException.class,
+                () -> internalStrategy.execute(context).join());
+        assertInstanceOf(SystemException.class, ex.getCause());
+
+        TransferOrder order = context.getOrder();
+        verify(accountGateway).freeze(eq("888001"), any(), any(), eq(order.getTxnId()), any());
+        verify(accountGateway, never()).unFreeze(any(), any(), any(), any(), any());
+        verify(limitService, never()).releaseCumulativeLimit(any());
+        assertEquals(TransferStatus.INIT, order.getStatus());
+    }
+
+    /**
+     * 风控消息发送失败 (异步回调 onException)
+     */
+    private void failRiskMq(String message) {
+        doAnswer(invocation -> {
+            invocation.<SendCallback>getArgument(2).onException(new SystemException(message));
+            return null;
+        }).when(rocketMQTemplate).asyncSend(anyString(), any(Object.class), any(SendCallback.class));
+    }
+
+    private TransferContext internalContext() {
+        TransferOrder order = new TransferOrder();
+        order.setTxnId("TXN_" + System.currentTimeMillis());
+        order.setIdempotentKey("KEY_" + System.currentTimeMillis());
+        order.setPayerInfo(PayerInfo.builder().accountNo("888001").currency("MOP").build());
+        order.setPayeeInfo(PayeeInfo.builder().accountNo("888002").build());
+        order.setAmount(Money.of(new BigDecimal("100.00"), "MOP"));
+        order.setFee(BigDecimal.ZERO);
+        order.setStatus(TransferStatus.INIT);
+
+        AccountSnapshot payee = new AccountSnapshot();
+        payee.setAccountNo("888002");
+        when(accountGateway.getAccount("888002")).thenReturn(payee);
+        return TransferContext.builder().order(order).build();
+    }
 }
@@ -66,7 +66,9 @@ class TransferStateMachineParameterizedTest {
             TransferStatus expectedTargetStatus = TransferStatus.valueOf(expectedTargetStatusStr);
             assertEquals(expectedTargetStatus, transition.getNextStatus(),
                     "目标状态不匹配");
-            assertEquals(expectedHandlerCount, transition.getHandlers().size(),
+            // 合并阶段按成员阶段计数
+            assertEquals(expectedHandlerCount, transition.getHandlers().stream()
+                            .mapToInt(phase -> phase.isFused() ? phase.getFusedPhases().size() : 1).sum(),
                     "Handler 数量不匹配");
         }
     }
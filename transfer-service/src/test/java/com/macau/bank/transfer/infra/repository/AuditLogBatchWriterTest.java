@@ -0,0 +1,191 @@
+package com.macau.bank.transfer.infra.repository;
+
+import com.macau.bank.transfer.domain.entity.AuditLog;
+import com.macau.bank.transfer.infra.config.AuditWriterProperties;
+import com.macau.bank.transfer.infra.mapper.AuditLogMapper;
+import com.macau.bank.transfer.infra.persistent.po.AuditLogPO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * 审计日志异步批量写入测试
+ * <p>
+ * 核心场景：
+ * 1. 多条审计日志合并为一次多行 INSERT
+ * 2. 写库失败时落本地溢出日志，恢复后回放，不丢失
+ * 3. 队列已满时业务线程直接落本地 (背压)
+ */
+@DisplayName("审计日志异步批量写入测试")
+class AuditLogBatchWriterTest {
+
+    private static final LocalDateTime CREATE_TIME = LocalDateTime.of(2026, 3, 15, 10, 30, 15);
+
+    @TempDir
+    Path spillDir;
+
+    private final AuditLogMapper auditLogMapper = mock(AuditLogMapper.class);
+
+    private final List<AuditLogPO> inserted = new CopyOnWriteArrayList<>();
+
+    private AuditLogBatchWriter writer;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (writer != null) {
+            writer.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("多条审计日志合并为一次多行 INSERT")
+    void shouldInsertInBatches() throws Exception {
+        CountDownLatch firstInsert = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            firstInsert.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            inserted.addAll(invocation.getArgument(0));
+            return 0;
+        }).when(auditLogMapper).insertBatch(anyList());
+        writer = newWriter(properties(1024, 50));
+
+        // 第一条进入写库后阻塞写线程，其余在队列中堆积，放行后应按批写入
+        assertTrue(writer.submit(audit("T0")));
+        assertTrue(firstInsert.await(5, TimeUnit.SECONDS));
+        for (int i = 1; i <= 120; i++) {
+            writer.submit(audit("T" + i));
+        }
+        release.countDown();
+
+        awaitTrue(() -> inserted.size() == 121);
+        AuditLogBatchWriter.AuditWriterMetrics metrics = writer.metrics();
+        assertEquals(121, metrics.submitted());
+        assertEquals(121, metrics.written());
+        // 1 + 50 + 50 + 20
+        assertTrue(metrics.batches() <= 4, "batches=" + metrics.batches());
+        assertEquals(0, metrics.overflowSpills() + metrics.degradedSpills());
+    }
+
+    @Test
+    @DisplayName("写库失败时落本地溢出日志，恢复后回放")
+    void shouldSpillOnFailureAndReplay() throws Exception {
+        AtomicBoolean dbDown = new AtomicBoolean(true);
+        doAnswer(invocation -> {
+            if (dbDown.get()) {
+                throw new IllegalStateException("db down");
+            }
+            inserted.addAll(invocation.getArgument(0));
+            return 0;
+        }).when(auditLogMapper).insertBatch(anyList());
+        AuditWriterProperties properties = properties(1024, 50);
+        properties.setDegradeMillis(100);
+        properties.setReplayIntervalMillis(10);
+        writer = newWriter(properties);
+
+        for (int i = 0; i < 10; i++) {
+            writer.submit(audit("T" + i));
+        }
+        awaitTrue(() -> writer.metrics().degradedSpills() == 10);
+        // 降级期间的回放尝试会把 audit-spill.log 切换为待回放文件，只断言溢出记录仍在本地
+        assertTrue(spillFileCount() > 0);
+
+        dbDown.set(false);
+        // 写库先于回放计数与删除溢出文件完成，须等回放整体结束
+        awaitTrue(() -> writer.metrics().replayed() == 10 && spillFileCount() == 0);
+
+        assertEquals(10, inserted.size());
+        assertEquals(CREATE_TIME, inserted.get(0).getCreateTime());
+        assertEquals("TRANSFER_SUBMIT", inserted.get(0).getAction());
+    }
+
+    @Test
+    @DisplayName("队列已满时直接落本地，不阻塞业务线程")
+    void shouldSpillWhenRingFull() throws Exception {
+        CountDownLatch firstInsert = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            firstInsert.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return 0;
+        }).when(auditLogMapper).insertBatch(anyList());
+        writer = newWriter(properties(4, 4));
+
+        writer.submit(audit("T0"));
+        assertTrue(firstInsert.await(5, TimeUnit.SECONDS));
+        for (int i = 1; i <= 10; i++) {
+            assertTrue(writer.submit(audit("T" + i)));
+        }
+
+        AuditLogBatchWriter.AuditWriterMetrics metrics = writer.metrics();
+        assertEquals(6, metrics.overflowSpills());
+        assertEquals(4, metrics.queueDepth());
+        assertEquals(6, Files.readAllLines(spillDir.resolve("audit-spill.log")).size());
+        release.countDown();
+    }
+
+    private AuditLogBatchWriter newWriter(AuditWriterProperties properties) {
+        AuditLogBatchWriter batchWriter = new AuditLogBatchWriter();
+        ReflectionTestUtils.setField(batchWriter, "auditLogMapper", auditLogMapper);
+        ReflectionTestUtils.setField(batchWriter, "auditWriterProperties", properties);
+        batchWriter.start();
+        return batchWriter;
+    }
+
+    private AuditWriterProperties properties(int ringCapacity, int maxBatchSize) {
+        AuditWriterProperties properties = new AuditWriterProperties();
+        properties.setEnabled(true);
+        properties.setRingCapacity(ringCapacity);
+        properties.setMaxBatchSize(maxBatchSize);
+        properties.setMaxWaitMillis(5);
+        properties.setSpillDir(spillDir.toString());
+        return properties;
+    }
+
+    private static AuditLog audit(String targetId) {
+        AuditLog auditLog = new AuditLog();
+        auditLog.setTraceId("trace-" + targetId);
+        auditLog.setUserId("U001");
+        auditLog.setAction("TRANSFER_SUBMIT");
+        auditLog.setTargetType("TRANSFER_ORDER");
+        auditLog.setTargetId(targetId);
+        auditLog.setResult("SUCCESS");
+        auditLog.setDuration(12L);
+        auditLog.setCreateTime(CREATE_TIME);
+        return auditLog;
+    }
+
+    private long spillFileCount() {
+        try (var files = Files.list(spillDir)) {
+            return files.count();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "等待超时");
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.macau.bank.transfer.infra.repository;
+
+import com.macau.bank.common.core.domain.Money;
+import com.macau.bank.common.core.enums.RiskLevel;
+import com.macau.bank.common.core.enums.RiskStatus;
+import com.macau.bank.common.core.enums.TransferStatus;
+import com.macau.bank.common.core.enums.TransferType;
+import com.macau.bank.common.core.enums.UserLevel;
+import com.macau.bank.transfer.domain.context.TransferContext;
+import com.macau.bank.transfer.domain.entity.TransferOrder;
+import com.macau.bank.transfer.domain.model.AccountSnapshot;
+import com.macau.bank.transfer.domain.valobj.PayeeInfo;
+import com.macau.bank.transfer.domain.valobj.PayerInfo;
+import com.macau.bank.transfer.infra.config.TransferContextCacheProperties;
+import com.macau.bank.transfer.infra.persistent.converter.TransferOrderPOConverter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mapstruct.factory.Mappers;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * 转账上下文暂存测试
+ * <p>
+ * 核心场景：
+ * 1. 暂存后取回一次 (本地命中)，再次取回未命中
+ * 2. 其他节点从 Redis 取回，订单与账户快照完整还原，不含交易密码
+ * 3. 回调先于暂存到达、订单作废后暂存不再生效
+ * 4. Redis 出错时取回返回 null
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("转账上下文暂存测试")
+class TransferContextCacheRepositoryImplTest {
+
+    private static final String KEY = "transfer:context:TR1001";
+
+    @Spy
+    private TransferContextCacheProperties contextCacheProperties = new TransferContextCacheProperties();
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    @Spy
+    private TransferOrderPOConverter orderPOConverter = Mappers.getMapper(TransferOrderPOConverter.class);
+
+    @InjectMocks
+    private TransferContextCacheRepositoryImpl repository;
+
+    /**
+     * 模拟 Redis
+     */
+    private final Map<String, String> redis = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        contextCacheProperties.setEnabled(true);
+        repository.init();
+
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class)))
+                .thenAnswer(inv -> redis.putIfAbsent(inv.getArgument(0), inv.getArgument(1)) == null);
+        doAnswer(inv -> redis.put(inv.getArgument(0), inv.getArgument(1)))
+                .when(valueOperations).set(anyString(), anyString(), any(Duration.class));
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenAnswer(inv -> {
+            String key = ((List<String>) inv.getArgument(1)).get(0);
+            String tombstone = inv.getArgument(2);
+            String value = redis.put(key, tombstone);
+            if (value == null || value.equals(tombstone)) {
+                return "";
+            }
+            return "1".equals(inv.getArgument(4)) ? value : "1";
+        });
+    }
+
+    @Test
+    @DisplayName("暂存后只能取回一次，本地命中时订单为独立副本")
+    void savedContextShouldBeTakenOnce() {
+        TransferContext context = context();
+        repository.save(context);
+
+        TransferContext taken = repository.take("TR1001");
+        assertNotNull(taken);
+        assertNotSame(context.getOrder(), taken.getOrder());
+        assertEquals(TransferStatus.PENDING_RISK, taken.getOrder().getStatus());
+        assertEquals(UserLevel.VIP, taken.getPayerUserLevel());
+
+        assertNull(repository.take("TR1001"));
+        assertEquals(1, repository.metrics().localHits());
+        assertEquals(1, repository.metrics().misses());
+    }
+
+    @Test
+    @DisplayName("其他节点从 Redis 取回：订单与快照完整还原，不含交易密码")
+    void otherNodeShouldRestoreFromRedis() {
+        repository.save(context());
+        assertFalse(redis.get(KEY).contains("pwd-123456"));
+
+        TransferContextCacheRepositoryImpl otherNode = new TransferContextCacheRepositoryImpl();
+        ReflectionTestUtils.setField(otherNode, "contextCacheProperties", contextCacheProperties);
+        ReflectionTestUtils.setField(otherNode, "stringRedisTemplate", stringRedisTemplate);
+        ReflectionTestUtils.setField(otherNode, "orderPOConverter", orderPOConverter);
+        otherNode.init();
+
+        TransferContext taken = otherNode.take("TR1001");
+
+        assertNotNull(taken);
+        TransferOrder order = taken.getOrder();
+        assertEquals(new BigDecimal("100.00"), order.getAmount().getAmount());
+        assertEquals(new BigDecimal("1.50"), order.getFee());
+        assertEquals("U001", order.getPayerInfo().getUserNo());
+        assertEquals("888002", order.getPayeeInfo().getAccountNo());
+        assertEquals(TransferType.INTERNAL, order.getTransferType());
+        assertEquals(RiskStatus.PENDING, order.getRiskStatus());
+        assertEquals(LocalDateTime.of(2026, 1, 2, 3, 4, 5), order.getCreateTime());
+        assertEquals(RiskLevel.LOW, taken.getPayerAccount().getRiskLevel());
+        assertEquals("888002", taken.getPayeeAccount().getAccountNo());
+        assertEquals(UserLevel.VIP, taken.getPayerUserLevel());
+        assertTrue(taken.getSingleLimitPassed());
+        assertNull(taken.getTransactionPassword());
+        assertEquals(1, otherNode.metrics().redisHits());
+
+        // 提交节点的本地副本已随 Redis 中的取回失效
+        assertNull(repository.take("TR1001"));
+    }
+
+    @Test
+    @DisplayName("回调先于暂存到达或订单已作废：暂存不再生效")
+    void takenOrEvictedShouldRejectSave() {
+        assertNull(repository.take("TR1001"));
+        repository.save(context());
+        assertNull(repository.take("TR1001"));
+        assertEquals(1, repository.metrics().rejectedSaves());
+
+        redis.clear();
+        repository.save(context());
+        repository.evict("TR1001");
+        assertNull(repository.take("TR1001"));
+        assertEquals(0, repository.metrics().localHits());
+    }
+
+    @Test
+    @DisplayName("Redis 出错：取回返回 null，由调用方回表")
+    void redisErrorShouldFallBack() {
+        repository.save(context());
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenThrow(new IllegalStateException("redis down"));
+
+        assertNull(repository.take("TR1001"));
+        assertEquals(1, repository.metrics().errors());
+    }
+
+    private TransferContext context() {
+        TransferOrder order = new TransferOrder();
+        order.setTxnId("TR1001");
+        order.setTransferType(TransferType.INTERNAL);
+        order.setStatus(TransferStatus.PENDING_RISK);
+        order.setRiskStatus(RiskStatus.PENDING);
+        order.setAmount(Money.of(new BigDecimal("100.00"), "MOP"));
+        order.setFee(new BigDecimal("1.50"));
+        order.setCreateTime(LocalDateTime.of(2026, 1, 2, 3, 4, 5));
+        order.setPayerInfo(PayerInfo.builder().userNo("U001").accountNo("888001").currency("MOP").build());
+        order.setPayeeInfo(PayeeInfo.builder().accountNo("888002").build());
+
+        AccountSnapshot payer = new AccountSnapshot();
+        payer.setAccountNo("888001");
+        payer.setRiskLevel(RiskLevel.LOW);
+        AccountSnapshot payee = new AccountSnapshot();
+        payee.setAccountNo("888002");
+
+        TransferContext context = TransferContext.builder().order(order).payerAccount(payer).payeeAccount(payee).build();
+        context.setPayerUserLevel(UserLevel.VIP);
+        context.setSingleLimitPassed(true);
+        context.setTransactionPassword("pwd-123456");
+        return context;
+    }
+}
@@ -0,0 +1,139 @@
+package com.macau.bank.transfer.infra.repository;
+
+import com.macau.bank.common.core.enums.TransferType;
+import com.macau.bank.transfer.infra.mapper.TransferOrderMapper;
+import com.macau.bank.transfer.infra.persistent.po.TransferOrderPO;
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisScriptingCommands;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * 累计限额用量重建测试
+ * <p>
+ * 核心场景：
+ * 1. 按 (订单合计 - 重建前计数) 的差额调整计数器，重建期间新增的占用不被覆盖
+ * 2. 订单表中已无占用的遗留计数器调整为 0
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("累计限额用量重建测试")
+class TransferLimitUsageRepositoryImplTest {
+
+    private static final String U1_KEY = "transfer:limit:usage:{U001}:INTERNAL:MOP:D20260315";
+    private static final String U2_KEY = "transfer:limit:usage:{U002}:INTERNAL:MOP:D20260315";
+    private static final String U3_KEY = "transfer:limit:usage:{U003}:INTERNAL:MOP:D20260315";
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    @Mock
+    private TransferOrderMapper transferOrderMapper;
+
+    @Mock
+    private Cursor<String> cursor;
+
+    @Mock
+    private RedisConnection connection;
+
+    @Mock
+    private RedisScriptingCommands scriptingCommands;
+
+    @InjectMocks
+    private TransferLimitUsageRepositoryImpl repository;
+
+    /**
+     * 计数器 -> 脚本调整的差额
+     */
+    private final Map<String, Long> adjusted = new HashMap<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        when(stringRedisTemplate.scan(any(ScanOptions.class))).thenReturn(cursor);
+        doAnswer(inv -> {
+            List.of(U1_KEY, U2_KEY).forEach(inv.getArgument(0));
+            return null;
+        }).when(cursor).forEachRemaining(any());
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.multiGet(anyList())).thenReturn(Arrays.asList("10000", "5000"));
+
+        when(connection.scriptingCommands()).thenReturn(scriptingCommands);
+        when(scriptingCommands.eval(any(byte[].class), eq(ReturnType.INTEGER), anyInt(), any(byte[][].class)))
+                .thenAnswer(inv -> {
+                    adjusted.put(new String((byte[]) inv.getArgument(3), StandardCharsets.UTF_8),
+                            Long.parseLong(new String((byte[]) inv.getArgument(4), StandardCharsets.UTF_8)));
+                    return 1L;
+                });
+        when(stringRedisTemplate.executePipelined(any(RedisCallback.class))).thenAnswer(inv -> {
+            ((RedisCallback<Object>) inv.getArgument(0)).doInRedis(connection);
+            return new ArrayList<>();
+        });
+    }
+
+    @Test
+    @DisplayName("按差额调整计数器，遗留计数器调整为 0")
+    @SuppressWarnings("unchecked")
+    void rebuildShouldApplyDeltasAndClearStaleCounters() {
+        doAnswer(inv -> {
+            ResultHandler<TransferOrderPO> handler = inv.getArgument(2);
+            handler.handleResult(result(order("U001", "60.00")));
+            handler.handleResult(result(order("U001", "40.00")));
+            handler.handleResult(result(order("U003", "25.50")));
+            return null;
+        }).when(transferOrderMapper).streamLimitUsage(any(), any(), any());
+
+        int counters = repository.rebuildDaily(LocalDate.of(2026, 3, 15));
+
+        assertEquals(3, counters);
+        // U001 已与订单一致；U002 订单已全部失败，遗留 50.00 扣回 0；U003 计数器丢失，补回 25.50
+        assertEquals(Map.of(U2_KEY, -5000L, U3_KEY, 2550L), adjusted);
+    }
+
+    private static TransferOrderPO order(String userNo, String amount) {
+        TransferOrderPO po = new TransferOrderPO();
+        po.setUserNo(userNo);
+        po.setTransferType(TransferType.INTERNAL);
+        po.setCurrencyCode("MOP");
+        po.setAmount(new BigDecimal(amount));
+        return po;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ResultContext<TransferOrderPO> result(TransferOrderPO po) {
+        ResultContext<TransferOrderPO> context = mock(ResultContext.class);
+        when(context.getResultObject()).thenReturn(po);
+        return context;
+    }
+}
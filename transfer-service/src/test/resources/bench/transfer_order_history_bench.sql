@@ -0,0 +1,100 @@
+-- =============================================
+-- 转账记录查询基准：1000 万订单 (MySQL 8.0)
+-- =============================================
+-- 用法：在独立库中先执行 db/init.sql 建表，再执行本脚本。
+-- 数据分布：20 万用户；其中 U0000000 为重度用户 (约 5 万笔)，其余均匀分布；
+-- 状态 SUCCESS/FAILED/PROCESSING ≈ 90%/8%/2%，通道 INTERNAL/FPS/SWIFT ≈ 70%/20%/10%。
+-- 对比项：
+--   A. 旧实现：按 user_no 过滤、create_time 排序、无 LIMIT、读取全部列
+--   B. 旧实现 + OFFSET 分页 (深翻页)
+--   C. 新实现：idx_user_create_time 上的键集分页，只读列表列
+-- 关注 EXPLAIN ANALYZE 中的 rows examined / actual time，以及 B 随 OFFSET 增长、C 保持不变。
+
+SET SESSION cte_max_recursion_depth = 10000;
+
+DROP TABLE IF EXISTS bench_seq;
+CREATE TABLE bench_seq (n INT PRIMARY KEY) ENGINE = InnoDB;
+INSERT INTO bench_seq (n)
+WITH RECURSIVE s(n) AS (SELECT 0 UNION ALL SELECT n + 1 FROM s WHERE n < 9999)
+SELECT n FROM s;
+
+DROP PROCEDURE IF EXISTS bench_seed_transfer_order;
+DELIMITER $$
+CREATE PROCEDURE bench_seed_transfer_order()
+BEGIN
+    DECLARE batch INT DEFAULT 0;
+    -- 每批 1 万行，共 1000 批，单批单事务避免大事务
+    WHILE batch < 1000 DO
+        INSERT INTO transfer_order (txn_id, idempotent_key, user_no, payer_account_no, payer_account_name,
+                                    payer_currency, payee_account_no, payee_account_name, amount, currency_code, fee,
+                                    transfer_type, transfer_channel, status, create_time, update_time)
+        SELECT CONCAT('BT', LPAD(batch * 10000 + n, 10, '0')),
+               CONCAT('BK', LPAD(batch * 10000 + n, 10, '0')),
+               IF((batch * 10000 + n) % 200 = 0, 'U0000000',
+                  CONCAT('U', LPAD((batch * 10000 + n) % 200000, 7, '0'))),
+               IF((batch * 10000 + n) % 200 = 0, '88880000000',
+                  CONCAT('8888', LPAD((batch * 10000 + n) % 200000, 7, '0'))),
+               'BENCH',
+               'MOP',
+               CONCAT('9999', LPAD(n % 5000, 8, '0')),
+               'PAYEE',
+               ROUND(1 + RAND() * 10000, 2),
+               'MOP',
+               0.00,
+               'NORMAL',
+               ELT(1 + (n % 10 >= 7) + (n % 10 = 9), 'INTERNAL', 'FPS', 'SWIFT'),
+               ELT(1 + (n % 50 >= 45) + (n % 50 = 49), 'SUCCESS', 'FAILED', 'PROCESSING'),
+               TIMESTAMP('2021-01-01') + INTERVAL (batch * 10000 + n) * 9 SECOND,
+               TIMESTAMP('2021-01-01') + INTERVAL (batch * 10000 + n) * 9 SECOND
+        FROM bench_seq;
+        COMMIT;
+        SET batch = batch + 1;
+    END WHILE;
+END$$
+DELIMITER ;
+
+CALL bench_seed_transfer_order();
+ANALYZE TABLE transfer_order;
+
+-- A. 旧实现：全部历史一次读入
+EXPLAIN ANALYZE
+SELECT * FROM transfer_order
+WHERE user_no = 'U0000000' AND deleted = 0
+ORDER BY create_time DESC;
+
+-- B. OFFSET 深翻页 (第 2000 页，每页 20 条)
+EXPLAIN ANALYZE
+SELECT * FROM transfer_order
+WHERE user_no = 'U0000000' AND deleted = 0
+ORDER BY create_time DESC
+LIMIT 39980, 20;
+
+-- C1. 键集分页首页，带状态与通道过滤
+EXPLAIN ANALYZE
+SELECT id, txn_id, user_no, payer_account_no, payee_account_no, payee_account_name, amount, currency_code,
+       fee, transfer_type, transfer_channel, status, create_time
+FROM transfer_order
+WHERE user_no = 'U0000000' AND deleted = 0
+  AND status = 'SUCCESS' AND transfer_channel = 'FPS'
+ORDER BY create_time DESC, id DESC
+LIMIT 21;
+
+-- C2. 键集分页深翻页：游标取自 B 中同一位置的记录
+SELECT create_time, id INTO @cursor_time, @cursor_id
+FROM transfer_order
+WHERE user_no = 'U0000000' AND deleted = 0
+ORDER BY create_time DESC, id DESC
+LIMIT 39979, 1;
+
+EXPLAIN ANALYZE
+SELECT id, txn_id, user_no, payer_account_no, payee_account_no, payee_account_name, amount, currency_code,
+       fee, transfer_type, transfer_channel, status, create_time
+FROM transfer_order
+WHERE user_no = 'U0000000' AND deleted = 0
+  AND create_time <= @cursor_time
+  AND (create_time < @cursor_time OR id < @cursor_id)
+ORDER BY create_time DESC, id DESC
+LIMIT 21;
+
+DROP PROCEDURE IF EXISTS bench_seed_transfer_order;
+DROP TABLE IF EXISTS bench_seq;